@@ -0,0 +1,303 @@
+package org.example.bench.corpus;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * Générateur de projets Java synthétiques de forme connue (benchmarks, tests de montée en charge).
+ * Même forme + même graine = mêmes sources. Arborescence Maven : {@code src/main/java/gen/pK/Ci.java},
+ * lisible par ProjectParser (JDT) comme par SpoonParser.
+ *
+ * Chaque classe Ci (nom simple unique, comme l’attendent les analyseurs) a des méthodes d’instance
+ * {@code int mX(int)} et une méthode statique {@code int s(int)} ; chaque appel passe par un champ, un appel
+ * statique ou un objet créé sur place, et vise toujours une autre classe : chaque appel généré est une arête
+ * du graphe de couplage. Le code n’est jamais exécuté, seulement analysé.
+ *
+ * Répartition des appels ({@link Distribution}) :
+ *  - modules plantés : chaque package est un module, une fraction {@code intraModuleRatio} des appels reste
+ *    dans le package, le reste vise une classe quelconque ; les modules attendus sont connus ({@link Generated#modules()}) ;
+ *  - loi de puissance : la classe de rang r (ordre aléatoire) est visée avec un poids 1 / (r + 1)^exposant ;
+ *  - uniforme : toute autre classe avec la même probabilité.
+ */
+public final class SyntheticProject {
+
+    public enum Distribution { PLANTED_MODULES, POWER_LAW, UNIFORM }
+
+    /**
+     * Forme du projet.
+     * @param calls nombre total d’appels (arêtes), répartis au plus juste entre classes puis entre méthodes
+     * @param intraModuleRatio modules plantés : probabilité qu’un appel reste dans le package
+     * @param exponent loi de puissance : exposant (1.0 = Zipf)
+     */
+    public record Shape(int packages, int classes, int methodsPerClass, int calls,
+                        Distribution distribution, double intraModuleRatio, double exponent, long seed) {
+
+        public Shape {
+            if (classes < 1 || packages < 1 || packages > classes || methodsPerClass < 1 || calls < 0) {
+                throw new IllegalArgumentException("Forme invalide : " + packages + " packages, " + classes
+                        + " classes, " + methodsPerClass + " méthodes, " + calls + " appels");
+            }
+        }
+
+        /** Forme des benchmarks : modules plantés de 20 classes, 4 méthodes × 3 appels par classe, 80 % d’appels internes. */
+        public static Shape planted(int classes, long seed) {
+            return new Shape((classes + 19) / 20, classes, 4, classes * 12, Distribution.PLANTED_MODULES, 0.8, 1.0, seed);
+        }
+
+        /**
+         * Lecture des options {@code --classes N --packages K --methods M --calls C
+         * --distribution planted|power-law|uniform --intra P --exponent A --seed S} ;
+         * les options absentes prennent les valeurs de {@link #planted}.
+         */
+        public static Shape parse(Map<String, String> options) {
+            int classes = Integer.parseInt(options.getOrDefault("classes", "200"));
+            long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+            Shape d = planted(classes, seed);
+            int methods = Integer.parseInt(options.getOrDefault("methods", String.valueOf(d.methodsPerClass)));
+            return new Shape(
+                    Integer.parseInt(options.getOrDefault("packages", String.valueOf(d.packages))),
+                    classes,
+                    methods,
+                    Integer.parseInt(options.getOrDefault("calls", String.valueOf(classes * methods * 3))),
+                    distribution(options.getOrDefault("distribution", "planted")),
+                    Double.parseDouble(options.getOrDefault("intra", String.valueOf(d.intraModuleRatio))),
+                    Double.parseDouble(options.getOrDefault("exponent", String.valueOf(d.exponent))),
+                    seed);
+        }
+
+        private static Distribution distribution(String name) {
+            return switch (name) {
+                case "planted" -> Distribution.PLANTED_MODULES;
+                case "power-law" -> Distribution.POWER_LAW;
+                case "uniform" -> Distribution.UNIFORM;
+                default -> throw new IllegalArgumentException("Distribution inconnue : " + name);
+            };
+        }
+
+        /** Premier index de classe du package {@code p} (packages de tailles égales à une classe près). */
+        int firstOf(int p) {
+            return (int) ((long) p * classes / packages);
+        }
+
+        int packageOf(int cls) {
+            // inverse de firstOf : plus grand p tel que firstOf(p) <= cls
+            int p = (int) (((long) cls * packages + packages - 1) / classes);
+            while (p > 0 && firstOf(p) > cls) p--;
+            while (p + 1 < packages && firstOf(p + 1) <= cls) p++;
+            return p;
+        }
+    }
+
+    /**
+     * Résultat d’une génération.
+     * @param modules modules plantés (noms de classes par package) ; vide pour les autres distributions
+     * @param calls appels écrits (hors appels d’une classe vers elle-même, seulement possibles avec une seule classe)
+     */
+    public record Generated(Path sources, Shape shape, List<Set<String>> modules, long calls) {
+
+        /**
+         * Seuil de coupe du dendrogramme pour retrouver les modules plantés : moyenne géométrique entre le couplage
+         * moyen attendu à l’intérieur du module le moins dense et celui attendu entre deux modules
+         * (poids = appels / total des appels, paires absentes comptées 0).
+         */
+        public double moduleThreshold() {
+            int n = shape.classes;
+            double total = shape.calls;
+            double perClass = total / n;
+            double p = shape.intraModuleRatio;
+
+            double minIntra = Double.MAX_VALUE;
+            double interCalls = 0;
+            long intraPairs = 0;
+            for (Set<String> module : modules) {
+                int s = module.size();
+                if (s < 2) continue;
+                // un appel « quelconque » peut aussi retomber dans le module
+                double intraCalls = s * perClass * (p + (1 - p) * (s - 1) / (n - 1.0));
+                interCalls += s * perClass - intraCalls;
+                intraPairs += (long) s * (s - 1) / 2;
+                minIntra = Math.min(minIntra, intraCalls / total / ((double) s * (s - 1) / 2));
+            }
+            long interPairs = (long) n * (n - 1) / 2 - intraPairs;
+            if (minIntra == Double.MAX_VALUE || interPairs == 0) return 0.0;
+            double inter = interCalls / total / interPairs;
+            return Math.sqrt(minIntra * inter);
+        }
+    }
+
+    private final Shape shape;
+    private final Random random;
+    private final double[] cumulativeWeights; // loi de puissance : poids cumulés par classe
+
+    private SyntheticProject(Shape shape) {
+        this.shape = shape;
+        this.random = new Random(shape.seed);
+        this.cumulativeWeights = (shape.distribution == Distribution.POWER_LAW) ? powerLawWeights() : null;
+    }
+
+    /** Forme des benchmarks ({@link Shape#planted}) ; retourne le dossier des sources ({@code root/src/main/java}). */
+    public static Path generate(Path root, int classes, long seed) throws IOException {
+        return generate(root, Shape.planted(classes, seed)).sources();
+    }
+
+    /** Écrit le projet sous {@code root} (sources dans {@code root/src/main/java}). */
+    public static Generated generate(Path root, Shape shape) throws IOException {
+        return new SyntheticProject(shape).write(root);
+    }
+
+    /**
+     * {@code java -cp tp2-corpus.jar org.example.bench.corpus.SyntheticProject --out DIR [options de Shape.parse]}
+     */
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = options(args);
+        Shape shape = Shape.parse(options);
+        Generated g = generate(Paths.get(options.getOrDefault("out", "synthetic-project")), shape);
+        System.out.println(shape.classes + " classes, " + shape.packages + " packages, " + g.calls + " appels -> " + g.sources);
+        if (!g.modules.isEmpty()) {
+            System.out.println(g.modules.size() + " modules plantés, seuil de coupe conseillé : " + g.moduleThreshold());
+        }
+    }
+
+    /** {@code --cle valeur} -> {cle=valeur} ; les options sans valeur valent "true". */
+    public static Map<String, String> options(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--")) continue;
+            String key = args[i].substring(2);
+            boolean hasValue = i + 1 < args.length && !args[i + 1].startsWith("--");
+            options.put(key, hasValue ? args[++i] : "true");
+        }
+        return options;
+    }
+
+    private Generated write(Path root) throws IOException {
+        Path sources = root.resolve("src/main/java");
+        long written = 0;
+        for (int i = 0; i < shape.classes; i++) {
+            Path file = sources.resolve("gen/" + packageName(i) + "/C" + i + ".java");
+            Files.createDirectories(file.getParent());
+            int[][] targets = drawTargets(i);
+            for (int[] method : targets) {
+                for (int t : method) if (t != i) written++;
+            }
+            Files.writeString(file, classSource(i, targets));
+        }
+
+        List<Set<String>> modules = new ArrayList<>();
+        if (shape.distribution == Distribution.PLANTED_MODULES) {
+            for (int p = 0; p < shape.packages; p++) {
+                Set<String> module = new LinkedHashSet<>();
+                for (int i = shape.firstOf(p); i < shape.firstOf(p + 1); i++) module.add("C" + i);
+                modules.add(module);
+            }
+        }
+        return new Generated(sources, shape, modules, written);
+    }
+
+    private String packageName(int cls) {
+        return "p" + shape.packageOf(cls);
+    }
+
+    /** Cibles des appels de la classe, méthode par méthode (appels de la classe répartis au plus juste). */
+    private int[][] drawTargets(int self) {
+        int calls = shape.calls / shape.classes + (self < shape.calls % shape.classes ? 1 : 0);
+        int[][] targets = new int[shape.methodsPerClass][];
+        for (int m = 0; m < targets.length; m++) {
+            int perMethod = calls / targets.length + (m < calls % targets.length ? 1 : 0);
+            targets[m] = new int[perMethod];
+            for (int k = 0; k < perMethod; k++) targets[m][k] = pickTarget(self);
+        }
+        return targets;
+    }
+
+    private int pickTarget(int self) {
+        int classes = shape.classes;
+        if (classes == 1) return self;
+        int t;
+        do {
+            t = switch (shape.distribution) {
+                case PLANTED_MODULES -> {
+                    int p = shape.packageOf(self);
+                    int first = shape.firstOf(p);
+                    int inPackage = shape.firstOf(p + 1) - first;
+                    yield (inPackage > 1 && random.nextDouble() < shape.intraModuleRatio)
+                            ? first + random.nextInt(inPackage)
+                            : random.nextInt(classes);
+                }
+                case POWER_LAW -> {
+                    int idx = Arrays.binarySearch(cumulativeWeights, random.nextDouble() * cumulativeWeights[classes - 1]);
+                    yield Math.min(classes - 1, (idx >= 0) ? idx + 1 : -idx - 1);
+                }
+                case UNIFORM -> random.nextInt(classes);
+            };
+        } while (t == self);
+        return t;
+    }
+
+    /** Poids cumulés : la classe de rang r (permutation aléatoire des classes) pèse 1 / (r + 1)^exposant. */
+    private double[] powerLawWeights() {
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < shape.classes; i++) order.add(i);
+        Collections.shuffle(order, random);
+        double[] weight = new double[shape.classes];
+        for (int rank = 0; rank < order.size(); rank++) {
+            weight[order.get(rank)] = 1.0 / Math.pow(rank + 1, shape.exponent);
+        }
+        double[] cumulative = new double[shape.classes];
+        double sum = 0;
+        for (int i = 0; i < weight.length; i++) {
+            sum += weight[i];
+            cumulative[i] = sum;
+        }
+        return cumulative;
+    }
+
+    private String classSource(int self, int[][] targets) {
+        Map<Integer, String> fields = new LinkedHashMap<>(); // classe cible -> nom du champ
+        SortedSet<String> imports = new TreeSet<>();
+        for (int[] method : targets) {
+            for (int t : method) {
+                if (!packageName(t).equals(packageName(self))) imports.add("gen." + packageName(t) + ".C" + t);
+            }
+        }
+
+        StringBuilder body = new StringBuilder();
+        for (int m = 0; m < targets.length; m++) {
+            body.append("    public int m").append(m).append("(int x) {\n");
+            body.append("        int r = x;\n");
+            for (int k = 0; k < targets[m].length; k++) {
+                int t = targets[m][k];
+                int callee = random.nextInt(shape.methodsPerClass);
+                switch ((m + k) % 3) {
+                    case 0 -> {
+                        String field = fields.computeIfAbsent(t, x -> "f" + fields.size());
+                        body.append("        r += ").append(field).append(".m").append(callee).append("(r);\n");
+                    }
+                    case 1 -> body.append("        r += C").append(t).append(".s(r);\n");
+                    default -> body.append("        r += new C").append(t).append("().m").append(callee).append("(r);\n");
+                }
+            }
+            body.append("        return r;\n");
+            body.append("    }\n\n");
+        }
+        body.append("    public static int s(int x) {\n");
+        body.append("        return x + ").append(self).append(";\n");
+        body.append("    }\n");
+
+        StringBuilder src = new StringBuilder();
+        src.append("package gen.").append(packageName(self)).append(";\n\n");
+        for (String imp : imports) src.append("import ").append(imp).append(";\n");
+        if (!imports.isEmpty()) src.append('\n');
+        src.append("public class C").append(self).append(" {\n");
+        for (var f : fields.entrySet()) {
+            src.append("    private C").append(f.getKey()).append(' ').append(f.getValue()).append(" = new C").append(f.getKey()).append("();\n");
+        }
+        if (!fields.isEmpty()) src.append('\n');
+        src.append(body);
+        src.append("}\n");
+        return src.toString();
+    }
+}
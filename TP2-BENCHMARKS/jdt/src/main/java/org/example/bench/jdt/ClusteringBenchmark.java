@@ -0,0 +1,32 @@
+package org.example.bench.jdt;
+
+import org.example.Main;
+import org.example.coupling.CouplingMatrix;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/** Clustering hiérarchique average-link (Main.clusterWithDendrogram, moteur choisi selon la densité). */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ClusteringBenchmark {
+    @Param({"50", "200", "800"})
+    int classes;
+
+    private CouplingMatrix matrix;
+
+    @Setup
+    public void setUp() throws IOException {
+        matrix = CouplingMatrix.build(Corpora.classes(classes));
+    }
+
+    @Benchmark
+    public Main.ClusteringResult cluster() {
+        return Main.clusterWithDendrogram(matrix);
+    }
+}
@@ -0,0 +1,51 @@
+package org.example.bench.jdt;
+
+import org.example.analyse.ProjectParser;
+import org.example.bench.corpus.SyntheticProject;
+import org.example.visitor.ClassVisitor;
+import org.example.visitor.model.ClassInfo;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/** Corpus synthétiques générés une fois par JVM (graine fixe : mêmes sources d’un lancement à l’autre). */
+final class Corpora {
+    static final long SEED = 42;
+
+    private static final Map<Integer, Path> SOURCES = new HashMap<>();
+
+    private Corpora() {
+    }
+
+    /** Dossier des sources d’un projet de {@code classes} classes (supprimé à l’arrêt de la JVM). */
+    static synchronized Path sources(int classes) throws IOException {
+        Path src = SOURCES.get(classes);
+        if (src == null) {
+            Path root = Files.createTempDirectory("tp2-bench-" + classes + "-");
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> deleteTree(root)));
+            src = SyntheticProject.generate(root, classes, SEED);
+            SOURCES.put(classes, src);
+        }
+        return src;
+    }
+
+    /** Classes extraites comme dans Main (parsing fichier par fichier, extraction en streaming). */
+    static List<ClassInfo> classes(int classes) throws IOException {
+        List<ClassInfo> out = new ArrayList<>();
+        for (List<ClassInfo> fileClasses : new ProjectParser(sources(classes).toString()).parseProject(ClassVisitor::extract)) {
+            out.addAll(fileClasses);
+        }
+        return out;
+    }
+
+    private static void deleteTree(Path root) {
+        try (var stream = Files.walk(root)) {
+            stream.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package org.example.bench.jdt;
+
+import org.example.coupling.CouplingMatrix;
+import org.example.visitor.model.ClassInfo;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Matrice de couplage (comptes d’appels, total, poids) à partir des classes extraites. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class CouplingBenchmark {
+    @Param({"50", "200", "800"})
+    int classes;
+
+    private List<ClassInfo> extracted;
+
+    @Setup
+    public void setUp() throws IOException {
+        extracted = Corpora.classes(classes);
+    }
+
+    @Benchmark
+    public CouplingMatrix couple() {
+        return CouplingMatrix.build(extracted);
+    }
+}
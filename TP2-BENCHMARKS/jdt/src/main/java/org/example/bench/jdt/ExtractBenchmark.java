@@ -0,0 +1,38 @@
+package org.example.bench.jdt;
+
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.example.analyse.ProjectParser;
+import org.example.visitor.ClassVisitor;
+import org.example.visitor.model.ClassInfo;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Extraction (ClassVisitor / MethodVisitor) sur des CompilationUnit déjà parsées. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ExtractBenchmark {
+    @Param({"50", "200", "800"})
+    int classes;
+
+    private List<CompilationUnit> units;
+
+    @Setup
+    public void setUp() throws IOException {
+        units = new ProjectParser(Corpora.sources(classes).toString()).parseProject();
+    }
+
+    @Benchmark
+    public List<ClassInfo> extract() {
+        List<ClassInfo> out = new ArrayList<>();
+        for (CompilationUnit cu : units) out.addAll(ClassVisitor.extract(cu));
+        return out;
+    }
+}
@@ -0,0 +1,94 @@
+package org.example.bench.jdt;
+
+import org.example.Main;
+import org.example.analyse.ProjectParser;
+import org.example.bench.corpus.SyntheticProject;
+import org.example.coupling.CouplingMatrix;
+import org.example.gui.MainWindow;
+import org.example.visitor.ClassVisitor;
+import org.example.visitor.model.ClassInfo;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Vérifie un projet synthétique de bout en bout avec l’analyseur JDT : toutes les classes et tous les appels
+ * générés sont retrouvés, puis la coupe du dendrogramme (identifyCoupledGroups) redonne les modules plantés.
+ *
+ * {@code java -Djava.awt.headless=true -cp target/benchmarks.jar org.example.bench.jdt.GeneratedProjectCheck
+ * --classes 2000 --packages 100 [--keep]} (options : SyntheticProject.Shape.parse) ; code de sortie 1 en cas d’écart.
+ */
+public final class GeneratedProjectCheck {
+
+    private GeneratedProjectCheck() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = SyntheticProject.options(args);
+        SyntheticProject.Shape shape = SyntheticProject.Shape.parse(options);
+        Path root = Files.createTempDirectory("tp2-generated-");
+        SyntheticProject.Generated generated = SyntheticProject.generate(root, shape);
+        System.out.println("Projet : " + shape + " -> " + root);
+
+        List<ClassInfo> classes = new ArrayList<>();
+        for (List<ClassInfo> fileClasses : new ProjectParser(generated.sources().toString()).parseProject(ClassVisitor::extract)) {
+            classes.addAll(fileClasses);
+        }
+        CouplingMatrix matrix = CouplingMatrix.build(classes);
+
+        boolean ok = true;
+        ok &= expect("classes", shape.classes(), classes.size());
+        ok &= expect("appels", generated.calls(), matrix.totalCalls());
+
+        if (!generated.modules().isEmpty()) {
+            double cp = generated.moduleThreshold();
+            List<MainWindow.MergeStep> merges = new ArrayList<>();
+            for (Main.MergeStep m : Main.clusterWithDendrogram(matrix).merges()) {
+                merges.add(new MainWindow.MergeStep(m.left(), m.right(), m.score()));
+            }
+            List<Set<String>> groups = MainWindow.identifyCoupledGroups(merges, matrix.weightedAdjacency(), cp);
+            ok &= reportModules(generated.modules(), groups, cp);
+        }
+
+        if (!options.containsKey("keep")) deleteTree(root);
+        System.out.println(ok ? "OK" : "ÉCHEC");
+        if (!ok) System.exit(1);
+    }
+
+    private static boolean expect(String what, long expected, long actual) {
+        System.out.println("  " + what + " : " + actual + " (attendu " + expected + ")");
+        return expected == actual;
+    }
+
+    /** Modules plantés retrouvés à l’identique ; pour les autres, meilleur indice de Jaccard parmi les groupes trouvés. */
+    private static boolean reportModules(List<Set<String>> planted, List<Set<String>> found, double cp) {
+        Set<Set<String>> foundSets = new HashSet<>(found);
+        int exact = 0;
+        for (Set<String> module : planted) {
+            if (foundSets.contains(module)) {
+                exact++;
+                continue;
+            }
+            double best = 0;
+            for (Set<String> group : found) best = Math.max(best, jaccard(module, group));
+            System.out.printf(Locale.ROOT, "  module manqué (%d classes, meilleur Jaccard %.2f) : %s%n",
+                    module.size(), best, new TreeSet<>(module));
+        }
+        System.out.printf(Locale.ROOT, "  seuil cp = %.3e, %d groupes trouvés, modules plantés retrouvés : %d / %d%n",
+                cp, found.size(), exact, planted.size());
+        return exact == planted.size();
+    }
+
+    private static double jaccard(Set<String> a, Set<String> b) {
+        int inter = 0;
+        for (String s : a) if (b.contains(s)) inter++;
+        return (double) inter / (a.size() + b.size() - inter);
+    }
+
+    private static void deleteTree(Path root) throws java.io.IOException {
+        try (var stream = Files.walk(root)) {
+            stream.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package org.example.bench.jdt;
+
+import org.example.Main;
+import org.example.coupling.CouplingMatrix;
+import org.example.gui.MainWindow;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Identification des groupes couplés (coupe du dendrogramme, MainWindow.identifyCoupledGroups).
+ * Seuil : score médian des fusions non nulles, pour couper au milieu de l’arbre quelle que soit la taille
+ * (les poids sont des fractions du total d’appels et baissent quand le projet grossit).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g", "-Djava.awt.headless=true"})
+public class ModulesBenchmark {
+    @Param({"50", "200", "800"})
+    int classes;
+
+    private List<MainWindow.MergeStep> merges;
+    private Map<String, Map<String, Double>> weights;
+    private double cp;
+
+    @Setup
+    public void setUp() throws IOException {
+        CouplingMatrix matrix = CouplingMatrix.build(Corpora.classes(classes));
+        weights = matrix.weightedAdjacency();
+        merges = new ArrayList<>();
+        List<Double> scores = new ArrayList<>();
+        for (Main.MergeStep m : Main.clusterWithDendrogram(matrix).merges()) {
+            merges.add(new MainWindow.MergeStep(m.left(), m.right(), m.score()));
+            if (m.score() > 0) scores.add(m.score());
+        }
+        Collections.sort(scores);
+        cp = scores.isEmpty() ? 0.0 : scores.get(scores.size() / 2);
+    }
+
+    @Benchmark
+    public List<Set<String>> identifyModules() {
+        return MainWindow.identifyCoupledGroups(merges, weights, cp);
+    }
+}
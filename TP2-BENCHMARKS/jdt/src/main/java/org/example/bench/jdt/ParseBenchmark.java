@@ -0,0 +1,38 @@
+package org.example.bench.jdt;
+
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.example.analyse.ProjectParser;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Parsing JDT (avec bindings) de tout le projet : fichier par fichier, puis en un seul lot createASTs. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ParseBenchmark {
+    @Param({"50", "200", "800"})
+    int classes;
+
+    private String src;
+
+    @Setup
+    public void setUp() throws IOException {
+        src = Corpora.sources(classes).toString();
+    }
+
+    @Benchmark
+    public List<CompilationUnit> parsePerFile() throws IOException {
+        return new ProjectParser(src).parseProject();
+    }
+
+    @Benchmark
+    public List<CompilationUnit> parseBatch() throws IOException {
+        return new ProjectParser(src).parseProjectBatch();
+    }
+}
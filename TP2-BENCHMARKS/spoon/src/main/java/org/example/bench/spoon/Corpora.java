@@ -0,0 +1,70 @@
+package org.example.bench.spoon;
+
+import hai913i.tp2.spoon.model.ClassInfo;
+import hai913i.tp2.spoon.parsers.SpoonParser;
+import hai913i.tp2.spoon.visitors.AnalysisRepository;
+import hai913i.tp2.spoon.visitors.ClassAnalysisProcessor;
+import org.example.bench.corpus.SyntheticProject;
+import spoon.Launcher;
+import spoon.processing.ProcessingManager;
+import spoon.support.QueueProcessingManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/** Corpus synthétiques générés une fois par JVM (graine fixe : mêmes sources d’un lancement à l’autre). */
+final class Corpora {
+    static final long SEED = 42;
+
+    private static final Map<Integer, Path> PROJECTS = new HashMap<>();
+
+    private Corpora() {
+    }
+
+    /** Racine d’un projet de {@code classes} classes (src/main/java, supprimé à l’arrêt de la JVM). */
+    static synchronized Path project(int classes) throws IOException {
+        Path root = PROJECTS.get(classes);
+        if (root == null) {
+            Path created = Files.createTempDirectory("tp2-bench-" + classes + "-");
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> deleteTree(created)));
+            SyntheticProject.generate(created, classes, SEED);
+            PROJECTS.put(classes, created);
+            root = created;
+        }
+        return root;
+    }
+
+    /** Launcher configuré comme par CodeGenerationProcessor, modèle construit (sans processeur ni écriture). */
+    static Launcher buildModel(int classes) throws IOException {
+        SpoonParser parser = new SpoonParser(project(classes).toString());
+        parser.configure();
+        parser.getParser().buildModel();
+        return parser.getParser();
+    }
+
+    /** Passe ClassAnalysisProcessor sur un modèle déjà construit ; classes dans l’ordre de traitement. */
+    static List<ClassInfo> extract(Launcher launcher) {
+        AnalysisRepository.clear();
+        ProcessingManager processing = new QueueProcessingManager(launcher.getFactory());
+        processing.addProcessor(new ClassAnalysisProcessor());
+        processing.process(launcher.getFactory().Package().getRootPackage());
+        List<ClassInfo> out = new ArrayList<>(AnalysisRepository.getAll());
+        AnalysisRepository.clear();
+        return out;
+    }
+
+    static List<ClassInfo> classes(int classes) throws IOException {
+        return extract(buildModel(classes));
+    }
+
+    private static void deleteTree(Path root) {
+        try (var stream = Files.walk(root)) {
+            stream.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package org.example.bench.spoon;
+
+import hai913i.tp2.spoon.model.ClassInfo;
+import org.openjdk.jmh.annotations.*;
+import spoon.Launcher;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Extraction (ClassAnalysisProcessor) sur un modèle Spoon déjà construit. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ExtractBenchmark {
+    @Param({"50", "200", "800"})
+    int classes;
+
+    private Launcher launcher;
+
+    @Setup
+    public void setUp() throws IOException {
+        launcher = Corpora.buildModel(classes);
+    }
+
+    @Benchmark
+    public List<ClassInfo> extract() {
+        return Corpora.extract(launcher);
+    }
+}
@@ -0,0 +1,93 @@
+package org.example.bench.spoon;
+
+import hai913i.main.CodeGenerationProcessorMain;
+import hai913i.main.ModuleIdentifier;
+import hai913i.tp2.coupling.CouplingMatrix;
+import hai913i.tp2.spoon.model.ClassInfo;
+import hai913i.tp2.spoon.parsers.SpoonParser;
+import org.example.bench.corpus.SyntheticProject;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Vérifie un projet synthétique de bout en bout avec l’analyseur Spoon : toutes les classes et tous les appels
+ * générés sont retrouvés, puis ModuleIdentifier redonne les modules plantés.
+ *
+ * {@code java -cp target/benchmarks.jar org.example.bench.spoon.GeneratedProjectCheck
+ * --classes 2000 --packages 100 [--keep]} (options : SyntheticProject.Shape.parse) ; code de sortie 1 en cas d’écart.
+ */
+public final class GeneratedProjectCheck {
+
+    private GeneratedProjectCheck() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = SyntheticProject.options(args);
+        SyntheticProject.Shape shape = SyntheticProject.Shape.parse(options);
+        Path root = Files.createTempDirectory("tp2-generated-");
+        SyntheticProject.Generated generated = SyntheticProject.generate(root, shape);
+        System.out.println("Projet : " + shape + " -> " + root);
+
+        SpoonParser parser = new SpoonParser(root.toString());
+        parser.configure();
+        parser.getParser().buildModel();
+        List<ClassInfo> classes = Corpora.extract(parser.getParser());
+        CouplingMatrix matrix = CouplingMatrix.build(classes);
+
+        boolean ok = true;
+        ok &= expect("classes", shape.classes(), classes.size());
+        ok &= expect("appels", generated.calls(), matrix.totalCalls());
+
+        if (!generated.modules().isEmpty()) {
+            double cp = generated.moduleThreshold();
+            List<ModuleIdentifier.Module> modules = ModuleIdentifier.identifyModules(
+                    CodeGenerationProcessorMain.clusterWithDendrogram(matrix),
+                    CodeGenerationProcessorMain.couplesOf(matrix), cp);
+            List<Set<String>> found = new ArrayList<>();
+            for (ModuleIdentifier.Module m : modules) found.add(m.classes());
+            ok &= reportModules(generated.modules(), found, cp);
+        }
+
+        if (!options.containsKey("keep")) deleteTree(root);
+        System.out.println(ok ? "OK" : "ÉCHEC");
+        if (!ok) System.exit(1);
+    }
+
+    private static boolean expect(String what, long expected, long actual) {
+        System.out.println("  " + what + " : " + actual + " (attendu " + expected + ")");
+        return expected == actual;
+    }
+
+    /** Modules plantés retrouvés à l’identique ; pour les autres, meilleur indice de Jaccard parmi les modules trouvés. */
+    private static boolean reportModules(List<Set<String>> planted, List<Set<String>> found, double cp) {
+        Set<Set<String>> foundSets = new HashSet<>(found);
+        int exact = 0;
+        for (Set<String> module : planted) {
+            if (foundSets.contains(module)) {
+                exact++;
+                continue;
+            }
+            double best = 0;
+            for (Set<String> group : found) best = Math.max(best, jaccard(module, group));
+            System.out.printf(Locale.ROOT, "  module manqué (%d classes, meilleur Jaccard %.2f) : %s%n",
+                    module.size(), best, new TreeSet<>(module));
+        }
+        System.out.printf(Locale.ROOT, "  seuil cp = %.3e, %d modules trouvés, modules plantés retrouvés : %d / %d%n",
+                cp, found.size(), exact, planted.size());
+        return exact == planted.size();
+    }
+
+    private static double jaccard(Set<String> a, Set<String> b) {
+        int inter = 0;
+        for (String s : a) if (b.contains(s)) inter++;
+        return (double) inter / (a.size() + b.size() - inter);
+    }
+
+    private static void deleteTree(Path root) throws java.io.IOException {
+        try (var stream = Files.walk(root)) {
+            stream.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+}
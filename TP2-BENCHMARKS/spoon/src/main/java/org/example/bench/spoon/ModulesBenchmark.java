@@ -0,0 +1,48 @@
+package org.example.bench.spoon;
+
+import hai913i.main.CodeGenerationProcessorMain;
+import hai913i.main.ModuleIdentifier;
+import hai913i.tp2.coupling.CouplingMatrix;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Identification des modules (ModuleIdentifier.identifyModules) sur le dendrogramme du projet.
+ * Seuil : score médian des fusions non nulles, pour couper au milieu de l’arbre quelle que soit la taille
+ * (les poids sont des fractions du total d’appels et baissent quand le projet grossit).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ModulesBenchmark {
+    @Param({"50", "200", "800"})
+    int classes;
+
+    private CodeGenerationProcessorMain.ClusteringResult clustering;
+    private Map<CodeGenerationProcessorMain.UnorderedPair<String>, Double> couples;
+    private double cp;
+
+    @Setup
+    public void setUp() throws IOException {
+        CouplingMatrix matrix = CouplingMatrix.build(Corpora.classes(classes));
+        couples = CodeGenerationProcessorMain.couplesOf(matrix);
+        clustering = CodeGenerationProcessorMain.clusterWithDendrogram(matrix);
+        List<Double> scores = new ArrayList<>();
+        for (var m : clustering.merges()) {
+            if (m.score() > 0) scores.add(m.score());
+        }
+        Collections.sort(scores);
+        cp = scores.isEmpty() ? 0.0 : scores.get(scores.size() / 2);
+    }
+
+    @Benchmark
+    public List<ModuleIdentifier.Module> identifyModules() {
+        return ModuleIdentifier.identifyModules(clustering, couples, cp);
+    }
+}
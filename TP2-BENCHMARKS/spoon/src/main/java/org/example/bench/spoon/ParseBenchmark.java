@@ -0,0 +1,29 @@
+package org.example.bench.spoon;
+
+import org.openjdk.jmh.annotations.*;
+import spoon.Launcher;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/** Construction du modèle Spoon de tout le projet (Launcher.buildModel, sans processeur). */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ParseBenchmark {
+    @Param({"50", "200", "800"})
+    int classes;
+
+    @Setup
+    public void setUp() throws IOException {
+        Corpora.project(classes);
+    }
+
+    @Benchmark
+    public Launcher buildModel() throws IOException {
+        return Corpora.buildModel(classes);
+    }
+}
@@ -1,20 +1,40 @@
 package hai913i.main;
 
+import hai913i.tp2.clustering.AverageLinkageClustering;
+import hai913i.tp2.coupling.CouplingMatrix;
 import hai913i.tp2.gui.CouplingDashboardWindow;
 import hai913i.tp2.gui.ProjectPathChooser;
+import hai913i.tp2.report.AnalysisSnapshot;
 import hai913i.tp2.spoon.model.ClassInfo;
+import hai913i.tp2.spoon.parsers.ParseCache;
+import hai913i.tp2.spoon.processors.AnalysisProgress;
 import hai913i.tp2.spoon.processors.CodeGenerationProcessor;
-import hai913i.tp2.spoon.visitors.AnalysisRepository;
-import hai913i.tp2.spoon.visitors.ClassAnalysisProcessor;
+import hai913i.tp2.spoon.processors.ProjectWatcher;
 
 import javax.swing.*;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.text.DecimalFormat;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 public class CodeGenerationProcessorMain extends AbstractMain {
 
     public static void main(String[] args) {
+        // --watch : le projet est surveillé, le tableau de bord se met à jour à chaque modification
+        boolean watch = Arrays.asList(args).contains("--watch");
+
+        // --snapshot <fichier> : résultats d’une analyse enregistrée (HeadlessMain --snapshot), sans Spoon
+        int snapshotArg = Arrays.asList(args).indexOf("--snapshot");
+        if (snapshotArg >= 0 && snapshotArg + 1 < args.length) {
+            openSnapshot(Paths.get(args[snapshotArg + 1]));
+            return;
+        }
+
         SwingUtilities.invokeLater(() -> {
             try {
                 // 1) Sélection projet (fenêtre)
@@ -24,104 +44,184 @@ public class CodeGenerationProcessorMain extends AbstractMain {
                     return;
                 }
 
-                // 2) Exécution Spoon
-                AnalysisRepository.clear();
+                // 2) Exécution Spoon (fichiers inchangés depuis le dernier passage repris du cache)
                 CodeGenerationProcessor runner = new CodeGenerationProcessor(chosen);
+                ParseCache cache = ParseCache.load(ParseCache.defaultLocation(chosen));
 
-                runner.apply(new ClassAnalysisProcessor());
-
-                // 3) Récup des classes
-                final java.util.List<ClassInfo> classes = AnalysisRepository.getAll();
+                if (watch) {
+                    watch(runner, cache);
+                    return;
+                }
 
-                // 4) Calculs IDENTIQUES à ton Main JDT
-                DecimalFormat df = new DecimalFormat("#0.00000");
+                // 3) Fenêtre ouverte tout de suite ; l’analyse tourne hors EDT et la remplit au fil des étapes
+                CouplingDashboardWindow win = CouplingDashboardWindow.empty();
+                AnalysisJob job = new AnalysisJob(runner, cache, win);
+                win.setOnCancel(() -> job.cancel(true));
+                win.setVisible(true);
+                job.execute();
 
-                HashSet<UnorderedPair<String>> couplesAlreadyCalculated = new HashSet<>();
-                long tempResult = 0;
+            } catch (Exception e) {
+                e.printStackTrace();
+                JOptionPane.showMessageDialog(null, e.toString(), "Erreur", JOptionPane.ERROR_MESSAGE);
+            }
+        });
+    }
 
-                for (ClassInfo classInfoA : classes) {
-                    for (ClassInfo classInfoB : classes) {
-                        if (!classInfoA.className.equals(classInfoB.className)) {
-                            UnorderedPair<String> pair = new UnorderedPair<>(classInfoA.className, classInfoB.className);
-                            if (couplesAlreadyCalculated.contains(pair)) continue;
-                            couplesAlreadyCalculated.add(pair);
+    /** Tableau de bord rempli depuis un {@link AnalysisSnapshot}, décodé avant l’ouverture de la fenêtre. */
+    private static void openSnapshot(Path file) {
+        try {
+            long start = System.nanoTime();
+            AnalysisSnapshot snapshot = AnalysisSnapshot.open(file);
+            Snapshot loaded = Snapshot.of(snapshot.matrix(), ClusteringResult.of(snapshot.clustering()));
+            long ms = (System.nanoTime() - start) / 1_000_000;
+            SwingUtilities.invokeLater(() -> {
+                CouplingDashboardWindow window = CouplingDashboardWindow.empty();
+                loaded.update(window);
+                window.showStatus("Instantané " + snapshot.project() + " (" + snapshot.frontEnd() + ") chargé en " + ms + " ms");
+                window.setVisible(true);
+            });
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Instantané illisible (" + file + ") : " + e);
+            System.exit(1);
+        }
+    }
 
-                            long nbCallAToB =
-                                    classInfoA.methods.stream()
-                                            .mapToLong(m -> m.methodCalls.stream()
-                                                    .filter(mc -> mc.receiverType.equals(classInfoB.className))
-                                                    .count())
-                                            .sum();
+    /** Avancement publié par le worker ({@code total} < 0 : inconnu). */
+    private record Progress(AnalysisProgress.Stage stage, int done, int total) {
+    }
 
-                            long nbCallBToA =
-                                    classInfoB.methods.stream()
-                                            .mapToLong(m -> m.methodCalls.stream()
-                                                    .filter(mc -> mc.receiverType.equals(classInfoA.className))
-                                                    .count())
-                                            .sum();
+    /**
+     * Analyse complète hors EDT : Spoon (fichiers inchangés repris du cache), matrice de couplage, clustering.
+     * Le tableau de bord reçoit couplage et graphe dès qu’ils sont prêts, puis dendrogramme et modules à la fin.
+     * {@code cancel(true)} interrompt le thread : Spoon s’arrête au fichier suivant, le clustering à la fusion suivante
+     * (la compilation JDT d’un fichier en cours n’est pas interrompue).
+     */
+    private static final class AnalysisJob extends SwingWorker<Snapshot, Progress> {
+        private final CodeGenerationProcessor runner;
+        private final ParseCache cache;
+        private final CouplingDashboardWindow window;
+
+        AnalysisJob(CodeGenerationProcessor runner, ParseCache cache, CouplingDashboardWindow window) {
+            this.runner = runner;
+            this.cache = cache;
+            this.window = window;
+        }
 
-                            tempResult += nbCallAToB + nbCallBToA;
-                        }
-                    }
-                }
-                final long totCallAppBetweenBinaryClasses = tempResult;
-
-                // 5) Matrice pondérée et couples (A,B) -> poids (mêmes formules)
-                Map<String, Map<String, Double>> weighted = new HashMap<>();
-                Map<UnorderedPair<String>, Double> couplesCalculated = new HashMap<>();
-                couplesAlreadyCalculated.clear();
-
-                for (ClassInfo classInfoA : classes) {
-                    weighted.put(classInfoA.className, new HashMap<>());
-                    for (ClassInfo classInfoB : classes) {
-                        if (!classInfoA.className.equals(classInfoB.className)) {
-                            UnorderedPair<String> pair = new UnorderedPair<>(classInfoA.className, classInfoB.className);
-                            if (couplesAlreadyCalculated.contains(pair)) continue;
-                            couplesAlreadyCalculated.add(pair);
-
-                            long nbCallAToB =
-                                    classInfoA.methods.stream()
-                                            .mapToLong(m -> m.methodCalls.stream()
-                                                    .filter(mc -> mc.receiverType.equals(classInfoB.className))
-                                                    .count())
-                                            .sum();
-
-                            long nbCallBToA =
-                                    classInfoB.methods.stream()
-                                            .mapToLong(m -> m.methodCalls.stream()
-                                                    .filter(mc -> mc.receiverType.equals(classInfoA.className))
-                                                    .count())
-                                            .sum();
-
-                            double w = (totCallAppBetweenBinaryClasses == 0)
-                                    ? 0.0
-                                    : (double) (nbCallAToB + nbCallBToA) / totCallAppBetweenBinaryClasses;
-
-                            weighted.get(classInfoA.className).put(classInfoB.className, w);
-                            couplesCalculated.put(pair, w);
-                        }
-                    }
-                }
+        @Override
+        protected Snapshot doInBackground() throws Exception {
+            java.util.List<ClassInfo> classes = runner.applyIncremental(cache,
+                    (stage, done, total) -> publish(new Progress(stage, done, total)));
+
+            // une seule passe sur tous les appels : comptes orientés, total et poids (matrice creuse)
+            publish(new Progress(AnalysisProgress.Stage.COUPLE, 0, -1));
+            CouplingMatrix matrix = CouplingMatrix.build(classes);
+            Snapshot coupling = Snapshot.of(matrix, new ClusteringResult(java.util.List.of(), java.util.List.of()));
+            SwingUtilities.invokeLater(() -> {
+                if (!isCancelled()) coupling.update(window);
+            });
+
+            publish(new Progress(AnalysisProgress.Stage.CLUSTER, 0, -1));
+            return coupling.withClustering(clusterWithDendrogram(matrix));
+        }
 
-                ClusteringResult res = clusterWithDendrogram(couplesCalculated);
+        @Override
+        protected void process(java.util.List<Progress> chunks) {
+            if (isCancelled()) return;
+            Progress last = chunks.get(chunks.size() - 1); // seul le dernier état compte
+            window.showProgress(last.stage().label, last.done(), last.total());
+        }
 
-                java.util.List<String> classChoices = classes.stream().map(ci -> ci.className).sorted().collect(Collectors.toList());
+        @Override
+        protected void done() {
+            if (isCancelled()) {
+                window.showStatus("Analyse annulée");
+                return;
+            }
+            try {
+                get().update(window);
+                window.showStatus("Analyse terminée");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                e.getCause().printStackTrace();
+                window.showStatus("Erreur : " + e.getCause());
+                JOptionPane.showMessageDialog(window, e.getCause().toString(), "Erreur", JOptionPane.ERROR_MESSAGE);
+            }
+        }
+    }
 
-                CouplingDashboardWindow win = new CouplingDashboardWindow(
-                        classChoices,
-                        classes,
-                        weighted,
-                        totCallAppBetweenBinaryClasses,
-                        res,
-                        couplesCalculated
-                );
-                win.setVisible(true);
+    /**
+     * Mode surveillance : l’analyse initiale et chaque re-analyse partielle tournent sur le thread du watcher ;
+     * seules les classes des fichiers modifiés sont re-modélisées et patchées dans la matrice d’appels,
+     * puis poids et clusters sont recalculés et poussés vers la fenêtre, ouverte dès le départ, sur l’EDT.
+     */
+    private static void watch(CodeGenerationProcessor runner, ParseCache cache) {
+        CouplingDashboardWindow window = CouplingDashboardWindow.empty();
+        window.showProgress("Analyse initiale", 0, -1);
+        window.setVisible(true);
+
+        AtomicReference<Snapshot> latest = new AtomicReference<>();
+        ProjectWatcher watcher = new ProjectWatcher(runner, cache, (w, changed) -> {
+            // premier appel : état initial, remis par start() avant le démarrage du thread du watcher
+            boolean initial = latest.getAndSet(Snapshot.of(w)) == null;
+            SwingUtilities.invokeLater(() -> {
+                latest.get().update(window);
+                window.showStatus(initial ? "Surveillance du projet"
+                        : "Surveillance du projet : " + changed.size() + " classe(s) mise(s) à jour");
+            });
+        });
 
+        Thread init = new Thread(() -> {
+            try {
+                watcher.start();
             } catch (Exception e) {
                 e.printStackTrace();
-                JOptionPane.showMessageDialog(null, e.toString(), "Erreur", JOptionPane.ERROR_MESSAGE);
+                SwingUtilities.invokeLater(() -> {
+                    window.showStatus("Erreur : " + e);
+                    JOptionPane.showMessageDialog(window, e.toString(), "Erreur", JOptionPane.ERROR_MESSAGE);
+                });
             }
-        });
+        }, "project-watcher-init");
+        init.start();
+    }
+
+    /** État figé de l’analyse (complète ou surveillée), construit hors EDT puis affiché tel quel. */
+    private record Snapshot(CouplingMatrix matrix, long totalCalls,
+                            Map<String, Map<String, Double>> weights, ClusteringResult clustering,
+                            Map<UnorderedPair<String>, Double> couples) {
+
+        static Snapshot of(ProjectWatcher watcher) {
+            CouplingMatrix matrix = watcher.model().snapshot();
+            return of(matrix, clusterWithDendrogram(matrix));
+        }
+
+        static Snapshot of(CouplingMatrix matrix, ClusteringResult clustering) {
+            // matrice pondérée et couples (A,B) -> poids non nuls (mêmes formules, paire absente = 0)
+            return new Snapshot(matrix, matrix.totalCalls(), matrix.weightedAdjacency(), clustering, couplesOf(matrix));
+        }
+
+        Snapshot withClustering(ClusteringResult clustering) {
+            return new Snapshot(matrix, totalCalls, weights, clustering, couples);
+        }
+
+        void update(CouplingDashboardWindow window) {
+            // noms affichés de la matrice : nom simple, ou qualifié si deux paquetages déclarent le même
+            java.util.List<String> classChoices = matrix.classNames().stream().sorted().collect(Collectors.toList());
+            window.applyUpdate(classChoices, matrix, weights, totalCalls, clustering, couples);
+        }
+    }
+
+    /** Couples non nuls de la matrice (voir {@link ModuleIdentifier#couplesOf}). */
+    public static Map<UnorderedPair<String>, Double> couplesOf(CouplingMatrix matrix) {
+        return ModuleIdentifier.couplesOf(matrix);
+    }
+
+    /**
+     * Clustering à partir de la matrice, via un moteur average-link incrémental (creux ou triangulaire selon la densité) :
+     * mêmes fusions, même ordre et mêmes règles d’égalité que la version ci-dessous.
+     */
+    public static ClusteringResult clusterWithDendrogram(CouplingMatrix matrix) {
+        return ClusteringResult.of(AverageLinkageClustering.clusterAdaptive(matrix));
     }
 
     public static ClusteringResult clusterWithDendrogram(Map<UnorderedPair<String>, Double> couples) {
@@ -132,6 +232,20 @@ public class CodeGenerationProcessorMain extends AbstractMain {
         // classes -> clusters initiaux
         Set<String> all = new TreeSet<>();
         for (var p : couples.keySet()) { all.add(p.a); all.add(p.b); }
+        return clusterWithDendrogram(all, couples);
+    }
+
+    /**
+     * Version de référence (recherche exhaustive, O(n⁴)), conservée pour les appelants qui n’ont que les poids.
+     * Variante creuse : les classes sont données explicitement et {@code couples} peut ne contenir
+     * que les paires non nulles (une paire absente vaut 0, comme dans avgCoupling).
+     */
+    public static ClusteringResult clusterWithDendrogram(Collection<String> classNames,
+                                                         Map<UnorderedPair<String>, Double> couples) {
+        Set<String> all = new TreeSet<>(classNames);
+        if (all.size() < 2) {
+            return new ClusteringResult(java.util.List.of(), java.util.List.of());
+        }
 
         java.util.List<Set<String>> clusters = new ArrayList<>();
         for (String s : all) clusters.add(new LinkedHashSet<>(java.util.List.of(s)));
@@ -185,7 +299,16 @@ public class CodeGenerationProcessorMain extends AbstractMain {
     }
 
     public record MergeStep(Set<String> left, Set<String> right, double score) {}
-    public record ClusteringResult(java.util.List<Set<String>> clusters, java.util.List<MergeStep> merges) {}
+    public record ClusteringResult(java.util.List<Set<String>> clusters, java.util.List<MergeStep> merges) {
+        /** Résultat du moteur incrémental ; n’utilise pas la classe englobante (donc ni AWT ni Swing). */
+        public static ClusteringResult of(AverageLinkageClustering.Result r) {
+            java.util.List<MergeStep> merges = new ArrayList<>(r.merges().size());
+            for (AverageLinkageClustering.Merge m : r.merges()) {
+                merges.add(new MergeStep(m.left(), m.right(), m.score()));
+            }
+            return new ClusteringResult(r.clusters(), merges);
+        }
+    }
 
     private static double avgCoupling(Set<String> A, Set<String> B, Map<UnorderedPair<String>, Double> couples) {
         double sum = 0.0; int cnt = 0;
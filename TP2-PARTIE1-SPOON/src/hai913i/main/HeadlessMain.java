@@ -0,0 +1,266 @@
+package hai913i.main;
+
+import hai913i.tp2.clustering.AverageLinkageClustering;
+import hai913i.tp2.coupling.CouplingExporter;
+import hai913i.tp2.coupling.CouplingMatrix;
+import hai913i.tp2.coupling.CouplingQuery;
+import hai913i.tp2.coupling.MethodCallGraph;
+import hai913i.tp2.coupling.PackageCoupling;
+import hai913i.tp2.report.AnalysisSnapshot;
+import hai913i.tp2.report.ReportWriter;
+import hai913i.tp2.spoon.model.ClassInfo;
+import hai913i.tp2.spoon.parsers.ParseCache;
+import hai913i.tp2.spoon.processors.AnalysisProgress;
+import hai913i.tp2.spoon.processors.CodeGenerationProcessor;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Analyse sans interface graphique (serveur d’intégration, conteneur) : Spoon via le cache, matrice de couplage,
+ * clustering et modules (ModuleIdentifier), écrits en JSON ou CSV par {@link ReportWriter}.
+ * Contrairement à CodeGenerationProcessorMain, aucune classe AWT/Swing n’est chargée (pas de ProjectPathChooser).
+ *
+ * <pre>
+ * HeadlessMain &lt;dossier du projet&gt; [--format json|csv] [--out &lt;fichier|dossier&gt;] [--cp &lt;seuil&gt;] [--snapshot &lt;fichier&gt;]
+ * HeadlessMain &lt;dossier du projet&gt; --coupling &lt;fichier .csv|.jsonl|.bin&gt;
+ * HeadlessMain &lt;dossier du projet&gt; --pairs &lt;fichier&gt; [--out &lt;fichier&gt;]
+ * HeadlessMain &lt;dossier du projet&gt; --packages &lt;fichier .csv|.jsonl|.bin&gt; [--depth &lt;n&gt;]
+ * HeadlessMain &lt;dossier du projet&gt; --calls &lt;Classe.méthode&gt; [--out &lt;fichier&gt;]
+ * </pre>
+ * JSON : sur la sortie standard, ou dans le fichier {@code --out}. CSV : trois fichiers dans le dossier {@code --out}
+ * (dossier courant par défaut). {@code --coupling} : seule la matrice de couplage, exportée en flux par
+ * {@link CouplingExporter} (sans clustering, pour les très gros projets). {@code --snapshot} : enregistre en plus
+ * un {@link AnalysisSnapshot}, rouvert ensuite par l’interface sans nouvelle analyse. {@code --pairs} : couplage
+ * d’une liste de paires de classes (une par ligne), en CSV dans {@code --out} ou sur la sortie standard, par
+ * {@link CouplingQuery#queryAll} (sans clustering). {@code --packages} : matrice de couplage entre paquetages
+ * ({@link PackageCoupling}), ou entre préfixes de {@code --depth} segments, exportée comme {@code --coupling}.
+ * {@code --calls} : appelantes et appelées d’une méthode ({@link MethodCallGraph}), en CSV.
+ * L’avancement est écrit sur la sortie d’erreur.
+ * Code de sortie : 0 si succès, 1 si l’analyse échoue, 2 si les arguments sont invalides.
+ */
+public class HeadlessMain extends AbstractMain {
+
+    static final String USAGE = "Usage : HeadlessMain <dossier du projet> [--format json|csv] [--out <fichier|dossier>] [--cp <seuil>]"
+            + " [--snapshot <fichier>]\n"
+            + "        HeadlessMain <dossier du projet> --coupling <fichier .csv|.jsonl|.bin>\n"
+            + "        HeadlessMain <dossier du projet> --pairs <fichier> [--out <fichier>]\n"
+            + "        HeadlessMain <dossier du projet> --packages <fichier .csv|.jsonl|.bin> [--depth <n>]\n"
+            + "        HeadlessMain <dossier du projet> --calls <Classe.méthode> [--out <fichier>]";
+
+    /**
+     * Arguments de la ligne de commande ; {@code out} null : sortie standard (JSON) ou dossier courant (CSV) ;
+     * {@code coupling} non null : export de la seule matrice de couplage ; {@code snapshot} : instantané à écrire ;
+     * {@code pairs} non null : fichier de paires à interroger ; {@code packages} non null : export du couplage
+     * entre paquetages, préfixes de {@code depth} segments (0 : paquetages complets) ; {@code calls} non null :
+     * méthode dont on veut les appelantes et les appelées.
+     */
+    record Options(String project, ReportWriter.Format format, Path out, double cp, Path coupling, Path snapshot, Path pairs,
+                   Path packages, int depth, String calls) {
+
+        static Options parse(String[] args) {
+            String project = null;
+            ReportWriter.Format format = ReportWriter.Format.JSON;
+            Path out = null;
+            double cp = 0.05;
+            Path coupling = null;
+            Path snapshot = null;
+            Path pairs = null;
+            Path packages = null;
+            int depth = -1;
+            String calls = null;
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--format" -> format = format(value(args, ++i));
+                    case "--out" -> out = Paths.get(value(args, ++i));
+                    case "--cp" -> cp = Double.parseDouble(value(args, ++i));
+                    case "--coupling" -> {
+                        coupling = Paths.get(value(args, ++i));
+                        if (CouplingExporter.Format.ofFile(coupling) == null) {
+                            throw new IllegalArgumentException("Extension inconnue (.csv, .jsonl ou .bin) : " + coupling);
+                        }
+                    }
+                    case "--snapshot" -> snapshot = Paths.get(value(args, ++i));
+                    case "--pairs" -> pairs = Paths.get(value(args, ++i));
+                    case "--packages" -> {
+                        packages = Paths.get(value(args, ++i));
+                        if (CouplingExporter.Format.ofFile(packages) == null) {
+                            throw new IllegalArgumentException("Extension inconnue (.csv, .jsonl ou .bin) : " + packages);
+                        }
+                    }
+                    case "--depth" -> {
+                        depth = Integer.parseInt(value(args, ++i));
+                        if (depth < 0) throw new IllegalArgumentException("Profondeur négative : " + depth);
+                    }
+                    case "--calls" -> calls = value(args, ++i);
+                    default -> {
+                        if (args[i].startsWith("--") || project != null) {
+                            throw new IllegalArgumentException("Argument inconnu : " + args[i]);
+                        }
+                        project = args[i];
+                    }
+                }
+            }
+            if (project == null) throw new IllegalArgumentException("Dossier du projet manquant");
+            if (coupling != null && snapshot != null) {
+                throw new IllegalArgumentException("--coupling et --snapshot sont incompatibles (pas de clustering avec --coupling)");
+            }
+            if (pairs != null && (coupling != null || snapshot != null)) {
+                throw new IllegalArgumentException("--pairs est incompatible avec --coupling et --snapshot");
+            }
+            if (packages != null && (coupling != null || snapshot != null || pairs != null)) {
+                throw new IllegalArgumentException("--packages est incompatible avec --coupling, --snapshot et --pairs");
+            }
+            if (depth >= 0 && packages == null) throw new IllegalArgumentException("--depth sans --packages");
+            if (calls != null && (coupling != null || snapshot != null || pairs != null || packages != null)) {
+                throw new IllegalArgumentException("--calls est incompatible avec --coupling, --snapshot, --pairs et --packages");
+            }
+            return new Options(project, format, out, cp, coupling, snapshot, pairs, packages, Math.max(depth, 0), calls);
+        }
+
+        private static ReportWriter.Format format(String name) {
+            for (ReportWriter.Format f : ReportWriter.Format.values()) {
+                if (f.name().equalsIgnoreCase(name)) return f;
+            }
+            throw new IllegalArgumentException("Format inconnu : " + name);
+        }
+
+        private static String value(String[] args, int i) {
+            if (i >= args.length) throw new IllegalArgumentException("Valeur manquante après " + args[i - 1]);
+            return args[i];
+        }
+    }
+
+    public static void main(String[] args) {
+        Options options;
+        try {
+            options = Options.parse(args);
+            if (!isJavaProject(options.project())) {
+                throw new IllegalArgumentException(options.project() + " n’existe pas ou n’est pas un projet Java (src/ attendu)");
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+
+        try {
+            run(options);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Erreur : " + e);
+            System.exit(1);
+        }
+    }
+
+    static void run(Options options) throws IOException {
+        long start = System.nanoTime();
+        String project = options.project();
+        CodeGenerationProcessor runner = new CodeGenerationProcessor(project);
+        ParseCache cache = ParseCache.load(ParseCache.defaultLocation(project));
+
+        // une ligne par étape (pas de barre de progression : la sortie peut être un journal de build)
+        AnalysisProgress.Stage[] last = {null};
+        List<ClassInfo> classes = runner.applyIncremental(cache, (stage, done, total) -> {
+            if (stage != last[0]) System.err.println(stage.label + "…");
+            last[0] = stage;
+        });
+
+        if (options.calls() != null) {
+            MethodCallGraph graph = MethodCallGraph.build(classes);
+            System.err.printf("Méthodes : %d méthode(s), %d arc(s) pour %d appel(s) ; %d externe(s), %d non résolu(s)%n",
+                    graph.size(), graph.edgeCount(), graph.callSites(), graph.externalCalls(), graph.unresolvedCalls());
+            writeCalls(graph, options.calls(), options.out());
+            System.err.printf("Terminé en %d ms%n", (System.nanoTime() - start) / 1_000_000);
+            return;
+        }
+
+        CouplingMatrix matrix = CouplingMatrix.build(classes);
+        System.err.println("Couplage : " + matrix.size() + " classe(s), " + matrix.totalCalls() + " appel(s)");
+        if (options.coupling() != null) {
+            CouplingExporter.write(matrix, options.coupling());
+            System.err.printf("Couplage exporté dans %s en %d ms%n", options.coupling(), (System.nanoTime() - start) / 1_000_000);
+            return;
+        }
+        if (options.packages() != null) {
+            PackageCoupling packages = PackageCoupling.byPrefix(matrix, options.depth());
+            long internal = 0;
+            for (int g = 0; g < packages.matrix().size(); g++) internal += packages.internalCalls(g);
+            CouplingExporter.write(packages.matrix(), options.packages());
+            System.err.printf("Paquetages : %d groupe(s), %d appel(s) entre groupes, %d interne(s), exportés dans %s%n",
+                    packages.matrix().size(), packages.matrix().totalCalls(), internal, options.packages());
+            return;
+        }
+        if (options.pairs() != null) {
+            long queried = System.nanoTime();
+            long pairs = queryPairs(CouplingQuery.of(matrix), options.pairs(), options.out());
+            System.err.printf("Requêtes : %d paire(s) en %d ms%n", pairs, (System.nanoTime() - queried) / 1_000_000);
+            return;
+        }
+
+        AverageLinkageClustering.Result clustering = AverageLinkageClustering.clusterAdaptive(matrix);
+        List<ModuleIdentifier.Module> modules = ModuleIdentifier.identifyModules(
+                CodeGenerationProcessorMain.ClusteringResult.of(clustering), ModuleIdentifier.couplesOf(matrix), options.cp());
+        System.err.println("Clustering : " + clustering.merges().size() + " fusion(s), " + modules.size() + " module(s)");
+
+        if (options.snapshot() != null) {
+            AnalysisSnapshot.write(options.snapshot(), project, "spoon", classes, matrix, clustering);
+            System.err.println("Instantané : " + options.snapshot());
+        }
+
+        ReportWriter report = new ReportWriter(project, "spoon", matrix, clustering.merges(), modules, options.cp());
+        if (options.format() == ReportWriter.Format.CSV) {
+            report.writeCsv(options.out() != null ? options.out() : Paths.get("."));
+        } else if (options.out() != null) {
+            try (Writer out = Files.newBufferedWriter(options.out(), StandardCharsets.UTF_8)) {
+                report.writeJson(out);
+            }
+        } else {
+            Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+            report.writeJson(out);
+        }
+        System.err.printf("Terminé en %d ms%n", (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Appelantes puis appelées de la méthode {@code name} ({@link MethodCallGraph#find}), en CSV
+     * {@code direction,method,sites} vers {@code out}, ou la sortie standard si null.
+     */
+    static void writeCalls(MethodCallGraph graph, String name, Path out) throws IOException {
+        int method = graph.find(name);
+        if (method < 0) throw new IllegalArgumentException("Méthode inconnue : " + name);
+        Writer w = (out != null) ? Files.newBufferedWriter(out, StandardCharsets.UTF_8)
+                : new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+        try {
+            w.write("direction,method,sites\n");
+            for (MethodCallGraph.Call c : graph.callers(method)) w.write("caller," + c.name() + "," + c.sites() + "\n");
+            for (MethodCallGraph.Call c : graph.callees(method)) w.write("callee," + c.name() + "," + c.sites() + "\n");
+        } finally {
+            if (out != null) w.close();
+            else w.flush();
+        }
+    }
+
+    /** Paires de {@code pairs} vers {@code out}, ou la sortie standard si null ; renvoie le nombre de paires. */
+    static long queryPairs(CouplingQuery query, Path pairs, Path out) throws IOException {
+        try (BufferedReader in = Files.newBufferedReader(pairs, StandardCharsets.UTF_8)) {
+            if (out != null) {
+                try (Writer w = Files.newBufferedWriter(out, StandardCharsets.UTF_8)) {
+                    return query.queryAll(in, w);
+                }
+            }
+            Writer w = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16);
+            long n = query.queryAll(in, w);
+            w.flush();
+            return n;
+        }
+    }
+}
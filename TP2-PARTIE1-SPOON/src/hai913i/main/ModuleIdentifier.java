@@ -1,5 +1,7 @@
 package hai913i.main;
 
+import hai913i.tp2.coupling.CouplingMatrix;
+
 import java.util.*;
 
 
@@ -53,6 +55,17 @@ public final class ModuleIdentifier {
         return modules;
     }
 
+    /**
+     * Couples non nuls de la matrice (une paire absente vaut 0 pour le clustering et les modules).
+     * Ici plutôt que dans CodeGenerationProcessorMain : l’analyse sans interface (HeadlessMain) ne charge pas Swing.
+     */
+    public static Map<CodeGenerationProcessorMain.UnorderedPair<String>, Double> couplesOf(CouplingMatrix matrix) {
+        Map<CodeGenerationProcessorMain.UnorderedPair<String>, Double> couples = new HashMap<>();
+        matrix.forEachPair((a, b, calls, w) ->
+                couples.put(new CodeGenerationProcessorMain.UnorderedPair<>(matrix.name(a), matrix.name(b)), w));
+        return couples;
+    }
+
     // ===== Arbre du dendrogramme =====
     private static final class Node {
         final Set<String> leaves;
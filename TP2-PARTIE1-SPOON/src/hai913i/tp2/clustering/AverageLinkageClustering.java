@@ -0,0 +1,255 @@
+package hai913i.tp2.clustering;
+
+import hai913i.tp2.coupling.CouplingMatrix;
+
+import java.util.*;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Clustering hiérarchique average-link, mêmes fusions (et même ordre) que la version naïve de CodeGenerationProcessorMain :
+ * à chaque étape, la paire de clusters de couplage moyen maximal ; à égalité, la paire de taille totale
+ * la plus grande, puis la clé lexicographique « membres triés de gauche | membres triés de droite » la plus petite.
+ *
+ * Au lieu de recalculer avgCoupling sur toutes les paires à chaque fusion :
+ *  - sommes d’appels entre clusters en matrice triangulaire, mises à jour à la Lance-Williams
+ *    (somme(A∪B, C) = somme(A, C) + somme(B, C)), la moyenne étant somme / (|A|·|C|) ;
+ *  - meilleur partenaire mémorisé par cluster : seuls les clusters dont le partenaire vient d’être fusionné
+ *    sont re-balayés, les autres se comparent au seul nouveau cluster.
+ * Mémoire O(n²) ; temps O(n²) en pratique, mais O(n³) dans le pire cas : la borne O(n²) (chaîne des plus proches
+ * voisins, file de priorité) n’est pas atteinte. Chaque fusion coûte O(n) plus O(n) par cluster re-balayé ; le cas
+ * cubique se produit quand, fusion après fusion, Θ(n) clusters ont pour meilleur partenaire l’un des deux clusters
+ * fusionnés, typiquement une classe pivot beaucoup plus couplée que les autres qui absorbe ses voisins un à un.
+ * La chaîne des plus proches voisins ne reproduit pas l’ordre des fusions à égalité ; un tas de toutes les paires
+ * ordonné comme {@link #better} le reproduirait en O(n² log n), mais avec suppressions paresseuses il garde jusqu’à
+ * ~1,5·n² entrées, plusieurs fois la matrice des sommes, alors que ce moteur n’est choisi que pour les graphes denses.
+ *
+ * La version naïve compare des moyennes flottantes sommées dans l’ordre des membres : deux moyennes
+ * mathématiquement égales peuvent différer de quelques ulp et c’est alors cet arrondi qui tranche.
+ * Pour reproduire exactement ses choix, on compare d’abord les comptes entiers (produits en croix) ;
+ * si l’écart est inférieur à l’erreur d’arrondi possible, on calcule le score flottant exactement comme
+ * avgCoupling (mêmes poids, même ordre de sommation) et c’est lui qui décide. Le score publié est ce même calcul.
+ */
+public final class AverageLinkageClustering {
+
+    /** @param score couplage moyen au moment de la fusion */
+    public record Merge(Set<String> left, Set<String> right, double score) {
+    }
+
+    public record Result(List<Set<String>> clusters, List<Merge> merges) {
+    }
+
+    /** Taille maximale d’un tableau Java (marge des en-têtes de la JVM) : borne de la matrice triangulaire. */
+    private static final long MAX_PAIRS = Integer.MAX_VALUE - 8;
+
+    private final CouplingMatrix matrix;
+    private final int n;
+    private final String[] names;        // feuilles triées par nom (ordre initial de la version naïve)
+    private final int[] leafToMatrix;    // feuille -> index dans la matrice
+    private final long[] sums;           // triangulaire : appels entre les clusters i et j (i < j)
+
+    // état par cluster, indexé par sa plus petite feuille (= sa position dans la liste naïve)
+    private final boolean[] active;
+    private final int[] size;
+    private final List<List<Integer>> members = new ArrayList<>();
+    private final String[] sortedKey;    // String.join(",", membres triés)
+    private final int[] partner;         // meilleur partenaire actuel
+    // scores flottants « naïfs » déjà calculés (quasi-égalités seulement), invalidés à chaque fusion
+    private final Map<Integer, Double> naiveCache = new HashMap<>();
+
+    private AverageLinkageClustering(CouplingMatrix matrix) {
+        this.matrix = matrix;
+        this.n = matrix.size();
+        if (pairs(n) > MAX_PAIRS) {
+            throw new IllegalArgumentException("Trop de classes pour la matrice triangulaire (" + n
+                    + ") : utiliser SparseAverageLinkageClustering");
+        }
+
+        names = matrix.classNames().toArray(new String[0]);
+        Arrays.sort(names);
+        leafToMatrix = new int[n];
+        int[] matrixToLeaf = new int[n];
+        for (int i = 0; i < n; i++) {
+            leafToMatrix[i] = matrix.indexOf(names[i]);
+            matrixToLeaf[leafToMatrix[i]] = i;
+        }
+
+        sums = new long[(int) pairs(n)];
+        matrix.forEachPair((a, b, calls, w) -> sums[tri(matrixToLeaf[a], matrixToLeaf[b])] = calls);
+
+        active = new boolean[n];
+        size = new int[n];
+        sortedKey = new String[n];
+        partner = new int[n];
+        for (int i = 0; i < n; i++) {
+            active[i] = true;
+            size[i] = 1;
+            members.add(new ArrayList<>(List.of(i)));
+            sortedKey[i] = names[i];
+        }
+    }
+
+    /**
+     * Moteur choisi selon la densité : mêmes fusions, même ordre et mêmes règles d’égalité dans les deux cas.
+     * Graphe creux (cas courant : la plupart des paires de classes ne s’appellent pas) : le mode par listes
+     * de voisins ne visite que les arêtes ; au-delà d’un quart des paires, la matrice triangulaire est plus rapide.
+     */
+    public static Result clusterAdaptive(CouplingMatrix matrix) {
+        long pairs = pairs(matrix.size());
+        // au-delà de MAX_PAIRS, la matrice triangulaire ne tient pas dans un tableau : listes de voisins d’office
+        boolean sparse = matrix.pairCount() * 4L < pairs || pairs > MAX_PAIRS;
+        return sparse ? SparseAverageLinkageClustering.cluster(matrix) : cluster(matrix);
+    }
+
+    /** Nombre de paires i &lt; j parmi n classes (taille de la matrice triangulaire). */
+    private static long pairs(long n) {
+        return n * (n - 1) / 2;
+    }
+
+    /** Matrice triangulaire : au plus 65 536 classes, sinon IllegalArgumentException (voir {@link #clusterAdaptive}). */
+    public static Result cluster(CouplingMatrix matrix) {
+        if (matrix.size() < 2) return new Result(List.of(), List.of());
+        return new AverageLinkageClustering(matrix).run();
+    }
+
+    /**
+     * Annulation coopérative : un thread interrompu (ex. SwingWorker.cancel(true)) arrête le clustering
+     * à la fusion suivante. Le flag d’interruption est conservé pour l’appelant.
+     */
+    static void checkInterrupted() {
+        if (Thread.currentThread().isInterrupted()) throw new CancellationException("Clustering interrompu");
+    }
+
+    private Result run() {
+        for (int i = 0; i < n; i++) {
+            checkInterrupted();
+            partner[i] = scanBestPartner(i);
+        }
+
+        List<Merge> merges = new ArrayList<>(n - 1);
+        for (int remaining = n; remaining > 1; remaining--) {
+            checkInterrupted();
+            // meilleure paire globale = meilleure des paires (i, partenaire(i))
+            int bi = -1;
+            for (int i = 0; i < n; i++) {
+                if (!active[i]) continue;
+                if (bi < 0 || better(i, partner[i], bi, partner[bi])) bi = i;
+            }
+            int a = Math.min(bi, partner[bi]);
+            int b = Math.max(bi, partner[bi]);
+
+            merges.add(new Merge(namesOf(a), namesOf(b), naiveScoreCached(a, b)));
+            merge(a, b);
+        }
+
+        Set<String> all = new LinkedHashSet<>();
+        for (int i = 0; i < n; i++) {
+            if (active[i]) all.addAll(namesOf(i));
+        }
+        List<Set<String>> clusters = new ArrayList<>();
+        clusters.add(all);
+        return new Result(clusters, merges);
+    }
+
+    /** Fusionne b dans a (a &lt; b : le cluster fusionné garde la place de a, comme clusters.set(bi) / remove(bj)). */
+    private void merge(int a, int b) {
+        for (int c = 0; c < n; c++) {
+            if (c == a || c == b) continue;
+            naiveCache.remove(tri(a, c));
+            naiveCache.remove(tri(b, c));
+            if (active[c]) sums[tri(a, c)] += sums[tri(b, c)];
+        }
+        active[b] = false;
+        size[a] += size[b];
+        members.get(a).addAll(members.get(b));
+        members.set(b, null);
+        List<String> sorted = new ArrayList<>(namesOf(a));
+        Collections.sort(sorted);
+        sortedKey[a] = String.join(",", sorted);
+
+        partner[a] = scanBestPartner(a);
+        for (int c = 0; c < n; c++) {
+            if (!active[c] || c == a) continue;
+            if (partner[c] == a || partner[c] == b) {
+                if (sums[tri(c, a)] == 0) {
+                    // c n’a d’appels avec personne (sinon son meilleur partenaire aurait un score > 0) :
+                    // entre scores nuls, la plus grande taille gagne, et le cluster fusionné est strictement le plus grand
+                    partner[c] = a;
+                    continue;
+                }
+                // son partenaire a changé (ou disparu) : le score vers le cluster fusionné peut avoir baissé
+                partner[c] = scanBestPartner(c);
+            } else if (better(c, a, c, partner[c])) {
+                partner[c] = a;
+            }
+        }
+    }
+
+    private int scanBestPartner(int i) {
+        int best = -1;
+        for (int j = 0; j < n; j++) {
+            if (j == i || !active[j]) continue;
+            if (best < 0 || better(i, j, i, best)) best = j;
+        }
+        return best;
+    }
+
+    /** Vrai si la paire {i1, j1} passe avant la paire {i2, j2} (score, puis taille, puis clé). */
+    private boolean better(int i1, int j1, int i2, int j2) {
+        int cmp = compareScores(i1, j1, i2, j2);
+        if (cmp != 0) return cmp > 0;
+
+        int size1 = size[i1] + size[j1];
+        int size2 = size[i2] + size[j2];
+        if (size1 != size2) return size1 > size2;
+
+        return pairKey(i1, j1).compareTo(pairKey(i2, j2)) < 0;
+    }
+
+    /** Compare les scores comme le ferait la version naïve (flottants), en évitant de les calculer si possible. */
+    private int compareScores(int i1, int j1, int i2, int j2) {
+        long s1 = sums[tri(i1, j1)], s2 = sums[tri(i2, j2)];
+        long k1 = (long) size[i1] * size[j1], k2 = (long) size[i2] * size[j2];
+        if (s1 == 0 || s2 == 0) return Long.compare(s1, s2); // somme de 0.0 = 0.0 exactement
+
+        // s1/k1 vs s2/k2 ; erreur relative du calcul naïf bornée par (k + 3)·2^-52
+        double v1 = (double) s1 / k1, v2 = (double) s2 / k2;
+        double tolerance = (k1 + 3) * 0x1p-52 * v1 + (k2 + 3) * 0x1p-52 * v2 + 0x1p-50 * Math.max(v1, v2);
+        if (Math.abs(v1 - v2) > tolerance) return Double.compare(v1, v2);
+
+        return Double.compare(naiveScoreCached(i1, j1), naiveScoreCached(i2, j2));
+    }
+
+    private double naiveScoreCached(int i, int j) {
+        int a = Math.min(i, j), b = Math.max(i, j);
+        return naiveCache.computeIfAbsent(tri(a, b), k -> naiveScore(a, b));
+    }
+
+    private String pairKey(int i, int j) {
+        return (i < j) ? sortedKey[i] + "|" + sortedKey[j] : sortedKey[j] + "|" + sortedKey[i];
+    }
+
+    /** Même calcul que avgCoupling de CodeGenerationProcessorMain (poids normalisés, parcours gauche puis droite). */
+    private double naiveScore(int a, int b) {
+        double sum = 0.0;
+        int cnt = 0;
+        for (int x : members.get(a)) {
+            for (int y : members.get(b)) {
+                sum += matrix.weight(leafToMatrix[x], leafToMatrix[y]);
+                cnt++;
+            }
+        }
+        return (cnt == 0) ? 0.0 : (sum / cnt);
+    }
+
+    private Set<String> namesOf(int cluster) {
+        Set<String> out = new LinkedHashSet<>();
+        for (int leaf : members.get(cluster)) out.add(names[leaf]);
+        return out;
+    }
+
+    private int tri(int i, int j) {
+        int lo = Math.min(i, j), hi = Math.max(i, j);
+        // ligne lo, colonne hi (hi > lo)
+        return (int) ((long) lo * (2L * n - lo - 1) / 2 + (hi - lo - 1));
+    }
+}
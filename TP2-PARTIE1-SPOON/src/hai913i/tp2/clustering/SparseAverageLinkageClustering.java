@@ -0,0 +1,349 @@
+package hai913i.tp2.clustering;
+
+import hai913i.tp2.coupling.CouplingMatrix;
+
+import java.util.*;
+
+/**
+ * Variante creuse de {@link AverageLinkageClustering} : mêmes fusions, même ordre, mêmes scores, mais seules
+ * les paires de couplage non nul sont visitées. Temps et mémoire suivent le nombre de dépendances réelles
+ * au lieu de n² (hors taille du résultat lui-même : chaque fusion publie les ensembles fusionnés).
+ *
+ *  - chaque cluster garde la liste de ses voisins (clusters avec au moins un appel) et la somme des appels
+ *    vers chacun ; une fusion additionne les deux listes (Lance-Williams) et met à jour les seuls voisins ;
+ *  - le meilleur partenaire d’un cluster est forcément un voisin (score &gt; 0) : seuls les voisins sont re-balayés ;
+ *  - quand plus aucun couple de clusters n’a d’appel, tous les scores valent 0 et la version naïve départage
+ *    uniquement par taille puis par clé : ces dernières fusions se font sans aucun score.
+ *
+ * Le départage flottant des quasi-égalités est celui de {@link AverageLinkageClustering}, la somme
+ * « naïve » n’y parcourant que les voisins (les termes nuls ne changent pas une somme flottante).
+ */
+public final class SparseAverageLinkageClustering {
+
+    private final int n;
+    private final String[] names;             // feuilles triées par nom (ordre initial de la version naïve)
+
+    // voisinage des feuilles (format CSR) : poids identiques à CouplingMatrix.weight
+    private final int[] adjStart;
+    private final int[] adjLeaf;
+    private final double[] adjWeight;
+
+    // état par cluster, indexé par sa plus petite feuille (= sa position dans la liste naïve)
+    private final boolean[] active;
+    private final int[] size;
+    private final List<List<Integer>> members = new ArrayList<>();
+    private final List<Map<Integer, Long>> sums = new ArrayList<>(); // voisin -> appels (> 0 seulement)
+    private final String[] sortedKey;          // String.join(",", membres triés), calculée à la demande
+    private final int[] partner;               // meilleur voisin, -1 si aucun
+    private final long[] partnerSum;           // appels vers ce voisin
+    private final int[] clusterOf;             // feuille -> cluster
+    private final int[] position;              // feuille -> rang dans la liste des membres de son cluster
+    private final Map<Long, Double> naiveCache = new HashMap<>();
+
+    private SparseAverageLinkageClustering(CouplingMatrix matrix) {
+        this.n = matrix.size();
+
+        names = matrix.classNames().toArray(new String[0]);
+        Arrays.sort(names);
+        int[] matrixToLeaf = new int[n];
+        for (int i = 0; i < n; i++) matrixToLeaf[matrix.indexOf(names[i])] = i;
+
+        int[] degree = new int[n];
+        matrix.forEachPair((a, b, calls, w) -> {
+            degree[matrixToLeaf[a]]++;
+            degree[matrixToLeaf[b]]++;
+        });
+        adjStart = new int[n + 1];
+        for (int i = 0; i < n; i++) adjStart[i + 1] = adjStart[i] + degree[i];
+        adjLeaf = new int[adjStart[n]];
+        adjWeight = new double[adjStart[n]];
+        int[] fill = Arrays.copyOf(adjStart, n);
+
+        active = new boolean[n];
+        size = new int[n];
+        sortedKey = new String[n];
+        partner = new int[n];
+        partnerSum = new long[n];
+        clusterOf = new int[n];
+        position = new int[n];
+        for (int i = 0; i < n; i++) {
+            active[i] = true;
+            size[i] = 1;
+            members.add(new ArrayList<>(List.of(i)));
+            sums.add(new HashMap<>());
+            sortedKey[i] = names[i];
+            clusterOf[i] = i;
+        }
+
+        matrix.forEachPair((a, b, calls, w) -> {
+            int la = matrixToLeaf[a], lb = matrixToLeaf[b];
+            adjLeaf[fill[la]] = lb;
+            adjWeight[fill[la]++] = w;
+            adjLeaf[fill[lb]] = la;
+            adjWeight[fill[lb]++] = w;
+            sums.get(la).put(lb, calls);
+            sums.get(lb).put(la, calls);
+        });
+    }
+
+    public static AverageLinkageClustering.Result cluster(CouplingMatrix matrix) {
+        if (matrix.size() < 2) return new AverageLinkageClustering.Result(List.of(), List.of());
+        return new SparseAverageLinkageClustering(matrix).run();
+    }
+
+    private AverageLinkageClustering.Result run() {
+        List<AverageLinkageClustering.Merge> merges = new ArrayList<>(n - 1);
+
+        // 1) fusions de score > 0 : clusters ayant encore un voisin, ordonnés par leur meilleure paire
+        TreeSet<Integer> candidates = new TreeSet<>(this::compareCandidates);
+        for (int i = 0; i < n; i++) {
+            AverageLinkageClustering.checkInterrupted();
+            scanBestPartner(i);
+            if (partner[i] >= 0) candidates.add(i);
+        }
+        while (!candidates.isEmpty()) {
+            AverageLinkageClustering.checkInterrupted();
+            int bi = candidates.first();
+            int a = Math.min(bi, partner[bi]);
+            int b = Math.max(bi, partner[bi]);
+            merges.add(new AverageLinkageClustering.Merge(namesOf(a), namesOf(b), naiveScoreCached(a, b)));
+
+            // seules les paires touchant a ou b changent : on les retire avant la fusion, on les remet après
+            candidates.remove(a);
+            candidates.remove(b);
+            for (int c : sums.get(a).keySet()) candidates.remove(c);
+            for (int c : sums.get(b).keySet()) candidates.remove(c);
+            merge(a, b);
+            if (partner[a] >= 0) candidates.add(a);
+            candidates.addAll(sums.get(a).keySet());
+        }
+
+        // 2) plus aucun appel entre clusters : score 0 partout, départage par taille puis par clé
+        List<Integer> rest = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            if (active[i]) rest.add(i);
+        }
+        while (rest.size() > 1) {
+            AverageLinkageClustering.checkInterrupted();
+            int[] pair = largestPairWithSmallestKey(rest);
+            int a = Math.min(pair[0], pair[1]);
+            int b = Math.max(pair[0], pair[1]);
+            merges.add(new AverageLinkageClustering.Merge(namesOf(a), namesOf(b), 0.0));
+            merge(a, b);
+            rest.remove(Integer.valueOf(b));
+        }
+
+        List<Set<String>> clusters = new ArrayList<>();
+        clusters.add(namesOf(rest.get(0)));
+        return new AverageLinkageClustering.Result(clusters, merges);
+    }
+
+    /**
+     * Parmi des clusters deux à deux sans appel : la paire de taille totale maximale, puis de clé minimale.
+     * O(clusters restants) par fusion ; seule la comparaison finale construit la clé du plus gros cluster.
+     */
+    private int[] largestPairWithSmallestKey(List<Integer> rest) {
+        int s1 = 0;
+        for (int c : rest) s1 = Math.max(s1, size[c]);
+        List<Integer> top = new ArrayList<>();
+        for (int c : rest) {
+            if (size[c] == s1) top.add(c);
+        }
+
+        if (top.size() >= 2) {
+            // toutes les paires du groupe : clé(i)|clé(j), i < j ; à préfixe fixé, le meilleur j est la plus petite clé suivante
+            int bestI = -1, bestJ = -1;
+            int minAfter = top.get(top.size() - 1);
+            for (int k = top.size() - 2; k >= 0; k--) {
+                int i = top.get(k);
+                if (bestI < 0 || pairKey(i, minAfter).compareTo(pairKey(bestI, bestJ)) < 0) {
+                    bestI = i;
+                    bestJ = minAfter;
+                }
+                if (key(i).compareTo(key(minAfter)) < 0) minAfter = i;
+            }
+            return new int[]{bestI, bestJ};
+        }
+
+        // un seul plus gros cluster t : son partenaire est l’un des suivants en taille
+        int t = top.get(0);
+        int s2 = 0;
+        for (int c : rest) {
+            if (c != t) s2 = Math.max(s2, size[c]);
+        }
+        int bestLeft = -1, bestRight = -1;   // placé avant t : clé(c)|clé(t) ; après t : clé(t)|clé(c)
+        for (int c : rest) {
+            if (c == t || size[c] != s2) continue;
+            if (c < t) {
+                if (bestLeft < 0 || (key(c) + "|").compareTo(key(bestLeft) + "|") < 0) bestLeft = c;
+            } else if (bestRight < 0 || key(c).compareTo(key(bestRight)) < 0) {
+                bestRight = c;
+            }
+        }
+        if (bestLeft < 0) return new int[]{t, bestRight};
+        if (bestRight < 0) return new int[]{bestLeft, t};
+        return new int[]{t, pairKey(bestLeft, t).compareTo(pairKey(t, bestRight)) < 0 ? bestLeft : bestRight};
+    }
+
+    /** Fusionne b dans a (a &lt; b : le cluster fusionné garde la place de a, comme clusters.set(bi) / remove(bj)). */
+    private void merge(int a, int b) {
+        Map<Integer, Long> sa = sums.get(a), sb = sums.get(b);
+        naiveCache.remove(pairId(a, b));
+        for (int c : sa.keySet()) naiveCache.remove(pairId(a, c));
+        for (int c : sb.keySet()) naiveCache.remove(pairId(b, c));
+        sa.remove(b);
+        sb.remove(a);
+
+        // la plus petite liste de voisins est versée dans la plus grande
+        Map<Integer, Long> merged = (sa.size() >= sb.size()) ? sa : sb;
+        Map<Integer, Long> other = (merged == sa) ? sb : sa;
+        for (var e : other.entrySet()) merged.merge(e.getKey(), e.getValue(), Long::sum);
+        sums.set(a, merged);
+        sums.set(b, null);
+        for (var e : merged.entrySet()) {
+            Map<Integer, Long> sc = sums.get(e.getKey());
+            sc.remove(b);
+            sc.put(a, e.getValue());
+        }
+
+        active[b] = false;
+        List<Integer> ma = members.get(a);
+        for (int leaf : members.get(b)) {
+            clusterOf[leaf] = a;
+            position[leaf] = ma.size();
+            ma.add(leaf);
+        }
+        members.set(b, null);
+        size[a] += size[b];
+        sortedKey[a] = null;
+        sortedKey[b] = null;
+
+        scanBestPartner(a);
+        for (var e : merged.entrySet()) {
+            int c = e.getKey();
+            if (partner[c] == a || partner[c] == b) {
+                scanBestPartner(c);
+            } else if (better(c, a, e.getValue(), c, partner[c], partnerSum[c])) {
+                partner[c] = a;
+                partnerSum[c] = e.getValue();
+            }
+        }
+    }
+
+    /** Ordre de la file : meilleure paire (i, partenaire) d’abord ; une même paire vue des deux côtés, par index. */
+    private int compareCandidates(int x, int y) {
+        if (x == y) return 0;
+        if (partner[x] == y && partner[y] == x) return Integer.compare(x, y);
+        return better(x, partner[x], partnerSum[x], y, partner[y], partnerSum[y]) ? -1 : 1;
+    }
+
+    /** Re-balaye les voisins de i pour fixer partner[i] et partnerSum[i]. */
+    private void scanBestPartner(int i) {
+        int best = -1;
+        long bestSum = 0;
+        for (var e : sums.get(i).entrySet()) {
+            if (best < 0 || better(i, e.getKey(), e.getValue(), i, best, bestSum)) {
+                best = e.getKey();
+                bestSum = e.getValue();
+            }
+        }
+        partner[i] = best;
+        partnerSum[i] = bestSum;
+    }
+
+    /** Vrai si la paire {i1, j1} (s1 appels) passe avant la paire {i2, j2} (s2 appels) : score, puis taille, puis clé. */
+    private boolean better(int i1, int j1, long s1, int i2, int j2, long s2) {
+        int cmp = compareScores(i1, j1, s1, i2, j2, s2);
+        if (cmp != 0) return cmp > 0;
+
+        int size1 = size[i1] + size[j1];
+        int size2 = size[i2] + size[j2];
+        if (size1 != size2) return size1 > size2;
+
+        return comparePairKeys(i1, j1, i2, j2) < 0;
+    }
+
+    /** Mêmes règles que {@link AverageLinkageClustering} : comparaison exacte, flottant naïf en cas de quasi-égalité. */
+    private int compareScores(int i1, int j1, long s1, int i2, int j2, long s2) {
+        long k1 = (long) size[i1] * size[j1], k2 = (long) size[i2] * size[j2];
+        if (s1 == 0 || s2 == 0) return Long.compare(s1, s2);
+        // deux feuilles : le score naïf est exactement appels / total, même arrondi des deux côtés
+        if (k1 == 1 && k2 == 1) return Long.compare(s1, s2);
+
+        double v1 = (double) s1 / k1, v2 = (double) s2 / k2;
+        double tolerance = (k1 + 3) * 0x1p-52 * v1 + (k2 + 3) * 0x1p-52 * v2 + 0x1p-50 * Math.max(v1, v2);
+        if (Math.abs(v1 - v2) > tolerance) return Double.compare(v1, v2);
+
+        return Double.compare(naiveScoreCached(i1, j1), naiveScoreCached(i2, j2));
+    }
+
+    private double naiveScoreCached(int i, int j) {
+        int a = Math.min(i, j), b = Math.max(i, j);
+        return naiveCache.computeIfAbsent(pairId(a, b), k -> naiveScore(a, b));
+    }
+
+    /**
+     * Même valeur que avgCoupling de CodeGenerationProcessorMain : parcours des membres de a puis de b dans l’ordre, en ne gardant
+     * que les voisins (ajouter 0.0 ne change pas la somme), divisé par |a|·|b|.
+     */
+    private double naiveScore(int a, int b) {
+        double sum = 0.0;
+        long[] order = new long[8];
+        for (int x : members.get(a)) {
+            int m = 0;
+            for (int k = adjStart[x]; k < adjStart[x + 1]; k++) {
+                if (clusterOf[adjLeaf[k]] != b) continue;
+                if (m == order.length) order = Arrays.copyOf(order, m * 2);
+                order[m++] = ((long) position[adjLeaf[k]] << 32) | k;
+            }
+            Arrays.sort(order, 0, m);
+            for (int q = 0; q < m; q++) sum += adjWeight[(int) order[q]];
+        }
+        return sum / ((long) size[a] * size[b]);
+    }
+
+    private String key(int cluster) {
+        if (sortedKey[cluster] == null) {
+            // feuilles numérotées dans l’ordre des noms : trier les index revient à trier les noms
+            List<Integer> leaves = new ArrayList<>(members.get(cluster));
+            Collections.sort(leaves);
+            StringJoiner joiner = new StringJoiner(",");
+            for (int leaf : leaves) joiner.add(names[leaf]);
+            sortedKey[cluster] = joiner.toString();
+        }
+        return sortedKey[cluster];
+    }
+
+    private String pairKey(int i, int j) {
+        return (i < j) ? key(i) + "|" + key(j) : key(j) + "|" + key(i);
+    }
+
+    /** Comme pairKey(i1, j1).compareTo(pairKey(i2, j2)), sans construire les chaînes. */
+    private int comparePairKeys(int i1, int j1, int i2, int j2) {
+        String a1 = key(Math.min(i1, j1)), b1 = key(Math.max(i1, j1));
+        String a2 = key(Math.min(i2, j2)), b2 = key(Math.max(i2, j2));
+        if (a1.equals(a2)) return b1.compareTo(b2); // même préfixe « a| » (cas du balayage d’un cluster)
+
+        int len1 = a1.length() + 1 + b1.length(), len2 = a2.length() + 1 + b2.length();
+        for (int p = 0, end = Math.min(len1, len2); p < end; p++) {
+            char c1 = charAt(a1, b1, p), c2 = charAt(a2, b2, p);
+            if (c1 != c2) return c1 - c2;
+        }
+        return len1 - len2;
+    }
+
+    private static char charAt(String a, String b, int p) {
+        if (p < a.length()) return a.charAt(p);
+        return (p == a.length()) ? '|' : b.charAt(p - a.length() - 1);
+    }
+
+    private long pairId(int i, int j) {
+        return (long) Math.min(i, j) * n + Math.max(i, j);
+    }
+
+    private Set<String> namesOf(int cluster) {
+        Set<String> out = new LinkedHashSet<>();
+        for (int leaf : members.get(cluster)) out.add(names[leaf]);
+        return out;
+    }
+}
@@ -0,0 +1,276 @@
+package hai913i.tp2.coupling;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+
+/**
+ * Requêtes de couplage entre deux classes (bouton « Calculer », fichiers de paires), préparées une fois par matrice :
+ *  - index des noms : nom affiché ou qualifié, exact puis sans la casse, trouvé en une consultation de table
+ *    (au lieu d’un parcours de toutes les classes) ;
+ *  - comptes orientés a→b en lignes compressées : pour chaque classe, ses appelées triées et les nombres d’appels
+ *    correspondants, dans deux tableaux ; une requête est une recherche dichotomique dans la ligne, sans allocation ;
+ *  - classements ({@link #neighbours}, {@link #topPairs}) : construits à la première demande, voir {@link Ranking}.
+ * Immuable, donc partageable entre threads ; à reconstruire quand la matrice change (mode surveillance).
+ */
+public final class CouplingQuery {
+
+    /** Réponse pour la paire (a, b) ; index -1 : classe inconnue, comptes et poids à 0. */
+    public record Result(String a, String b, int indexA, int indexB, long callsAB, long callsBA, long totalCalls, double weight) {
+        public boolean found() {
+            return indexA >= 0 && indexB >= 0;
+        }
+    }
+
+    /** Voisin d’une classe dans un classement : appels vers lui, appels reçus de lui, couplage de la paire. */
+    public record Neighbour(int index, String name, long callsOut, long callsIn, double weight) {
+    }
+
+    /** Paire classée ; {@code a < b} (index de la matrice). */
+    public record RankedPair(int a, int b, String nameA, String nameB, long callsAB, long callsBA, double weight) {
+    }
+
+    // meilleure paire d’abord : plus d’appels (donc plus fort couplage), puis index croissants
+    private static final Comparator<RankedPair> BEST_FIRST = Comparator
+            .comparingLong((RankedPair p) -> -(p.callsAB() + p.callsBA()))
+            .thenComparingInt(RankedPair::a).thenComparingInt(RankedPair::b);
+
+    private final CouplingMatrix matrix;
+    private volatile Ranking ranking; // null : aucun classement demandé
+    private final Map<String, Integer> byFoldedName; // nom en minuscules -> index (première classe de la matrice)
+    private final int[] rowStart;  // classe -> début de sa ligne (size() + 1 entrées)
+    private final int[] callees;   // appelées, croissantes dans chaque ligne
+    private final long[] counts;   // nombre d’appels, aligné sur callees
+
+    private CouplingQuery(CouplingMatrix matrix) {
+        this.matrix = matrix;
+        int n = matrix.size();
+
+        // noms affichés d’abord : « Node » désigne la classe affichée ainsi avant une autre dont le nom qualifié finit pareil
+        byFoldedName = new HashMap<>(n * 4);
+        for (int i = 0; i < n; i++) byFoldedName.putIfAbsent(fold(matrix.name(i)), i);
+        for (int i = 0; i < n; i++) byFoldedName.putIfAbsent(fold(matrix.qualifiedName(i)), i);
+
+        rowStart = new int[n + 1];
+        int[] degree = new int[n];
+        matrix.forEachCall((a, b, c) -> degree[a]++);
+        for (int a = 0; a < n; a++) rowStart[a + 1] = rowStart[a] + degree[a];
+        callees = new int[rowStart[n]];
+        counts = new long[rowStart[n]];
+        int[] next = Arrays.copyOf(rowStart, n);
+        // forEachCall parcourt chaque ligne par appelée croissante : les lignes sont triées telles quelles
+        matrix.forEachCall((a, b, c) -> {
+            callees[next[a]] = b;
+            counts[next[a]++] = c;
+        });
+    }
+
+    /** O(classes + paires orientées non nulles). */
+    public static CouplingQuery of(CouplingMatrix matrix) {
+        return new CouplingQuery(matrix);
+    }
+
+    public CouplingMatrix matrix() {
+        return matrix;
+    }
+
+    private static String fold(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Index de la classe : nom affiché ou qualifié exact, sinon comparé sans la casse (si deux classes ne diffèrent
+     * que par la casse, la première de la matrice) ; -1 si inconnue.
+     */
+    public int find(String name) {
+        if (name == null) return -1;
+        int i = matrix.indexOf(name);
+        if (i >= 0) return i;
+        Integer folded = byFoldedName.get(fold(name));
+        return (folded == null) ? -1 : folded;
+    }
+
+    /** Appels de {@code from} vers {@code to} (index de la matrice). */
+    public long calls(int from, int to) {
+        int k = Arrays.binarySearch(callees, rowStart[from], rowStart[from + 1], to);
+        return (k < 0) ? 0 : counts[k];
+    }
+
+    /** Couplage de la paire : (a→b + b→a) / total des appels, 0 si aucun appel. */
+    public Result query(String a, String b) {
+        int ia = find(a), ib = find(b);
+        long total = matrix.totalCalls();
+        if (ia < 0 || ib < 0) return new Result(a, b, ia, ib, 0, 0, total, 0.0);
+        long ab = calls(ia, ib), ba = calls(ib, ia);
+        double weight = (total == 0) ? 0.0 : (double) (ab + ba) / total;
+        return new Result(matrix.name(ia), matrix.name(ib), ia, ib, ab, ba, total, weight);
+    }
+
+    /** Les {@code k} classes les plus couplées à {@code name} ({@link #find}), par couplage décroissant ; vide si inconnue. */
+    public List<Neighbour> neighbours(String name, int k) {
+        int c = find(name);
+        return (c < 0) ? List.of() : neighbours(c, k);
+    }
+
+    /** Les {@code k} classes les plus couplées à la classe d’index {@code c} (à égalité : index croissants). O(k). */
+    public List<Neighbour> neighbours(int c, int k) {
+        return ranking().neighbours(c, k);
+    }
+
+    /** Les {@code k} paires les plus couplées, par couplage décroissant (à égalité : index croissants). */
+    public List<RankedPair> topPairs(int k) {
+        return ranking().top(k);
+    }
+
+    private Ranking ranking() {
+        Ranking r = ranking;
+        if (r == null) {
+            synchronized (this) {
+                if (ranking == null) ranking = new Ranking();
+                r = ranking;
+            }
+        }
+        return r;
+    }
+
+    private double weight(long calls) {
+        long total = matrix.totalCalls();
+        return (total == 0) ? 0.0 : (double) calls / total;
+    }
+
+    /**
+     * Classements de la matrice, construits une fois :
+     *  - voisins de chaque classe en lignes compressées (chaque paire dans les deux lignes), triés par couplage
+     *    décroissant : les k voisins les plus couplés sont le début de la ligne ;
+     *  - meilleures paires : tas borné aux k meilleures, rempli en un parcours des paires non nulles
+     *    (O(paires · log k)). Le plus long classement calculé est gardé : une demande plus courte en est un préfixe.
+     */
+    private final class Ranking {
+        private final int[] start;     // classe -> début de sa ligne (size() + 1 entrées)
+        private final int[] neighbour; // voisins, par couplage décroissant dans chaque ligne
+        private final long[] calls;    // appels a→b + b→a, aligné sur neighbour
+        private RankedPair[] top = new RankedPair[0];
+        private boolean topComplete;   // top contient toutes les paires non nulles
+
+        Ranking() {
+            int n = matrix.size();
+            start = new int[n + 1];
+            int[] degree = new int[n];
+            matrix.forEachPair((a, b, c, w) -> {
+                degree[a]++;
+                degree[b]++;
+            });
+            for (int a = 0; a < n; a++) start[a + 1] = start[a] + degree[a];
+            neighbour = new int[start[n]];
+            calls = new long[start[n]];
+            int[] next = Arrays.copyOf(start, n);
+            matrix.forEachPair((a, b, c, w) -> {
+                neighbour[next[a]] = b;
+                calls[next[a]++] = c;
+                neighbour[next[b]] = a;
+                calls[next[b]++] = c;
+            });
+            for (int a = 0; a < n; a++) {
+                if (degree[a] > 1) sortRow(start[a], start[a + 1]);
+            }
+        }
+
+        /** Ligne [from, to) par appels décroissants, puis voisins croissants. */
+        private void sortRow(int from, int to) {
+            Integer[] order = new Integer[to - from];
+            for (int i = 0; i < order.length; i++) order[i] = from + i;
+            Arrays.sort(order, (x, y) -> (calls[x] != calls[y])
+                    ? Long.compare(calls[y], calls[x])
+                    : Integer.compare(neighbour[x], neighbour[y]));
+            int[] sortedNeighbour = new int[order.length];
+            long[] sortedCalls = new long[order.length];
+            for (int i = 0; i < order.length; i++) {
+                sortedNeighbour[i] = neighbour[order[i]];
+                sortedCalls[i] = calls[order[i]];
+            }
+            System.arraycopy(sortedNeighbour, 0, neighbour, from, order.length);
+            System.arraycopy(sortedCalls, 0, calls, from, order.length);
+        }
+
+        List<Neighbour> neighbours(int c, int k) {
+            int end = (int) Math.min(start[c + 1], (long) start[c] + Math.max(k, 0));
+            List<Neighbour> out = new ArrayList<>(end - start[c]);
+            for (int i = start[c]; i < end; i++) {
+                int b = neighbour[i];
+                out.add(new Neighbour(b, matrix.name(b), CouplingQuery.this.calls(c, b), CouplingQuery.this.calls(b, c), weight(calls[i])));
+            }
+            return out;
+        }
+
+        synchronized List<RankedPair> top(int k) {
+            if (k > top.length && !topComplete) {
+                // moins bonne des k meilleures paires en tête : une paire n’entre que si elle la bat
+                PriorityQueue<RankedPair> heap = new PriorityQueue<>(Math.min(k, 1 << 16) + 1, BEST_FIRST.reversed());
+                matrix.forEachPair((a, b, c, w) -> {
+                    if (heap.size() == k) {
+                        RankedPair worst = heap.peek();
+                        long worstCalls = worst.callsAB() + worst.callsBA();
+                        if (c < worstCalls || (c == worstCalls && (a > worst.a() || (a == worst.a() && b > worst.b())))) return;
+                        heap.poll();
+                    }
+                    heap.add(new RankedPair(a, b, matrix.name(a), matrix.name(b),
+                            CouplingQuery.this.calls(a, b), CouplingQuery.this.calls(b, a), w));
+                });
+                topComplete = heap.size() < k;
+                top = heap.toArray(new RankedPair[0]);
+                Arrays.sort(top, BEST_FIRST);
+            }
+            return List.of(Arrays.copyOf(top, Math.max(0, Math.min(k, top.length))));
+        }
+    }
+
+    /**
+     * Lot de paires en flux : une paire par ligne, noms séparés par une virgule, un point-virgule ou des blancs
+     * (colonnes suivantes ignorées : un export CSV de couplage se relit tel quel) ; lignes vides et commentaires
+     * {@code #} ignorés. Écrit le CSV {@code a,b,calls_ab,calls_ba,weight} de {@link CouplingExporter}, une ligne
+     * par paire lue, noms tels que donnés et comptes vides si une classe est inconnue.
+     * @return nombre de paires lues
+     */
+    public long queryAll(BufferedReader in, Writer out) throws IOException {
+        out.write("a,b,calls_ab,calls_ba,weight\n");
+        StringBuilder line = new StringBuilder(128);
+        long pairs = 0;
+        for (String s = in.readLine(); s != null; s = in.readLine()) {
+            int start = skipSeparators(s, 0);
+            if (start == s.length() || s.charAt(start) == '#') continue;
+            int end = nextSeparator(s, start);
+            String a = s.substring(start, end);
+            int startB = skipSeparators(s, end);
+            String b = s.substring(startB, nextSeparator(s, startB));
+            pairs++;
+
+            line.setLength(0);
+            line.append(CouplingExporter.csv(a)).append(',').append(CouplingExporter.csv(b)).append(',');
+            int ia = find(a), ib = find(b);
+            if (ia >= 0 && ib >= 0) {
+                long ab = calls(ia, ib), ba = calls(ib, ia);
+                long total = matrix.totalCalls();
+                line.append(ab).append(',').append(ba).append(',').append((total == 0) ? 0.0 : (double) (ab + ba) / total);
+            } else {
+                line.append(",,");
+            }
+            out.append(line).append('\n');
+        }
+        return pairs;
+    }
+
+    private static boolean separator(char c) {
+        return c == ',' || c == ';' || Character.isWhitespace(c);
+    }
+
+    private static int skipSeparators(String s, int i) {
+        while (i < s.length() && separator(s.charAt(i))) i++;
+        return i;
+    }
+
+    private static int nextSeparator(String s, int i) {
+        while (i < s.length() && !separator(s.charAt(i))) i++;
+        return i;
+    }
+}
@@ -0,0 +1,160 @@
+package hai913i.tp2.coupling;
+
+import java.util.*;
+import java.util.function.IntFunction;
+
+/**
+ * Couplage agrégé par groupe de classes : par paquetage, ou par préfixe de paquetage (org.example.gui, profondeur 2 :
+ * org.example). Les appels entre éléments de deux groupes distincts s’additionnent dans une {@link CouplingMatrix}
+ * des groupes, en une seule passe sur les entrées non nulles de la matrice d’origine (jamais sur les n² paires) ;
+ * les appels entre éléments d’un même groupe sont comptés à part ({@link #internalCalls}).
+ *
+ * Le graphe des groupes, bien plus petit que celui des classes, se regroupe avec les mêmes moteurs
+ * (AverageLinkageClustering.clusterAdaptive) ; {@link #drillDown} redonne ensuite la matrice des seuls éléments
+ * d’un groupe, à regrouper à son tour. {@link #rollUp} agrège un niveau déjà agrégé (paquetages → préfixes) :
+ * hiérarchie de préfixes sans repasser par les classes.
+ * Les poids de la matrice des groupes sont relatifs aux appels entre groupes (son total), pas à tous les appels.
+ */
+public final class PackageCoupling {
+
+    private final CouplingMatrix source;   // classes, ou groupes du niveau précédent
+    private final CouplingMatrix groups;   // un sommet par groupe, triés par nom
+    private final int[] groupOf;           // élément de source -> groupe
+    private final int[] memberStart;       // groupe -> début de ses éléments dans members (groups.size() + 1 entrées)
+    private final int[] members;           // éléments de source, rangés par groupe (index croissants)
+    private final int[] localIndex;        // élément de source -> rang dans son groupe (index de drillDown)
+    private final long[] internalCalls;    // groupe -> appels entre ses propres éléments
+
+    private PackageCoupling(CouplingMatrix source, CouplingMatrix groups, int[] groupOf, long[] internalCalls) {
+        this.source = source;
+        this.groups = groups;
+        this.groupOf = groupOf;
+        this.internalCalls = internalCalls;
+
+        int m = groups.size();
+        memberStart = new int[m + 1];
+        for (int g : groupOf) memberStart[g + 1]++;
+        for (int g = 0; g < m; g++) memberStart[g + 1] += memberStart[g];
+        members = new int[groupOf.length];
+        localIndex = new int[groupOf.length];
+        int[] next = Arrays.copyOf(memberStart, m);
+        for (int i = 0; i < groupOf.length; i++) {
+            int k = next[groupOf[i]]++;
+            members[k] = i;
+            localIndex[i] = k - memberStart[groupOf[i]];
+        }
+    }
+
+    /** Un groupe par paquetage ({@link CouplingMatrix#packageName}). */
+    public static PackageCoupling byPackage(CouplingMatrix classes) {
+        return rollUp(classes, classes::packageName, new long[classes.size()]);
+    }
+
+    /** Un groupe par préfixe de {@code depth} segments du paquetage (depth &lt;= 0 : paquetage complet). */
+    public static PackageCoupling byPrefix(CouplingMatrix classes, int depth) {
+        return rollUp(classes, i -> prefix(classes.packageName(i), depth), new long[classes.size()]);
+    }
+
+    /**
+     * Niveau supérieur : les groupes de cette vue regroupés par préfixe de {@code depth} segments de leur nom.
+     * Agrège la matrice des groupes (petite), pas celle des classes ; les appels internes s’additionnent.
+     */
+    public PackageCoupling rollUp(int depth) {
+        return rollUp(groups, g -> prefix(groups.qualifiedName(g), depth), internalCalls);
+    }
+
+    /** Les {@code depth} premiers segments de {@code name} (le nom entier s’il en a moins, ou si depth &lt;= 0). */
+    static String prefix(String name, int depth) {
+        if (depth <= 0 || name.equals(CouplingMatrix.DEFAULT_PACKAGE)) return name;
+        int end = -1;
+        for (int d = 0; d < depth; d++) {
+            end = name.indexOf('.', end + 1);
+            if (end < 0) return name;
+        }
+        return name.substring(0, end);
+    }
+
+    /** Une passe sur les appels non nuls de {@code source} : chacun va à la paire de groupes, ou aux appels internes. */
+    private static PackageCoupling rollUp(CouplingMatrix source, IntFunction<String> groupName, long[] sourceInternal) {
+        int n = source.size();
+        String[] groupNameOf = new String[n];
+        for (int i = 0; i < n; i++) groupNameOf[i] = groupName.apply(i);
+        List<String> names = new ArrayList<>(new TreeSet<>(Arrays.asList(groupNameOf)));
+        Map<String, Integer> index = new HashMap<>(names.size() * 2);
+        for (int g = 0; g < names.size(); g++) index.put(names.get(g), g);
+
+        int[] groupOf = new int[n];
+        long[] internal = new long[names.size()];
+        for (int i = 0; i < n; i++) {
+            groupOf[i] = index.get(groupNameOf[i]);
+            internal[groupOf[i]] += sourceInternal[i];
+        }
+
+        List<Map<Integer, Long>> rows = new ArrayList<>(names.size());
+        for (int g = 0; g < names.size(); g++) rows.add(new HashMap<>());
+        source.forEachCall((a, b, calls) -> {
+            int ga = groupOf[a], gb = groupOf[b];
+            if (ga == gb) internal[ga] += calls;
+            else rows.get(ga).merge(gb, calls, Long::sum);
+        });
+        // un groupe est son propre « paquetage » : rollUp peut s’appliquer de nouveau à cette matrice
+        CouplingMatrix groups = new CouplingMatrix(names, names, names, rows);
+        return new PackageCoupling(source, groups, groupOf, internal);
+    }
+
+    /** Matrice des groupes (noms affichés : noms complets des paquetages ou préfixes). */
+    public CouplingMatrix matrix() {
+        return groups;
+    }
+
+    /** Matrice agrégée par cette vue : les classes, ou les groupes du niveau précédent. */
+    public CouplingMatrix source() {
+        return source;
+    }
+
+    /** Groupe de l’élément {@code i} de {@link #source()}. */
+    public int groupOf(int i) {
+        return groupOf[i];
+    }
+
+    /** Appels entre éléments du groupe {@code g} (absents de la matrice des groupes). */
+    public long internalCalls(int g) {
+        return internalCalls[g];
+    }
+
+    /** Nombre d’éléments de {@link #source()} dans le groupe {@code g}. */
+    public int memberCount(int g) {
+        return memberStart[g + 1] - memberStart[g];
+    }
+
+    /** Noms affichés des éléments du groupe {@code g}. */
+    public List<String> members(int g) {
+        List<String> out = new ArrayList<>(memberCount(g));
+        for (int k = memberStart[g]; k < memberStart[g + 1]; k++) out.add(source.name(members[k]));
+        return out;
+    }
+
+    /**
+     * Matrice des seuls éléments du groupe {@code g} et des appels entre eux (noms et paquetages de la source) :
+     * en O(appels sortants de ses éléments), pour regrouper ensuite un paquetage à la fois.
+     */
+    public CouplingMatrix drillDown(int g) {
+        int size = memberCount(g);
+        List<String> qualified = new ArrayList<>(size), names = new ArrayList<>(size), packages = new ArrayList<>(size);
+        for (int k = 0; k < size; k++) {
+            int i = members[memberStart[g] + k];
+            qualified.add(source.qualifiedName(i));
+            names.add(source.name(i));
+            packages.add(source.packageName(i));
+        }
+        List<Map<Integer, Long>> rows = new ArrayList<>(size);
+        for (int k = 0; k < size; k++) {
+            Map<Integer, Long> row = new HashMap<>();
+            source.forEachCall(members[memberStart[g] + k], (a, b, calls) -> {
+                if (groupOf[b] == g) row.put(localIndex[b], calls);
+            });
+            rows.add(row);
+        }
+        return new CouplingMatrix(qualified, names, packages, rows);
+    }
+}
@@ -2,7 +2,8 @@ package hai913i.tp2.gui;
 
 import hai913i.main.CodeGenerationProcessorMain;
 import hai913i.main.ModuleIdentifier;
-import hai913i.tp2.spoon.model.ClassInfo;
+import hai913i.tp2.coupling.CouplingMatrix;
+import hai913i.tp2.coupling.CouplingQuery;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
@@ -11,6 +12,7 @@ import java.awt.*;
 import java.awt.geom.Ellipse2D;
 import java.awt.geom.Line2D;
 import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
 import java.awt.geom.RoundRectangle2D;
 import java.text.DecimalFormat;
 import java.util.*;
@@ -20,18 +22,31 @@ import java.util.stream.Collectors;
 
 public class CouplingDashboardWindow extends JFrame {
 
-    private final java.util.List<String> classChoices;
-    private final java.util.List<ClassInfo> classes;
-    private final Map<String, Map<String, Double>> weight;
-    private final long totCallAppBetweenBinaryClasses;
-    private final CodeGenerationProcessorMain.ClusteringResult clustering;
+    // non final : remplacés par applyUpdate en mode surveillance (toujours sur l’EDT)
+    private java.util.List<String> classChoices;
+    private CouplingQuery query;
+    private Map<String, Map<String, Double>> weight;
+    private long totCallAppBetweenBinaryClasses;
+    private CodeGenerationProcessorMain.ClusteringResult clustering;
 
     // <<< AJOUT : couples non ordonnés -> poids
-    private final Map<CodeGenerationProcessorMain.UnorderedPair<String>, Double> couples;
+    private Map<CodeGenerationProcessorMain.UnorderedPair<String>, Double> couples;
+
+    private JComboBox<String> choiceA, choiceB;
+    private final GraphPanel graphPanel;
+    private final DendrogramPanel dendrogramPanel;
+    private final ModulesPanel modulesPanel;
+    private final RankingPanel rankingPanel;
+
+    // barre d’état : étape de l’analyse en cours, avancement, annulation
+    private final JLabel statusLabel = new JLabel("Prêt");
+    private final JProgressBar progressBar = new JProgressBar();
+    private final JButton cancelBtn = new JButton("Annuler");
+    private Runnable onCancel;
 
     public CouplingDashboardWindow(
             java.util.List<String> classChoices,
-            java.util.List<ClassInfo> classes,
+            CouplingMatrix matrix,
             Map<String, Map<String, Double>> weight,
             long totCallAppBetweenBinaryClasses,
             CodeGenerationProcessorMain.ClusteringResult clustering,
@@ -39,7 +54,7 @@ public class CouplingDashboardWindow extends JFrame {
     ) {
         super("Analyse de Couplage — Spoon");
         this.classChoices = classChoices;
-        this.classes = classes;
+        this.query = CouplingQuery.of(matrix);
         this.weight = weight;
         this.totCallAppBetweenBinaryClasses = totCallAppBetweenBinaryClasses;
         this.clustering = clustering;
@@ -51,14 +66,107 @@ public class CouplingDashboardWindow extends JFrame {
 
         JTabbedPane tabs = new JTabbedPane();
         tabs.addTab("Couplage", buildCouplingTab());
-        tabs.addTab("Graphe", new GraphPanel(classes, weight));
-        tabs.addTab("Dendrogramme", new DendrogramPanel(clustering));
-        tabs.addTab("Modules", new ModulesPanel()); // <<< NOUVEL ONGLET
-
-        setContentPane(tabs);
+        graphPanel = new GraphPanel(weight);
+        dendrogramPanel = new DendrogramPanel(clustering);
+        modulesPanel = new ModulesPanel();
+        rankingPanel = new RankingPanel();
+        tabs.addTab("Graphe", graphPanel);
+        tabs.addTab("Dendrogramme", dendrogramPanel);
+        tabs.addTab("Modules", modulesPanel); // <<< NOUVEL ONGLET
+        tabs.addTab("Classement", rankingPanel);
+
+        JPanel content = new JPanel(new BorderLayout());
+        content.add(tabs, BorderLayout.CENTER);
+        content.add(buildStatusBar(), BorderLayout.SOUTH);
+        setContentPane(content);
         pack();
     }
 
+    /** Fenêtre vide, remplie ensuite par applyUpdate au fil de l’analyse. */
+    public static CouplingDashboardWindow empty() {
+        return new CouplingDashboardWindow(List.of(), CouplingMatrix.of(List.of(), List.of()), Map.of(), 0,
+                new CodeGenerationProcessorMain.ClusteringResult(List.of(), List.of()), Map.of());
+    }
+
+    private JPanel buildStatusBar() {
+        JPanel bar = new JPanel(new FlowLayout(FlowLayout.LEFT, 8, 2));
+        progressBar.setStringPainted(true);
+        progressBar.setPreferredSize(new Dimension(240, progressBar.getPreferredSize().height));
+        progressBar.setVisible(false);
+        cancelBtn.setVisible(false);
+        cancelBtn.addActionListener(e -> {
+            cancelBtn.setEnabled(false);
+            if (onCancel != null) onCancel.run();
+        });
+        bar.add(statusLabel);
+        bar.add(progressBar);
+        bar.add(cancelBtn);
+        return bar;
+    }
+
+    /** Action du bouton « Annuler » de la barre d’état (null : pas d’analyse annulable en cours). */
+    public void setOnCancel(Runnable onCancel) {
+        this.onCancel = onCancel;
+        cancelBtn.setEnabled(onCancel != null);
+        cancelBtn.setVisible(onCancel != null);
+    }
+
+    /**
+     * Avancement de l’analyse dans la barre d’état : étape en cours et éléments traités
+     * ({@code total} < 0 : avancement inconnu, barre indéterminée). À appeler sur l’EDT.
+     */
+    public void showProgress(String stage, int done, int total) {
+        statusLabel.setText(stage + "…");
+        progressBar.setVisible(true);
+        progressBar.setIndeterminate(total < 0);
+        if (total >= 0) {
+            progressBar.setMaximum(Math.max(1, total));
+            progressBar.setValue(done);
+            progressBar.setString(done + " / " + total);
+        } else {
+            progressBar.setString(null);
+        }
+    }
+
+    /** Fin d’analyse (terminée, annulée ou en erreur) : message seul, barre et bouton « Annuler » masqués. */
+    public void showStatus(String text) {
+        statusLabel.setText(text);
+        progressBar.setVisible(false);
+        setOnCancel(null);
+    }
+
+    /**
+     * Mode surveillance : remplace les données et rafraîchit les onglets sans recréer la fenêtre
+     * (sélections, seuil, zoom et options d’affichage conservés). À appeler sur l’EDT.
+     */
+    public void applyUpdate(java.util.List<String> classChoices,
+                            CouplingMatrix matrix,
+                            Map<String, Map<String, Double>> weight,
+                            long totCallAppBetweenBinaryClasses,
+                            CodeGenerationProcessorMain.ClusteringResult clustering,
+                            Map<CodeGenerationProcessorMain.UnorderedPair<String>, Double> couples) {
+        this.classChoices = classChoices;
+        this.query = CouplingQuery.of(matrix);
+        this.weight = weight;
+        this.totCallAppBetweenBinaryClasses = totCallAppBetweenBinaryClasses;
+        this.clustering = clustering;
+        this.couples = couples;
+
+        refreshChoices(choiceA);
+        refreshChoices(choiceB);
+        graphPanel.setData(weight);
+        dendrogramPanel.setResult(clustering);
+        modulesPanel.run();
+        rankingPanel.refresh();
+    }
+
+    private void refreshChoices(JComboBox<String> combo) {
+        Object selected = combo.getSelectedItem();
+        DefaultComboBoxModel<String> model = new DefaultComboBoxModel<>(classChoices.toArray(new String[0]));
+        combo.setModel(model);
+        if (selected != null && model.getIndexOf(selected) >= 0) combo.setSelectedItem(selected);
+    }
+
     // ---------------------- Onglet 1: Couplage ----------------------
     private JPanel buildCouplingTab() {
         JPanel root = new JPanel(new BorderLayout(8, 8));
@@ -67,6 +175,8 @@ public class CouplingDashboardWindow extends JFrame {
 
         JComboBox<String> a = new JComboBox<>(classChoices.toArray(new String[0]));
         JComboBox<String> b = new JComboBox<>(classChoices.toArray(new String[0]));
+        choiceA = a;
+        choiceB = b;
         JButton calc = new JButton("Calculer");
         JTextArea out = new JTextArea(14, 80);
         out.setEditable(false);
@@ -92,31 +202,15 @@ public class CouplingDashboardWindow extends JFrame {
                 out.setText("Sélectionnez deux classes différentes.");
                 return;
             }
-            Optional<ClassInfo> ca = classes.stream().filter(c -> c.className.equalsIgnoreCase(sa)).findFirst();
-            Optional<ClassInfo> cb = classes.stream().filter(c -> c.className.equalsIgnoreCase(sb)).findFirst();
-
-            if (ca.isEmpty() || cb.isEmpty()) {
-                out.setText("Class not found : " + (ca.isPresent() ? sb : sa));
+            // appels comptés par la matrice (classes identifiées par leur nom qualifié), lus dans l’index de requêtes
+            CouplingQuery.Result r = query.query(sa, sb);
+            if (!r.found()) {
+                out.setText("Class not found : " + (r.indexA() >= 0 ? sb : sa));
                 return;
             }
-
-            long nbCallAToB =
-                    ca.get().methods.stream()
-                            .mapToLong(m -> m.methodCalls.stream()
-                                    .filter(mc -> mc.receiverType.equals(sb))
-                                    .count())
-                            .sum();
-
-            long nbCallBToA =
-                    cb.get().methods.stream()
-                            .mapToLong(m -> m.methodCalls.stream()
-                                    .filter(mc -> mc.receiverType.equals(sa))
-                                    .count())
-                            .sum();
-
-            double couplage = (totCallAppBetweenBinaryClasses == 0)
-                    ? 0.0
-                    : (double) (nbCallAToB + nbCallBToA) / totCallAppBetweenBinaryClasses;
+            long nbCallAToB = r.callsAB();
+            long nbCallBToA = r.callsBA();
+            double couplage = r.weight();
 
             StringBuilder sbuf = new StringBuilder();
             sbuf.append("Nombre de call classe ").append(sa).append(" -> ").append(sb).append(" : ").append(nbCallAToB).append("\n");
@@ -133,8 +227,8 @@ public class CouplingDashboardWindow extends JFrame {
 
     // ---------------------- Onglet 2: Graphe (pondéré) ----------------------
     private static class GraphPanel extends JPanel {
-        private final java.util.List<ClassInfo> classes;
-        private final Map<String, Map<String, Double>> weight;
+        private Map<String, Map<String, Double>> weight;
+        private final Canvas canvas;
         private final JSlider thresholdSlider = new JSlider(0, 100, 0);
         private final JCheckBox showLabels = new JCheckBox("Labels", false);
         private final DecimalFormat df = new DecimalFormat("#0.000");
@@ -142,9 +236,9 @@ public class CouplingDashboardWindow extends JFrame {
         private double zoom = 1.0, offsetX = 0, offsetY = 0;
         private Point dragOrigin;
 
-        GraphPanel(java.util.List<ClassInfo> classes, Map<String, Map<String, Double>> weight) {
+        /** {@code weight} : une ligne par classe (éventuellement vide), voir CouplingMatrix.weightedAdjacency. */
+        GraphPanel(Map<String, Map<String, Double>> weight) {
             super(new BorderLayout(8, 8));
-            this.classes = classes;
             this.weight = weight;
 
             JPanel top = new JPanel(new FlowLayout(FlowLayout.RIGHT));
@@ -155,14 +249,122 @@ public class CouplingDashboardWindow extends JFrame {
             top.add(showLabels);
             add(top, BorderLayout.NORTH);
 
-            Canvas canvas = new Canvas();
+            canvas = new Canvas();
             add(new JScrollPane(canvas), BorderLayout.CENTER);
 
-            thresholdSlider.addChangeListener(e -> canvas.repaint());
-            showLabels.addActionListener(e -> canvas.repaint());
+            thresholdSlider.addChangeListener(e -> canvas.invalidateThreshold());
+            showLabels.addActionListener(e -> canvas.invalidateTiles());
+        }
+
+        void setData(Map<String, Map<String, Double>> weight) {
+            this.weight = weight;
+            canvas.invalidateGraph();
+        }
+
+        /**
+         * Graphe prêt à dessiner, construit une seule fois par jeu de données : positions et arêtes (une par paire,
+         * poids cumulé des deux sens) triées par poids décroissant. Les arêtes au-dessus d’un seuil forment donc un
+         * préfixe de {@code edges}, trouvé par dichotomie ({@link #above}) : bouger le curseur ne reparcourt pas le graphe.
+         * {@code incident} : arêtes de chaque nœud, triées de même, pour déplacer un nœud sans parcourir tout le graphe.
+         */
+        private record Graph(java.util.List<String> nodes, Map<String, Point2D.Double> pos, Link[] edges, double maxW,
+                             Map<String, Link[]> incident) {
+
+            /** Nombre d’arêtes de poids strictement supérieur à {@code threshold} en tête de {@code sorted}. */
+            static int above(Link[] sorted, double threshold) {
+                int lo = 0, hi = sorted.length;
+                while (lo < hi) {
+                    int mid = (lo + hi) >>> 1;
+                    if (sorted[mid].weight() > threshold) lo = mid + 1;
+                    else hi = mid;
+                }
+                return lo;
+            }
+
+            /** Nombre d’arêtes d’épaisseur au moins {@code minWidth} parmi les {@code count} premières de {@code sorted}. */
+            static int thick(Link[] sorted, int count, double minWidth) {
+                int lo = 0, hi = count;
+                while (lo < hi) {
+                    int mid = (lo + hi) >>> 1;
+                    if (sorted[mid].stroke().getLineWidth() >= minWidth) lo = mid + 1;
+                    else hi = mid;
+                }
+                return lo;
+            }
+        }
+
+        private static final Link[] NO_LINKS = new Link[0];
+
+        // traits et couleurs partagés : rien n’est alloué par arête ni par nœud au dessin
+        private static final BasicStroke[] EDGE_STROKES = new BasicStroke[41]; // 1 à 11 px, par pas de 1/4
+        private static final Color EDGE_COLOR = new Color(30, 144, 255, 140);
+        private static final Color NODE_FILL = new Color(60, 60, 60);
+        private static final BasicStroke NODE_OUTLINE = new BasicStroke(2f);
+        private static final Color LABEL_FILL = new Color(255, 255, 210);
+        private static final Color LABEL_BORDER = new Color(120, 120, 80);
+
+        static {
+            for (int i = 0; i < EDGE_STROKES.length; i++) {
+                EDGE_STROKES[i] = new BasicStroke(1f + i / 4f, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND);
+            }
+        }
+
+        /** Trait d’une arête de poids {@code w} : de 1 px (poids nul) à 11 px (poids maximal). */
+        private static BasicStroke edgeStroke(double w, double maxW) {
+            double ratio = w / (maxW > 0 ? maxW : 1.0);
+            return EDGE_STROKES[(int) Math.round(Math.min(1.0, ratio) * (EDGE_STROKES.length - 1))];
+        }
+
+        /** Arête non orientée a–b (poids cumulé des deux sens), en coordonnées du graphe ; bounds suit a et b. */
+        private record Link(Point2D.Double a, Point2D.Double b, double weight, BasicStroke stroke, Rectangle2D bounds) {
+            void updateBounds() {
+                bounds.setRect(new Line2D.Double(a, b).getBounds2D());
+                // épaisseur du trait et étiquette au milieu
+                double grow = stroke.getLineWidth() / 2.0 + 40;
+                bounds.setRect(bounds.getX() - grow, bounds.getY() - grow,
+                        bounds.getWidth() + 2 * grow, bounds.getHeight() + 2 * grow);
+            }
         }
 
         private class Canvas extends JPanel {
+            // niveau de détail : en dessous de ces tailles à l’écran, on ne dessine pas
+            private static final double LOD_MIN_EDGE_PX = 0.25;  // arête (épaisseur) : les liens faibles disparaissent
+            private static final double LOD_MIN_TEXT_PX = 7;     // texte (hauteur de police) : noms et poids
+            private static final int NODE_RADIUS = 16;
+
+            private Graph graph;                                  // null : à reconstruire (nouvelles données)
+            private int visible = -1;                             // arêtes au-dessus du seuil (préfixe de graph.edges), -1 : à rechercher
+            private final TileCache edgeTiles = new TileCache(this);
+
+            // sélection à la souris : index des cercles (null : à reconstruire), nœud déplacé et ses arêtes hors tuiles
+            private NodeIndex nodeIndex;
+            private String dragNode;
+            private int dragId = -1;
+            private Link[] liveLinks = NO_LINKS;
+            private final Set<Link> liveSet = Collections.newSetFromMap(new IdentityHashMap<>());
+            private final Line2D.Double line = new Line2D.Double();
+            private final Ellipse2D.Double circle = new Ellipse2D.Double();
+
+            void invalidateGraph() {
+                graph = null;
+                nodeIndex = null;
+                invalidateThreshold();
+            }
+
+            /** Nouveau seuil : les positions et l’index des nœuds restent valables, seul le préfixe visible change. */
+            void invalidateThreshold() {
+                visible = -1;
+                dragNode = null;
+                liveLinks = NO_LINKS;
+                liveSet.clear();
+                invalidateTiles();
+            }
+
+            void invalidateTiles() {
+                edgeTiles.invalidate();
+                repaint();
+            }
+
             Canvas() {
                 setPreferredSize(new Dimension(1600, 1200));
                 setBackground(Color.white);
@@ -175,19 +377,118 @@ public class CouplingDashboardWindow extends JFrame {
                     @Override
                     public void mousePressed(java.awt.event.MouseEvent e) {
                         dragOrigin = e.getPoint();
+                        // sur un nœud : on le déplace, sinon on déplace la vue
+                        dragId = nodeAt(e.getPoint());
+                        dragNode = dragId < 0 ? null : graph().nodes().get(dragId);
+                    }
+
+                    @Override
+                    public void mouseReleased(java.awt.event.MouseEvent e) {
+                        if (liveLinks.length > 0) endNodeDrag();
+                        dragNode = null;
+                        dragOrigin = null;
                     }
                 });
                 addMouseMotionListener(new java.awt.event.MouseMotionAdapter() {
                     @Override
                     public void mouseDragged(java.awt.event.MouseEvent e) {
-                        if (dragOrigin != null) {
+                        if (dragOrigin == null) return;
+                        if (dragNode != null) {
+                            if (liveLinks.length == 0) startNodeDrag();
+                            moveNode((e.getX() - dragOrigin.x) / zoom, (e.getY() - dragOrigin.y) / zoom);
+                        } else {
                             offsetX += (e.getX() - dragOrigin.x) / zoom;
                             offsetY += (e.getY() - dragOrigin.y) / zoom;
-                            dragOrigin = e.getPoint();
                             repaint();
                         }
+                        dragOrigin = e.getPoint();
+                    }
+
+                    @Override
+                    public void mouseMoved(java.awt.event.MouseEvent e) {
+                        setCursor(nodeAt(e.getPoint()) >= 0
+                                ? Cursor.getPredefinedCursor(Cursor.HAND_CURSOR) : Cursor.getDefaultCursor());
                     }
                 });
+                ToolTipManager.sharedInstance().registerComponent(this);
+            }
+
+            @Override
+            public String getToolTipText(java.awt.event.MouseEvent event) {
+                int id = nodeAt(event.getPoint());
+                if (id < 0) return null;
+                String name = graph().nodes().get(id);
+                Link[] incident = graph().incident().getOrDefault(name, NO_LINKS);
+                int count = Graph.above(incident, threshold());
+                double total = 0;
+                for (int i = 0; i < count; i++) total += incident[i].weight();
+                return "<html><b>" + name + "</b><br>" + count + " lien(s) au-dessus du seuil, couplage total " + df.format(total) + "</html>";
+            }
+
+            /** Rang (dans graph.nodes) du nœud sous le point écran, -1 si aucun. */
+            private int nodeAt(Point p) {
+                Graph sc = graph();
+                if (nodeIndex == null) {
+                    nodeIndex = new NodeIndex(4 * NODE_RADIUS);
+                    for (int i = 0; i < sc.nodes().size(); i++) nodeIndex.put(i, circleBox(sc.pos().get(sc.nodes().get(i))));
+                }
+                double x = (p.x - Math.round(offsetX * zoom)) / zoom;
+                double y = (p.y - Math.round(offsetY * zoom)) / zoom;
+                int id = nodeIndex.at(x, y);
+                // la boîte déborde du cercle dans les coins
+                return id >= 0 && sc.pos().get(sc.nodes().get(id)).distance(x, y) <= NODE_RADIUS ? id : -1;
+            }
+
+            private Rectangle2D circleBox(Point2D p) {
+                int r = NODE_RADIUS;
+                return new Rectangle2D.Double(p.getX() - r, p.getY() - r, 2 * r, 2 * r);
+            }
+
+            /** Début du glisser : les arêtes du nœud quittent les tuiles, elles seront dessinées à chaque repaint. */
+            private void startNodeDrag() {
+                Link[] incident = graph().incident().getOrDefault(dragNode, NO_LINKS);
+                liveLinks = Arrays.copyOf(incident, Graph.above(incident, threshold()));
+                liveSet.addAll(Arrays.asList(liveLinks));
+                for (Link l : liveLinks) edgeTiles.invalidate(l.bounds());
+                repaint();
+            }
+
+            private void moveNode(double dx, double dy) {
+                Rectangle before = screenBounds(dirtyRegion());
+                Point2D.Double p = graph().pos().get(dragNode);
+                p.x += dx;
+                p.y += dy;
+                nodeIndex.put(dragId, circleBox(p));
+                for (Link l : liveLinks) l.updateBounds();
+                // seules la zone quittée et la zone atteinte (nœud + ses arêtes) sont repeintes
+                repaint(before.union(screenBounds(dirtyRegion())));
+            }
+
+            /** Fin du glisser : les arêtes retournent dans les tuiles, redessinées à leur nouvelle place. */
+            private void endNodeDrag() {
+                Link[] done = liveLinks;
+                liveLinks = NO_LINKS;
+                liveSet.clear();
+                for (Link l : done) edgeTiles.invalidate(l.bounds());
+                repaint();
+            }
+
+            /** Zone du graphe occupée par le nœud déplacé (nom compris) et ses arêtes. */
+            private Rectangle2D dirtyRegion() {
+                Rectangle2D r = circleBox(graph().pos().get(dragNode));
+                FontMetrics fm = getFontMetrics(getFont());
+                int w = fm.stringWidth(dragNode);
+                r.add(new Rectangle2D.Double(r.getCenterX() - w / 2.0, r.getY() - 6 - fm.getHeight(), w, fm.getHeight()));
+                for (Link l : liveLinks) r.add(l.bounds());
+                return r;
+            }
+
+            private Rectangle screenBounds(Rectangle2D world) {
+                Rectangle r = new Rectangle2D.Double(world.getX() * zoom + Math.round(offsetX * zoom),
+                        world.getY() * zoom + Math.round(offsetY * zoom),
+                        world.getWidth() * zoom, world.getHeight() * zoom).getBounds();
+                r.grow(2, 2);
+                return r;
             }
 
             private void zoomAround(Point p, double factor) {
@@ -204,47 +505,121 @@ public class CouplingDashboardWindow extends JFrame {
                 super.paintComponent(g);
                 Graphics2D g2 = (Graphics2D) g.create();
                 g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+                Rectangle clip = g2.getClipBounds();
+                if (clip == null) clip = new Rectangle(0, 0, getWidth(), getHeight());
+
+                Graph sc = graph();
+                int count = visibleEdges();
+                FontMetrics fm = g2.getFontMetrics();
+                boolean text = fm.getHeight() * zoom >= LOD_MIN_TEXT_PX;
 
-                g2.translate(offsetX * zoom, offsetY * zoom);
+                // edges : couche statique, en tuiles ; origine arrondie au pixel pour rester alignée avec les nœuds
+                int ox = (int) Math.round(offsetX * zoom), oy = (int) Math.round(offsetY * zoom);
+                Link[] live = liveLinks;
+                edgeTiles.paint(g2, clip, zoom, ox, oy, (t, world) -> paintLinks(t, sc.edges(), count, liveSet, world, text));
+
+                g2.translate(ox, oy);
                 g2.scale(zoom, zoom);
+                Rectangle2D world = new Rectangle2D.Double((clip.x - ox) / zoom, (clip.y - oy) / zoom,
+                        clip.width / zoom, clip.height / zoom);
+
+                // arêtes du nœud en cours de déplacement (hors tuiles)
+                paintLinks(g2, live, live.length, Set.of(), world, text);
+
+                // nodes : seulement ceux de la zone à repeindre
+                int r = NODE_RADIUS;
+                for (String n : sc.nodes()) {
+                    Point2D p = sc.pos().get(n);
+                    boolean visible = world.intersects(p.getX() - r, p.getY() - r, 2 * r, 2 * r);
+                    if (!visible && text) {
+                        // nom au-dessus du cercle
+                        int w = fm.stringWidth(n);
+                        visible = world.intersects(p.getX() - w / 2.0, p.getY() - r - 6 - fm.getAscent(), w, fm.getHeight());
+                    }
+                    if (visible) drawNode(g2, n, p, text);
+                }
+
+                g2.dispose();
+            }
+
+            /** Seuil d’affichage courant, en poids. */
+            private double threshold() {
+                return (thresholdSlider.getValue() / 100.0) * graph().maxW();
+            }
+
+            /** Nombre d’arêtes au-dessus du seuil : recherché une fois par position du curseur. */
+            private int visibleEdges() {
+                if (visible < 0) visible = Graph.above(graph().edges(), threshold());
+                return visible;
+            }
 
-                java.util.List<String> nodes = classes.stream().map(ci -> ci.className).sorted().collect(Collectors.toList());
-                placeOnCircle(nodes, 480);
+            /** Construit le graphe des données courantes, en O(paires non nulles · log) : n’énumère jamais les n² paires de nœuds. */
+            private Graph graph() {
+                if (graph != null) return graph;
+                java.util.List<String> nodes = weight.keySet().stream().sorted().collect(Collectors.toList());
+                // nouvelles classes : on replace tout ; mêmes classes (nouveaux comptes) : les nœuds restent où on les a mis
+                if (!pos.keySet().equals(new HashSet<>(nodes))) placeOnCircle(nodes, 480);
 
-                // max poids
+                // paires non orientées ; une paire rangée dans les deux sens n’est retenue qu’une fois, depuis son plus petit nom
+                record Pair(String a, String b, double w) {
+                }
+                java.util.List<Pair> pairs = new ArrayList<>();
                 double maxW = 0.0;
-                for (var a : weight.keySet())
-                    for (var e : weight.get(a).entrySet())
-                        maxW = Math.max(maxW, e.getValue());
-                double threshold = (thresholdSlider.getValue() / 100.0) * maxW;
-
-                // edges
-                for (String a : nodes) {
-                    Map<String, Double> row = weight.getOrDefault(a, Map.of());
-                    for (String b : nodes) {
-                        if (a.equals(b)) continue;
-                        double w = row.getOrDefault(b, 0.0);
-                        double w2 = weight.getOrDefault(b, Map.of()).getOrDefault(a, 0.0);
-                        double ww = w + w2;
-                        if (ww <= threshold || ww <= 0) continue;
-
-                        Point2D pa = pos.get(a), pb = pos.get(b);
-                        float stroke = (float) (1.0 + 10.0 * (ww / (maxW > 0 ? maxW : 1.0)));
-                        g2.setStroke(new BasicStroke(stroke, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
-                        g2.setColor(new Color(30, 144, 255, 140));
-                        g2.draw(new Line2D.Double(pa, pb));
-
-                        if (showLabels.isSelected()) {
-                            String label = df.format(ww);
-                            drawLabel(g2, label, mid(pa, pb));
-                        }
+                for (var ea : weight.entrySet()) {
+                    String a = ea.getKey();
+                    for (var eb : ea.getValue().entrySet()) {
+                        String b = eb.getKey();
+                        if (a.equals(b) || !pos.containsKey(b)) continue;
+                        double back = weight.getOrDefault(b, Map.of()).getOrDefault(a, 0.0);
+                        if (back != 0 && a.compareTo(b) > 0) continue;
+                        double ww = eb.getValue() + back;
+                        if (ww <= 0) continue;
+                        pairs.add(a.compareTo(b) < 0 ? new Pair(a, b, ww) : new Pair(b, a, ww));
+                        maxW = Math.max(maxW, ww);
                     }
                 }
+                // poids décroissant ; à poids égal, ordre des noms (stable d’une analyse à l’autre)
+                pairs.sort(Comparator.comparingDouble(Pair::w).reversed()
+                        .thenComparing(Pair::a).thenComparing(Pair::b));
+
+                Link[] edges = new Link[pairs.size()];
+                Map<String, java.util.List<Link>> byNode = new HashMap<>();
+                for (int i = 0; i < edges.length; i++) {
+                    Pair p = pairs.get(i);
+                    Link link = new Link(pos.get(p.a()), pos.get(p.b()), p.w(), edgeStroke(p.w(), maxW), new Rectangle2D.Double());
+                    link.updateBounds();
+                    edges[i] = link;
+                    byNode.computeIfAbsent(p.a(), k -> new ArrayList<>()).add(link);
+                    byNode.computeIfAbsent(p.b(), k -> new ArrayList<>()).add(link);
+                }
+                Map<String, Link[]> incident = new HashMap<>(byNode.size() * 2);
+                byNode.forEach((n, links) -> incident.put(n, links.toArray(NO_LINKS)));
 
-                // nodes
-                for (String n : nodes) drawNode(g2, n, pos.get(n));
+                graph = new Graph(nodes, pos, edges, maxW, incident);
+                return graph;
+            }
 
-                g2.dispose();
+            /**
+             * Une tuile : les {@code count} premières arêtes de {@code links} (les plus lourdes) qui la recoupent et sont assez
+             * épaisses au zoom courant, sauf celles de {@code skip}. Les plus lourdes sont dessinées en dernier, au-dessus.
+             */
+            private void paintLinks(Graphics2D g2, Link[] links, int count, Set<Link> skip, Rectangle2D world, boolean text) {
+                // épaisseur croissante avec le poids : les arêtes trop fines au zoom courant sont en fin de tableau
+                int n = Graph.thick(links, count, LOD_MIN_EDGE_PX / zoom);
+                boolean labels = showLabels.isSelected() && text;
+                g2.setColor(EDGE_COLOR);
+                for (int i = n - 1; i >= 0; i--) {
+                    Link l = links[i];
+                    if (!l.bounds().intersects(world) || (!skip.isEmpty() && skip.contains(l))) continue;
+                    g2.setStroke(l.stroke());
+                    line.setLine(l.a(), l.b());
+                    g2.draw(line);
+
+                    if (labels) {
+                        drawLabel(g2, df.format(l.weight()), mid(l.a(), l.b()));
+                        g2.setColor(EDGE_COLOR);
+                    }
+                }
             }
 
             private void placeOnCircle(java.util.List<String> nodes, double radius) {
@@ -258,14 +633,15 @@ public class CouplingDashboardWindow extends JFrame {
                 }
             }
 
-            private void drawNode(Graphics2D g2, String name, Point2D p) {
-                int r = 16;
-                Shape s = new Ellipse2D.Double(p.getX() - r, p.getY() - r, 2 * r, 2 * r);
-                g2.setColor(new Color(60, 60, 60));
-                g2.fill(s);
+            private void drawNode(Graphics2D g2, String name, Point2D p, boolean text) {
+                int r = NODE_RADIUS;
+                circle.setFrame(p.getX() - r, p.getY() - r, 2 * r, 2 * r);
+                g2.setColor(NODE_FILL);
+                g2.fill(circle);
                 g2.setColor(Color.white);
-                g2.setStroke(new BasicStroke(2f));
-                g2.draw(s);
+                g2.setStroke(NODE_OUTLINE);
+                g2.draw(circle);
+                if (!text) return; // nom illisible à ce zoom
                 FontMetrics fm = g2.getFontMetrics();
                 int w = fm.stringWidth(name);
                 g2.setColor(Color.black);
@@ -279,9 +655,9 @@ public class CouplingDashboardWindow extends JFrame {
                 int pad = 4;
                 Shape bg = new RoundRectangle2D.Double(c.getX() - w / 2.0 - pad, c.getY() - h - pad,
                         w + 2 * pad, h + 2 * pad, 8, 8);
-                g2.setColor(new Color(255, 255, 210));
+                g2.setColor(LABEL_FILL);
                 g2.fill(bg);
-                g2.setColor(new Color(120, 120, 80));
+                g2.setColor(LABEL_BORDER);
                 g2.draw(bg);
                 g2.setColor(Color.black);
                 g2.drawString(txt, (float) (c.getX() - w / 2.0), (float) (c.getY() - 4));
@@ -295,7 +671,8 @@ public class CouplingDashboardWindow extends JFrame {
 
     // ---------------------- Onglet 3: Dendrogramme ----------------------
     private static class DendrogramPanel extends JPanel {
-        private final CodeGenerationProcessorMain.ClusteringResult res;
+        private CodeGenerationProcessorMain.ClusteringResult res;
+        private final Canvas canvas;
 
         // UI
         private final JCheckBox uniformLevels = new JCheckBox("Niveaux uniformes (branches égales)", true);
@@ -333,7 +710,7 @@ public class CouplingDashboardWindow extends JFrame {
             add(top, BorderLayout.NORTH);
 
             // zone dessin
-            Canvas canvas = new Canvas();
+            canvas = new Canvas();
             add(new JScrollPane(canvas), BorderLayout.CENTER);
 
             // build initial
@@ -341,7 +718,14 @@ public class CouplingDashboardWindow extends JFrame {
             refresh.addActionListener(e -> { canvas.repaint(); });
         }
 
+        void setResult(CodeGenerationProcessorMain.ClusteringResult res) {
+            this.res = res;
+            rebuildTree();
+            canvas.repaint();
+        }
+
         private void rebuildTree() {
+            maxDepth = 0;
             var merges = res.merges();
             if (merges.isEmpty()) { root = null; leafOrder = List.of(); return; }
 
@@ -630,4 +1014,113 @@ public class CouplingDashboardWindow extends JFrame {
             };
         }
     }
+
+    // ---------------------- Onglet 5: Classement ----------------------
+    /**
+     * Paires les plus couplées, de tout le projet ou d’une classe : lues dans les classements de
+     * {@link CouplingQuery} (les k premiers d’une liste déjà triée), sans parcourir les couplages.
+     */
+    private class RankingPanel extends JPanel {
+        private static final String ALL_PAIRS = "(toutes les paires)";
+
+        private final JComboBox<String> classChoice = new JComboBox<>();
+        private final JSpinner kSpinner = new JSpinner(new SpinnerNumberModel(50, 1, 100_000, 10));
+        private final JLabel info = new JLabel("—");
+        private final RankingTableModel model = new RankingTableModel();
+        private final JTable table = new JTable(model);
+
+        RankingPanel() {
+            super(new BorderLayout(8, 8));
+            setBorder(new EmptyBorder(10, 10, 10, 10));
+
+            JPanel top = new JPanel(new FlowLayout(FlowLayout.LEFT));
+            top.add(new JLabel("Classe :"));
+            top.add(classChoice);
+            top.add(Box.createHorizontalStrut(12));
+            top.add(new JLabel("k ="));
+            ((JSpinner.DefaultEditor) kSpinner.getEditor()).getTextField().setColumns(6);
+            top.add(kSpinner);
+            top.add(Box.createHorizontalStrut(16));
+            top.add(info);
+            add(top, BorderLayout.NORTH);
+
+            table.setFillsViewportHeight(true);
+            table.setAutoCreateRowSorter(true);
+            table.setRowHeight(22);
+            add(new JScrollPane(table), BorderLayout.CENTER);
+
+            classChoice.addActionListener(e -> run());
+            kSpinner.addChangeListener(e -> run());
+            refresh();
+        }
+
+        /** Nouvelles données (mode surveillance) : liste des classes reconstruite, sélection conservée. */
+        void refresh() {
+            Object selected = classChoice.getSelectedItem();
+            DefaultComboBoxModel<String> choices = new DefaultComboBoxModel<>();
+            choices.addElement(ALL_PAIRS);
+            for (String c : classChoices) choices.addElement(c);
+            classChoice.setModel(choices);
+            if (selected != null && choices.getIndexOf(selected) >= 0) classChoice.setSelectedItem(selected);
+            run();
+        }
+
+        private void run() {
+            int k = ((Number) kSpinner.getValue()).intValue();
+            String cls = (String) classChoice.getSelectedItem();
+            java.util.List<RankingRow> rows = new ArrayList<>();
+            if (cls == null || cls.equals(ALL_PAIRS)) {
+                for (CouplingQuery.RankedPair p : query.topPairs(k)) {
+                    rows.add(new RankingRow(p.nameA(), p.nameB(), p.callsAB(), p.callsBA(), p.weight()));
+                }
+                info.setText(String.format("%d paire(s) les plus couplées", rows.size()));
+            } else {
+                for (CouplingQuery.Neighbour nb : query.neighbours(cls, k)) {
+                    rows.add(new RankingRow(cls, nb.name(), nb.callsOut(), nb.callsIn(), nb.weight()));
+                }
+                info.setText(String.format("%d classe(s) les plus couplées à %s", rows.size(), cls));
+            }
+            model.setData(rows);
+        }
+    }
+
+    private record RankingRow(String a, String b, long callsAB, long callsBA, double weight) {
+    }
+
+    private static class RankingTableModel extends AbstractTableModel {
+        private final String[] cols = {"#", "Classe A", "Classe B", "A → B", "B → A", "Couplage"};
+        private final DecimalFormat df = new DecimalFormat("#0.00000");
+        private java.util.List<RankingRow> data = List.of();
+
+        public void setData(java.util.List<RankingRow> d) {
+            this.data = d;
+            fireTableDataChanged();
+        }
+
+        @Override public int getRowCount() { return data.size(); }
+        @Override public int getColumnCount() { return cols.length; }
+        @Override public String getColumnName(int c) { return cols[c]; }
+
+        @Override
+        public Object getValueAt(int row, int col) {
+            RankingRow r = data.get(row);
+            return switch (col) {
+                case 0 -> row + 1;
+                case 1 -> r.a();
+                case 2 -> r.b();
+                case 3 -> r.callsAB();
+                case 4 -> r.callsBA();
+                case 5 -> df.format(r.weight());
+                default -> "";
+            };
+        }
+
+        @Override public Class<?> getColumnClass(int columnIndex) {
+            return switch (columnIndex) {
+                case 0 -> Integer.class;
+                case 3, 4 -> Long.class;
+                default -> String.class;
+            };
+        }
+    }
 }
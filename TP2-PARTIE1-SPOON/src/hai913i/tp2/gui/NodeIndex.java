@@ -0,0 +1,68 @@
+package hai913i.tp2.gui;
+
+import java.awt.geom.Rectangle2D;
+import java.util.*;
+
+/**
+ * Index spatial des boîtes des nœuds d’un graphe (grille uniforme) : retrouve le nœud sous la souris
+ * en ne testant que les boîtes de la cellule visée, quelle que soit la taille du graphe.
+ *
+ * Chaque nœud (identifié par son rang dans la liste des nœuds) est inscrit dans toutes les cellules que sa boîte
+ * recouvre ; {@link #put} le déplace, à appeler dès qu’une position change (layout, glisser-déposer).
+ */
+final class NodeIndex {
+    private final double cell;
+    private final Map<Long, List<Integer>> cells = new HashMap<>();
+    private final Map<Integer, Rectangle2D> boxes = new HashMap<>();
+
+    /** @param cell côté d’une cellule, de l’ordre de la taille d’une boîte */
+    NodeIndex(double cell) {
+        this.cell = Math.max(cell, 1.0);
+    }
+
+    /** Inscrit (ou déplace) la boîte du nœud {@code id}. */
+    void put(int id, Rectangle2D box) {
+        remove(id);
+        Rectangle2D copy = (Rectangle2D) box.clone();
+        boxes.put(id, copy);
+        forEachCell(copy, key -> cells.computeIfAbsent(key, k -> new ArrayList<>()).add(id));
+    }
+
+    void remove(int id) {
+        Rectangle2D old = boxes.remove(id);
+        if (old == null) return;
+        forEachCell(old, key -> {
+            List<Integer> ids = cells.get(key);
+            ids.remove(Integer.valueOf(id));
+            if (ids.isEmpty()) cells.remove(key);
+        });
+    }
+
+    Rectangle2D box(int id) {
+        return boxes.get(id);
+    }
+
+    /** Nœud dont la boîte contient (x, y), -1 si aucun ; si plusieurs, le plus grand id (dessiné au-dessus). */
+    int at(double x, double y) {
+        List<Integer> ids = cells.get(key((long) Math.floor(x / cell), (long) Math.floor(y / cell)));
+        if (ids == null) return -1;
+        int best = -1;
+        for (int id : ids) {
+            if (id > best && boxes.get(id).contains(x, y)) best = id;
+        }
+        return best;
+    }
+
+    private void forEachCell(Rectangle2D box, java.util.function.LongConsumer action) {
+        long cx0 = (long) Math.floor(box.getMinX() / cell), cx1 = (long) Math.floor(box.getMaxX() / cell);
+        long cy0 = (long) Math.floor(box.getMinY() / cell), cy1 = (long) Math.floor(box.getMaxY() / cell);
+        for (long cy = cy0; cy <= cy1; cy++) {
+            for (long cx = cx0; cx <= cx1; cx++) action.accept(key(cx, cy));
+        }
+    }
+
+    /** Clé unique de la cellule ; la multiplication par une constante impaire (bijective) mélange les bits pour le hachage. */
+    private static long key(long cx, long cy) {
+        return ((cx << 32) ^ (cy & 0xffffffffL)) * 0x9E3779B97F4A7C15L;
+    }
+}
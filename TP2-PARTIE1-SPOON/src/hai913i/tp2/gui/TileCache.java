@@ -0,0 +1,124 @@
+package hai913i.tp2.gui;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache de rendu par tuiles d’une couche statique (les arêtes d’un graphe) pour un panneau zoomable.
+ *
+ * La couche est dessinée une fois par tuile de {@link #TILE}×{@link #TILE} pixels à un zoom donné, puis recopiée
+ * à chaque repaint : un pan ne dessine que les tuiles qui entrent dans la vue. Pendant un zoom à la molette,
+ * les tuiles existantes sont simplement mises à l’échelle ; la couche est redessinée nette quand la molette
+ * s’arrête ({@link #SETTLE_MS} ms). {@link #invalidate()} à chaque changement de la couche (positions, options).
+ */
+final class TileCache {
+    static final int TILE = 256;
+    private static final int MAX_TILES = 128;   // ~32 Mo, plus que les tuiles visibles d’un grand écran
+    private static final int SETTLE_MS = 150;
+
+    /** Dessine la couche dans {@code g2}, déjà en coordonnées du graphe ; {@code world} : zone couverte par la tuile. */
+    interface Layer {
+        void paint(Graphics2D g2, Rectangle2D world);
+    }
+
+    private final Map<Long, BufferedImage> tiles = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, BufferedImage> eldest) {
+            return size() > MAX_TILES;
+        }
+    };
+    private double tileZoom = Double.NaN;
+    private final Timer settle;
+
+    TileCache(JComponent owner) {
+        settle = new Timer(SETTLE_MS, e -> {
+            clear();
+            owner.repaint();
+        });
+        settle.setRepeats(false);
+    }
+
+    void invalidate() {
+        settle.stop();
+        clear();
+    }
+
+    /** Seule une zone du graphe a changé : on ne jette que les tuiles qui la recoupent. */
+    void invalidate(Rectangle2D world) {
+        if (Double.isNaN(tileZoom)) return;
+        int tx0 = (int) Math.floor(world.getMinX() * tileZoom / TILE), tx1 = (int) Math.floor(world.getMaxX() * tileZoom / TILE);
+        int ty0 = (int) Math.floor(world.getMinY() * tileZoom / TILE), ty1 = (int) Math.floor(world.getMaxY() * tileZoom / TILE);
+        for (int ty = ty0; ty <= ty1; ty++) {
+            for (int tx = tx0; tx <= tx1; tx++) tiles.remove(key(tx, ty));
+        }
+    }
+
+    private void clear() {
+        tiles.clear();
+        tileZoom = Double.NaN;
+    }
+
+    /**
+     * Dessine la couche sur la zone {@code clip} de l’écran, où un point (x, y) du graphe est affiché en
+     * (x·zoom + originX, y·zoom + originY).
+     */
+    void paint(Graphics2D g, Rectangle clip, double zoom, int originX, int originY, Layer layer) {
+        if (zoom != tileZoom && !tiles.isEmpty()) {
+            paintScaled(g, zoom, originX, originY);
+            settle.restart();
+            return;
+        }
+        tileZoom = zoom;
+        int tx0 = Math.floorDiv(clip.x - originX, TILE);
+        int ty0 = Math.floorDiv(clip.y - originY, TILE);
+        int tx1 = Math.floorDiv(clip.x + clip.width - 1 - originX, TILE);
+        int ty1 = Math.floorDiv(clip.y + clip.height - 1 - originY, TILE);
+        for (int ty = ty0; ty <= ty1; ty++) {
+            for (int tx = tx0; tx <= tx1; tx++) {
+                long key = key(tx, ty);
+                BufferedImage img = tiles.get(key);
+                if (img == null) {
+                    img = render(g, tx, ty, zoom, layer);
+                    tiles.put(key, img);
+                }
+                g.drawImage(img, originX + tx * TILE, originY + ty * TILE, null);
+            }
+        }
+    }
+
+    /** Aperçu pendant un zoom : les tuiles du zoom précédent, étirées à la nouvelle échelle. */
+    private void paintScaled(Graphics2D g, double zoom, int originX, int originY) {
+        double f = zoom / tileZoom;
+        int size = (int) Math.ceil(TILE * f);
+        for (var en : tiles.entrySet()) {
+            long k = en.getKey();
+            int tx = (int) (k >> 32), ty = (int) k;
+            int x = originX + (int) Math.floor(tx * TILE * f);
+            int y = originY + (int) Math.floor(ty * TILE * f);
+            g.drawImage(en.getValue(), x, y, size, size, null);
+        }
+    }
+
+    private static BufferedImage render(Graphics2D g, int tx, int ty, double zoom, Layer layer) {
+        BufferedImage img = new BufferedImage(TILE, TILE, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D t = img.createGraphics();
+        try {
+            t.setRenderingHints(g.getRenderingHints());
+            t.setFont(g.getFont());
+            t.translate(-tx * TILE, -ty * TILE);
+            t.scale(zoom, zoom);
+            layer.paint(t, new Rectangle2D.Double(tx * TILE / zoom, ty * TILE / zoom, TILE / zoom, TILE / zoom));
+        } finally {
+            t.dispose();
+        }
+        return img;
+    }
+
+    private static long key(int tx, int ty) {
+        return ((long) tx << 32) | (ty & 0xffffffffL);
+    }
+}
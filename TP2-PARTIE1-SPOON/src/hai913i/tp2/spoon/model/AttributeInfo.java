@@ -1,6 +1,10 @@
 package hai913i.tp2.spoon.model;
 
-public class AttributeInfo {
+import java.io.Serializable;
+
+public class AttributeInfo implements Serializable {
+    private static final long serialVersionUID = 1L;
+
     public String name;
     public String visibility;
 }
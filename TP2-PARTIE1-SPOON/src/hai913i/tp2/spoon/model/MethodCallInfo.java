@@ -1,7 +1,17 @@
 package hai913i.tp2.spoon.model;
 
-public class MethodCallInfo {
+import java.io.Serializable;
+
+public class MethodCallInfo implements Serializable {
+    private static final long serialVersionUID = 1L;
+
     public String methodName;
     public String receiverType;
     public boolean externalType;
+    /** Ids de methodName et receiverType dans {@link SymbolTable#global()} ; non sérialisés (réattribués au chargement). */
+    public transient int methodNameId;
+    public transient int receiverTypeId;
+    /** Nom qualifié du type receveur, comparé à {@link ClassInfo#qualifiedName} ; receiverType reste le nom simple. */
+    public String receiverQualifiedType;
+    public transient int receiverQualifiedTypeId;
 }
\ No newline at end of file
@@ -6,8 +6,16 @@ import spoon.processing.Processor;
 import spoon.reflect.declaration.CtClass;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Stream;
 
 public class SpoonParser extends Parser<Launcher> {
 
@@ -17,11 +25,16 @@ public class SpoonParser extends Parser<Launcher> {
 
     public void setLauncher(String sourceOutputPath, String binaryOutputPath,
                             boolean autoImports, boolean commentsEnabled) {
+        // 1) Détection des racines de sources (src/, src/main/java, src/java…)
+        setLauncher(detectSourceRoots(getProjectPath()), sourceOutputPath, binaryOutputPath, autoImports, commentsEnabled);
+    }
+
+    private void setLauncher(List<String> inputResources, String sourceOutputPath, String binaryOutputPath,
+                             boolean autoImports, boolean commentsEnabled) {
         parser = new Launcher();
 
-        // 1) Détection des racines de sources (src/, src/main/java, src/java…)
-        for (String srcRoot : detectSourceRoots(getProjectPath())) {
-            parser.addInputResource(srcRoot);
+        for (String input : inputResources) {
+            parser.addInputResource(input);
         }
 
         parser.setSourceOutputDirectory(sourceOutputPath);
@@ -41,6 +54,40 @@ public class SpoonParser extends Parser<Launcher> {
     }
 
 
+    /**
+     * Remplace les entrées du Launcher par les seuls fichiers donnés (même configuration par ailleurs).
+     * Sert à l’analyse incrémentale : les processeurs doivent être ajoutés après cet appel.
+     */
+    public void restrictInputsTo(Collection<File> sourceFiles) {
+        List<String> inputs = new ArrayList<>();
+        for (File f : sourceFiles) inputs.add(f.getAbsolutePath());
+        setLauncher(inputs, sourceOutputPath(), binaryOutputPath(), true, true);
+    }
+
+    /** Vrai si des classes compilées du projet (bin/, target/classes, lib/*.jar…) sont sur le classpath. */
+    public boolean hasBinaryClasspath() {
+        return !detectClassPathEntries(getProjectPath()).isEmpty();
+    }
+
+    /** Racines de sources détectées (src/main/java, src/java, src/), éventuellement imbriquées. */
+    public List<String> sourceRoots() {
+        return detectSourceRoots(getProjectPath());
+    }
+
+    /** Fichiers .java des racines de sources détectées, sans doublon (src/ contient src/main/java), triés. */
+    public List<File> listSourceFiles() throws IOException {
+        Set<Path> files = new TreeSet<>();
+        for (String root : sourceRoots()) {
+            try (Stream<Path> stream = Files.walk(Paths.get(root))) {
+                stream.filter(p -> p.toString().endsWith(".java") && Files.isRegularFile(p))
+                        .forEach(p -> files.add(p.toAbsolutePath().normalize()));
+            }
+        }
+        List<File> out = new ArrayList<>(files.size());
+        for (Path p : files) out.add(p.toFile());
+        return out;
+    }
+
     private static List<String> detectSourceRoots(String projectPath) {
         File root = new File(projectPath);
         List<String> roots = new ArrayList<>();
@@ -93,7 +140,15 @@ public class SpoonParser extends Parser<Launcher> {
     }
 	
 	public void configure() {
-		setLauncher(projectPath+"/spooned/src/", projectPath+"/spooned/bin/", true, true);
+		setLauncher(sourceOutputPath(), binaryOutputPath(), true, true);
+	}
+	
+	private String sourceOutputPath() {
+		return projectPath+"/spooned/src/";
+	}
+	
+	private String binaryOutputPath() {
+		return projectPath+"/spooned/bin/";
 	}
 	
 	public void addProcessor(Processor<CtClass> processor) {
@@ -0,0 +1,67 @@
+package hai913i.tp2.spoon.processors;
+
+import spoon.support.compiler.SpoonProgress;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * Avancement d’une analyse, étape par étape ; appelé depuis le thread de l’analyse.
+ * Annulation : interrompre ce thread, l’étape en cours s’arrête au prochain point de contrôle
+ * (fichier suivant pour Spoon, fusion suivante pour le clustering).
+ */
+public interface AnalysisProgress {
+
+	enum Stage {
+		PARSE("Parsing"),
+		EXTRACT("Modèle Spoon + extraction"),
+		COUPLE("Couplage"),
+		CLUSTER("Clustering");
+
+		public final String label;
+
+		Stage(String label) {
+			this.label = label;
+		}
+	}
+
+	AnalysisProgress NONE = (stage, done, total) -> { };
+
+	/** @param total nombre d’éléments de l’étape, négatif si inconnu */
+	void progress(Stage stage, int done, int total);
+
+	/**
+	 * Adaptateur pour Launcher : la compilation JDT des sources (fichier par fichier) est le parsing,
+	 * la construction du modèle Spoon et les processeurs sont l’extraction. Chaque pas vérifie l’annulation.
+	 */
+	static SpoonProgress toSpoon(AnalysisProgress progress) {
+		return new SpoonProgress() {
+			@Override
+			public void start(Process process) {
+				checkInterrupted();
+				if (process == Process.COMPILE) progress.progress(Stage.PARSE, 0, -1);
+				else if (process == Process.MODEL || process == Process.PROCESS) progress.progress(Stage.EXTRACT, 0, -1);
+			}
+
+			@Override
+			public void step(Process process, String task, int taskId, int nbTasks) {
+				checkInterrupted();
+				if (process == Process.COMPILE) progress.progress(Stage.PARSE, taskId, nbTasks);
+				else if (process == Process.MODEL) progress.progress(Stage.EXTRACT, taskId, nbTasks);
+			}
+
+			@Override
+			public void step(Process process, String task) {
+				checkInterrupted();
+			}
+
+			@Override
+			public void end(Process process) {
+				checkInterrupted();
+			}
+		};
+	}
+
+	private static void checkInterrupted() {
+		if (Thread.currentThread().isInterrupted()) throw new CancellationException("Analyse interrompue");
+	}
+}
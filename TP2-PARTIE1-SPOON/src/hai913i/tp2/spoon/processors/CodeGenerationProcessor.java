@@ -1,9 +1,36 @@
 package hai913i.tp2.spoon.processors;
 
+import hai913i.tp2.spoon.model.ClassInfo;
+import hai913i.tp2.spoon.parsers.ParseCache;
+import hai913i.tp2.spoon.visitors.AnalysisRepository;
+import hai913i.tp2.spoon.visitors.ClassAnalysisProcessor;
 import spoon.processing.AbstractProcessor;
 import spoon.reflect.declaration.CtClass;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
 public class CodeGenerationProcessor extends SpoonProcessor {
+	private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z_$][A-Za-z0-9_$]*");
+	private static final Pattern DECLARATION = Pattern.compile("\\b(?:class|interface|enum|record)\\s+([A-Za-z_$][A-Za-z0-9_$]*)");
+	
 	/* CONSTRUCTOR */
 	public CodeGenerationProcessor(String projectPath) {
 		super(projectPath);
@@ -14,4 +41,185 @@ public class CodeGenerationProcessor extends SpoonProcessor {
 		parser.addProcessor(codeGenerator);
 		parser.run();
 	}
+	
+	/**
+	 * Analyse incrémentale avec ClassAnalysisProcessor : seuls les fichiers nouveaux ou modifiés (hash du contenu),
+	 * et ceux qui en dépendent (voir {@link #reanalyse}), sont redonnés à Spoon ; les autres sont repris du cache.
+	 * Le cache est mis à jour et réécrit ; AnalysisRepository contient ensuite toutes les classes du projet, dans
+	 * l'ordre des fichiers.
+	 */
+	public List<ClassInfo> applyIncremental(ParseCache cache) throws IOException {
+		return applyIncremental(cache, AnalysisProgress.NONE);
+	}
+	
+	/**
+	 * Comme {@link #applyIncremental(ParseCache)}, en signalant l'avancement de Spoon (parsing puis modèle et extraction).
+	 * Un thread interrompu arrête l'analyse (InterruptedIOException ou CancellationException) ; le cache n'est alors pas réécrit.
+	 */
+	public List<ClassInfo> applyIncremental(ParseCache cache, AnalysisProgress progress) throws IOException {
+		progress.progress(AnalysisProgress.Stage.PARSE, 0, -1);
+		List<File> files = parser.listSourceFiles();
+		Map<File, String> hashes = new HashMap<>();
+		List<File> stale = new ArrayList<>();
+		for (File f : files) {
+			if (Thread.currentThread().isInterrupted()) throw new InterruptedIOException("Analyse interrompue");
+			String hash = ParseCache.hash(Files.readAllBytes(f.toPath()));
+			hashes.put(f, hash);
+			if (cache.get(f.toPath(), hash) == null) stale.add(f);
+		}
+		// fichiers disparus depuis le dernier passage : ceux qui nommaient leurs types sont à refaire
+		Set<Path> present = new HashSet<>();
+		for (File f : files) present.add(f.toPath().toAbsolutePath().normalize());
+		for (Path p : cache.files()) {
+			if (!present.contains(p)) stale.add(p.toFile());
+		}
+		
+		if (!stale.isEmpty()) reanalyse(stale, files, cache, progress);
+		
+		List<ClassInfo> classes = new ArrayList<>();
+		for (File f : files) {
+			List<ClassInfo> fileClasses = cache.get(f.toPath(), hashes.get(f));
+			if (fileClasses != null) classes.addAll(fileClasses);
+		}
+		cache.retainOnly(files.stream().map(File::toPath).toList());
+		cache.save();
+		
+		AnalysisRepository.clear();
+		AnalysisRepository.addAll(classes);
+		return classes;
+	}
+	
+	/**
+	 * Redonne à Spoon les fichiers {@code changed} et tous ceux qui en dépendent, et met à jour le cache pour chaque
+	 * fichier modélisé. Utilisé au lancement et par le mode surveillance.
+	 *
+	 * L'extraction d'un fichier ne dépend pas que de son contenu : ClassAnalysisProcessor déduit le type d'un receveur
+	 * des déclarations des autres fichiers (type de retour d'une méthode de B pour un appel b.get().m() dans A).
+	 * Sont donc refaits, transitivement, les fichiers qui nomment un type déclaré par un fichier de {@code changed},
+	 * avant ou après sa modification (sur-approximation textuelle, voir {@link SourceReferences}). Sans classpath
+	 * binaire, les fichiers qu'ils référencent sont modélisés avec eux, pour que leurs types restent résolus.
+	 * @param changed fichiers créés, modifiés ou supprimés ; les supprimés ne sont pas modélisés, mais les types qu'ils
+	 *                déclaraient (d'après le cache) désignent encore leurs dépendants : les retirer du cache après l'appel
+	 * @param files tous les fichiers sources actuels du projet
+	 * @return classes extraites par fichier modélisé (liste vide si le fichier ne déclare aucune classe)
+	 */
+	public Map<File, List<ClassInfo>> reanalyse(Collection<File> changed, List<File> files, ParseCache cache) throws IOException {
+		return reanalyse(changed, files, cache, AnalysisProgress.NONE);
+	}
+	
+	private Map<File, List<ClassInfo>> reanalyse(Collection<File> changed, List<File> files, ParseCache cache,
+	                                              AnalysisProgress progress) throws IOException {
+		Set<String> changedTypes = new HashSet<>();
+		Set<File> seeds = new LinkedHashSet<>();
+		for (File f : changed) {
+			changedTypes.add(typeName(f));
+			List<ClassInfo> before = cache.previous(f.toPath());
+			if (before != null) {
+				for (ClassInfo ci : before) changedTypes.add(ci.className);
+			}
+			if (f.isFile()) seeds.add(f);
+		}
+		
+		Collection<File> modeled;
+		if (seeds.size() == files.size()) {
+			modeled = seeds; // premier passage : tout le projet est modélisé, aucune référence à suivre
+		} else {
+			SourceReferences references = new SourceReferences(files, changedTypes);
+			seeds.addAll(references.dependents(changedTypes));
+			if (seeds.isEmpty()) return new LinkedHashMap<>();
+			// Sans classes compilées (noclasspath), un fichier modélisé seul perd la résolution des types
+			// déclarés ailleurs : on modélise aussi les fichiers qu'il référence, transitivement.
+			modeled = parser.hasBinaryClasspath() ? seeds : references.closure(seeds);
+		}
+		
+		AnalysisRepository.clear();
+		parser.restrictInputsTo(modeled);
+		parser.getParser().getEnvironment().setSpoonProgress(AnalysisProgress.toSpoon(progress));
+		parser.addProcessor(new ClassAnalysisProcessor());
+		parser.run();
+		
+		Map<File, List<ClassInfo>> result = new LinkedHashMap<>();
+		for (File f : modeled) {
+			List<ClassInfo> fileClasses = AnalysisRepository.getBySourceFile(ParseCache.key(f.toPath()));
+			cache.put(f.toPath(), ParseCache.hash(Files.readAllBytes(f.toPath())), fileClasses);
+			result.put(f, fileClasses);
+		}
+		AnalysisRepository.clear();
+		return result;
+	}
+	
+	/** Texte du fichier pour la recherche d'identifiants (ASCII) : décodage sans échec, quel que soit l'encodage. */
+	private static String text(File f) throws IOException {
+		return new String(Files.readAllBytes(f.toPath()), StandardCharsets.ISO_8859_1);
+	}
+	
+	private static String typeName(File f) {
+		return f.getName().substring(0, f.getName().length() - ".java".length());
+	}
+	
+	/**
+	 * Références textuelles entre fichiers sources : un fichier déclare les types de même nom que lui et ceux qui
+	 * suivent class/interface/enum/record dans son texte ; il référence un type dès que l'identifiant apparaît
+	 * dans son texte. Sur-approximation (commentaires, homonymes) sans risque : un fichier de trop est seulement
+	 * modélisé pour rien. Deux lectures de chaque fichier (déclarations, puis références).
+	 */
+	private static final class SourceReferences {
+		private final Map<String, List<File>> declaredIn = new HashMap<>();  // type -> fichiers qui le déclarent
+		private final Map<File, Set<String>> declares = new HashMap<>();
+		private final Map<File, Set<String>> mentions = new HashMap<>();      // fichier -> types du projet nommés
+		private final Map<String, List<File>> mentionedBy = new HashMap<>();
+		
+		SourceReferences(List<File> files, Set<String> extraTypes) throws IOException {
+			for (File f : files) {
+				Set<String> names = new LinkedHashSet<>();
+				names.add(typeName(f));
+				Matcher m = DECLARATION.matcher(text(f));
+				while (m.find()) names.add(m.group(1));
+				declares.put(f, names);
+				for (String name : names) declaredIn.computeIfAbsent(name, k -> new ArrayList<>()).add(f);
+			}
+			for (File f : files) {
+				if (Thread.currentThread().isInterrupted()) throw new InterruptedIOException("Analyse interrompue");
+				Set<String> named = new HashSet<>();
+				Matcher m = IDENTIFIER.matcher(text(f));
+				while (m.find()) {
+					String id = m.group();
+					if ((declaredIn.containsKey(id) || extraTypes.contains(id)) && named.add(id)) {
+						mentionedBy.computeIfAbsent(id, k -> new ArrayList<>()).add(f);
+					}
+				}
+				mentions.put(f, named);
+			}
+		}
+		
+		/** Fichiers qui nomment l'un des {@code types}, puis ceux qui nomment un type de ces fichiers, etc. */
+		Set<File> dependents(Collection<String> types) {
+			Set<File> out = new LinkedHashSet<>();
+			Deque<String> todo = new ArrayDeque<>(types);
+			Set<String> seen = new HashSet<>(types);
+			while (!todo.isEmpty()) {
+				for (File f : mentionedBy.getOrDefault(todo.removeFirst(), List.of())) {
+					if (!out.add(f)) continue;
+					for (String name : declares.get(f)) {
+						if (seen.add(name)) todo.addLast(name);
+					}
+				}
+			}
+			return out;
+		}
+		
+		/** {@code seeds} et les fichiers qu'ils référencent, transitivement. */
+		Set<File> closure(Collection<File> seeds) {
+			Set<File> closure = new LinkedHashSet<>(seeds);
+			Deque<File> todo = new ArrayDeque<>(seeds);
+			while (!todo.isEmpty()) {
+				for (String name : mentions.getOrDefault(todo.removeFirst(), Set.of())) {
+					for (File ref : declaredIn.getOrDefault(name, List.of())) {
+						if (closure.add(ref)) todo.addLast(ref);
+					}
+				}
+			}
+			return closure;
+		}
+	}
 }
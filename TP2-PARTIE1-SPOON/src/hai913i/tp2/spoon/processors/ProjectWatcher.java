@@ -0,0 +1,262 @@
+package hai913i.tp2.spoon.processors;
+
+import hai913i.tp2.coupling.LiveCouplingModel;
+import hai913i.tp2.spoon.model.ClassInfo;
+import hai913i.tp2.spoon.model.SymbolTable;
+import hai913i.tp2.spoon.parsers.ParseCache;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Mode surveillance (Spoon) : observe les racines de sources du projet et, à chaque rafale de modifications,
+ * ne redonne à Spoon que les fichiers créés / modifiés et ceux qui en dépendent (via
+ * {@link CodeGenerationProcessor#reanalyse}) ; les fichiers supprimés sont retirés, leurs dépendants refaits. Les classes concernées sont patchées dans le
+ * {@link LiveCouplingModel}. Toutes les mises à jour (et les appels au listener) se font sur le thread du watcher.
+ */
+public class ProjectWatcher implements Closeable {
+    /** Délai de regroupement des événements (un « save » d’IDE en produit souvent plusieurs). */
+    private static final long DEBOUNCE_MS = 200;
+
+    public interface Listener {
+        /**
+         * Appelé sur le thread du watcher après l’application d’un lot de changements ; une première fois par
+         * {@link #start()}, sur le thread appelant, avec l’état initial (avant le démarrage du thread du watcher).
+         * @param changedClasses noms qualifiés des classes ajoutées, modifiées ou supprimées dans ce lot
+         */
+        void onUpdate(ProjectWatcher watcher, Set<String> changedClasses);
+    }
+
+    private final CodeGenerationProcessor runner;
+    private final ParseCache cache;
+    private final Listener listener;
+    private final LiveCouplingModel model = new LiveCouplingModel();
+
+    // fichier -> classes extraites ; trié pour que « la première occurrence » d’un nom soit stable
+    private final Map<Path, List<ClassInfo>> byFile = new TreeMap<>();
+    // nom qualifié de classe -> fichiers qui la déclarent (la première gagne)
+    private final Map<String, TreeMap<Path, ClassInfo>> occurrences = new HashMap<>();
+
+    private final Map<WatchKey, Path> watchedDirs = new HashMap<>();
+    private WatchService watchService;
+    private Thread thread;
+
+    public ProjectWatcher(CodeGenerationProcessor runner, ParseCache cache, Listener listener) {
+        this.runner = runner;
+        this.cache = cache;
+        this.listener = listener;
+    }
+
+    /** Charge l’état initial (fichiers inchangés repris du cache), le remet au listener, puis démarre la surveillance en tâche de fond. */
+    public void start() throws IOException {
+        watchService = FileSystems.getDefault().newWatchService();
+        for (Path root : roots()) registerTree(root);
+
+        Set<Path> initial = new TreeSet<>();
+        for (File f : runner.getParser().listSourceFiles()) initial.add(f.toPath());
+        initial.addAll(cache.files()); // fichiers supprimés depuis le dernier passage : leurs dépendants sont refaits
+        Set<String> loaded = applyChanges(initial);
+        cache.retainOnly(byFile.keySet());
+        saveCache();
+        // état initial remis au listener avant que le thread du watcher n’existe : le modèle n’est jamais lu
+        // depuis deux threads à la fois
+        listener.onUpdate(this, loaded);
+
+        thread = new Thread(this::loop, "project-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public LiveCouplingModel model() {
+        return model;
+    }
+
+    /** Classes actuelles (une par nom, première occurrence), dans l’ordre des fichiers. À appeler depuis le listener. */
+    public List<ClassInfo> classes() {
+        List<ClassInfo> out = new ArrayList<>();
+        for (List<ClassInfo> fileClasses : byFile.values()) {
+            for (ClassInfo ci : fileClasses) {
+                if (occurrences.get(key(ci)).firstEntry().getValue() == ci) out.add(ci);
+            }
+        }
+        return out;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (thread != null) thread.interrupt();
+        if (watchService != null) watchService.close();
+    }
+
+    private void loop() {
+        // fichiers modifiés pas encore appliqués : un lot en échec est retenté avec le suivant
+        Set<Path> pending = new TreeSet<>();
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                WatchKey key = watchService.take();
+                boolean overflow = drain(key, pending);
+
+                // regroupe la rafale d’événements qui suit
+                WatchKey next;
+                while ((next = watchService.poll(DEBOUNCE_MS, TimeUnit.MILLISECONDS)) != null) {
+                    overflow |= drain(next, pending);
+                }
+                if (overflow) pending.addAll(rescan());
+                if (pending.isEmpty()) continue;
+
+                Set<String> changedClasses = applyChanges(pending);
+                pending.clear();
+                saveCache();
+                listener.onUpdate(this, changedClasses);
+            } catch (InterruptedException | InterruptedIOException | ClosedWatchServiceException e) {
+                return; // arrêt demandé
+            } catch (IOException | RuntimeException e) {
+                // un lot en échec ne termine pas la surveillance : signalé, ses fichiers restent en attente
+                System.err.println("Surveillance : mise à jour en échec, " + pending.size() + " fichier(s) en attente");
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /** Lit les événements d’une clé ; retourne true si des événements ont été perdus (OVERFLOW). */
+    private boolean drain(WatchKey key, Set<Path> changed) {
+        Path dir = watchedDirs.get(key);
+        boolean overflow = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW || dir == null) {
+                overflow = true;
+                continue;
+            }
+            Path p = dir.resolve((Path) event.context());
+            if (event.kind() == ENTRY_CREATE && Files.isDirectory(p)) {
+                // nouveau package : on le surveille et on prend tous ses fichiers
+                try {
+                    registerTree(p);
+                    try (var stream = Files.walk(p)) {
+                        stream.filter(ProjectWatcher::isJavaFile).forEach(changed::add);
+                    }
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            } else if (isJavaFile(p)) {
+                changed.add(p);
+            } else if (event.kind() == ENTRY_DELETE) {
+                // dossier supprimé : tous les fichiers connus en dessous disparaissent
+                for (Path known : byFile.keySet()) {
+                    if (known.startsWith(p)) changed.add(known);
+                }
+            }
+        }
+        if (!key.reset()) watchedDirs.remove(key);
+        return overflow;
+    }
+
+    /** Après un OVERFLOW : différence complète entre le disque et l’état connu. */
+    private Set<Path> rescan() throws IOException {
+        Set<Path> all = new TreeSet<>(byFile.keySet());
+        for (Path root : roots()) registerTree(root);
+        for (File f : runner.getParser().listSourceFiles()) all.add(f.toPath());
+        return all;
+    }
+
+    /**
+     * Les fichiers dont le contenu est inchangé sont repris du cache ; les autres, avec les fichiers qui dépendent
+     * d’eux ou d’un fichier supprimé, passent ensemble par Spoon (un seul modèle pour le lot, voir
+     * {@link CodeGenerationProcessor#reanalyse}), puis le modèle est mis à jour pour les seuls noms concernés.
+     */
+    private Set<String> applyChanges(Collection<Path> files) throws IOException {
+        Map<Path, List<ClassInfo>> current = new TreeMap<>();
+        List<File> stale = new ArrayList<>();
+        List<Path> deleted = new ArrayList<>();
+        for (Path file : files) {
+            if (!Files.isRegularFile(file)) {
+                deleted.add(file);
+                stale.add(file.toFile());
+                current.put(file, null);
+                continue;
+            }
+            List<ClassInfo> cached = cache.get(file, ParseCache.hash(Files.readAllBytes(file)));
+            if (cached != null) current.put(file, cached);
+            else stale.add(file.toFile());
+        }
+        if (!stale.isEmpty()) {
+            List<File> allFiles = runner.getParser().listSourceFiles();
+            // les fichiers supprimés restent dans le cache pendant l’appel : leurs types désignent leurs dépendants
+            for (var e : runner.reanalyse(stale, allFiles, cache).entrySet()) {
+                current.put(e.getKey().toPath().toAbsolutePath().normalize(), e.getValue());
+            }
+        }
+        for (Path file : deleted) cache.remove(file);
+
+        Set<String> touched = new TreeSet<>();
+        for (var e : current.entrySet()) {
+            Path file = e.getKey();
+            List<ClassInfo> old = byFile.remove(file);
+            if (old != null) {
+                for (ClassInfo ci : old) {
+                    touched.add(key(ci));
+                    // une même classe peut être déclarée deux fois dans le fichier : déjà retirée au premier passage
+                    TreeMap<Path, ClassInfo> occ = occurrences.get(key(ci));
+                    if (occ == null) continue;
+                    occ.remove(file);
+                    if (occ.isEmpty()) occurrences.remove(key(ci));
+                }
+            }
+            if (e.getValue() == null) continue;
+
+            byFile.put(file, e.getValue());
+            for (ClassInfo ci : e.getValue()) {
+                touched.add(key(ci));
+                occurrences.computeIfAbsent(key(ci), k -> new TreeMap<>()).putIfAbsent(file, ci);
+            }
+        }
+
+        for (String name : touched) {
+            TreeMap<Path, ClassInfo> occ = occurrences.get(name);
+            if (occ == null) model.removeClass(name);
+            else model.putClass(occ.firstEntry().getValue());
+        }
+        return touched;
+    }
+
+    /** Identité de la classe dans le modèle de couplage : son nom qualifié. */
+    private static String key(ClassInfo ci) {
+        SymbolTable symbols = SymbolTable.global();
+        return symbols.name(symbols.classId(ci));
+    }
+
+    private List<Path> roots() {
+        List<Path> roots = new ArrayList<>();
+        for (String r : runner.getParser().sourceRoots()) roots.add(Paths.get(r).toAbsolutePath().normalize());
+        return roots;
+    }
+
+    private void registerTree(Path dir) throws IOException {
+        try (var stream = Files.walk(dir)) {
+            for (Path d : (Iterable<Path>) stream.filter(Files::isDirectory)::iterator) {
+                // src/ contient src/main/java : un dossier n’est enregistré qu’une fois
+                if (watchedDirs.containsValue(d)) continue;
+                watchedDirs.put(d.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE), d);
+            }
+        }
+    }
+
+    private void saveCache() {
+        try {
+            cache.save();
+        } catch (IOException e) {
+            System.err.println("Cache non sauvegardé : " + e);
+        }
+    }
+
+    private static boolean isJavaFile(Path p) {
+        return p.toString().endsWith(".java") && !Files.isDirectory(p);
+    }
+}
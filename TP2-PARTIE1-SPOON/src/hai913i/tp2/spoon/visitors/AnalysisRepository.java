@@ -2,18 +2,39 @@ package hai913i.tp2.spoon.visitors;
 
 import hai913i.tp2.spoon.model.ClassInfo;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 
     public final class AnalysisRepository {
     private static final CopyOnWriteArrayList<ClassInfo> CLASSES = new CopyOnWriteArrayList<>();
+    // fichier source (chemin absolu normalisé) -> classes qu'il déclare
+    private static final Map<String, List<ClassInfo>> BY_SOURCE_FILE = new ConcurrentHashMap<>();
 
     private AnalysisRepository() {}
 
-    public static void clear() { CLASSES.clear(); }
+    public static void clear() { CLASSES.clear(); BY_SOURCE_FILE.clear(); }
 
     public static void add(ClassInfo ci) { if (ci != null) CLASSES.add(ci); }
 
+    public static void add(String sourceFile, ClassInfo ci) {
+        if (ci == null) return;
+        CLASSES.add(ci);
+        if (sourceFile != null) {
+            BY_SOURCE_FILE.computeIfAbsent(sourceFile, k -> new CopyOnWriteArrayList<>()).add(ci);
+        }
+    }
+
+    public static void addAll(Collection<ClassInfo> cis) { for (ClassInfo ci : cis) add(ci); }
+
+    public static List<ClassInfo> getBySourceFile(String sourceFile) {
+        List<ClassInfo> l = BY_SOURCE_FILE.get(sourceFile);
+        return (l == null) ? List.of() : new ArrayList<>(l);
+    }
+
     public static List<ClassInfo> getAll() { return Collections.unmodifiableList(CLASSES); }
 }
@@ -4,6 +4,8 @@ import hai913i.tp2.spoon.model.AttributeInfo;
 import hai913i.tp2.spoon.model.ClassInfo;
 import hai913i.tp2.spoon.model.MethodCallInfo;
 import hai913i.tp2.spoon.model.MethodInfo;
+import hai913i.tp2.spoon.model.SymbolTable;
+import hai913i.tp2.spoon.parsers.ParseCache;
 import spoon.processing.AbstractProcessor;
 import spoon.reflect.code.CtBlock;
 import spoon.reflect.code.CtExpression;
@@ -19,6 +21,9 @@ import java.util.List;
 @SuppressWarnings({"rawtypes"})
 public class ClassAnalysisProcessor extends AbstractProcessor<CtClass> {
 
+    // noms émis avec leur id : une instance par nom, pas une par site d’appel
+    private static final SymbolTable symbols = SymbolTable.global();
+
     @Override
     public boolean isToBeProcessed(CtClass candidate) {
         return candidate != null
@@ -30,12 +35,16 @@ public class ClassAnalysisProcessor extends AbstractProcessor<CtClass> {
     @Override
     public void process(CtClass ctClass) {
         ClassInfo ci = new ClassInfo();                 // modèle inchangé :contentReference[oaicite:0]{index=0}
-        ci.className = ctClass.getSimpleName();
+        ci.classNameId = symbols.id(ctClass.getSimpleName());
+        ci.className = symbols.name(ci.classNameId);
+        ci.qualifiedNameId = symbols.id(ctClass.getQualifiedName());
+        ci.qualifiedName = symbols.name(ci.qualifiedNameId);
 
         CtPackage pkg = ctClass.getPackage();
-        ci.packageName = (pkg != null && pkg.getQualifiedName() != null)
+        ci.packageNameId = symbols.id((pkg != null && pkg.getQualifiedName() != null)
                 ? pkg.getQualifiedName()
-                : "(default package)";
+                : "(default package)");
+        ci.packageName = symbols.name(ci.packageNameId);
 
         CtTypeReference sc = ctClass.getSuperclass();
         if (sc != null) {
@@ -67,13 +76,18 @@ public class ClassAnalysisProcessor extends AbstractProcessor<CtClass> {
                 for (CtInvocation inv : (List<CtInvocation>) body.getElements(new TypeFilter<>(CtInvocation.class))) {
                     MethodCallInfo call = new MethodCallInfo();  // :contentReference[oaicite:3]{index=3}
                     CtExecutableReference exec = inv.getExecutable();
-                    call.methodName = (exec != null && exec.getSimpleName() != null)
+                    call.methodNameId = symbols.id((exec != null && exec.getSimpleName() != null)
                             ? exec.getSimpleName()
-                            : "<unknown>";
+                            : "<unknown>");
+                    call.methodName = symbols.name(call.methodNameId);
 
-                    String receiverSimple = inferReceiverSimpleType(inv, exec, ctClass.getSimpleName());
-                    call.receiverType = receiverSimple;
-                    call.externalType = !receiverSimple.equals(ctClass.getSimpleName());
+                    // nom simple affiché, nom qualifié comparé à ClassInfo.qualifiedName (défaut : la classe courante)
+                    CtTypeReference receiver = inferReceiverType(inv, exec);
+                    call.receiverTypeId = symbols.id((receiver != null) ? receiver.getSimpleName() : ctClass.getSimpleName());
+                    call.receiverType = symbols.name(call.receiverTypeId);
+                    call.receiverQualifiedTypeId = (receiver != null) ? symbols.id(qualifiedName(receiver)) : ci.qualifiedNameId;
+                    call.receiverQualifiedType = symbols.name(call.receiverQualifiedTypeId);
+                    call.externalType = call.receiverQualifiedTypeId != ci.qualifiedNameId;
 
                     mi.methodCalls.add(call);            // *** dans MethodInfo, pas dans ClassInfo ***
                 }
@@ -82,7 +96,13 @@ public class ClassAnalysisProcessor extends AbstractProcessor<CtClass> {
             ci.methods.add(mi);
         }
 
-        AnalysisRepository.add(ci); // <-- pousse la classe analysée dans le repo global
+        AnalysisRepository.add(sourceFileOf(ctClass), ci); // <-- pousse la classe analysée dans le repo global
+    }
+
+    private static String sourceFileOf(CtClass ctClass) {
+        SourcePosition p = ctClass.getPosition();
+        if (p == null || !p.isValidPosition() || p.getFile() == null) return null;
+        return ParseCache.key(p.getFile().toPath());
     }
 
     private static int computeLocFromBody(CtMethod m) {
@@ -111,21 +131,25 @@ public class ClassAnalysisProcessor extends AbstractProcessor<CtClass> {
         return (idx >= 0) ? qn.substring(idx + 1) : qn;
     }
 
-    private static String inferReceiverSimpleType(CtInvocation inv,
-                                                  CtExecutableReference exec,
-                                                  String currentClassSimple) {
+    private static String qualifiedName(CtTypeReference tr) {
+        String qn = tr.getQualifiedName();
+        return (qn == null || qn.isEmpty()) ? tr.getSimpleName() : qn;
+    }
+
+    /** Type déclarant la méthode appelée, sinon type de la cible ; null si aucun n’est nommé (classe courante). */
+    private static CtTypeReference inferReceiverType(CtInvocation inv, CtExecutableReference exec) {
         CtTypeReference decl = (exec != null) ? exec.getDeclaringType() : null;
         if (decl != null && decl.getSimpleName() != null && !decl.getSimpleName().isEmpty()) {
-            return decl.getSimpleName();
+            return decl;
         }
         CtExpression target = inv.getTarget();
         if (target != null) {
             CtTypeReference tr = target.getType();
             if (tr != null && tr.getSimpleName() != null && !tr.getSimpleName().isEmpty()) {
-                return tr.getSimpleName();
+                return tr;
             }
         }
-        return currentClassSimple;
+        return null;
     }
 }
 
@@ -0,0 +1,267 @@
+package org.example;
+
+import org.example.analyse.ParseCache;
+import org.example.analyse.ProjectParser;
+import org.example.clustering.AverageLinkageClustering;
+import org.example.clustering.ModuleIdentifier;
+import org.example.coupling.CouplingExporter;
+import org.example.coupling.CouplingMatrix;
+import org.example.coupling.CouplingQuery;
+import org.example.coupling.MethodCallGraph;
+import org.example.coupling.PackageCoupling;
+import org.example.report.AnalysisSnapshot;
+import org.example.report.ReportWriter;
+import org.example.visitor.model.ClassInfo;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Analyse sans interface graphique (serveur d’intégration, conteneur) : parsing JDT via le cache, matrice de couplage,
+ * clustering et modules, écrits en JSON ou CSV par {@link ReportWriter}. Aucune classe AWT/Swing n’est chargée.
+ *
+ * <pre>
+ * HeadlessMain &lt;dossier source&gt; [--format json|csv] [--out &lt;fichier|dossier&gt;] [--cp &lt;seuil&gt;] [--snapshot &lt;fichier&gt;] [--batch]
+ * HeadlessMain &lt;dossier source&gt; --coupling &lt;fichier .csv|.jsonl|.bin&gt;
+ * HeadlessMain &lt;dossier source&gt; --pairs &lt;fichier&gt; [--out &lt;fichier&gt;]
+ * HeadlessMain &lt;dossier source&gt; --packages &lt;fichier .csv|.jsonl|.bin&gt; [--depth &lt;n&gt;]
+ * HeadlessMain &lt;dossier source&gt; --calls &lt;Classe.méthode&gt; [--out &lt;fichier&gt;]
+ * </pre>
+ * JSON : sur la sortie standard, ou dans le fichier {@code --out}. CSV : trois fichiers dans le dossier {@code --out}
+ * (dossier courant par défaut). {@code --coupling} : seule la matrice de couplage, exportée en flux par
+ * {@link CouplingExporter} (sans clustering, pour les très gros projets). {@code --snapshot} : enregistre en plus
+ * un {@link AnalysisSnapshot}, rouvert ensuite par l’interface sans nouvelle analyse. {@code --pairs} : couplage
+ * d’une liste de paires de classes (une par ligne), en CSV dans {@code --out} ou sur la sortie standard, par
+ * {@link CouplingQuery#queryAll} (sans clustering). {@code --packages} : matrice de couplage entre paquetages
+ * ({@link PackageCoupling}), ou entre préfixes de {@code --depth} segments, exportée comme {@code --coupling}.
+ * {@code --calls} : appelantes et appelées d’une méthode ({@link MethodCallGraph}), en CSV.
+ * {@code --batch} (avec toutes les formes) : parsing du projet en un seul lot ({@link ProjectParser#extractClassesBatch}),
+ * types des autres fichiers résolus par JDT ; plus juste, mais sans cache.
+ * L’avancement est écrit sur la sortie d’erreur.
+ * Code de sortie : 0 si succès, 1 si l’analyse échoue, 2 si les arguments sont invalides.
+ */
+public class HeadlessMain {
+
+    static final String USAGE = "Usage : HeadlessMain <dossier source> [--format json|csv] [--out <fichier|dossier>] [--cp <seuil>]"
+            + " [--snapshot <fichier>] [--batch]\n"
+            + "        HeadlessMain <dossier source> --coupling <fichier .csv|.jsonl|.bin>\n"
+            + "        HeadlessMain <dossier source> --pairs <fichier> [--out <fichier>]\n"
+            + "        HeadlessMain <dossier source> --packages <fichier .csv|.jsonl|.bin> [--depth <n>]\n"
+            + "        HeadlessMain <dossier source> --calls <Classe.méthode> [--out <fichier>]";
+
+    /**
+     * Arguments de la ligne de commande ; {@code out} null : sortie standard (JSON) ou dossier courant (CSV) ;
+     * {@code coupling} non null : export de la seule matrice de couplage ; {@code snapshot} : instantané à écrire ;
+     * {@code pairs} non null : fichier de paires à interroger ; {@code packages} non null : export du couplage
+     * entre paquetages, préfixes de {@code depth} segments (0 : paquetages complets) ; {@code calls} non null :
+     * méthode dont on veut les appelantes et les appelées ; {@code batch} : parsing en un lot, sans cache.
+     */
+    record Options(String source, ReportWriter.Format format, Path out, double cp, Path coupling, Path snapshot, Path pairs,
+                   Path packages, int depth, String calls, boolean batch) {
+
+        static Options parse(String[] args) {
+            String source = null;
+            ReportWriter.Format format = ReportWriter.Format.JSON;
+            Path out = null;
+            double cp = 0.05;
+            Path coupling = null;
+            Path snapshot = null;
+            Path pairs = null;
+            Path packages = null;
+            int depth = -1;
+            String calls = null;
+            boolean batch = false;
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--format" -> format = format(value(args, ++i));
+                    case "--out" -> out = Paths.get(value(args, ++i));
+                    case "--cp" -> cp = Double.parseDouble(value(args, ++i));
+                    case "--coupling" -> {
+                        coupling = Paths.get(value(args, ++i));
+                        if (CouplingExporter.Format.ofFile(coupling) == null) {
+                            throw new IllegalArgumentException("Extension inconnue (.csv, .jsonl ou .bin) : " + coupling);
+                        }
+                    }
+                    case "--snapshot" -> snapshot = Paths.get(value(args, ++i));
+                    case "--pairs" -> pairs = Paths.get(value(args, ++i));
+                    case "--packages" -> {
+                        packages = Paths.get(value(args, ++i));
+                        if (CouplingExporter.Format.ofFile(packages) == null) {
+                            throw new IllegalArgumentException("Extension inconnue (.csv, .jsonl ou .bin) : " + packages);
+                        }
+                    }
+                    case "--depth" -> {
+                        depth = Integer.parseInt(value(args, ++i));
+                        if (depth < 0) throw new IllegalArgumentException("Profondeur négative : " + depth);
+                    }
+                    case "--calls" -> calls = value(args, ++i);
+                    case "--batch" -> batch = true;
+                    default -> {
+                        if (args[i].startsWith("--") || source != null) {
+                            throw new IllegalArgumentException("Argument inconnu : " + args[i]);
+                        }
+                        source = args[i];
+                    }
+                }
+            }
+            if (source == null) throw new IllegalArgumentException("Dossier source manquant");
+            if (coupling != null && snapshot != null) {
+                throw new IllegalArgumentException("--coupling et --snapshot sont incompatibles (pas de clustering avec --coupling)");
+            }
+            if (pairs != null && (coupling != null || snapshot != null)) {
+                throw new IllegalArgumentException("--pairs est incompatible avec --coupling et --snapshot");
+            }
+            if (packages != null && (coupling != null || snapshot != null || pairs != null)) {
+                throw new IllegalArgumentException("--packages est incompatible avec --coupling, --snapshot et --pairs");
+            }
+            if (depth >= 0 && packages == null) throw new IllegalArgumentException("--depth sans --packages");
+            if (calls != null && (coupling != null || snapshot != null || pairs != null || packages != null)) {
+                throw new IllegalArgumentException("--calls est incompatible avec --coupling, --snapshot, --pairs et --packages");
+            }
+            return new Options(source, format, out, cp, coupling, snapshot, pairs, packages, Math.max(depth, 0), calls, batch);
+        }
+
+        private static ReportWriter.Format format(String name) {
+            for (ReportWriter.Format f : ReportWriter.Format.values()) {
+                if (f.name().equalsIgnoreCase(name)) return f;
+            }
+            throw new IllegalArgumentException("Format inconnu : " + name);
+        }
+
+        private static String value(String[] args, int i) {
+            if (i >= args.length) throw new IllegalArgumentException("Valeur manquante après " + args[i - 1]);
+            return args[i];
+        }
+    }
+
+    public static void main(String[] args) {
+        Options options;
+        try {
+            options = Options.parse(args);
+            if (!Files.isDirectory(Paths.get(options.source()))) {
+                throw new IllegalArgumentException("Dossier introuvable : " + options.source());
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+
+        try {
+            run(options);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Erreur : " + e);
+            System.exit(1);
+        }
+    }
+
+    static void run(Options options) throws IOException {
+        long start = System.nanoTime();
+        String src = options.source();
+        ProjectParser parser = new ProjectParser(src, Runtime.getRuntime().availableProcessors());
+        ProjectParser.FileProgress progress = (done, total) -> {
+            if (done == total) System.err.println("Parsing + extraction : " + total + " fichier(s)");
+        };
+        List<ClassInfo> classes = options.batch()
+                ? parser.extractClassesBatch(progress)
+                : parser.extractClasses(ParseCache.load(ParseCache.defaultLocation(src)), progress);
+
+        if (options.calls() != null) {
+            MethodCallGraph graph = MethodCallGraph.build(classes);
+            System.err.printf("Méthodes : %d méthode(s), %d arc(s) pour %d appel(s) ; %d externe(s), %d non résolu(s)%n",
+                    graph.size(), graph.edgeCount(), graph.callSites(), graph.externalCalls(), graph.unresolvedCalls());
+            writeCalls(graph, options.calls(), options.out());
+            System.err.printf("Terminé en %d ms%n", (System.nanoTime() - start) / 1_000_000);
+            return;
+        }
+
+        CouplingMatrix matrix = CouplingMatrix.build(classes);
+        System.err.println("Couplage : " + matrix.size() + " classe(s), " + matrix.totalCalls() + " appel(s)");
+        if (options.coupling() != null) {
+            CouplingExporter.write(matrix, options.coupling());
+            System.err.printf("Couplage exporté dans %s en %d ms%n", options.coupling(), (System.nanoTime() - start) / 1_000_000);
+            return;
+        }
+        if (options.packages() != null) {
+            PackageCoupling packages = PackageCoupling.byPrefix(matrix, options.depth());
+            long internal = 0;
+            for (int g = 0; g < packages.matrix().size(); g++) internal += packages.internalCalls(g);
+            CouplingExporter.write(packages.matrix(), options.packages());
+            System.err.printf("Paquetages : %d groupe(s), %d appel(s) entre groupes, %d interne(s), exportés dans %s%n",
+                    packages.matrix().size(), packages.matrix().totalCalls(), internal, options.packages());
+            return;
+        }
+        if (options.pairs() != null) {
+            long queried = System.nanoTime();
+            long pairs = queryPairs(CouplingQuery.of(matrix), options.pairs(), options.out());
+            System.err.printf("Requêtes : %d paire(s) en %d ms%n", pairs, (System.nanoTime() - queried) / 1_000_000);
+            return;
+        }
+
+        AverageLinkageClustering.Result clustering = AverageLinkageClustering.clusterAdaptive(matrix);
+        List<ModuleIdentifier.Module> modules =
+                ModuleIdentifier.identifyModules(clustering.merges(), matrix.weightedAdjacency(), options.cp());
+        System.err.println("Clustering : " + clustering.merges().size() + " fusion(s), " + modules.size() + " module(s)");
+
+        if (options.snapshot() != null) {
+            AnalysisSnapshot.write(options.snapshot(), src, "jdt", classes, matrix, clustering);
+            System.err.println("Instantané : " + options.snapshot());
+        }
+
+        ReportWriter report = new ReportWriter(src, "jdt", matrix, clustering.merges(), modules, options.cp());
+        if (options.format() == ReportWriter.Format.CSV) {
+            report.writeCsv(options.out() != null ? options.out() : Paths.get("."));
+        } else if (options.out() != null) {
+            try (Writer out = Files.newBufferedWriter(options.out(), StandardCharsets.UTF_8)) {
+                report.writeJson(out);
+            }
+        } else {
+            Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+            report.writeJson(out);
+        }
+        System.err.printf("Terminé en %d ms%n", (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Appelantes puis appelées de la méthode {@code name} ({@link MethodCallGraph#find}), en CSV
+     * {@code direction,method,sites} vers {@code out}, ou la sortie standard si null.
+     */
+    static void writeCalls(MethodCallGraph graph, String name, Path out) throws IOException {
+        int method = graph.find(name);
+        if (method < 0) throw new IllegalArgumentException("Méthode inconnue : " + name);
+        Writer w = (out != null) ? Files.newBufferedWriter(out, StandardCharsets.UTF_8)
+                : new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+        try {
+            w.write("direction,method,sites\n");
+            for (MethodCallGraph.Call c : graph.callers(method)) w.write("caller," + c.name() + "," + c.sites() + "\n");
+            for (MethodCallGraph.Call c : graph.callees(method)) w.write("callee," + c.name() + "," + c.sites() + "\n");
+        } finally {
+            if (out != null) w.close();
+            else w.flush();
+        }
+    }
+
+    /** Paires de {@code pairs} vers {@code out}, ou la sortie standard si null ; renvoie le nombre de paires. */
+    static long queryPairs(CouplingQuery query, Path pairs, Path out) throws IOException {
+        try (BufferedReader in = Files.newBufferedReader(pairs, StandardCharsets.UTF_8)) {
+            if (out != null) {
+                try (Writer w = Files.newBufferedWriter(out, StandardCharsets.UTF_8)) {
+                    return query.queryAll(in, w);
+                }
+            }
+            Writer w = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16);
+            long n = query.queryAll(in, w);
+            w.flush();
+            return n;
+        }
+    }
+}
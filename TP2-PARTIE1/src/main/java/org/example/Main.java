@@ -1,151 +1,287 @@
 package org.example;
 
-import org.eclipse.jdt.core.dom.CompilationUnit;
-import org.eclipse.jdt.core.dom.PackageDeclaration;
+import org.example.analyse.ParseCache;
 import org.example.analyse.ProjectParser;
+import org.example.analyse.ProjectWatcher;
+import org.example.clustering.AverageLinkageClustering;
+import org.example.coupling.CouplingMatrix;
+import org.example.coupling.CouplingQuery;
 import org.example.gui.MainWindow;
-import org.example.visitor.ClassVisitor;
+import org.example.report.AnalysisSnapshot;
 import org.example.visitor.model.ClassInfo;
 
 import javax.swing.*;
 import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.text.DecimalFormat;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class Main {
-    public static void main(String[] args) throws IOException {
+    public static void main(String[] args) throws IOException, InterruptedException, InvocationTargetException {
         //String src = "/home/e20210003242/Bureau/targetAST/src/main/java";
         //String src = "/home/e20210003242/Bureau/targetASTMinify/src/main/java";
-        String src = "/home/royo/Bureau/targetASTMinify/src/main/java";
-
         DecimalFormat df = new DecimalFormat("#0.00000");
 
-        ProjectParser parser = new ProjectParser(src);
-        List<CompilationUnit> units = parser.parseProject();
+        // --snapshot <fichier> : résultats d’une analyse enregistrée (HeadlessMain --snapshot), sans parsing
+        int snapshotArg = Arrays.asList(args).indexOf("--snapshot");
+        if (snapshotArg >= 0 && snapshotArg + 1 < args.length) {
+            openSnapshot(Paths.get(args[snapshotArg + 1]), df);
+            return;
+        }
+
+        // dossier source en argument (sans interface : voir HeadlessMain)
+        String src = Arrays.stream(args).filter(a -> !a.startsWith("--")).findFirst()
+                .orElse("/home/royo/Bureau/targetASTMinify/src/main/java");
 
-        for (CompilationUnit cu : units) {
-            ClassVisitor visitor = new ClassVisitor(cu);
-            cu.accept(visitor);
+        boolean batch = Arrays.asList(args).contains("--batch");
+
+        // --watch : le projet est surveillé, la fenêtre se met à jour à chaque modification de fichier
+        if (Arrays.asList(args).contains("--watch")) {
+            if (batch) System.err.println("--batch ignoré avec --watch : les fichiers modifiés sont ré-extraits un à un");
+            watch(src, ParseCache.load(ParseCache.defaultLocation(src)), df);
+            return;
         }
 
+        // --batch : parsing en un lot (types des autres fichiers résolus par JDT), sans cache
+        ParseCache cache = batch ? null : ParseCache.load(ParseCache.defaultLocation(src));
+        ProjectParser parser = new ProjectParser(src, Runtime.getRuntime().availableProcessors());
+
+        // la fenêtre s’ouvre tout de suite ; l’analyse tourne hors EDT et la remplit au fil des étapes
         SwingUtilities.invokeLater(() -> {
             MainWindow window = new MainWindow("Mon Application Swing");
+            AnalysisJob job = new AnalysisJob(parser, cache, window, df);
+            window.setOnCancel(() -> job.cancel(true));
+            window.setVisible(true);
+            job.execute();
+        });
+    }
 
-            List<ClassInfo> classes = ClassVisitor.getClasses();
-
-            window.setClassChoices(
-                    classes.stream().map(ci -> ci.className).sorted().toList()
-            );
-
-            HashSet<UnorderedPair<String>> couplesAlreadyCalculated = new HashSet<>();
-            long tempResult = 0;
-
-            for (ClassInfo classInfoA : classes) {
-                for (ClassInfo classInfoB : classes) {
-                    if (!classInfoA.className.equals(classInfoB.className)) {
-                        if (couplesAlreadyCalculated.contains(new UnorderedPair<>(classInfoA.className, classInfoB.className))) continue;
-                        couplesAlreadyCalculated.add(new UnorderedPair<>(classInfoA.className, classInfoB.className));
-                        long nbCallAToB =
-                                classInfoA.methods.stream()
-                                        .mapToLong(m -> m.methodCalls.stream()
-                                                .filter(mc -> mc.receiverType.equals(classInfoB.className))
-                                                .count()
-                                        ).sum();
-
-                        long nbCallBToA =  classInfoB.methods.stream()
-                                .mapToLong(m -> m.methodCalls.stream()
-                                        .filter(mc -> mc.receiverType.equals(classInfoA.className))
-                                        .count()
-                                ).sum();
-
-                        tempResult += nbCallAToB + nbCallBToA;
-                    }
-                }
-            }
+    /** Étapes de l’analyse, dans l’ordre (en mode fichier par fichier, parsing et extraction sont entrelacés). */
+    enum Stage {
+        PARSE("Parsing + extraction"),
+        COUPLE("Couplage"),
+        CLUSTER("Clustering");
 
-            final long totCallAppBetweenBinaryClasses = tempResult;
+        final String label;
 
-            window.setOnCalculate((a, b) -> {
+        Stage(String label) {
+            this.label = label;
+        }
+    }
 
-                Optional<ClassInfo> ca = classes.stream().filter(c -> c.className.equalsIgnoreCase(a)).findFirst();
-                Optional<ClassInfo> cb = classes.stream().filter(c -> c.className.equalsIgnoreCase(b)).findFirst();
+    /** Avancement publié par le worker ({@code total} < 0 : inconnu). */
+    record Progress(Stage stage, int done, int total) {
+    }
 
-                if (ca.isPresent() && cb.isPresent()) {
+    /**
+     * Analyse complète hors EDT : parsing + extraction (fichier par fichier, via le cache), matrice de couplage,
+     * clustering. La fenêtre reçoit le couplage dès qu’il est prêt (choix des classes, bouton « Calculer », graphe),
+     * puis les clusters et le dendrogramme à la fin. {@code cancel(true)} interrompt le thread : le parsing
+     * s’arrête au fichier suivant, le clustering à la fusion suivante. Sans cache ({@code --batch}) : parsing en un lot.
+     */
+    private static final class AnalysisJob extends SwingWorker<ClusteringResult, Progress> {
+        private final ProjectParser parser;
+        private final ParseCache cache;
+        private final MainWindow window;
+        private final DecimalFormat df;
+
+        AnalysisJob(ProjectParser parser, ParseCache cache, MainWindow window, DecimalFormat df) {
+            this.parser = parser;
+            this.cache = cache;
+            this.window = window;
+            this.df = df;
+        }
 
-                    long nbCallAToB =
-                            ca.get().methods.stream()
-                                    .mapToLong(m -> m.methodCalls.stream()
-                                            .filter(mc -> mc.receiverType.equals(b))
-                                            .count()
-                                    ).sum();
+        @Override
+        protected ClusteringResult doInBackground() throws Exception {
+            // parsing + extraction en streaming (aucun CompilationUnit conservé) ;
+            // les fichiers inchangés depuis le dernier lancement sont repris du cache
+            publish(new Progress(Stage.PARSE, 0, -1));
+            ProjectParser.FileProgress progress = (done, total) -> publish(new Progress(Stage.PARSE, done, total));
+            List<ClassInfo> classes = (cache != null)
+                    ? parser.extractClasses(cache, progress)
+                    : parser.extractClassesBatch(progress);
+
+            // une seule passe sur tous les appels : comptes orientés, total et poids (matrice creuse)
+            publish(new Progress(Stage.COUPLE, 0, -1));
+            CouplingMatrix matrix = CouplingMatrix.build(classes);
+            CouplingQuery query = CouplingQuery.of(matrix);
+            Map<String, Map<String, Double>> dataForGraph = matrix.weightedAdjacency();
+            SwingUtilities.invokeLater(() -> {
+                if (isCancelled()) return;
+                window.setClassChoices(matrix.classNames().stream().sorted().toList());
+                window.setOnCalculate((a, b) -> window.showResult(describeCoupling(query, a, b, df)));
+                window.setOnRank((cls, k) -> rank(query, cls, k));
+                window.setWeightedCoupling(dataForGraph, true);
+            });
 
-                    long nbCallBToA =  cb.get().methods.stream()
-                            .mapToLong(m -> m.methodCalls.stream()
-                                    .filter(mc -> mc.receiverType.equals(a))
-                                    .count()
-                            ).sum();
+            publish(new Progress(Stage.CLUSTER, 0, -1));
+            return clusterWithDendrogram(matrix);
+        }
 
-                    double couplage =  (double) (nbCallAToB + nbCallBToA) / totCallAppBetweenBinaryClasses;
+        @Override
+        protected void process(List<Progress> chunks) {
+            if (isCancelled()) return;
+            Progress last = chunks.get(chunks.size() - 1); // seul le dernier état compte
+            window.showProgress(last.stage().label, last.done(), last.total());
+        }
 
-                    StringBuilder stringBuilder = new StringBuilder();
-                    stringBuilder.append("Nombre de call classe ").append(a).append(" -> ").append(b).append(" : ").append(nbCallAToB).append("\n");
-                    stringBuilder.append("Nombre de call classe ").append(b).append(" -> ").append(a).append(" : ").append(nbCallBToA).append("\n");
-                    stringBuilder.append("Nombre de call tot app entre deux classes : ").append(totCallAppBetweenBinaryClasses).append("\n");
-                    stringBuilder.append("Couplage entre ").append(a).append(" et ").append(b).append(" => ").append(df.format(couplage)).append("\n");
+        @Override
+        protected void done() {
+            if (isCancelled()) {
+                window.showStatus("Analyse annulée");
+                return;
+            }
+            try {
+                ClusteringResult res = get();
+                window.setClusters(res.clusters);
+                window.showClusters(true);
+                window.setDendrogram(toWindowSteps(res));
+                window.showStatus("Analyse terminée");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                e.getCause().printStackTrace();
+                window.showStatus("Erreur : " + e.getCause());
+                JOptionPane.showMessageDialog(window, e.getCause().toString(), "Erreur", JOptionPane.ERROR_MESSAGE);
+            }
+        }
+    }
 
-                    window.showResult(stringBuilder.toString());
-                } else {
-                    window.showResult("Class not found : " + (ca.isPresent() ? b : a));
-                }
+    /**
+     * Mode surveillance : état initial puis, à chaque lot de fichiers modifiés, seules les classes touchées
+     * sont ré-extraites et leurs appels patchés dans la matrice ; poids et clusters sont recalculés sur
+     * le thread du watcher, la fenêtre n’est rafraîchie que sur l’EDT (positions du graphe conservées).
+     * La fenêtre s’ouvre avant l’analyse initiale, qui tourne sur le thread principal.
+     */
+    private static void watch(String src, ParseCache cache, DecimalFormat df)
+            throws IOException, InterruptedException, InvocationTargetException {
+        AtomicReference<WatchSnapshot> current = new AtomicReference<>();
+        AtomicReference<MainWindow> windowRef = new AtomicReference<>();
+        SwingUtilities.invokeAndWait(() -> {
+            MainWindow w = new MainWindow("Mon Application Swing");
+            w.showProgress("Analyse initiale", 0, -1);
+            w.setVisible(true);
+            windowRef.set(w);
+        });
+        MainWindow window = windowRef.get();
+
+        ProjectWatcher watcher = new ProjectWatcher(src, cache, (w, changed) -> {
+            WatchSnapshot snapshot = WatchSnapshot.of(w);
+            if (current.getAndSet(snapshot) == null) {
+                // premier appel (état initial, dans start()) : mis en file avant toute mise à jour du watcher
+                SwingUtilities.invokeLater(() -> {
+                    window.setOnCalculate((a, b) -> window.showResult(describeCoupling(current.get().query, a, b, df)));
+                    window.setOnRank((cls, k) -> rank(current.get().query, cls, k));
+                    snapshot.show(window, false);
+                    window.showStatus("Surveillance de " + src);
+                });
+                return;
+            }
+            SwingUtilities.invokeLater(() -> {
+                snapshot.show(window, true);
+                window.showStatus("Surveillance de " + src + " : " + changed.size() + " classe(s) mise(s) à jour");
             });
+        });
+        // le modèle n’est lu que par le listener : dans start() pour l’état initial, puis sur le thread du watcher
+        watcher.start();
+    }
 
+    /**
+     * Fenêtre remplie depuis un {@link AnalysisSnapshot} : seules la matrice et les fusions sont décodées
+     * (le modèle ClassInfo n’est pas lu), avant l’ouverture de la fenêtre.
+     */
+    private static void openSnapshot(Path file, DecimalFormat df) throws IOException {
+        long start = System.nanoTime();
+        AnalysisSnapshot snapshot = AnalysisSnapshot.open(file);
+        CouplingMatrix matrix = snapshot.matrix();
+        CouplingQuery query = CouplingQuery.of(matrix);
+        Map<String, Map<String, Double>> dataForGraph = matrix.weightedAdjacency();
+        ClusteringResult res = ClusteringResult.of(snapshot.clustering());
+        long ms = (System.nanoTime() - start) / 1_000_000;
 
-            Map<String, Map<String, Double>> dataForGraph = new HashMap<>();
-            Map<UnorderedPair<String>, Double> couplesCalculated = new HashMap<>();
-            couplesAlreadyCalculated.clear();
-
-            for (ClassInfo classInfoA : classes) {
-                dataForGraph.put(classInfoA.className, new HashMap<>());
-                for (ClassInfo classInfoB : classes) {
-                    if (!classInfoA.className.equals(classInfoB.className)) {
-                        if (couplesAlreadyCalculated.contains(new UnorderedPair<>(classInfoA.className, classInfoB.className))) continue;
-                        couplesAlreadyCalculated.add(new UnorderedPair<>(classInfoA.className, classInfoB.className));
+        SwingUtilities.invokeLater(() -> {
+            MainWindow window = new MainWindow("Mon Application Swing");
+            window.setClassChoices(matrix.classNames().stream().sorted().toList());
+            window.setOnCalculate((a, b) -> window.showResult(describeCoupling(query, a, b, df)));
+            window.setOnRank((cls, k) -> rank(query, cls, k));
+            window.setWeightedCoupling(dataForGraph, true);
+            window.setClusters(res.clusters);
+            window.showClusters(true);
+            window.setDendrogram(toWindowSteps(res));
+            window.showStatus("Instantané " + snapshot.project() + " (" + snapshot.frontEnd() + ") chargé en " + ms + " ms");
+            window.setVisible(true);
+        });
+    }
 
+    /** État figé du modèle surveillé, construit hors EDT (requêtes « Calculer » comprises) puis affiché tel quel. */
+    private record WatchSnapshot(CouplingMatrix matrix, CouplingQuery query, ClusteringResult clustering) {
 
-                        long nbCallAToB =
-                                classInfoA.methods.stream()
-                                        .mapToLong(m -> m.methodCalls.stream()
-                                                .filter(mc -> mc.receiverType.equals(classInfoB.className))
-                                                .count()
-                                        ).sum();
+        static WatchSnapshot of(ProjectWatcher watcher) {
+            CouplingMatrix matrix = watcher.model().snapshot();
+            return new WatchSnapshot(matrix, CouplingQuery.of(matrix), clusterWithDendrogram(matrix));
+        }
 
-                        long nbCallBToA =
-                                classInfoB.methods.stream()
-                                        .mapToLong(m -> m.methodCalls.stream()
-                                                .filter(mc -> mc.receiverType.equals(classInfoA.className))
-                                                .count()
-                                        ).sum();
+        void show(MainWindow window, boolean update) {
+            window.setClassChoices(matrix.classNames().stream().sorted().toList());
+            window.setClusters(clustering.clusters);
+            window.showClusters(true);
+            window.setDendrogram(toWindowSteps(clustering));
+            if (update) window.updateWeightedCoupling(matrix.weightedAdjacency(), true);
+            else window.setWeightedCoupling(matrix.weightedAdjacency(), true);
+        }
+    }
 
-                        dataForGraph.get(classInfoA.className).put(classInfoB.className,(double) (nbCallAToB + nbCallBToA) / totCallAppBetweenBinaryClasses);
-                        couplesCalculated.put(new UnorderedPair<>(classInfoA.className, classInfoB.className), (double) (nbCallAToB + nbCallBToA) / totCallAppBetweenBinaryClasses);
-                    }
-                }
-            }
+    /** Texte du bouton « Calculer » pour les classes a et b (noms comparés sans la casse). */
+    private static String describeCoupling(CouplingQuery query, String a, String b, DecimalFormat df) {
+        CouplingQuery.Result r = query.query(a, b);
 
-            ClusteringResult res = clusterWithDendrogram(couplesCalculated);
+        if (r.found()) {
+            StringBuilder stringBuilder = new StringBuilder();
+            stringBuilder.append("Nombre de call classe ").append(a).append(" -> ").append(b).append(" : ").append(r.callsAB()).append("\n");
+            stringBuilder.append("Nombre de call classe ").append(b).append(" -> ").append(a).append(" : ").append(r.callsBA()).append("\n");
+            stringBuilder.append("Nombre de call tot app entre deux classes : ").append(r.totalCalls()).append("\n");
+            stringBuilder.append("Couplage entre ").append(a).append(" et ").append(b).append(" => ").append(df.format(r.weight())).append("\n");
 
-            window.setClusters(res.clusters);
-            window.showClusters(true);
+            return stringBuilder.toString();
+        } else {
+            return "Class not found : " + (r.indexA() >= 0 ? b : a);
+        }
+    }
 
-            List<MainWindow.MergeStep> steps = new java.util.ArrayList<>();
-            for (MergeStep m : res.merges) {
-                steps.add(new MainWindow.MergeStep(m.left, m.right, m.score));
+    /** Onglet « Classement » : les k voisins les plus couplés à {@code cls}, ou les k meilleures paires si cls est null. */
+    private static List<MainWindow.RankRow> rank(CouplingQuery query, String cls, int k) {
+        List<MainWindow.RankRow> rows = new ArrayList<>();
+        if (cls == null) {
+            for (CouplingQuery.RankedPair p : query.topPairs(k)) {
+                rows.add(new MainWindow.RankRow(p.nameA(), p.nameB(), p.callsAB(), p.callsBA(), p.weight()));
+            }
+        } else {
+            for (CouplingQuery.Neighbour n : query.neighbours(cls, k)) {
+                rows.add(new MainWindow.RankRow(cls, n.name(), n.callsOut(), n.callsIn(), n.weight()));
             }
+        }
+        return rows;
+    }
 
-            window.setDendrogram(steps);
-            window.setWeightedCoupling(dataForGraph, true);
-            window.setVisible(true);
-        });
+    private static List<MainWindow.MergeStep> toWindowSteps(ClusteringResult res) {
+        List<MainWindow.MergeStep> steps = new ArrayList<>();
+        for (MergeStep m : res.merges) {
+            steps.add(new MainWindow.MergeStep(m.left, m.right, m.score));
+        }
+        return steps;
+    }
+
+    /**
+     * Clustering à partir de la matrice, via un moteur average-link incrémental (creux ou triangulaire selon la densité) :
+     * mêmes fusions, même ordre et mêmes règles d’égalité que la version ci-dessous.
+     */
+    public static ClusteringResult clusterWithDendrogram(CouplingMatrix matrix) {
+        return ClusteringResult.of(AverageLinkageClustering.clusterAdaptive(matrix));
     }
 
     public static ClusteringResult clusterWithDendrogram(Map<UnorderedPair<String>, Double> couples) {
@@ -156,6 +292,20 @@ public class Main {
         // 1) classes -> clusters initiaux (singletons)
         Set<String> all = new TreeSet<>(); // trié pour stabilité
         for (var p : couples.keySet()) { all.add(p.a); all.add(p.b); }
+        return clusterWithDendrogram(all, couples);
+    }
+
+    /**
+     * Version de référence (recherche exhaustive, O(n⁴)), conservée pour les appelants qui n’ont que les poids.
+     * Variante creuse : les classes sont données explicitement et {@code couples} peut ne contenir
+     * que les paires non nulles (une paire absente vaut 0, comme dans avgCoupling).
+     */
+    public static ClusteringResult clusterWithDendrogram(Collection<String> classNames,
+                                                         Map<UnorderedPair<String>, Double> couples) {
+        Set<String> all = new TreeSet<>(classNames); // trié pour stabilité
+        if (all.size() < 2) {
+            return new ClusteringResult(List.of(), List.of());
+        }
 
         List<Set<String>> clusters = new ArrayList<>();
         for (String s : all) clusters.add(new LinkedHashSet<>(List.of(s)));
@@ -276,6 +426,14 @@ public class Main {
      * @param merges   steps ordonnés
      */
     public record ClusteringResult(List<Set<String>> clusters, List<MergeStep> merges) {
+        /** Résultat du moteur incrémental (analyse ou instantané). */
+        public static ClusteringResult of(AverageLinkageClustering.Result r) {
+            List<MergeStep> merges = new ArrayList<>(r.merges().size());
+            for (AverageLinkageClustering.Merge m : r.merges()) {
+                merges.add(new MergeStep(m.left(), m.right(), m.score()));
+            }
+            return new ClusteringResult(r.clusters(), merges);
+        }
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,112 @@
+package org.example.analyse;
+
+import org.example.visitor.model.ClassInfo;
+import org.example.visitor.model.SymbolTable;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache disque des classes extraites, par fichier source.
+ * Clé = chemin du fichier ; une entrée n’est valide que si le hash (SHA-256) du contenu est inchangé.
+ * Un fichier de cache absent, illisible ou d’une autre version est simplement ignoré (cache vide).
+ */
+public class ParseCache {
+    private static final int FORMAT_VERSION = 4;
+
+    private final Path cacheFile;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private record Entry(String hash, ArrayList<ClassInfo> classes) implements Serializable {
+        private static final long serialVersionUID = 1L;
+    }
+
+    private ParseCache(Path cacheFile) {
+        this.cacheFile = cacheFile;
+    }
+
+    /** Emplacement par défaut : ~/.cache/tp2-analyse/&lt;hash du dossier source&gt;-jdt.bin */
+    public static Path defaultLocation(String sourceDir) {
+        String key = hash(Paths.get(sourceDir).toAbsolutePath().normalize().toString().getBytes(StandardCharsets.UTF_8)).substring(0, 16);
+        return Paths.get(System.getProperty("user.home"), ".cache", "tp2-analyse", key + "-jdt.bin");
+    }
+
+    @SuppressWarnings("unchecked")
+    public static ParseCache load(Path cacheFile) {
+        ParseCache cache = new ParseCache(cacheFile);
+        if (!Files.isRegularFile(cacheFile)) return cache;
+
+        try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(Files.newInputStream(cacheFile)))) {
+            if (in.readInt() != FORMAT_VERSION) return cache;
+            cache.entries.putAll((Map<String, Entry>) in.readObject());
+            // les ids de la table des symboles ne sont pas sérialisés : on les réattribue
+            for (Entry e : cache.entries.values()) {
+                for (ClassInfo ci : e.classes) SymbolTable.global().intern(ci);
+            }
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            System.err.println("Cache ignoré (" + cacheFile + ") : " + e);
+            cache.entries.clear();
+        }
+        return cache;
+    }
+
+    /** Classes en cache pour ce fichier, ou null si absent / contenu modifié. */
+    public List<ClassInfo> get(Path file, String hash) {
+        Entry e = entries.get(key(file));
+        return (e != null && e.hash.equals(hash)) ? e.classes : null;
+    }
+
+    public void put(Path file, String hash, List<ClassInfo> classes) {
+        entries.put(key(file), new Entry(hash, new ArrayList<>(classes)));
+    }
+
+    /** Oublie les fichiers qui n’existent plus dans le projet. */
+    public void retainOnly(Collection<Path> files) {
+        Set<String> keep = new HashSet<>();
+        for (Path f : files) keep.add(key(f));
+        entries.keySet().retainAll(keep);
+    }
+
+    public void remove(Path file) {
+        entries.remove(key(file));
+    }
+
+    /** Écriture atomique (fichier temporaire puis renommage). */
+    public void save() throws IOException {
+        Path dir = cacheFile.toAbsolutePath().getParent();
+        if (dir != null) Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, "cache", ".tmp");
+        try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(FORMAT_VERSION);
+            out.writeObject(new HashMap<>(entries));
+        }
+        Files.move(tmp, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public static String hash(byte[] content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            StringBuilder sb = new StringBuilder(digest.length * 2);
+            for (byte b : digest) sb.append(String.format("%02x", b));
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+
+    private static String key(Path file) {
+        return file.toAbsolutePath().normalize().toString();
+    }
+}
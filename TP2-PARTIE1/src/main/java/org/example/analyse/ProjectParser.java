@@ -1,52 +1,279 @@
 package org.example.analyse;
 
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.dom.AST;
 import org.eclipse.jdt.core.dom.ASTParser;
 import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.FileASTRequestor;
+import org.example.visitor.ClassVisitor;
+import org.example.visitor.model.ClassInfo;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 public class ProjectParser {
     private final String sourceDir;
+    private final int workers;
+
+    /** Avancement d’une extraction : appelé après chaque fichier, depuis le thread qui l’a traité. */
+    public interface FileProgress {
+        void fileDone(int done, int total);
+    }
 
     public ProjectParser(String sourceDir) {
+        this(sourceDir, 1);
+    }
+
+    /**
+     * @param workers nombre de threads de parsing ; 1 = parsing séquentiel (comportement historique)
+     */
+    public ProjectParser(String sourceDir, int workers) {
         this.sourceDir = sourceDir;
+        this.workers = Math.max(1, workers);
     }
 
     public List<CompilationUnit> parseProject() throws IOException {
-        List<CompilationUnit> units = new ArrayList<>();
+        return parseProject(Function.identity());
+    }
 
-        try (var stream = Files.walk(Paths.get(sourceDir))) {
-            stream.filter(p -> p.toString().endsWith(".java")).forEach(path -> {
-                try {
-                    String code = Files.readString(path);
-
-                    Map<String, String> options = JavaCore.getOptions();
-                    JavaCore.setComplianceOptions(JavaCore.VERSION_21, options);
-
-                    ASTParser parser = ASTParser.newParser(AST.getJLSLatest());
-                    parser.setKind(ASTParser.K_COMPILATION_UNIT);
-                    parser.setSource(code.toCharArray());
-                    parser.setCompilerOptions(options);
-
-                    parser.setResolveBindings(true);
-                    parser.setBindingsRecovery(true);
-                    parser.setEnvironment(null, null, null, true);
-                    parser.setUnitName(path.toString());
-
-                    CompilationUnit cu = (CompilationUnit) parser.createAST(null);
-                    units.add(cu);
-                } catch (Exception e) {
-                    e.printStackTrace();
+    /**
+     * Mode streaming : chaque unité est parsée puis immédiatement transformée par {@code extractor}
+     * (ex. ClassVisitor::extract) ; seule la valeur extraite est conservée, l’AST et ses bindings
+     * sont libérés aussitôt. Au plus un AST par worker est donc vivant à un instant donné.
+     * Les résultats sont dans l’ordre du parcours ; les fichiers illisibles sont ignorés.
+     */
+    public <T> List<T> parseProject(Function<CompilationUnit, T> extractor) throws IOException {
+        return mapFiles(listJavaFiles(), path -> {
+            CompilationUnit cu = parseFile(path);
+            return (cu == null) ? null : extractor.apply(cu);
+        });
+    }
+
+    /**
+     * Applique {@code task} à chaque fichier (en parallèle si workers > 1), résultats dans l’ordre des fichiers.
+     * Un thread appelant interrompu arrête le parcours (InterruptedIOException) : c’est ainsi qu’une analyse est annulée.
+     */
+    private <T> List<T> mapFiles(List<Path> files, Function<Path, T> task) throws IOException {
+        if (workers == 1 || files.size() < 2) {
+            List<T> results = new ArrayList<>();
+            for (Path path : files) {
+                if (Thread.currentThread().isInterrupted()) throw new InterruptedIOException("Parsing interrompu");
+                T value = task.apply(path);
+                if (value != null) results.add(value);
+            }
+            return results;
+        }
+        return mapInParallel(files, task);
+    }
+
+    /**
+     * Extraction incrémentale : un fichier dont le contenu (hash) est inchangé depuis le dernier passage
+     * est repris du cache sans être parsé ; seuls les fichiers nouveaux ou modifiés passent par JDT.
+     * Le cache est ensuite purgé des fichiers disparus et réécrit sur disque.
+     * En mode fichier par fichier, l’extraction d’un fichier ne dépend que de son contenu : la réutilisation est exacte.
+     */
+    public List<ClassInfo> extractClasses(ParseCache cache) throws IOException {
+        return extractClasses(cache, (done, total) -> { });
+    }
+
+    /** Comme {@link #extractClasses(ParseCache)}, en signalant chaque fichier traité (parsé ou repris du cache). */
+    public List<ClassInfo> extractClasses(ParseCache cache, FileProgress progress) throws IOException {
+        List<Path> files = listJavaFiles();
+        AtomicInteger done = new AtomicInteger();
+        List<ClassInfo> classes = new ArrayList<>();
+        for (List<ClassInfo> fileClasses : mapFiles(files, path -> {
+            List<ClassInfo> extracted = extractCached(path, cache);
+            progress.fileDone(done.incrementAndGet(), files.size());
+            return extracted;
+        })) {
+            classes.addAll(fileClasses);
+        }
+        cache.retainOnly(files);
+        cache.save();
+        return classes;
+    }
+
+    /** Classes d’un seul fichier, via le cache si son contenu n’a pas changé (null si illisible). */
+    public static List<ClassInfo> extractCached(Path path, ParseCache cache) {
+        byte[] content;
+        try {
+            content = Files.readAllBytes(path);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+        String hash = ParseCache.hash(content);
+        List<ClassInfo> cached = cache.get(path, hash);
+        if (cached != null) return cached;
+
+        CompilationUnit cu = parseSource(path, new String(content, StandardCharsets.UTF_8));
+        if (cu == null) return null;
+        List<ClassInfo> extracted = ClassVisitor.extract(cu);
+        cache.put(path, hash, extracted);
+        return extracted;
+    }
+
+    /**
+     * Parsing multi-thread : chaque fichier est parsé par un worker avec son propre ASTParser,
+     * puis les résultats sont remis dans l’ordre du parcours (mêmes unités, même ordre qu’en séquentiel).
+     */
+    private <T> List<T> mapInParallel(List<Path> files, Function<Path, T> task) throws IOException {
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(workers, files.size()));
+        try {
+            List<Future<T>> futures = new ArrayList<>(files.size());
+            for (Path path : files) {
+                futures.add(pool.submit(() -> task.apply(path)));
+            }
+
+            List<T> results = new ArrayList<>(files.size());
+            for (Future<T> f : futures) {
+                T value = f.get();
+                if (value != null) results.add(value);
+            }
+            return results;
+        } catch (InterruptedException e) {
+            // même exception qu’en séquentiel : l’appelant distingue une annulation d’une erreur d’entrée/sortie
+            Thread.currentThread().interrupt();
+            InterruptedIOException cancelled = new InterruptedIOException("Parsing interrompu");
+            cancelled.initCause(e);
+            throw cancelled;
+        } catch (ExecutionException e) {
+            throw new IOException("Erreur pendant le parsing parallèle", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Mode batch : tous les fichiers passent par un seul ASTParser.createASTs, avec le dossier source
+     * comme sourcepath. Les bindings (java.lang, types partagés du projet) sont résolus une seule fois
+     * pour tout le projet, et les types déclarés dans d’autres fichiers sont résolus correctement.
+     * L’ordre de la liste retournée est celui du parcours, comme pour parseProject().
+     */
+    public List<CompilationUnit> parseProjectBatch() throws IOException {
+        return mapBatch(listJavaFiles(), Function.identity(), (done, total) -> { });
+    }
+
+    /**
+     * Extraction en mode batch ({@link #parseProjectBatch}) : chaque unité est extraite dès que JDT la livre, puis
+     * libérée. Les receveurs déclarés dans un autre fichier sont résolus par JDT au lieu d’être devinés d’après les
+     * imports. Sans cache : l’extraction d’un fichier dépend alors des autres fichiers, son seul hash ne suffit plus.
+     * Classes dans l’ordre du parcours, comme {@link #extractClasses} ; annulation par interruption, de même.
+     */
+    public List<ClassInfo> extractClassesBatch(FileProgress progress) throws IOException {
+        List<ClassInfo> classes = new ArrayList<>();
+        for (List<ClassInfo> fileClasses : mapBatch(listJavaFiles(), ClassVisitor::extract, progress)) {
+            classes.addAll(fileClasses);
+        }
+        return classes;
+    }
+
+    /** Un seul createASTs sur {@code files} ; {@code extractor} appliqué à chaque unité reçue, résultats dans l’ordre des fichiers. */
+    private <T> List<T> mapBatch(List<Path> files, Function<CompilationUnit, T> extractor, FileProgress progress) throws IOException {
+        if (files.isEmpty()) return new ArrayList<>();
+
+        String[] paths = new String[files.size()];
+        Map<String, Integer> indexOf = new HashMap<>();
+        for (int i = 0; i < paths.length; i++) {
+            paths[i] = files.get(i).toString();
+            indexOf.put(paths[i], i);
+        }
+        String[] encodings = new String[paths.length];
+        Arrays.fill(encodings, StandardCharsets.UTF_8.name());
+
+        ASTParser parser = newParser();
+        parser.setEnvironment(null, new String[]{sourceDir}, new String[]{StandardCharsets.UTF_8.name()}, true);
+
+        // les unités sont livrées sur le thread appelant : son interruption annule le lot
+        NullProgressMonitor monitor = new NullProgressMonitor() {
+            @Override
+            public boolean isCanceled() {
+                return Thread.currentThread().isInterrupted();
+            }
+        };
+        Object[] ordered = new Object[paths.length];
+        AtomicInteger done = new AtomicInteger();
+        try {
+            parser.createASTs(paths, encodings, new String[0], new FileASTRequestor() {
+                @Override
+                public void acceptAST(String sourceFilePath, CompilationUnit ast) {
+                    if (monitor.isCanceled()) throw new OperationCanceledException();
+                    Integer idx = indexOf.get(sourceFilePath);
+                    if (idx != null) ordered[idx] = extractor.apply(ast);
+                    progress.fileDone(done.incrementAndGet(), paths.length);
                 }
-            });
+            }, monitor);
+        } catch (OperationCanceledException e) {
+            InterruptedIOException cancelled = new InterruptedIOException("Parsing interrompu");
+            cancelled.initCause(e);
+            throw cancelled;
+        }
+        if (monitor.isCanceled()) throw new InterruptedIOException("Parsing interrompu");
+
+        List<T> results = new ArrayList<>(paths.length);
+        for (Object value : ordered) {
+            @SuppressWarnings("unchecked") T t = (T) value;
+            if (t != null) results.add(t);
+        }
+        return results;
+    }
+
+    /** Fichiers .java du dossier source, dans l’ordre de Files.walk. */
+    private List<Path> listJavaFiles() throws IOException {
+        try (var stream = Files.walk(Paths.get(sourceDir))) {
+            return stream.filter(p -> p.toString().endsWith(".java")).toList();
+        }
+    }
+
+    private static CompilationUnit parseFile(Path path) {
+        try {
+            return parseSource(path, Files.readString(path));
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    private static CompilationUnit parseSource(Path path, String code) {
+        try {
+            ASTParser parser = newParser();
+            parser.setSource(code.toCharArray());
+            parser.setEnvironment(null, null, null, true);
+            parser.setUnitName(path.toString());
+
+            return (CompilationUnit) parser.createAST(null);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
         }
-        return units;
+    }
+
+    private static ASTParser newParser() {
+        Map<String, String> options = new HashMap<>(JavaCore.getOptions());
+        JavaCore.setComplianceOptions(JavaCore.VERSION_21, options);
+
+        ASTParser parser = ASTParser.newParser(AST.getJLSLatest());
+        parser.setKind(ASTParser.K_COMPILATION_UNIT);
+        parser.setCompilerOptions(options);
+        parser.setResolveBindings(true);
+        parser.setBindingsRecovery(true);
+        return parser;
     }
 }
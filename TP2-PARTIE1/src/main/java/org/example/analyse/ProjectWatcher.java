@@ -0,0 +1,243 @@
+package org.example.analyse;
+
+import org.example.coupling.LiveCouplingModel;
+import org.example.visitor.model.ClassInfo;
+import org.example.visitor.model.SymbolTable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Mode surveillance : observe le dossier source (WatchService) et, à chaque rafale de modifications,
+ * ne ré-extrait que les fichiers créés / modifiés / supprimés. Les classes de ces fichiers sont
+ * retirées puis ré-injectées dans le {@link LiveCouplingModel} ; le reste de la matrice n’est pas touché.
+ * Toutes les mises à jour (et les appels au listener) se font sur le thread du watcher.
+ */
+public class ProjectWatcher implements Closeable {
+    /** Délai de regroupement des événements (un « save » d’IDE en produit souvent plusieurs). */
+    private static final long DEBOUNCE_MS = 200;
+
+    public interface Listener {
+        /**
+         * Appelé sur le thread du watcher après l’application d’un lot de changements ; une première fois par
+         * {@link #start()}, sur le thread appelant, avec l’état initial (avant le démarrage du thread du watcher).
+         * @param changedClasses noms qualifiés des classes ajoutées, modifiées ou supprimées dans ce lot
+         */
+        void onUpdate(ProjectWatcher watcher, Set<String> changedClasses);
+    }
+
+    private final Path root;
+    private final ParseCache cache;
+    private final Listener listener;
+    private final LiveCouplingModel model = new LiveCouplingModel();
+
+    // fichier -> classes extraites ; trié pour que « la première occurrence » d’un nom soit stable
+    private final Map<Path, List<ClassInfo>> byFile = new TreeMap<>();
+    // nom qualifié de classe -> fichiers qui la déclarent (la première gagne, comme la déduplication de Main)
+    private final Map<String, TreeMap<Path, ClassInfo>> occurrences = new HashMap<>();
+
+    private final Map<WatchKey, Path> watchedDirs = new HashMap<>();
+    private WatchService watchService;
+    private Thread thread;
+
+    public ProjectWatcher(String sourceDir, ParseCache cache, Listener listener) {
+        this.root = Paths.get(sourceDir).toAbsolutePath().normalize();
+        this.cache = cache;
+        this.listener = listener;
+    }
+
+    /** Charge l’état initial (via le cache), le remet au listener, puis démarre la surveillance en tâche de fond. */
+    public void start() throws IOException {
+        watchService = root.getFileSystem().newWatchService();
+        registerTree(root);
+
+        Set<Path> initial = new TreeSet<>();
+        try (var stream = Files.walk(root)) {
+            stream.filter(ProjectWatcher::isJavaFile).forEach(initial::add);
+        }
+        Set<String> loaded = applyChanges(initial);
+        cache.retainOnly(byFile.keySet());
+        saveCache();
+        // état initial remis au listener avant que le thread du watcher n’existe : le modèle n’est jamais lu
+        // depuis deux threads à la fois
+        listener.onUpdate(this, loaded);
+
+        thread = new Thread(this::loop, "project-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public LiveCouplingModel model() {
+        return model;
+    }
+
+    /** Classes actuelles (une par nom, première occurrence), dans l’ordre des fichiers. À appeler depuis le listener. */
+    public List<ClassInfo> classes() {
+        List<ClassInfo> out = new ArrayList<>();
+        for (List<ClassInfo> fileClasses : byFile.values()) {
+            for (ClassInfo ci : fileClasses) {
+                if (occurrences.get(key(ci)).firstEntry().getValue() == ci) out.add(ci);
+            }
+        }
+        return out;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (thread != null) thread.interrupt();
+        if (watchService != null) watchService.close();
+    }
+
+    private void loop() {
+        // fichiers modifiés pas encore appliqués : un lot en échec est retenté avec le suivant
+        Set<Path> pending = new TreeSet<>();
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                WatchKey key = watchService.take();
+                boolean overflow = drain(key, pending);
+
+                // regroupe la rafale d’événements qui suit
+                WatchKey next;
+                while ((next = watchService.poll(DEBOUNCE_MS, TimeUnit.MILLISECONDS)) != null) {
+                    overflow |= drain(next, pending);
+                }
+                if (overflow) pending.addAll(rescan());
+                if (pending.isEmpty()) continue;
+
+                Set<String> changedClasses = applyChanges(pending);
+                pending.clear();
+                saveCache();
+                listener.onUpdate(this, changedClasses);
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return; // arrêt demandé
+            } catch (RuntimeException e) {
+                // un lot en échec ne termine pas la surveillance : signalé, ses fichiers restent en attente
+                System.err.println("Surveillance : mise à jour en échec, " + pending.size() + " fichier(s) en attente");
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /** Lit les événements d’une clé ; retourne true si des événements ont été perdus (OVERFLOW). */
+    private boolean drain(WatchKey key, Set<Path> changed) {
+        Path dir = watchedDirs.get(key);
+        boolean overflow = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW || dir == null) {
+                overflow = true;
+                continue;
+            }
+            Path p = dir.resolve((Path) event.context());
+            if (event.kind() == ENTRY_CREATE && Files.isDirectory(p)) {
+                // nouveau package : on le surveille et on prend tous ses fichiers
+                try {
+                    registerTree(p);
+                    try (var stream = Files.walk(p)) {
+                        stream.filter(ProjectWatcher::isJavaFile).forEach(changed::add);
+                    }
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            } else if (isJavaFile(p)) {
+                changed.add(p);
+            } else if (event.kind() == ENTRY_DELETE) {
+                // dossier supprimé : tous les fichiers connus en dessous disparaissent
+                for (Path known : byFile.keySet()) {
+                    if (known.startsWith(p)) changed.add(known);
+                }
+            }
+        }
+        if (!key.reset()) watchedDirs.remove(key);
+        return overflow;
+    }
+
+    /** Après un OVERFLOW : différence complète entre le disque et l’état connu. */
+    private Set<Path> rescan() {
+        Set<Path> all = new TreeSet<>(byFile.keySet());
+        try {
+            registerTree(root);
+            try (var stream = Files.walk(root)) {
+                stream.filter(ProjectWatcher::isJavaFile).forEach(all::add);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return all;
+    }
+
+    /**
+     * Ré-extrait chaque fichier (le cache évite de re-parser un contenu identique), puis met à jour le modèle pour
+     * les seuls noms de classes concernés. Toutes les extractions précèdent la première modification de l’état :
+     * si l’une échoue, byFile, occurrences et le modèle restent tels quels et le lot peut être retenté en entier.
+     */
+    private Set<String> applyChanges(Collection<Path> files) {
+        Map<Path, List<ClassInfo>> current = new TreeMap<>(); // null : fichier supprimé
+        for (Path file : files) {
+            current.put(file, Files.isRegularFile(file) ? ProjectParser.extractCached(file, cache) : null);
+        }
+
+        Set<String> touched = new TreeSet<>();
+        for (var e : current.entrySet()) {
+            Path file = e.getKey();
+            List<ClassInfo> old = byFile.remove(file);
+            if (old != null) {
+                for (ClassInfo ci : old) {
+                    touched.add(key(ci));
+                    // une même classe peut être déclarée deux fois dans le fichier : déjà retirée au premier passage
+                    TreeMap<Path, ClassInfo> occ = occurrences.get(key(ci));
+                    if (occ == null) continue;
+                    occ.remove(file);
+                    if (occ.isEmpty()) occurrences.remove(key(ci));
+                }
+            }
+            if (e.getValue() == null) {
+                cache.remove(file);
+                continue;
+            }
+            byFile.put(file, e.getValue());
+            for (ClassInfo ci : e.getValue()) {
+                touched.add(key(ci));
+                occurrences.computeIfAbsent(key(ci), k -> new TreeMap<>()).putIfAbsent(file, ci);
+            }
+        }
+
+        for (String name : touched) {
+            TreeMap<Path, ClassInfo> occ = occurrences.get(name);
+            if (occ == null) model.removeClass(name);
+            else model.putClass(occ.firstEntry().getValue());
+        }
+        return touched;
+    }
+
+    /** Identité de la classe dans le modèle de couplage : son nom qualifié. */
+    private static String key(ClassInfo ci) {
+        SymbolTable symbols = SymbolTable.global();
+        return symbols.name(symbols.classId(ci));
+    }
+
+    private void registerTree(Path dir) throws IOException {
+        try (var stream = Files.walk(dir)) {
+            for (Path d : (Iterable<Path>) stream.filter(Files::isDirectory)::iterator) {
+                if (watchedDirs.containsValue(d)) continue;
+                watchedDirs.put(d.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE), d);
+            }
+        }
+    }
+
+    private void saveCache() {
+        try {
+            cache.save();
+        } catch (IOException e) {
+            System.err.println("Cache non sauvegardé : " + e);
+        }
+    }
+
+    private static boolean isJavaFile(Path p) {
+        return p.toString().endsWith(".java") && !Files.isDirectory(p);
+    }
+}
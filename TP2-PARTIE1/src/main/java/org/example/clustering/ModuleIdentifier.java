@@ -0,0 +1,141 @@
+package org.example.clustering;
+
+import java.util.*;
+
+/**
+ * Détection des modules par coupe horizontale du dendrogramme au seuil CP (sans dépendance à Swing :
+ * utilisée par la fenêtre comme par l’analyse en ligne de commande).
+ * - On coupe toute arête parent->enfant dont le score ne passe pas le seuil.
+ * - Les sous-arbres maximaux au-dessus du cut sont candidats.
+ * - On filtre: moyenne intra (toutes paires, absentes=0) > CP.
+ * - On limite à ≤ M/2 modules (M = nb de classes).
+ * Hypothèse par défaut: score = similarité (plus grand = plus proche).
+ * Si votre score est une distance (plus petit = plus proche), mettre isSimilarity=false.
+ */
+public final class ModuleIdentifier {
+
+    /** @param avgCoupling moyenne intra (toutes paires, paires absentes = 0) */
+    public record Module(Set<String> classes, double avgCoupling) {
+    }
+
+    private static final boolean isSimilarity = true; // ← passe à false si ton score est une distance
+
+    private ModuleIdentifier() {
+    }
+
+    /**
+     * @param merges  fusions du dendrogramme, dans l’ordre
+     * @param weights poids pair-à-pair (les deux sens sont additionnés)
+     * @return modules triés par moyenne intra décroissante, puis taille, puis noms
+     */
+    public static List<Module> identifyModules(List<AverageLinkageClustering.Merge> merges,
+                                               Map<String, Map<String, Double>> weights,
+                                               double cp) {
+        if (merges == null || merges.isEmpty()) return List.of();
+
+        // 1) Construire l’arbre (dendrogramme) en rejouant les merges
+        Node root = buildTreeFromMerges(merges);
+
+        // 2) Sous-arbres maximaux au-dessus du "cut" CP
+        List<Node> candidates = new ArrayList<>();
+        collectByCut(root, cp, candidates);
+
+        // 3) Filtre avgIntra > CP (toutes paires; paires absentes = 0)
+        List<Module> kept = new ArrayList<>();
+        for (Node n : candidates) {
+            if (n.leaves.size() < 2) continue;
+            double avg = avgIntra(n.leaves, weights);
+            if (avg > cp) kept.add(new Module(n.leaves, avg));
+        }
+        if (kept.isEmpty()) return List.of();
+
+        // 4) ≤ M/2 modules
+        int M = root.leaves.size();
+        int maxModules = Math.max(1, M / 2);
+
+        kept.sort((a, b) -> {
+            int c = Double.compare(b.avgCoupling, a.avgCoupling);
+            if (c != 0) return c;
+            c = Integer.compare(b.classes.size(), a.classes.size());
+            if (c != 0) return c;
+            return String.join(",", new TreeSet<>(a.classes))
+                    .compareTo(String.join(",", new TreeSet<>(b.classes)));
+        });
+        if (kept.size() > maxModules) kept = kept.subList(0, maxModules);
+        return kept;
+    }
+
+    // ======== Arbre du dendrogramme ========
+
+    private static final class Node {
+        final Set<String> leaves;
+        final double height;   // score du merge qui crée ce nœud (feuille: 0)
+        final Node left, right;
+        Node(Set<String> leaves, double height, Node left, Node right) {
+            this.leaves = leaves; this.height = height; this.left = left; this.right = right;
+        }
+        boolean isLeaf() { return left == null && right == null; }
+    }
+
+    private static Node buildTreeFromMerges(List<AverageLinkageClustering.Merge> merges) {
+        // feuilles observées
+        Set<String> all = new LinkedHashSet<>();
+        for (var m : merges) { all.addAll(m.left()); all.addAll(m.right()); }
+
+        Map<Set<String>, Node> nodes = new HashMap<>();
+        for (String s : all) nodes.put(Set.of(s), new Node(Set.of(s), 0.0, null, null));
+
+        for (var m : merges) {
+            Node L = nodes.get(m.left());
+            Node R = nodes.get(m.right());
+            if (L == null || R == null) {
+                // fallback si les Set ne sont pas la même instance
+                for (var e : nodes.entrySet()) {
+                    if (L == null && e.getKey().equals(m.left()))  L = e.getValue();
+                    if (R == null && e.getKey().equals(m.right())) R = e.getValue();
+                }
+            }
+            Set<String> merged = new LinkedHashSet<>(m.left());
+            merged.addAll(m.right());
+            Node parent = new Node(merged, m.score(), L, R);
+            nodes.put(merged, parent);
+        }
+
+        return nodes.values().stream()
+                .max(Comparator.comparingInt(n -> n.leaves.size()))
+                .orElseThrow();
+    }
+
+    // ======== Coupe et moyenne intra ========
+
+    private static void collectByCut(Node n, double cp, List<Node> out) {
+        if (n == null || n.isLeaf()) return;
+        boolean pass = isSimilarity ? (n.height >= cp) : (n.height <= cp);
+        if (pass) { out.add(n); return; }   // sous-arbre maximal au-dessus du cut
+        collectByCut(n.left,  cp, out);
+        collectByCut(n.right, cp, out);
+    }
+
+    private static double avgIntra(Set<String> S, Map<String, Map<String, Double>> weights) {
+        int n = S.size();
+        if (n < 2) return 0.0;
+        List<String> list = new ArrayList<>(S);
+        double sum = 0.0; int cnt = 0;
+        for (int i = 0; i < n; i++) {
+            String a = list.get(i);
+            for (int j = i + 1; j < n; j++) {
+                String b = list.get(j);
+                sum += symWeight(a, b, weights);  // paires absentes = 0
+                cnt++;
+            }
+        }
+        return sum / cnt;
+    }
+
+    private static double symWeight(String a, String b, Map<String, Map<String, Double>> W) {
+        // somme des 2 sens (comme ailleurs). Change en max/avg si besoin.
+        double ab = W.getOrDefault(a, Map.of()).getOrDefault(b, 0.0);
+        double ba = W.getOrDefault(b, Map.of()).getOrDefault(a, 0.0);
+        return Math.max(0.0, ab) + Math.max(0.0, ba);
+    }
+}
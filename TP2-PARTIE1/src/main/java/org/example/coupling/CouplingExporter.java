@@ -0,0 +1,235 @@
+package org.example.coupling;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Export de la matrice de couplage en flux, directement depuis {@link CouplingMatrix#forEachPair} :
+ * aucune table intermédiaire (pas de {@code Map<String, Map<String, Double>>}), mémoire constante quelle que soit
+ * la taille du projet. Une ligne (ou un enregistrement) par paire non orientée ayant au moins un appel.
+ *
+ *  - CSV : {@code a,b,calls_ab,calls_ba,weight}, en-tête en première ligne ;
+ *  - JSON Lines : un objet {@code {"a", "b", "callsAB", "callsBA", "weight"}} par ligne ;
+ *  - binaire : voir {@link #writeBinary} ; relu par {@link #readBinary}, qui redonne la même matrice.
+ */
+public final class CouplingExporter {
+
+    public enum Format {
+        CSV, JSONL, BINARY;
+
+        /** D’après l’extension du fichier : .csv, .jsonl (ou .ndjson), .bin ; null si inconnue. */
+        public static Format ofFile(Path file) {
+            String name = file.getFileName().toString().toLowerCase();
+            if (name.endsWith(".csv")) return CSV;
+            if (name.endsWith(".jsonl") || name.endsWith(".ndjson")) return JSONL;
+            if (name.endsWith(".bin")) return BINARY;
+            return null;
+        }
+    }
+
+    static final int MAGIC = 0x54503243;   // "TP2C"
+    static final int VERSION = 2;     // 2 : noms qualifiés et paquetages (1 : noms affichés seuls)
+
+    private CouplingExporter() {
+    }
+
+    public static void write(CouplingMatrix matrix, Format format, OutputStream out) throws IOException {
+        if (format == Format.BINARY) {
+            writeBinary(matrix, out);
+            return;
+        }
+        Writer w = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16);
+        if (format == Format.CSV) writeCsv(matrix, w);
+        else writeJsonLines(matrix, w);
+        w.flush();
+    }
+
+    /** Format choisi d’après l’extension (voir {@link Format#ofFile}). */
+    public static void write(CouplingMatrix matrix, Path file) throws IOException {
+        Format format = Format.ofFile(file);
+        if (format == null) throw new IllegalArgumentException("Extension inconnue (.csv, .jsonl ou .bin) : " + file);
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), 1 << 16)) {
+            write(matrix, format, out);
+        }
+    }
+
+    public static void writeCsv(CouplingMatrix matrix, Writer out) throws IOException {
+        out.write("a,b,calls_ab,calls_ba,weight\n");
+        forEachLine(matrix, out, (a, b, ab, ba, w) ->
+                csv(matrix.name(a)) + ',' + csv(matrix.name(b)) + ',' + ab + ',' + ba + ',' + w + '\n');
+    }
+
+    public static void writeJsonLines(CouplingMatrix matrix, Writer out) throws IOException {
+        forEachLine(matrix, out, (a, b, ab, ba, w) -> jsonObject(matrix.name(a), matrix.name(b), ab, ba, w) + '\n');
+    }
+
+    /** Une paire en objet JSON (même forme que les lignes JSON Lines). */
+    public static String jsonObject(String a, String b, long callsAB, long callsBA, double weight) {
+        return "{\"a\": " + json(a) + ", \"b\": " + json(b) + ", \"callsAB\": " + callsAB
+                + ", \"callsBA\": " + callsBA + ", \"weight\": " + weight + "}";
+    }
+
+    /**
+     * Binaire compact (entiers en varint LEB128, chaînes en UTF-8 préfixées de leur longueur) :
+     * <pre>
+     * int    magic "TP2C", octet version
+     * varint n, puis les n noms qualifiés des classes (identités, dans l’ordre des index)
+     * varint p, puis les p paquetages distincts, puis n varint : index du paquetage de chaque classe
+     * varint total des appels, varint nombre de paires
+     * paires : varint a, varint (b - a), varint appels a→b, varint appels b→a   (a &lt; b, index des noms)
+     * </pre>
+     * Les poids ne sont pas stockés : (a→b + b→a) / total, recalculés à la lecture.
+     */
+    public static void writeBinary(CouplingMatrix matrix, OutputStream os) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(os, 1 << 16));
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        writeVarLong(out, matrix.size());
+        for (String name : matrix.qualifiedNames()) writeString(out, name);
+        Map<String, Integer> packageIndex = new LinkedHashMap<>();
+        for (String pkg : matrix.packageNames()) packageIndex.putIfAbsent(pkg, packageIndex.size());
+        writeVarLong(out, packageIndex.size());
+        for (String pkg : packageIndex.keySet()) writeString(out, pkg);
+        for (String pkg : matrix.packageNames()) writeVarLong(out, packageIndex.get(pkg));
+        writeVarLong(out, matrix.totalCalls());
+        writeVarLong(out, matrix.pairCount());
+        IOException[] failure = {null};
+        matrix.forEachPair((a, b, calls, w) -> {
+            if (failure[0] != null) return;
+            try {
+                writeVarLong(out, a);
+                writeVarLong(out, b - a);
+                writeVarLong(out, matrix.calls(a, b));
+                writeVarLong(out, matrix.calls(b, a));
+            } catch (IOException e) {
+                failure[0] = e;
+            }
+        });
+        if (failure[0] != null) throw failure[0];
+        out.flush();
+    }
+
+    /**
+     * Relit un export {@link #writeBinary} : mêmes classes (même ordre, mêmes noms qualifiés et paquetages), mêmes
+     * appels, donc mêmes poids et mêmes agrégats de {@link PackageCoupling}.
+     */
+    public static CouplingMatrix readBinary(InputStream is) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(is, 1 << 16));
+        if (in.readInt() != MAGIC) throw new IOException("Pas un export binaire de couplage");
+        int version = in.readUnsignedByte();
+        if (version != VERSION) throw new IOException("Version d’export non prise en charge : " + version);
+
+        int n = (int) readVarLong(in);
+        List<String> names = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) names.add(readString(in));
+        int packageCount = (int) readVarLong(in);
+        List<String> distinctPackages = new ArrayList<>(packageCount);
+        for (int i = 0; i < packageCount; i++) distinctPackages.add(readString(in));
+        List<String> packages = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            int k = (int) readVarLong(in);
+            if (k >= packageCount) throw new IOException("Export binaire incohérent (paquetage " + k + ")");
+            packages.add(distinctPackages.get(k));
+        }
+        long totalCalls = readVarLong(in);
+        long pairs = readVarLong(in);
+
+        List<Map<Integer, Long>> rows = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) rows.add(new HashMap<>());
+        for (long p = 0; p < pairs; p++) {
+            int a = (int) readVarLong(in);
+            int b = a + (int) readVarLong(in);
+            long ab = readVarLong(in), ba = readVarLong(in);
+            if (ab > 0) rows.get(a).put(b, ab);
+            if (ba > 0) rows.get(b).put(a, ba);
+        }
+        CouplingMatrix matrix = CouplingMatrix.of(names, packages, rows);
+        if (matrix.totalCalls() != totalCalls) throw new IOException("Export binaire incohérent (total des appels)");
+        return matrix;
+    }
+
+    // ---------------------- Écriture ----------------------
+
+    private interface LineFormat {
+        String line(int a, int b, long callsAB, long callsBA, double weight);
+    }
+
+    private static void forEachLine(CouplingMatrix matrix, Writer out, LineFormat format) throws IOException {
+        IOException[] failure = {null};
+        matrix.forEachPair((a, b, calls, w) -> {
+            if (failure[0] != null) return;
+            try {
+                out.write(format.line(a, b, matrix.calls(a, b), matrix.calls(b, a), w));
+            } catch (IOException e) {
+                failure[0] = e;
+            }
+        });
+        if (failure[0] != null) throw failure[0];
+    }
+
+    private static void writeVarLong(DataOutput out, long v) throws IOException {
+        while ((v & ~0x7FL) != 0) {
+            out.writeByte((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.writeByte((int) v);
+    }
+
+    private static long readVarLong(DataInput in) throws IOException {
+        long v = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            v |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return v;
+        }
+        throw new IOException("Varint trop long");
+    }
+
+    /** Chaîne UTF-8 préfixée de sa longueur en octets. */
+    private static void writeString(DataOutput out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        byte[] bytes = new byte[(int) readVarLong(in)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // ---------------------- Échappements ----------------------
+
+    /** Chaîne JSON entre guillemets (guillemets, barres obliques inverses et caractères de contrôle échappés). */
+    public static String json(String s) {
+        StringBuilder sb = new StringBuilder(s.length() + 2).append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+                    else sb.append(c);
+                }
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    /** Champ CSV, entre guillemets seulement s’il contient une virgule, un guillemet ou un saut de ligne. */
+    public static String csv(String field) {
+        if (field.indexOf(',') < 0 && field.indexOf('"') < 0 && field.indexOf('\n') < 0) return field;
+        return '"' + field.replace("\"", "\"\"") + '"';
+    }
+}
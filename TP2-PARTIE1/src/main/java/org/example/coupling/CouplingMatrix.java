@@ -0,0 +1,499 @@
+package org.example.coupling;
+
+import org.example.visitor.model.CallSiteTable;
+import org.example.visitor.model.ClassInfo;
+import org.example.visitor.model.SymbolTable;
+
+import java.util.*;
+
+/**
+ * Matrice creuse des appels entre classes du projet, construite en une seule passe sur les MethodCallInfo.
+ * Une classe est identifiée par son nom qualifié : deux classes de même nom simple dans deux paquetages sont deux
+ * sommets. Les classes sont indexées dans l’ordre de leur première occurrence (un nom qualifié en double garde la
+ * première ClassInfo, comme les anciennes boucles de Main). Un appel A→B compte si B est une classe du projet et B ≠ A.
+ * Couplage(A,B) = (appels A→B + appels B→A) / total des appels comptés ; 0 si aucun appel.
+ *
+ * Receveur qui n’est pas un nom qualifié de classe du projet (type que l’extracteur n’a pas pu résoudre, fichier
+ * parsé seul : C, Externe.Interne) : la classe de ce nom dans le paquetage de l’appelant si elle existe, sinon,
+ * pour un nom simple, l’unique classe du projet qui le porte (aucune si ambiguë).
+ *
+ * Noms affichés ({@link #classNames()}, repris par le clustering, les rapports et l’interface) : le nom simple
+ * s’il est unique dans la matrice, sinon le nom qualifié. Ils restent donc uniques ; {@link #indexOf} accepte les deux.
+ * Chaque classe garde aussi son paquetage ({@link #packageName}), pour les agrégats de {@link PackageCoupling}.
+ *
+ * Comptes en lignes compressées, comme {@link MethodCallGraph} : pour chaque classe, les classes appelées (index
+ * croissants) et le nombre d’appels, plus la transposée (appelantes). Pas d’objet par entrée, et un ordre de parcours
+ * qui ne dépend que des index : {@link #forEachPair} émet les paires par (a, b) croissants, {@link #forEachCall}
+ * chaque ligne par colonne croissante. Un compte se lit par recherche dichotomique dans la ligne.
+ */
+public final class CouplingMatrix {
+    /** Nom de paquetage donné par les extracteurs aux classes hors paquetage. */
+    static final String DEFAULT_PACKAGE = "(default package)";
+
+    // états de ClassIndex pour un id de receveur qui n’est pas une classe du projet : externe, ou k-ième receveur
+    // à résoudre selon le paquetage de l’appelant (UNRESOLVED - k)
+    private static final int EXTERNAL = -1, UNRESOLVED = -2;
+
+    private final List<String> names;          // noms affichés
+    private final List<String> qualifiedNames; // identités
+    private final List<String> packageNames;
+    private final Map<String, Integer> indexOf;
+    private final int[] outStart, outTarget;   // appels a→outTarget[k], k dans [outStart[a], outStart[a + 1])
+    private final long[] outCalls;
+    private final int[] inStart, inSource;     // transposée : appels inSource[k]→b
+    private final long[] inCalls;
+    private final long totalCalls;
+
+    CouplingMatrix(List<String> qualifiedNames, List<Map<Integer, Long>> rows) {
+        this(qualifiedNames, null, null, rows);
+    }
+
+    /**
+     * {@code names} null : noms affichés calculés ({@link #displayNames}) ; sinon repris tels quels (matrice de paquetages).
+     * {@code packageNames} null, ou entrée null : paquetage déduit du nom qualifié.
+     * {@code rows.get(a)} : b -> nb d’appels a→b (entrées &gt; 0 seulement), recopiées en lignes triées.
+     */
+    CouplingMatrix(List<String> qualifiedNames, List<String> names, List<String> packageNames, List<Map<Integer, Long>> rows) {
+        this(qualifiedNames, names, packageNames, Rows.of(rows));
+    }
+
+    /** Comme ci-dessus, lignes déjà compressées (voir {@link #build(CallSiteTable)}). */
+    private CouplingMatrix(List<String> qualifiedNames, List<String> names, List<String> packageNames, Rows rows) {
+        this.qualifiedNames = List.copyOf(qualifiedNames);
+        this.names = (names == null) ? displayNames(this.qualifiedNames) : List.copyOf(names);
+        String[] packages = new String[this.qualifiedNames.size()];
+        for (int i = 0; i < packages.length; i++) {
+            String p = (packageNames == null) ? null : packageNames.get(i);
+            packages[i] = (p != null) ? p : packageOf(this.qualifiedNames.get(i));
+        }
+        this.packageNames = List.of(packages);
+        this.indexOf = new HashMap<>(this.names.size() * 4);
+        for (int i = 0; i < this.names.size(); i++) {
+            indexOf.put(this.qualifiedNames.get(i), i);
+            if (!this.names.get(i).equals(this.qualifiedNames.get(i))) indexOf.put(this.names.get(i), i);
+        }
+        this.outStart = rows.start();
+        this.outTarget = rows.target();
+        this.outCalls = rows.calls();
+        Rows in = rows.transpose();
+        this.inStart = in.start();
+        this.inSource = in.target();
+        this.inCalls = in.calls();
+        long tot = 0;
+        for (long c : outCalls) tot += c;
+        this.totalCalls = tot;
+    }
+
+    /** Lignes compressées : {@code start} a une entrée de plus que de lignes ; colonnes croissantes dans chaque ligne. */
+    private record Rows(int[] start, int[] target, long[] calls) {
+
+        static Rows of(List<Map<Integer, Long>> rows) {
+            int n = rows.size();
+            int[] start = new int[n + 1];
+            for (int a = 0; a < n; a++) start[a + 1] = start[a] + rows.get(a).size();
+            int[] target = new int[start[n]];
+            long[] calls = new long[start[n]];
+            for (int a = 0; a < n; a++) {
+                Map<Integer, Long> row = rows.get(a);
+                int k = start[a];
+                for (int b : row.keySet()) target[k++] = b;
+                Arrays.sort(target, start[a], k);
+                for (int e = start[a]; e < k; e++) calls[e] = row.get(target[e]);
+            }
+            return new Rows(start, target, calls);
+        }
+
+        /** Lignes parcourues par index croissant : les lignes de la transposée sont donc triées elles aussi. */
+        Rows transpose() {
+            int n = start.length - 1;
+            int[] tStart = new int[n + 1];
+            for (int b : target) tStart[b + 1]++;
+            for (int b = 0; b < n; b++) tStart[b + 1] += tStart[b];
+            int[] tTarget = new int[target.length];
+            long[] tCalls = new long[target.length];
+            int[] next = Arrays.copyOf(tStart, n);
+            for (int a = 0; a < n; a++) {
+                for (int e = start[a]; e < start[a + 1]; e++) {
+                    int k = next[target[e]]++;
+                    tTarget[k] = a;
+                    tCalls[k] = calls[e];
+                }
+            }
+            return new Rows(tStart, tTarget, tCalls);
+        }
+    }
+
+    /**
+     * Matrice à partir de comptes déjà agrégés (relecture d’un instantané), classes données par leur nom qualifié :
+     * {@code rows.get(a)} associe à b
+     * le nombre d’appels a→b, entrées &gt; 0 seulement. Les lignes sont reprises telles quelles.
+     */
+    public static CouplingMatrix of(List<String> qualifiedNames, List<Map<Integer, Long>> rows) {
+        if (rows.size() != qualifiedNames.size()) {
+            throw new IllegalArgumentException(rows.size() + " lignes pour " + qualifiedNames.size() + " classes");
+        }
+        return new CouplingMatrix(qualifiedNames, rows);
+    }
+
+    /** Comme {@link #of(List, List)}, avec le paquetage de chaque classe (null : déduit du nom qualifié). */
+    public static CouplingMatrix of(List<String> qualifiedNames, List<String> packageNames, List<Map<Integer, Long>> rows) {
+        if (rows.size() != qualifiedNames.size() || packageNames.size() != qualifiedNames.size()) {
+            throw new IllegalArgumentException(rows.size() + " lignes et " + packageNames.size() + " paquetages pour "
+                    + qualifiedNames.size() + " classes");
+        }
+        return new CouplingMatrix(qualifiedNames, null, packageNames, rows);
+    }
+
+    /**
+     * Paquetage déduit du nom qualifié, quand l’extracteur ne l’a pas fourni (matrice relue d’un export) : tout ce qui
+     * précède le dernier '.'. Approché pour une classe imbriquée écrite a.Externe.Interne (donne a.Externe).
+     */
+    static String packageOf(String qualifiedName) {
+        int i = qualifiedName.lastIndexOf('.');
+        return (i < 0) ? DEFAULT_PACKAGE : qualifiedName.substring(0, i);
+    }
+
+    /** Nom simple si aucune autre classe ne le porte, nom qualifié sinon (même instance). */
+    static List<String> displayNames(List<String> qualifiedNames) {
+        int n = qualifiedNames.size();
+        String[] out = new String[n];
+        boolean[] shared = new boolean[n];
+        Map<String, Integer> first = new HashMap<>(n * 2);
+        for (int i = 0; i < n; i++) {
+            out[i] = simpleName(qualifiedNames.get(i));
+            Integer j = first.putIfAbsent(out[i], i);
+            if (j != null) shared[i] = shared[j] = true;
+        }
+        for (int i = 0; i < n; i++) {
+            if (shared[i]) out[i] = qualifiedNames.get(i);
+        }
+        return List.of(out);
+    }
+
+    /** Dernier segment du nom qualifié (après le dernier '.' ou '$' : classes imbriquées). */
+    public static String simpleName(String qualifiedName) {
+        int i = Math.max(qualifiedName.lastIndexOf('.'), qualifiedName.lastIndexOf('$'));
+        return (i < 0) ? qualifiedName : qualifiedName.substring(i + 1);
+    }
+
+    /** O(classes + appels) : le modèle est mis en colonnes ({@link CallSiteTable}), puis lu en une passe. */
+    public static CouplingMatrix build(List<ClassInfo> classes) {
+        return build(CallSiteTable.of(classes));
+    }
+
+    /**
+     * Une passe sur les sites d’appel, sans allocation par appel : le receveur se résout par une table d’ids primitive
+     * (id du nom → index de classe, voir {@link ClassIndex}) et les appels d’une classe s’accumulent dans un tableau de comptes réutilisé
+     * d’une ligne à l’autre ; seules les paires distinctes sont ensuite triées et copiées dans la ligne de la matrice.
+     */
+    public static CouplingMatrix build(CallSiteTable calls) {
+        ClassIndex classes = new ClassIndex(calls);
+        int n = classes.size();
+        long[] counts = new long[n];
+        int[] touched = new int[n];
+        int[] start = new int[n + 1];
+        int[] target = new int[Math.max(16, n)];
+        long[] callCounts = new long[target.length];
+        for (int c = 0; c < calls.classCount(); c++) {
+            int a = classes.rowOf(c);
+            if (a < 0) continue;
+            int distinct = 0;
+            for (int k = calls.firstCall(c), end = calls.endCall(c); k < end; k++) {
+                int b = classes.resolve(calls.packageId(c), calls.receiver(k));
+                if (b >= 0 && b != a && counts[b]++ == 0) touched[distinct++] = b;
+            }
+            int e = start[a];
+            if (e + distinct > target.length) {
+                target = Arrays.copyOf(target, Math.max(2 * target.length, e + distinct));
+                callCounts = Arrays.copyOf(callCounts, target.length);
+            }
+            Arrays.sort(touched, 0, distinct);
+            for (int i = 0; i < distinct; i++, e++) {
+                int b = touched[i];
+                target[e] = b;
+                callCounts[e] = counts[b];
+                counts[b] = 0;
+            }
+            start[a + 1] = e;
+        }
+        Rows rows = new Rows(start, Arrays.copyOf(target, start[n]), Arrays.copyOf(callCounts, start[n]));
+        return new CouplingMatrix(classes.qualifiedNames, null, classes.packageNames, rows);
+    }
+
+    /**
+     * Classes d’une table de sites d’appel, indexées comme dans la matrice (première occurrence d’un nom qualifié),
+     * et résolution des receveurs : une consultation d’{@link IdTable} (id du nom → index de classe) par site, la
+     * résolution des noms non qualifiés n’ayant lieu qu’une fois par receveur. Taille selon les classes et receveurs
+     * de la table, et non selon la SymbolTable globale, qui ne fait que grandir (mode surveillance). Partagée avec {@link MethodCallGraph}, pour que le graphe
+     * des méthodes et la matrice voient les mêmes appels.
+     */
+    static final class ClassIndex {
+        private final SymbolTable symbols = SymbolTable.global();
+        final List<String> qualifiedNames = new ArrayList<>();
+        final List<String> packageNames = new ArrayList<>();
+        // id du nom qualifié -> index dans la matrice, ou état du receveur déjà vu (EXTERNAL, UNRESOLVED - k)
+        private final IdTable indexOfSymbol;
+        private final int[] rowOf; // classe d’origine -> index, -1 : nom qualifié en double (ignorée)
+        private final UnresolvedReceivers unresolved;
+
+        ClassIndex(CallSiteTable calls) {
+            indexOfSymbol = new IdTable(calls.classCount());
+            rowOf = new int[calls.classCount()];
+            for (int c = 0; c < calls.classCount(); c++) {
+                int id = calls.classId(c);
+                if (indexOfSymbol.get(id) >= 0) {
+                    rowOf[c] = -1;
+                    continue;
+                }
+                rowOf[c] = qualifiedNames.size();
+                indexOfSymbol.put(id, rowOf[c]);
+                qualifiedNames.add(symbols.name(id));
+                packageNames.add(symbols.name(calls.packageId(c)));
+            }
+            unresolved = new UnresolvedReceivers(qualifiedNames);
+        }
+
+        int size() {
+            return qualifiedNames.size();
+        }
+
+        /** Index de la c-ième classe de la table, ou -1 si son nom qualifié est déjà porté par une classe précédente. */
+        int rowOf(int c) {
+            return rowOf[c];
+        }
+
+        /** Index de la classe receveuse d’un appel fait depuis le paquetage {@code packageId}, ou -1 (type externe). */
+        int resolve(int packageId, int receiver) {
+            int b = indexOfSymbol.get(receiver);
+            if (b == IdTable.ABSENT) {
+                b = unresolved.mayResolve(receiver) ? UNRESOLVED - unresolved.newSlot() : EXTERNAL;
+                indexOfSymbol.put(receiver, b);
+            }
+            if (b <= UNRESOLVED) b = unresolved.resolve(UNRESOLVED - b, packageId, receiver);
+            return b;
+        }
+    }
+
+    /**
+     * Table int → int à adressage ouvert (sondage linéaire, au plus à moitié pleine), clés ≥ 0 : ni Integer par
+     * entrée ni tableau indexé par id ; la taille suit le nombre de clés.
+     */
+    private static final class IdTable {
+        static final int ABSENT = Integer.MIN_VALUE;
+
+        private int[] keys, values; // keys[i] < 0 : case libre
+        private int size;
+
+        IdTable(int expected) {
+            int capacity = Integer.highestOneBit(Math.max(8, 2 * expected - 1)) << 1;
+            keys = new int[capacity];
+            values = new int[capacity];
+            Arrays.fill(keys, -1);
+        }
+
+        int get(int key) {
+            int mask = keys.length - 1;
+            for (int i = slot(key, mask); ; i = (i + 1) & mask) {
+                if (keys[i] == key) return values[i];
+                if (keys[i] < 0) return ABSENT;
+            }
+        }
+
+        void put(int key, int value) {
+            if (2 * (size + 1) > keys.length) grow();
+            int mask = keys.length - 1;
+            int i = slot(key, mask);
+            while (keys[i] >= 0 && keys[i] != key) i = (i + 1) & mask;
+            if (keys[i] < 0) size++;
+            keys[i] = key;
+            values[i] = value;
+        }
+
+        private void grow() {
+            int[] oldKeys = keys, oldValues = values;
+            keys = new int[2 * oldKeys.length];
+            values = new int[keys.length];
+            Arrays.fill(keys, -1);
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] >= 0) put(oldKeys[i], oldValues[i]);
+            }
+        }
+
+        /** Ids consécutifs dispersés (hachage multiplicatif, bits de poids fort ramenés). */
+        private static int slot(int key, int mask) {
+            int h = key * 0x9E3779B9;
+            return (h ^ (h >>> 16)) & mask;
+        }
+    }
+
+    /**
+     * Résolution des receveurs qui ne sont pas un nom qualifié de classe, mémorisée par (paquetage de l’appelant,
+     * receveur). Les appelants d’un même paquetage se suivent : le dernier résultat de chaque receveur est gardé
+     * dans un tableau (une case par receveur à résoudre, voir {@link #newSlot}), la table n’est consultée qu’au
+     * changement de paquetage.
+     */
+    private static final class UnresolvedReceivers {
+        private final SymbolTable symbols = SymbolTable.global();
+        private final Map<String, Integer> byQualifiedName = new HashMap<>();
+        private final Map<String, Integer> bySimpleName = new HashMap<>(); // -1 : nom simple porté par plusieurs classes
+        private final Map<Long, Integer> resolved = new HashMap<>();
+        private int[] lastPackage = new int[16], lastResult = new int[16]; // case -> dernier paquetage résolu (0 : aucun) et son résultat
+        private int slots;
+
+        UnresolvedReceivers(List<String> qualifiedNames) {
+            for (int i = 0; i < qualifiedNames.size(); i++) {
+                byQualifiedName.put(qualifiedNames.get(i), i);
+                bySimpleName.merge(simpleName(qualifiedNames.get(i)), i, (x, y) -> -1);
+            }
+        }
+
+        /** Case d’un nouveau receveur à résoudre. */
+        int newSlot() {
+            if (slots == lastPackage.length) {
+                lastPackage = Arrays.copyOf(lastPackage, 2 * slots);
+                lastResult = Arrays.copyOf(lastResult, 2 * slots);
+            }
+            return slots++;
+        }
+
+        /** Faux si aucune classe du projet ne porte le dernier segment du nom (String, java.util.List…) : externe. */
+        boolean mayResolve(int receiverId) {
+            String name = symbols.name(receiverId);
+            return name != null && bySimpleName.containsKey(simpleName(name));
+        }
+
+        int resolve(int slot, int packageId, int receiverId) {
+            if (packageId != 0 && lastPackage[slot] == packageId) return lastResult[slot];
+            int b = resolved.computeIfAbsent(((long) packageId << 32) | receiverId, key -> {
+                String name = symbols.name(receiverId);
+                String pkg = symbols.name(packageId);
+                Integer i = (pkg == null || pkg.equals(DEFAULT_PACKAGE)) ? null : byQualifiedName.get(pkg + "." + name);
+                if (i != null) return i;
+                return (name.indexOf('.') < 0) ? bySimpleName.getOrDefault(name, -1) : -1;
+            });
+            lastPackage[slot] = packageId;
+            lastResult[slot] = b;
+            return b;
+        }
+    }
+
+    public int size() {
+        return names.size();
+    }
+
+    /** Noms affichés des classes (uniques), dans l’ordre des index. */
+    public List<String> classNames() {
+        return names;
+    }
+
+    public String name(int index) {
+        return names.get(index);
+    }
+
+    /** Noms qualifiés des classes, dans l’ordre des index. */
+    public List<String> qualifiedNames() {
+        return qualifiedNames;
+    }
+
+    public String qualifiedName(int index) {
+        return qualifiedNames.get(index);
+    }
+
+    /** Paquetage de la classe ({@code DEFAULT_PACKAGE} hors paquetage). */
+    public String packageName(int index) {
+        return packageNames.get(index);
+    }
+
+    /** Paquetages des classes, dans l’ordre des index. */
+    public List<String> packageNames() {
+        return packageNames;
+    }
+
+    /** Index de la classe (nom affiché ou nom qualifié), ou -1 si inconnue. */
+    public int indexOf(String className) {
+        Integer i = indexOf.get(className);
+        return (i == null) ? -1 : i;
+    }
+
+    public long totalCalls() {
+        return totalCalls;
+    }
+
+    public long calls(int from, int to) {
+        int k = Arrays.binarySearch(outTarget, outStart[from], outStart[from + 1], to);
+        return (k < 0) ? 0 : outCalls[k];
+    }
+
+    /** Appels de {@code from} vers {@code to} (0 si l’une des classes est inconnue). */
+    public long calls(String from, String to) {
+        int a = indexOf(from), b = indexOf(to);
+        return (a < 0 || b < 0) ? 0 : calls(a, b);
+    }
+
+    public double weight(int a, int b) {
+        return (totalCalls == 0) ? 0.0 : (double) (calls(a, b) + calls(b, a)) / totalCalls;
+    }
+
+    public interface PairConsumer {
+        void accept(int a, int b, long calls, double weight);
+    }
+
+    /**
+     * Chaque paire non orientée ayant au moins un appel, une seule fois (a &lt; b), par (a, b) croissants.
+     * O(entrées non nulles) : fusion de la ligne de a et de sa colonne (transposée), restreintes aux b &gt; a.
+     */
+    public void forEachPair(PairConsumer consumer) {
+        for (int a = 0; a < size(); a++) {
+            int i = after(outTarget, outStart[a], outStart[a + 1], a), iEnd = outStart[a + 1];
+            int j = after(inSource, inStart[a], inStart[a + 1], a), jEnd = inStart[a + 1];
+            while (i < iEnd || j < jEnd) {
+                int out = (i < iEnd) ? outTarget[i] : Integer.MAX_VALUE;
+                int in = (j < jEnd) ? inSource[j] : Integer.MAX_VALUE;
+                int b = Math.min(out, in);
+                long c = 0;
+                if (out == b) c += outCalls[i++];
+                if (in == b) c += inCalls[j++];
+                consumer.accept(a, b, c, (double) c / totalCalls);
+            }
+        }
+    }
+
+    /** Premier k de [from, to) tel que sorted[k] &gt; key. */
+    private static int after(int[] sorted, int from, int to, int key) {
+        int k = Arrays.binarySearch(sorted, from, to, key);
+        return (k < 0) ? -k - 1 : k + 1;
+    }
+
+    public interface CallConsumer {
+        void accept(int from, int to, long calls);
+    }
+
+    /** Chaque paire orientée ayant au moins un appel from→to (from ≠ to), ligne par ligne. O(entrées non nulles). */
+    public void forEachCall(CallConsumer consumer) {
+        for (int a = 0; a < size(); a++) forEachCall(a, consumer);
+    }
+
+    /** Les appels non nuls de la classe {@code from} (une ligne), par classe appelée croissante. */
+    public void forEachCall(int from, CallConsumer consumer) {
+        for (int k = outStart[from]; k < outStart[from + 1]; k++) consumer.accept(from, outTarget[k], outCalls[k]);
+    }
+
+    /** Nombre de paires non orientées ayant au moins un appel (arêtes du graphe de couplage). */
+    public int pairCount() {
+        int[] count = {0};
+        forEachPair((a, b, c, w) -> count[0]++);
+        return count[0];
+    }
+
+    /**
+     * Couplages non nuls pour le graphe : une ligne par classe (éventuellement vide),
+     * chaque paire rangée sous la classe de plus petit index.
+     */
+    public Map<String, Map<String, Double>> weightedAdjacency() {
+        Map<String, Map<String, Double>> out = new LinkedHashMap<>();
+        for (String name : names) out.put(name, new LinkedHashMap<>());
+        forEachPair((a, b, c, w) -> out.get(names.get(a)).put(names.get(b), w));
+        return out;
+    }
+}
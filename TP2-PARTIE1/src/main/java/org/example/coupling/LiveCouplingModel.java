@@ -0,0 +1,165 @@
+package org.example.coupling;
+
+import org.example.visitor.model.ClassInfo;
+import org.example.visitor.model.MethodCallInfo;
+import org.example.visitor.model.MethodInfo;
+import org.example.visitor.model.SymbolTable;
+
+import java.util.*;
+
+/**
+ * Comptes d’appels entre classes, modifiables classe par classe (mode surveillance).
+ * Mêmes règles que le calcul de Main : un appel A→B compte si B est une classe du projet et B ≠ A ;
+ * le total est la somme de tous ces appels. Ajouter / retirer / remplacer une classe ne touche
+ * que sa ligne et celles des appelants qui la visent, jamais toute la matrice. Classes et receveurs sont désignés
+ * par leur nom qualifié ({@link SymbolTable#classId}) ; un receveur non résolu par l’extracteur l’est comme dans
+ * {@link CouplingMatrix#build} (paquetage de l’appelant, puis nom simple unique).
+ * Non thread-safe : à utiliser depuis un seul thread (celui du watcher).
+ */
+public class LiveCouplingModel {
+    // appelant -> receveur tel qu’extrait -> nb d’appels, tous receveurs confondus (même hors projet)
+    private final Map<String, Map<String, Long>> rawCalls = new HashMap<>();
+    // receveur tel qu’extrait -> appelants ayant au moins un appel vers lui
+    private final Map<String, Set<String>> callersOf = new HashMap<>();
+    // sous-ensemble retenu pour le couplage : receveur résolu en une classe connue, distincte de l’appelant
+    private final Map<String, Map<String, Long>> calls = new HashMap<>();
+    private final Set<String> classNames = new TreeSet<>();
+    // pour les receveurs non résolus : paquetage de chaque classe, classes par nom simple
+    private final Map<String, String> packageOf = new HashMap<>();
+    private final Map<String, Set<String>> bySimpleName = new HashMap<>();
+    private long totalCalls;
+    private final SymbolTable symbols = SymbolTable.global();
+
+    /** Ajoute ou remplace la classe de même nom qualifié que {@code ci}. */
+    public void putClass(ClassInfo ci) {
+        String name = symbols.name(symbols.classId(ci));
+        removeClass(name);
+        classNames.add(name);
+        packageOf.put(name, ci.packageName);
+        bySimpleName.computeIfAbsent(CouplingMatrix.simpleName(name), k -> new HashSet<>()).add(name);
+
+        Map<String, Long> row = new HashMap<>();
+        for (MethodInfo m : ci.methods) {
+            for (MethodCallInfo mc : m.methodCalls) {
+                row.merge(symbols.name(symbols.receiverId(mc)), 1L, Long::sum);
+            }
+        }
+        rawCalls.put(name, row);
+        for (String receiver : row.keySet()) {
+            callersOf.computeIfAbsent(receiver, k -> new HashSet<>()).add(name);
+        }
+        recount(name);
+        // les appels déjà connus vers cette classe deviennent comptables (ou se résolvent autrement)
+        recountCallersOf(name);
+    }
+
+    /** Retire la classe de nom qualifié {@code name}. */
+    public void removeClass(String name) {
+        if (!classNames.remove(name)) return;
+
+        Map<String, Long> row = calls.remove(name);
+        if (row != null) {
+            for (long c : row.values()) totalCalls -= c;
+        }
+        Map<String, Long> raw = rawCalls.remove(name);
+        if (raw != null) {
+            for (String receiver : raw.keySet()) {
+                Set<String> callers = callersOf.get(receiver);
+                if (callers != null) {
+                    callers.remove(name);
+                    if (callers.isEmpty()) callersOf.remove(receiver);
+                }
+            }
+        }
+        packageOf.remove(name);
+        Set<String> same = bySimpleName.get(CouplingMatrix.simpleName(name));
+        same.remove(name);
+        if (same.isEmpty()) bySimpleName.remove(CouplingMatrix.simpleName(name));
+        recountCallersOf(name);
+    }
+
+    /**
+     * Appelants dont un receveur peut désigner {@code name} (a.Outer.Inner) : par son nom qualifié ou par
+     * l’un de ses suffixes (Outer.Inner, Inner), résolus depuis le paquetage de l’appelant.
+     */
+    private void recountCallersOf(String name) {
+        Set<String> callers = new HashSet<>(callersOf.getOrDefault(name, Set.of()));
+        for (int dot = name.indexOf('.'); dot >= 0; dot = name.indexOf('.', dot + 1)) {
+            callers.addAll(callersOf.getOrDefault(name.substring(dot + 1), Set.of()));
+        }
+        callers.addAll(callersOf.getOrDefault(CouplingMatrix.simpleName(name), Set.of()));
+        for (String caller : callers) {
+            if (classNames.contains(caller)) recount(caller);
+        }
+    }
+
+    /** Recalcule la ligne retenue de {@code caller} depuis ses appels bruts. */
+    private void recount(String caller) {
+        Map<String, Long> old = calls.remove(caller);
+        if (old != null) {
+            for (long c : old.values()) totalCalls -= c;
+        }
+        String pkg = packageOf.get(caller);
+        Map<String, Long> row = new HashMap<>();
+        for (var e : rawCalls.get(caller).entrySet()) {
+            String target = resolve(pkg, e.getKey());
+            if (target != null && !target.equals(caller)) {
+                row.merge(target, e.getValue(), Long::sum);
+                totalCalls += e.getValue();
+            }
+        }
+        if (!row.isEmpty()) calls.put(caller, row);
+    }
+
+    /** Classe connue désignée par {@code receiver} depuis le paquetage {@code pkg}, ou null. */
+    private String resolve(String pkg, String receiver) {
+        if (classNames.contains(receiver)) return receiver;
+        if (pkg != null && !pkg.equals(CouplingMatrix.DEFAULT_PACKAGE)) {
+            String inPackage = pkg + "." + receiver;
+            if (classNames.contains(inPackage)) return inPackage;
+        }
+        if (receiver.indexOf('.') >= 0) return null;
+        Set<String> same = bySimpleName.get(receiver);
+        return (same != null && same.size() == 1) ? same.iterator().next() : null;
+    }
+
+    public Set<String> classNames() {
+        return Collections.unmodifiableSet(classNames);
+    }
+
+    public long totalCalls() {
+        return totalCalls;
+    }
+
+    /** Appels de {@code from} vers {@code to} retenus pour le couplage. */
+    public long calls(String from, String to) {
+        Map<String, Long> row = calls.get(from);
+        Long c = (row == null) ? null : row.get(to);
+        return (c == null) ? 0 : c;
+    }
+
+    /** Copie figée des comptes courants, en O(classes + paires non nulles) ; classes triées par nom qualifié. */
+    public CouplingMatrix snapshot() {
+        List<String> names = new ArrayList<>(classNames);
+        Map<String, Integer> index = new HashMap<>(names.size() * 2);
+        for (int i = 0; i < names.size(); i++) index.put(names.get(i), i);
+
+        List<Map<Integer, Long>> rows = new ArrayList<>(names.size());
+        List<String> packages = new ArrayList<>(names.size());
+        for (String name : names) {
+            Map<Integer, Long> row = new HashMap<>();
+            for (var e : calls.getOrDefault(name, Map.of()).entrySet()) row.put(index.get(e.getKey()), e.getValue());
+            rows.add(row);
+            packages.add(packageOf.get(name));
+        }
+        return new CouplingMatrix(names, null, packages, rows);
+    }
+
+    /**
+     * Couplage normalisé (a→b + b→a) / total, une entrée par paire non nulle rangée sous la classe de plus petit nom qualifié ;
+     * chaque classe a une ligne (éventuellement vide) pour que les classes isolées restent visibles.
+     */
+    public Map<String, Map<String, Double>> weightedAdjacency() {
+        return snapshot().weightedAdjacency();
+    }
+}
@@ -0,0 +1,308 @@
+package org.example.coupling;
+
+import org.example.visitor.model.CallSiteTable;
+import org.example.visitor.model.ClassInfo;
+import org.example.visitor.model.SymbolTable;
+
+import java.util.*;
+
+/**
+ * Graphe d’appel au grain de la méthode, construit une fois depuis les sites d’appel ({@link CallSiteTable}) :
+ * « qui appelle cette méthode » et « qu’appelle-t-elle » se lisent ensuite dans des tableaux, sans repasser par
+ * les AST ni par le modèle.
+ *
+ * Sommet : une méthode d’une classe du projet, (classe, nom) ; les surcharges sont confondues, un site d’appel ne
+ * gardant que le nom de la méthode appelée (pas ses arguments). Classes indexées comme dans {@link CouplingMatrix}
+ * (même résolution des receveurs, nom qualifié en double ignoré) ; les sommets d’une classe se suivent, dans l’ordre
+ * de déclaration. Un site compte si son receveur est une classe du projet qui déclare une méthode de ce nom, appels
+ * dans la classe elle-même compris ; les autres sont seulement dénombrés ({@link #externalCalls},
+ * {@link #unresolvedCalls} : méthode héritée d’une classe hors projet, par exemple).
+ *
+ * Arcs en lignes compressées, dans les deux sens : pour chaque méthode, ses appelées (croissantes) et le nombre de
+ * sites correspondants, et de même ses appelantes. Immuable, donc partageable entre threads.
+ */
+public final class MethodCallGraph {
+
+    /** Appelante ou appelée d’une méthode, avec le nombre de sites d’appel entre les deux. */
+    public record Call(int method, String name, int sites) {
+    }
+
+    public interface EdgeConsumer {
+        void accept(int method, int sites);
+    }
+
+    private final List<String> classNames;   // noms affichés des classes (index de la matrice)
+    private final List<String> qualifiedNames;
+    private final int[] classStart;          // classe -> premier sommet (classes + 1 entrées)
+    private final int[] methodClass;         // sommet -> classe
+    private final int[] methodNameIds;       // sommet -> id du nom dans SymbolTable.global()
+    private final int[] byName;              // sommets de chaque classe, par id de nom croissant (appelée d’un site)
+    private final Map<String, Integer> indexOf; // « Classe.méthode », nom affiché ou qualifié -> sommet
+    private final int[] outStart, outTarget, outSites; // appelées
+    private final int[] inStart, inSource, inSites;    // appelantes
+    private final long callSites, externalCalls, unresolvedCalls;
+
+    private MethodCallGraph(List<String> qualifiedNames, int[] classStart, int[] methodClass, int[] methodNameIds,
+                            int[] byName, int[] outStart, int[] outTarget, int[] outSites, long callSites, long externalCalls, long unresolvedCalls) {
+        SymbolTable symbols = SymbolTable.global();
+        this.qualifiedNames = List.copyOf(qualifiedNames);
+        this.classNames = CouplingMatrix.displayNames(this.qualifiedNames);
+        this.classStart = classStart;
+        this.methodClass = methodClass;
+        this.methodNameIds = methodNameIds;
+        this.byName = byName;
+        this.outStart = outStart;
+        this.outTarget = outTarget;
+        this.outSites = outSites;
+        this.callSites = callSites;
+        this.externalCalls = externalCalls;
+        this.unresolvedCalls = unresolvedCalls;
+        int n = methodClass.length;
+
+        indexOf = new HashMap<>(n * 4);
+        for (int v = 0; v < n; v++) {
+            String method = symbols.name(methodNameIds[v]);
+            indexOf.putIfAbsent(this.qualifiedNames.get(methodClass[v]) + "." + method, v);
+            indexOf.putIfAbsent(classNames.get(methodClass[v]) + "." + method, v);
+        }
+
+        // transposée : les lignes sortantes sont parcourues par appelante croissante, les lignes entrantes le sont donc aussi
+        inStart = new int[n + 1];
+        for (int e = 0; e < outTarget.length; e++) inStart[outTarget[e] + 1]++;
+        for (int v = 0; v < n; v++) inStart[v + 1] += inStart[v];
+        inSource = new int[outTarget.length];
+        inSites = new int[outTarget.length];
+        int[] next = Arrays.copyOf(inStart, n);
+        for (int v = 0; v < n; v++) {
+            for (int e = outStart[v]; e < outStart[v + 1]; e++) {
+                int k = next[outTarget[e]]++;
+                inSource[k] = v;
+                inSites[k] = outSites[e];
+            }
+        }
+    }
+
+    /** O(méthodes + appels) : le modèle est mis en colonnes ({@link CallSiteTable}), puis lu en une passe. */
+    public static MethodCallGraph build(List<ClassInfo> classes) {
+        return build(CallSiteTable.of(classes));
+    }
+
+    /**
+     * Deux passes sur la table : les méthodes (sommets), puis les sites d’appel, dont l’appelée se trouve par
+     * dichotomie parmi les méthodes de la classe receveuse. Les arcs sont ensuite rangés par appelante (tri par
+     * comptage) ; les sites d’une même paire sont additionnés.
+     */
+    public static MethodCallGraph build(CallSiteTable calls) {
+        CouplingMatrix.ClassIndex classes = new CouplingMatrix.ClassIndex(calls);
+        int classCount = classes.size();
+
+        // sommets : les méthodes de chaque classe gardée se suivent dans la table, et les classes y sont dans l’ordre des index
+        int[] vertexOf = new int[calls.methodCount()]; // méthode de la table -> sommet, -1 : classe ignorée
+        int[] methodClass = new int[calls.methodCount()];
+        int[] methodNameIds = new int[calls.methodCount()];
+        int[] classStart = new int[classCount + 1];
+        Map<Integer, Integer> overloads = new HashMap<>(); // id du nom -> sommet, pour la classe en cours
+        int n = 0, current = -1;
+        for (int m = 0; m < calls.methodCount(); m++) {
+            int c = classes.rowOf(calls.methodClass(m));
+            if (c < 0) {
+                vertexOf[m] = -1;
+                continue;
+            }
+            if (c != current) {
+                overloads.clear();
+                current = c;
+            }
+            Integer known = overloads.putIfAbsent(calls.methodNameId(m), n);
+            if (known != null) {
+                vertexOf[m] = known;
+                continue;
+            }
+            methodClass[n] = c;
+            methodNameIds[n] = calls.methodNameId(m);
+            classStart[c + 1]++;
+            vertexOf[m] = n++;
+        }
+        for (int c = 0; c < classCount; c++) classStart[c + 1] += classStart[c];
+        methodClass = Arrays.copyOf(methodClass, n);
+        methodNameIds = Arrays.copyOf(methodNameIds, n);
+
+        // recherche de l’appelée : sommets de chaque classe triés par id de nom
+        // (id du nom, sommet) en un long : tri de chaque classe sans comparateur ni objet par méthode
+        long[] keys = new long[n];
+        for (int v = 0; v < n; v++) keys[v] = ((long) methodNameIds[v] << 32) | v;
+        for (int c = 0; c < classCount; c++) Arrays.sort(keys, classStart[c], classStart[c + 1]);
+        int[] byName = new int[n];
+        for (int v = 0; v < n; v++) byName[v] = (int) keys[v];
+
+        int[] from = new int[calls.size()];
+        int[] to = new int[calls.size()];
+        int edges = 0;
+        long external = 0, unresolved = 0;
+        for (int c = 0; c < calls.classCount(); c++) {
+            if (classes.rowOf(c) < 0) continue;
+            for (int k = calls.firstCall(c), end = calls.endCall(c); k < end; k++) {
+                int b = classes.resolve(calls.packageId(c), calls.receiver(k));
+                if (b < 0) {
+                    external++;
+                    continue;
+                }
+                int callee = lookup(byName, methodNameIds, classStart[b], classStart[b + 1], calls.methodName(k));
+                if (callee < 0) {
+                    unresolved++;
+                    continue;
+                }
+                from[edges] = vertexOf[calls.callerMethod(k)];
+                to[edges++] = callee;
+            }
+        }
+
+        // rangement par appelante (comptage), puis appelées triées et sites d’une même paire additionnés
+        int[] rowStart = new int[n + 1];
+        for (int e = 0; e < edges; e++) rowStart[from[e] + 1]++;
+        for (int v = 0; v < n; v++) rowStart[v + 1] += rowStart[v];
+        int[] targets = new int[edges];
+        int[] next = Arrays.copyOf(rowStart, n);
+        for (int e = 0; e < edges; e++) targets[next[from[e]]++] = to[e];
+
+        int[] outStart = new int[n + 1];
+        int[] outTarget = new int[edges];
+        int[] outSites = new int[edges];
+        int distinct = 0;
+        for (int v = 0; v < n; v++) {
+            Arrays.sort(targets, rowStart[v], rowStart[v + 1]);
+            for (int e = rowStart[v]; e < rowStart[v + 1]; e++) {
+                if (distinct > outStart[v] && outTarget[distinct - 1] == targets[e]) {
+                    outSites[distinct - 1]++;
+                } else {
+                    outTarget[distinct] = targets[e];
+                    outSites[distinct++] = 1;
+                }
+            }
+            outStart[v + 1] = distinct;
+        }
+        return new MethodCallGraph(classes.qualifiedNames, classStart, methodClass, methodNameIds, byName, outStart,
+                Arrays.copyOf(outTarget, distinct), Arrays.copyOf(outSites, distinct), edges, external, unresolved);
+    }
+
+    /** Sommet de nom {@code nameId} parmi byName[from, to) (une classe), par dichotomie ; -1 si absent. */
+    private static int lookup(int[] byName, int[] nameIds, int from, int to, int nameId) {
+        int lo = from, hi = to - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = Integer.compare(nameIds[byName[mid]], nameId);
+            if (cmp == 0) return byName[mid];
+            if (cmp < 0) lo = mid + 1;
+            else hi = mid - 1;
+        }
+        return -1;
+    }
+
+    /** Nombre de méthodes (sommets). */
+    public int size() {
+        return methodClass.length;
+    }
+
+    /** Nombre de paires (appelante, appelée) distinctes. */
+    public int edgeCount() {
+        return outTarget.length;
+    }
+
+    /** Sites d’appel rattachés à une appelée du projet (somme des sites de tous les arcs). */
+    public long callSites() {
+        return callSites;
+    }
+
+    /** Sites dont le receveur n’est pas une classe du projet. */
+    public long externalCalls() {
+        return externalCalls;
+    }
+
+    /** Sites dont la classe receveuse est du projet mais ne déclare aucune méthode de ce nom. */
+    public long unresolvedCalls() {
+        return unresolvedCalls;
+    }
+
+    /** « Classe.méthode », nom de classe affiché comme dans la matrice (simple s’il est unique). */
+    public String name(int method) {
+        return classNames.get(methodClass[method]) + "." + methodName(method);
+    }
+
+    /** « paquetage.Classe.méthode ». */
+    public String qualifiedName(int method) {
+        return qualifiedNames.get(methodClass[method]) + "." + methodName(method);
+    }
+
+    public String methodName(int method) {
+        return SymbolTable.global().name(methodNameIds[method]);
+    }
+
+    /** Index de la classe de la méthode (celui de {@link CouplingMatrix} pour le même modèle). */
+    public int classOf(int method) {
+        return methodClass[method];
+    }
+
+    /**
+     * Méthode {@code methodName} de la classe {@code c}, ou -1. O(log méthodes de la classe).
+     * Un nom jamais vu n’est pas ajouté à la table des symboles : les recherches ne la font pas grossir.
+     */
+    public int indexOf(int c, String methodName) {
+        int id = SymbolTable.global().lookup(methodName);
+        if (id == 0) return -1;
+        return lookup(byName, methodNameIds, classStart[c], classStart[c + 1], id);
+    }
+
+    /** Méthode « Classe.méthode » (nom de classe affiché ou qualifié), ou -1 si inconnue. */
+    public int find(String name) {
+        Integer v = (name == null) ? null : indexOf.get(name);
+        return (v == null) ? -1 : v;
+    }
+
+    /** Sites d’appel de {@code from} vers {@code to}. O(log appelées de from). */
+    public int sites(int from, int to) {
+        int k = Arrays.binarySearch(outTarget, outStart[from], outStart[from + 1], to);
+        return (k < 0) ? 0 : outSites[k];
+    }
+
+    public int calleeCount(int method) {
+        return outStart[method + 1] - outStart[method];
+    }
+
+    public int callerCount(int method) {
+        return inStart[method + 1] - inStart[method];
+    }
+
+    /** Appelées de la méthode, index croissants, sans allocation. */
+    public void forEachCallee(int method, EdgeConsumer consumer) {
+        for (int e = outStart[method]; e < outStart[method + 1]; e++) consumer.accept(outTarget[e], outSites[e]);
+    }
+
+    /** Appelantes de la méthode, index croissants, sans allocation. */
+    public void forEachCaller(int method, EdgeConsumer consumer) {
+        for (int e = inStart[method]; e < inStart[method + 1]; e++) consumer.accept(inSource[e], inSites[e]);
+    }
+
+    /** Ce qu’appelle la méthode ({@link #find}) ; vide si inconnue. */
+    public List<Call> callees(String name) {
+        int v = find(name);
+        return (v < 0) ? List.of() : callees(v);
+    }
+
+    public List<Call> callees(int method) {
+        List<Call> out = new ArrayList<>(calleeCount(method));
+        forEachCallee(method, (m, sites) -> out.add(new Call(m, name(m), sites)));
+        return out;
+    }
+
+    /** Qui appelle la méthode ({@link #find}) ; vide si inconnue. */
+    public List<Call> callers(String name) {
+        int v = find(name);
+        return (v < 0) ? List.of() : callers(v);
+    }
+
+    public List<Call> callers(int method) {
+        List<Call> out = new ArrayList<>(callerCount(method));
+        forEachCaller(method, (m, sites) -> out.add(new Call(m, name(m), sites)));
+        return out;
+    }
+}
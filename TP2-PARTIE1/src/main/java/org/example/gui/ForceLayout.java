@@ -0,0 +1,328 @@
+package org.example.gui;
+
+import java.util.*;
+
+/**
+ * Layout force-directed (Fruchterman-Reingold) du graphe des appels, et résolution des chevauchements de boîtes,
+ * sur des tableaux de coordonnées (indépendants de Swing).
+ *
+ *  - répulsion entre toutes les paires approchée par Barnes-Hut : un quadtree regroupe les nœuds et une cellule
+ *    assez lointaine (taille / distance &lt; θ) agit comme un seul nœud de masse égale à son nombre de nœuds,
+ *    placé à leur barycentre ; O(n log n) par itération au lieu de O(n²) ;
+ *  - poussée anti-chevauchement et résolution finale des boîtes via une grille spatiale : une paire ne peut se
+ *    toucher que si ses deux nœuds sont dans des cellules voisines, seules ces paires sont testées.
+ */
+final class ForceLayout {
+    /** Précision de Barnes-Hut : plus petit = plus exact (0 = toutes les paires). */
+    static final double THETA = 1.0;
+
+    private ForceLayout() {
+    }
+
+    /**
+     * Itérations force-directed à partir des positions données.
+     * @param extent taille de chaque boîte (max(largeur, hauteur)) : deux nœuds doivent rester à
+     *               (extent[a] + extent[b]) / 2 + margin l’un de l’autre
+     * @param neighbours voisins de chaque nœud (symétrique) et poids cumulés, pour l’attraction
+     * @param k distance idéale entre nœuds
+     * @param temp déplacement maximal à la première itération, multiplié par {@code cooling} à chaque itération
+     */
+    static void run(double[] x, double[] y, double[] extent, double margin,
+                    int[][] neighbours, double[][] neighbourWeights,
+                    double k, int iterations, double temp, double cooling) {
+        int n = x.length;
+        double[] fx = new double[n];
+        double[] fy = new double[n];
+        double maxExtent = 0;
+        for (double e : extent) maxExtent = Math.max(maxExtent, e);
+        double cell = maxExtent + margin; // distance minimale la plus grande possible entre deux nœuds
+
+        for (int it = 0; it < iterations; it++) {
+            // forces de répulsion (Barnes-Hut)
+            QuadTree tree = new QuadTree(x, y);
+            for (int i = 0; i < n; i++) tree.repulsion(i, k * k, fx, fy);
+
+            // forces d’attraction (voisins) : chaque paire est vue depuis ses deux extrémités
+            for (int v = 0; v < n; v++) {
+                int[] adj = neighbours[v];
+                for (int j = 0; j < adj.length; j++) {
+                    int u = adj[j];
+                    double w = 1.0 + Math.sqrt(neighbourWeights[v][j]); // plus le poids est grand, plus ça attire
+                    double dx = x[v] - x[u];
+                    double dy = y[v] - y[u];
+                    double dist = Math.sqrt(dx * dx + dy * dy) + 1e-6;
+                    double force = (dist * dist) / k;
+                    double ax = (dx / dist) * force * w * 0.5;
+                    double ay = (dy / dist) * force * w * 0.5;
+                    fx[v] -= ax; fy[v] -= ay;
+                    fx[u] += ax; fy[u] += ay;
+                }
+            }
+
+            // évite le chevauchement des boîtes (petit push si trop proches) : paires des cellules voisines
+            SpatialGrid grid = new SpatialGrid(x, y, cell, cell);
+            grid.forEachClosePair((a, b) -> {
+                double dx = x[b] - x[a];
+                double dy = y[b] - y[a];
+                double minDist = 0.5 * (extent[a] + extent[b]) + margin;
+                double d2 = dx * dx + dy * dy;
+                if (d2 < minDist * minDist) {
+                    double dist = Math.sqrt(d2) + 1e-6;
+                    double push = (minDist - dist) * 0.8;
+                    double ux = dx / dist, uy = dy / dist;
+                    fx[a] -= ux * push; fy[a] -= uy * push;
+                    fx[b] += ux * push; fy[b] += uy * push;
+                }
+            });
+
+            // intégration + refroidissement
+            for (int v = 0; v < n; v++) {
+                double disp = Math.sqrt(fx[v] * fx[v] + fy[v] * fy[v]);
+                if (disp > 0) {
+                    double step = Math.min(disp, temp);
+                    x[v] += (fx[v] / disp) * step;
+                    y[v] += (fy[v] / disp) * step;
+                }
+                fx[v] = 0;
+                fy[v] = 0;
+            }
+            temp *= cooling;
+            // refroidi : les itérations restantes déplaceraient chaque nœud de moins d’un pixel au total
+            if (temp / (1 - cooling) < 1.0) break;
+        }
+    }
+
+    /**
+     * Sépare les boîtes qui se chevauchent (demi-largeur {@code halfW}, demi-hauteur {@code halfH}, plus {@code pad}
+     * de chaque côté) par petits déplacements le long de l’axe le moins pénétré, passe après passe,
+     * jusqu’à ce qu’aucune paire ne se touche (ou {@code maxIterations} passes).
+     */
+    static void resolveOverlaps(double[] x, double[] y, double[] halfW, double[] halfH, double pad,
+                                int maxIterations, double stepCap) {
+        final double EPS = 1e-6;
+        double maxW = 0, maxH = 0;
+        for (int i = 0; i < x.length; i++) {
+            maxW = Math.max(maxW, 2 * (halfW[i] + pad));
+            maxH = Math.max(maxH, 2 * (halfH[i] + pad));
+        }
+
+        for (int it = 0; it < maxIterations; it++) {
+            int[] overlaps = {0};
+            // grille figée pour la passe : un nœud déplacé pendant la passe est re-classé à la suivante ;
+            // la dernière passe (aucun chevauchement, donc aucun déplacement) voit les positions exactes
+            SpatialGrid grid = new SpatialGrid(x, y, maxW, maxH);
+            grid.forEachClosePair((a, b) -> {
+                double ix = Math.min(x[a] + halfW[a], x[b] + halfW[b]) - Math.max(x[a] - halfW[a], x[b] - halfW[b]) + 2 * pad;
+                double iy = Math.min(y[a] + halfH[a], y[b] + halfH[b]) - Math.max(y[a] - halfH[a], y[b] - halfH[b]) + 2 * pad;
+                if (ix <= 0 || iy <= 0) return;
+                overlaps[0]++;
+
+                double dx = x[b] - x[a];
+                double dy = y[b] - y[a];
+                if (Math.abs(dx) < EPS && Math.abs(dy) < EPS) {
+                    // centres identiques : pousse faible pour briser la symétrie
+                    dx = 0.01; dy = -0.013;
+                }
+
+                // on pousse selon l’axe de plus petite correction, chacun de moitié, déplacement plafonné
+                double mx = 0, my = 0;
+                if (ix < iy) mx = (dx >= 0 ? ix : -ix) / 2.0;
+                else my = (dy >= 0 ? iy : -iy) / 2.0;
+                mx = Math.max(-stepCap, Math.min(stepCap, mx));
+                my = Math.max(-stepCap, Math.min(stepCap, my));
+
+                x[a] -= mx; y[a] -= my;
+                x[b] += mx; y[b] += my;
+            });
+            if (overlaps[0] == 0) break;
+        }
+    }
+
+    interface PairConsumer {
+        void accept(int a, int b);
+    }
+
+    /**
+     * Grille de cellules cellW × cellH : les nœuds d’une même cellule sont contigus dans {@code order}.
+     * Deux nœuds distants de moins d’une cellule sur chaque axe sont dans la même cellule ou dans deux cellules voisines.
+     */
+    static final class SpatialGrid {
+        private final int[] order;                                 // nœuds triés par cellule
+        private final Map<Long, int[]> cells = new HashMap<>();   // cellule -> {début, fin, cx, cy}
+
+        SpatialGrid(double[] x, double[] y, double cellW, double cellH) {
+            int n = x.length;
+            double w = Math.max(cellW, 1e-9), h = Math.max(cellH, 1e-9);
+            int[] cx = new int[n], cy = new int[n];
+            long[] cellOf = new long[n];
+            Integer[] idx = new Integer[n];
+            for (int i = 0; i < n; i++) {
+                cx[i] = (int) Math.floor(x[i] / w);
+                cy[i] = (int) Math.floor(y[i] / h);
+                cellOf[i] = key(cx[i], cy[i]);
+                idx[i] = i;
+            }
+            Arrays.sort(idx, (a, b) -> cellOf[a] != cellOf[b] ? Long.compare(cellOf[a], cellOf[b]) : Integer.compare(a, b));
+            order = new int[n];
+            for (int i = 0; i < n; i++) order[i] = idx[i];
+            for (int s = 0; s < n; ) {
+                int first = order[s], e = s;
+                while (e < n && cellOf[order[e]] == cellOf[first]) e++;
+                cells.put(cellOf[first], new int[]{s, e, cx[first], cy[first]});
+                s = e;
+            }
+        }
+
+        /**
+         * Clé unique de la cellule. La multiplication par une constante impaire est une bijection sur les long :
+         * elle ne crée pas de collision mais mélange les bits (Long.hashCode de (cx, cy) brut vaut cx ^ cy,
+         * identique sur toute une diagonale).
+         */
+        private static long key(int cx, int cy) {
+            return (((long) cx << 32) ^ (cy & 0xffffffffL)) * 0x9E3779B97F4A7C15L;
+        }
+
+        /** Chaque paire {a, b} de nœuds dans des cellules voisines (ou la même), une seule fois. */
+        void forEachClosePair(PairConsumer consumer) {
+            for (int[] here : cells.values()) {
+                // paires internes à la cellule
+                for (int i = here[0]; i < here[1]; i++) {
+                    for (int j = i + 1; j < here[1]; j++) consumer.accept(order[i], order[j]);
+                }
+                // cellules voisines « après » celle-ci (demi-voisinage : chaque paire de cellules vue une fois)
+                for (int[] d : HALF_NEIGHBOURHOOD) {
+                    int[] other = cells.get(key(here[2] + d[0], here[3] + d[1]));
+                    if (other == null) continue;
+                    for (int i = here[0]; i < here[1]; i++) {
+                        for (int j = other[0]; j < other[1]; j++) consumer.accept(order[i], order[j]);
+                    }
+                }
+            }
+        }
+
+        private static final int[][] HALF_NEIGHBOURHOOD = {{1, -1}, {1, 0}, {1, 1}, {0, 1}};
+    }
+
+    /**
+     * Quadtree de Barnes-Hut en tableaux : chaque cellule connaît le nombre de nœuds qu’elle contient
+     * et leur barycentre. Une feuille contient un seul nœud (ou plusieurs s’ils sont confondus).
+     */
+    static final class QuadTree {
+        private static final int MAX_DEPTH = 48;
+
+        private final double[] x, y;
+        private int size;
+        private double[] cellX, cellY, half;    // centre et demi-côté de la cellule
+        private double[] comX, comY, mass;       // barycentre et nombre de nœuds
+        private int[] child;                     // 4 enfants par cellule (-1 : absent)
+        private int[] body;                      // nœud d’une feuille (-1 : cellule interne)
+        private final int[] stack = new int[3 * MAX_DEPTH + 4]; // parcours en profondeur de repulsion
+
+        QuadTree(double[] x, double[] y) {
+            this.x = x;
+            this.y = y;
+            int n = x.length;
+            int capacity = Math.max(16, 4 * n);
+            cellX = new double[capacity]; cellY = new double[capacity]; half = new double[capacity];
+            comX = new double[capacity]; comY = new double[capacity]; mass = new double[capacity];
+            child = new int[4 * capacity];
+            body = new int[capacity];
+
+            double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+            double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < n; i++) {
+                minX = Math.min(minX, x[i]); maxX = Math.max(maxX, x[i]);
+                minY = Math.min(minY, y[i]); maxY = Math.max(maxY, y[i]);
+            }
+            if (n == 0) return;
+            double h = Math.max(maxX - minX, maxY - minY) / 2.0 + 1.0;
+            newCell((minX + maxX) / 2.0, (minY + maxY) / 2.0, h);
+            for (int i = 0; i < n; i++) insert(0, i, 0);
+        }
+
+        private int newCell(double cx, double cy, double h) {
+            if (size == half.length) grow();
+            int c = size++;
+            cellX[c] = cx; cellY[c] = cy; half[c] = h;
+            comX[c] = 0; comY[c] = 0; mass[c] = 0;
+            Arrays.fill(child, 4 * c, 4 * c + 4, -1);
+            body[c] = -1;
+            return c;
+        }
+
+        private void grow() {
+            int cap = half.length * 2;
+            cellX = Arrays.copyOf(cellX, cap); cellY = Arrays.copyOf(cellY, cap); half = Arrays.copyOf(half, cap);
+            comX = Arrays.copyOf(comX, cap); comY = Arrays.copyOf(comY, cap); mass = Arrays.copyOf(mass, cap);
+            child = Arrays.copyOf(child, 4 * cap);
+            body = Arrays.copyOf(body, cap);
+        }
+
+        private void insert(int c, int i, int depth) {
+            while (true) {
+                // barycentre mis à jour en descendant
+                double m = mass[c];
+                comX[c] = (comX[c] * m + x[i]) / (m + 1);
+                comY[c] = (comY[c] * m + y[i]) / (m + 1);
+                mass[c] = m + 1;
+
+                if (m == 0) { body[c] = i; return; }             // cellule vide : devient une feuille
+                if (depth >= MAX_DEPTH) return;                   // nœuds confondus : feuille multiple
+                if (body[c] >= 0) {                               // feuille : on redescend son nœud d’un niveau
+                    int old = body[c];
+                    body[c] = -1;
+                    int q = quadrant(c, old);
+                    int oc = childOrCreate(c, q);
+                    comX[oc] = x[old]; comY[oc] = y[old]; mass[oc] = 1; body[oc] = old;
+                }
+                c = childOrCreate(c, quadrant(c, i));
+                depth++;
+            }
+        }
+
+        private int quadrant(int c, int i) {
+            return (x[i] >= cellX[c] ? 1 : 0) + (y[i] >= cellY[c] ? 2 : 0);
+        }
+
+        private int childOrCreate(int c, int q) {
+            int existing = child[4 * c + q];
+            if (existing >= 0) return existing;
+            double h = half[c] / 2.0;
+            int nc = newCell(cellX[c] + ((q & 1) != 0 ? h : -h), cellY[c] + ((q & 2) != 0 ? h : -h), h);
+            child[4 * c + q] = nc; // après newCell : child a pu être réalloué
+            return nc;
+        }
+
+        /** Ajoute à (fx[i], fy[i]) la répulsion k²/d exercée sur le nœud i par tous les autres. */
+        void repulsion(int i, double k2, double[] fx, double[] fy) {
+            if (size == 0) return;
+            int top = 0;
+            stack[top++] = 0;
+            double sx = 0, sy = 0;
+            while (top > 0) {
+                int c = stack[--top];
+                double dx = x[i] - comX[c];
+                double dy = y[i] - comY[c];
+                double dist = Math.sqrt(dx * dx + dy * dy) + 1e-6; // pas Math.hypot : bien plus lent
+                boolean leaf = child[4 * c] < 0 && child[4 * c + 1] < 0 && child[4 * c + 2] < 0 && child[4 * c + 3] < 0;
+                if (leaf) {
+                    if (body[c] == i) continue; // i lui-même (et les nœuds confondus avec lui : pas de direction)
+                    double force = mass[c] * k2 / dist;
+                    sx += (dx / dist) * force;
+                    sy += (dy / dist) * force;
+                } else if (2 * half[c] / dist < THETA) {
+                    double force = mass[c] * k2 / dist;
+                    sx += (dx / dist) * force;
+                    sy += (dy / dist) * force;
+                } else {
+                    for (int q = 0; q < 4; q++) {
+                        int ch = child[4 * c + q];
+                        if (ch >= 0) stack[top++] = ch;
+                    }
+                }
+            }
+            fx[i] += sx;
+            fy[i] += sy;
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package org.example.gui;
 
+import org.example.clustering.AverageLinkageClustering;
+import org.example.clustering.ModuleIdentifier;
+
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import java.awt.*;
@@ -36,8 +39,22 @@ public class MainWindow extends JFrame {
     private JButton dendroZoomInBtn;
     private JButton dendroZoomOutBtn;
 
-    // Callback injecté depuis le main
+    // --- Onglet Classement ---
+    private static final String ALL_PAIRS = "(toutes les paires)";
+    private JComboBox<String> rankClass;
+    private JSpinner rankK;
+    private JLabel rankInfo;
+    private RankTableModel rankModel;
+
+    // Callbacks injectés depuis le main
     private BiConsumer<String, String> onCalculate;
+    private BiFunction<String, Integer, List<RankRow>> onRank;
+
+    // --- Barre d’état : étape de l’analyse en cours, avancement, annulation ---
+    private final JLabel statusLabel = new JLabel("Prêt");
+    private final JProgressBar progressBar = new JProgressBar();
+    private final JButton cancelBtn = new JButton("Annuler");
+    private Runnable onCancel;
 
     // --- Stockage des merges pour l’outil Modules ---
     private List<MergeStep> lastMerges = List.of();
@@ -57,6 +74,7 @@ public class MainWindow extends JFrame {
         tabs.addTab("Calcul",    buildCalcTab());
         tabs.addTab("Call Graph",buildCallGraphTab());
         tabs.addTab("Dendrogramme", buildDendrogramTab());
+        tabs.addTab("Classement", buildRankingTab());
         add(tabs, BorderLayout.CENTER);
 
         pack();
@@ -77,13 +95,65 @@ public class MainWindow extends JFrame {
             modelA.addElement(s);
             modelB.addElement(s);
         }
+        // conserve la sélection courante si la classe existe toujours (rafraîchissement en mode surveillance)
+        Object selA = inputA.getSelectedItem(), selB = inputB.getSelectedItem();
         inputA.setModel(modelA);
         inputB.setModel(modelB);
 
-        if (modelA.getSize() > 0) inputA.setSelectedIndex(0);
-        if (modelB.getSize() > 0) inputB.setSelectedIndex(modelB.getSize() > 1 ? 1 : 0);
+        if (selA != null && modelA.getIndexOf(selA) >= 0) inputA.setSelectedItem(selA);
+        else if (modelA.getSize() > 0) inputA.setSelectedIndex(0);
+        if (selB != null && modelB.getIndexOf(selB) >= 0) inputB.setSelectedItem(selB);
+        else if (modelB.getSize() > 0) inputB.setSelectedIndex(modelB.getSize() > 1 ? 1 : 0);
 
         updateCalcButtonEnabled();
+
+        DefaultComboBoxModel<String> modelRank = new DefaultComboBoxModel<>();
+        modelRank.addElement(ALL_PAIRS);
+        for (String s : classNames) modelRank.addElement(s);
+        Object selRank = rankClass.getSelectedItem();
+        rankClass.setModel(modelRank);
+        if (selRank != null && modelRank.getIndexOf(selRank) >= 0) rankClass.setSelectedItem(selRank);
+        refreshRanking();
+    }
+
+    /**
+     * Injecte le classement de l’onglet « Classement » : {@code (classe, k)} donne les k classes les plus couplées
+     * à la classe, ou les k paires les plus couplées du projet si la classe est null.
+     */
+    public void setOnRank(BiFunction<String, Integer, List<RankRow>> onRank) {
+        this.onRank = onRank;
+        refreshRanking();
+    }
+
+    /** Action du bouton « Annuler » de la barre d’état (null : pas d’analyse annulable en cours). */
+    public void setOnCancel(Runnable onCancel) {
+        this.onCancel = onCancel;
+        cancelBtn.setEnabled(onCancel != null);
+        cancelBtn.setVisible(onCancel != null);
+    }
+
+    /**
+     * Avancement de l’analyse dans la barre d’état : étape en cours et éléments traités
+     * ({@code total} < 0 : avancement inconnu, barre indéterminée). À appeler sur l’EDT.
+     */
+    public void showProgress(String stage, int done, int total) {
+        statusLabel.setText(stage + "…");
+        progressBar.setVisible(true);
+        progressBar.setIndeterminate(total < 0);
+        if (total >= 0) {
+            progressBar.setMaximum(Math.max(1, total));
+            progressBar.setValue(done);
+            progressBar.setString(done + " / " + total);
+        } else {
+            progressBar.setString(null);
+        }
+    }
+
+    /** Fin d’analyse (terminée, annulée ou en erreur) : message seul, barre et bouton « Annuler » masqués. */
+    public void showStatus(String text) {
+        statusLabel.setText(text);
+        progressBar.setVisible(false);
+        setOnCancel(null);
     }
 
     public void showResult(String text) {
@@ -96,6 +166,10 @@ public class MainWindow extends JFrame {
     }
 
 
+    /** Ligne du classement : paire (a, b), appels dans chaque sens et couplage. */
+    public record RankRow(String a, String b, long callsAB, long callsBA, double weight) {
+    }
+
     // Type simple pour pousser les fusions (si tu n’as pas déjà ClusteringResult.MergeStep)
     public static class MergeStep {
         public final java.util.Set<String> left, right;
@@ -123,22 +197,19 @@ public class MainWindow extends JFrame {
         for (String a : all)
             out.put(a, new LinkedHashMap<>());
 
-        // Normalisation symétrique (A,B) = (B,A) = somme positive
-        for (String a : all) {
-            // ici on cast explicitement, car getOrDefault perd le type
-            Map<String, ? extends Number> row =
-                    wadj.containsKey(a) ? wadj.get(a) : Collections.emptyMap();
-
-            for (String b : all) {
-                double ab = 0.0, ba = 0.0;
-
-                Number nab = (row != null) ? row.get(b) : null;
-                if (nab != null) ab = nab.doubleValue();
-
-                Map<String, ? extends Number> rowB =
-                        wadj.containsKey(b) ? wadj.get(b) : Collections.emptyMap();
+        // Normalisation symétrique (A,B) = (B,A) = somme positive.
+        // On ne parcourt que les entrées présentes (matrice creuse), pas toutes les paires.
+        for (var e : wadj.entrySet()) {
+            String a = e.getKey();
+            if (e.getValue() == null) continue;
+            for (var f : e.getValue().entrySet()) {
+                String b = f.getKey();
+                if (out.get(a).containsKey(b)) continue; // paire déjà traitée depuis l’autre sens
+
+                double ab = (f.getValue() == null) ? 0.0 : f.getValue().doubleValue();
+                Map<String, ? extends Number> rowB = wadj.get(b);
                 Number nba = (rowB != null) ? rowB.get(a) : null;
-                if (nba != null) ba = nba.doubleValue();
+                double ba = (nba != null) ? nba.doubleValue() : 0.0;
 
                 double w = Math.max(0.0, ab) + Math.max(0.0, ba);
                 if (w > 0.0) {
@@ -194,137 +265,24 @@ public class MainWindow extends JFrame {
         return root;
     }
 
-    // -----------------------------------------------------------------------------
-// Détection des modules par coupe horizontale du dendrogramme au seuil CP.
-// - On coupe toute arête parent->enfant dont le score ne passe pas le seuil.
-// - Les sous-arbres maximaux au-dessus du cut sont candidats.
-// - On filtre: moyenne intra (toutes paires, absentes=0) > CP.
-// - On limite à ≤ M/2 modules (M = nb de classes).
-// Hypothèse par défaut: score = similarité (plus grand = plus proche).
-// Si votre score est une distance (plus petit = plus proche), mettre isSimilarity=false.
-// -----------------------------------------------------------------------------
+    /**
+     * Modules par coupe du dendrogramme au seuil CP (voir {@link ModuleIdentifier}) : ensembles de noms de classes,
+     * du plus couplé au moins couplé.
+     */
     public static List<Set<String>> identifyCoupledGroups(
             List<MergeStep> merges,
             Map<String, Map<String, Double>> weights,
             double cp
     ) {
-        final boolean isSimilarity = true; // ← passe à false si ton score est une distance
-
         if (merges == null || merges.isEmpty()) return List.of();
+        List<AverageLinkageClustering.Merge> steps = new ArrayList<>(merges.size());
+        for (MergeStep m : merges) steps.add(new AverageLinkageClustering.Merge(m.left, m.right, m.score));
 
-        // 1) Construire l’arbre (dendrogramme) en rejouant les merges
-        _Node root = _buildTreeFromMerges(merges);
-
-        // 2) Sous-arbres maximaux au-dessus du "cut" CP
-        List<_Node> candidates = new ArrayList<>();
-        _collectByCut(root, cp, isSimilarity, candidates);
-
-        // 3) Filtre avgIntra > CP (toutes paires; paires absentes = 0)
-        List<_ModuleRec> kept = new ArrayList<>();
-        for (_Node n : candidates) {
-            if (n.leaves.size() < 2) continue;
-            double avg = _avgIntra(n.leaves, weights);
-            if (avg > cp) kept.add(new _ModuleRec(n.leaves, avg));
-        }
-        if (kept.isEmpty()) return List.of();
-
-        // 4) ≤ M/2 modules
-        int M = root.leaves.size();
-        int maxModules = Math.max(1, M / 2);
-
-        kept.sort((a, b) -> {
-            int c = Double.compare(b.avg, a.avg);
-            if (c != 0) return c;
-            c = Integer.compare(b.classes.size(), a.classes.size());
-            if (c != 0) return c;
-            return String.join(",", new TreeSet<>(a.classes))
-                    .compareTo(String.join(",", new TreeSet<>(b.classes)));
-        });
-        if (kept.size() > maxModules) kept = kept.subList(0, maxModules);
-
-        // 5) Sortie: sets de noms de classes
-        List<Set<String>> out = new ArrayList<>(kept.size());
-        for (_ModuleRec m : kept) out.add(m.classes);
+        List<Set<String>> out = new ArrayList<>();
+        for (ModuleIdentifier.Module m : ModuleIdentifier.identifyModules(steps, weights, cp)) out.add(m.classes());
         return out;
     }
 
-// ======== Implémentation interne (privée à MainWindow) ========
-
-    private static final class _ModuleRec {
-        final Set<String> classes; final double avg;
-        _ModuleRec(Set<String> c, double a) { classes = c; avg = a; }
-    }
-
-    private static final class _Node {
-        final Set<String> leaves;
-        final double height;   // score du merge qui crée ce nœud (feuille: 0)
-        final _Node left, right;
-        _Node(Set<String> leaves, double height, _Node left, _Node right) {
-            this.leaves = leaves; this.height = height; this.left = left; this.right = right;
-        }
-        boolean isLeaf() { return left == null && right == null; }
-    }
-
-    private static _Node _buildTreeFromMerges(List<MergeStep> merges) {
-        // feuilles observées
-        Set<String> all = new LinkedHashSet<>();
-        for (MergeStep m : merges) { all.addAll(m.left); all.addAll(m.right); }
-
-        Map<Set<String>, _Node> nodes = new HashMap<>();
-        for (String s : all) nodes.put(Set.of(s), new _Node(Set.of(s), 0.0, null, null));
-
-        for (MergeStep m : merges) {
-            _Node L = nodes.get(m.left);
-            _Node R = nodes.get(m.right);
-            if (L == null || R == null) {
-                // fallback si les Set ne sont pas la même instance
-                for (var e : nodes.entrySet()) {
-                    if (L == null && e.getKey().equals(m.left))  L = e.getValue();
-                    if (R == null && e.getKey().equals(m.right)) R = e.getValue();
-                }
-            }
-            Set<String> merged = new LinkedHashSet<>(m.left);
-            merged.addAll(m.right);
-            _Node parent = new _Node(merged, m.score, L, R);
-            nodes.put(merged, parent);
-        }
-
-        return nodes.values().stream()
-                .max(Comparator.comparingInt(n -> n.leaves.size()))
-                .orElseThrow();
-    }
-
-    private static void _collectByCut(_Node n, double cp, boolean isSimilarity, List<_Node> out) {
-        if (n == null || n.isLeaf()) return;
-        boolean pass = isSimilarity ? (n.height >= cp) : (n.height <= cp);
-        if (pass) { out.add(n); return; }   // sous-arbre maximal au-dessus du cut
-        _collectByCut(n.left,  cp, isSimilarity, out);
-        _collectByCut(n.right, cp, isSimilarity, out);
-    }
-
-    private static double _avgIntra(Set<String> S, Map<String, Map<String, Double>> weights) {
-        int n = S.size();
-        if (n < 2) return 0.0;
-        List<String> list = new ArrayList<>(S);
-        double sum = 0.0; int cnt = 0;
-        for (int i = 0; i < n; i++) {
-            String a = list.get(i);
-            for (int j = i + 1; j < n; j++) {
-                String b = list.get(j);
-                sum += _symWeight(a, b, weights);  // paires absentes = 0
-                cnt++;
-            }
-        }
-        return sum / cnt;
-    }
-
-    private static double _symWeight(String a, String b, Map<String, Map<String, Double>> W) {
-        // somme des 2 sens (comme tu fais ailleurs). Change en max/avg si besoin.
-        double ab = W.getOrDefault(a, Map.of()).getOrDefault(b, 0.0);
-        double ba = W.getOrDefault(b, Map.of()).getOrDefault(a, 0.0);
-        return Math.max(0.0, ab) + Math.max(0.0, ba);
-    }
-
     /** Graphe pondéré : Map<Classe, Map<Classe, Poids>> ; poids >= 0. */
     public void setWeightedCoupling(Map<String, ? extends Map<String, ? extends Number>> weightedAdjacency,
                                     boolean undirectedCombine) {
@@ -334,6 +292,18 @@ public class MainWindow extends JFrame {
         this.lastWeights = normalizeUndirected(weightedAdjacency);
     }
 
+    /**
+     * Rafraîchissement incrémental (mode surveillance) : le graphe garde les positions, le zoom et le pan
+     * des classes existantes ; seules les classes ajoutées sont placées, celles supprimées disparaissent.
+     */
+    public void updateWeightedCoupling(Map<String, ? extends Map<String, ? extends Number>> weightedAdjacency,
+                                       boolean undirectedCombine) {
+        if (graphPanel != null) {
+            graphPanel.updateWeightedGraph(weightedAdjacency, undirectedCombine);
+        }
+        this.lastWeights = normalizeUndirected(weightedAdjacency);
+    }
+
 
     public void setClusters(java.util.List<java.util.Set<String>> clusters) {
         if (graphPanel != null) graphPanel.setClusters(clusters);
@@ -407,6 +377,87 @@ public class MainWindow extends JFrame {
         return root;
     }
 
+    // --- UI interne (onglet "Classement") ---
+    private JComponent buildRankingTab() {
+        JPanel root = new JPanel(new BorderLayout(8, 8));
+        root.setBorder(new EmptyBorder(12, 12, 12, 12));
+
+        rankClass = new JComboBox<>(new String[]{ALL_PAIRS});
+        rankK = new JSpinner(new SpinnerNumberModel(50, 1, 100_000, 10));
+        ((JSpinner.DefaultEditor) rankK.getEditor()).getTextField().setColumns(6);
+        rankInfo = new JLabel("—");
+        rankModel = new RankTableModel();
+
+        JPanel row = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        row.add(labeledField("Classe", rankClass));
+        row.add(labeledField("k", rankK));
+        row.add(rankInfo);
+
+        JTable table = new JTable(rankModel);
+        table.setFillsViewportHeight(true);
+        table.setAutoCreateRowSorter(true);
+
+        rankClass.addActionListener(e -> refreshRanking());
+        rankK.addChangeListener(e -> refreshRanking());
+
+        root.add(row, BorderLayout.NORTH);
+        root.add(new JScrollPane(table), BorderLayout.CENTER);
+        return root;
+    }
+
+    private void refreshRanking() {
+        if (rankModel == null) return;
+        if (onRank == null) {
+            rankModel.setData(List.of());
+            rankInfo.setText("—");
+            return;
+        }
+        int k = ((Number) rankK.getValue()).intValue();
+        Object selected = rankClass.getSelectedItem();
+        String cls = (selected == null || ALL_PAIRS.equals(selected)) ? null : selected.toString();
+        List<RankRow> rows = onRank.apply(cls, k);
+        rankModel.setData(rows);
+        rankInfo.setText(cls == null
+                ? rows.size() + " paire(s) les plus couplées"
+                : rows.size() + " classe(s) les plus couplées à " + cls);
+    }
+
+    private static class RankTableModel extends javax.swing.table.AbstractTableModel {
+        private final String[] cols = {"#", "Classe A", "Classe B", "A → B", "B → A", "Couplage"};
+        private List<RankRow> data = List.of();
+
+        void setData(List<RankRow> d) {
+            this.data = d;
+            fireTableDataChanged();
+        }
+
+        @Override public int getRowCount() { return data.size(); }
+        @Override public int getColumnCount() { return cols.length; }
+        @Override public String getColumnName(int c) { return cols[c]; }
+
+        @Override
+        public Object getValueAt(int row, int col) {
+            RankRow r = data.get(row);
+            return switch (col) {
+                case 0 -> row + 1;
+                case 1 -> r.a();
+                case 2 -> r.b();
+                case 3 -> r.callsAB();
+                case 4 -> r.callsBA();
+                case 5 -> String.format("%.5f", r.weight());
+                default -> "";
+            };
+        }
+
+        @Override public Class<?> getColumnClass(int c) {
+            return switch (c) {
+                case 0 -> Integer.class;
+                case 3, 4 -> Long.class;
+                default -> String.class;
+            };
+        }
+    }
+
     private void updateCalcButtonEnabled() {
         boolean ok = onCalculate != null
                 && inputA != null && inputA.getSelectedItem() != null
@@ -462,7 +513,19 @@ public class MainWindow extends JFrame {
     private JToolBar buildToolbar() {
         JToolBar tb = new JToolBar();
         tb.setFloatable(false);
-        tb.add(new JLabel("Prêt"));
+        tb.add(statusLabel);
+        tb.addSeparator();
+        progressBar.setStringPainted(true);
+        progressBar.setMaximumSize(new Dimension(240, progressBar.getPreferredSize().height));
+        progressBar.setVisible(false);
+        tb.add(progressBar);
+        tb.addSeparator();
+        cancelBtn.setVisible(false);
+        cancelBtn.addActionListener(e -> {
+            cancelBtn.setEnabled(false);
+            if (onCancel != null) onCancel.run();
+        });
+        tb.add(cancelBtn);
         return tb;
     }
 
@@ -524,6 +587,25 @@ public class MainWindow extends JFrame {
         private static final double FD_NODE_MARGIN = 28;  // marge pour éviter les chevauchements de boîtes
         private static final double CURVE_BASE = 18;      // courbure de base des arêtes
 
+        // niveau de détail : en dessous de ces tailles à l’écran, on ne dessine pas
+        private static final double LOD_MIN_EDGE_PX = 0.25;  // arête (épaisseur) : les liens faibles disparaissent
+        private static final double LOD_MIN_TEXT_PX = 7;     // texte (hauteur de police) : noms et poids
+        private static final double LOD_MIN_ARROW_PX = 2;    // pointe de flèche
+        private static final double LOD_MIN_NODE_PX = 6;     // boîte : simple rectangle plein en dessous
+        private static final double MIN_ZOOM = 0.02, MAX_ZOOM = 5.0; // grands graphes : vue d’ensemble sans texte
+
+        // arêtes pré-calculées (null : à recalculer) et rendues en tuiles ; les nœuds sont dessinés à chaque repaint
+        private List<EdgeShape> edgeShapes = null;
+        private Map<Node, List<EdgeShape>> edgesByNode = new HashMap<>();
+        private final TileCache edgeTiles = new TileCache(this);
+
+        // sélection à la souris : index spatial des boîtes (null : à reconstruire), nœud en cours de déplacement
+        private NodeIndex nodeIndex = null;
+        private Node dragNode = null;
+        private int dragId = -1;
+        private boolean dragMoved = false;
+        private List<EdgeShape> liveEdges = List.of();   // arêtes du nœud déplacé, dessinées hors tuiles
+
 
         GraphPanel() {
             setOpaque(true);
@@ -532,8 +614,16 @@ public class MainWindow extends JFrame {
             addMouseListener(new MouseAdapter() {
                 @Override public void mousePressed(MouseEvent e) {
                     lastDrag = e.getPoint();
+                    // sur un nœud : on le déplace (ou on le sélectionne), sinon on déplace la vue
+                    dragNode = nodeAt(e.getPoint());
+                    dragMoved = false;
                 }
                 @Override public void mouseReleased(MouseEvent e) {
+                    if (dragNode != null) {
+                        if (dragMoved) endNodeDrag();
+                        else setHighlight(dragNode.name);
+                    }
+                    dragNode = null;
                     lastDrag = null;
                 }
             });
@@ -541,13 +631,24 @@ public class MainWindow extends JFrame {
                 @Override public void mouseDragged(MouseEvent e) {
                     if (lastDrag != null) {
                         Point p = e.getPoint();
-                        offsetX += (p.x - lastDrag.x);
-                        offsetY += (p.y - lastDrag.y);
+                        if (dragNode != null) {
+                            if (!dragMoved) startNodeDrag(dragNode);
+                            dragMoved = true;
+                            moveNode(dragNode, (p.x - lastDrag.x) / zoom, (p.y - lastDrag.y) / zoom);
+                        } else {
+                            offsetX += (p.x - lastDrag.x);
+                            offsetY += (p.y - lastDrag.y);
+                            repaint();
+                        }
                         lastDrag = p;
-                        repaint();
                     }
                 }
+                @Override public void mouseMoved(MouseEvent e) {
+                    setCursor(nodeAt(e.getPoint()) != null
+                            ? Cursor.getPredefinedCursor(Cursor.HAND_CURSOR) : Cursor.getDefaultCursor());
+                }
             });
+            ToolTipManager.sharedInstance().registerComponent(this);
             addMouseWheelListener(e -> {
                 // zoom autour du pointeur
                 double factor = (e.getWheelRotation() < 0) ? 1.15 : (1.0/1.15);
@@ -602,6 +703,59 @@ public class MainWindow extends JFrame {
 
         void setWeightedGraph(Map<String, ? extends Map<String, ? extends Number>> wadj,
                               boolean undirectedCombine) {
+            rebuildWeightedModel(wadj, undirectedCombine);
+
+            // 4) Layout + Fit
+            doLayoutAuto();
+            invalidateRendering();
+            fitToView();
+        }
+
+        /**
+         * Mise à jour incrémentale (mode surveillance) : même modèle que setWeightedGraph, mais les nœuds
+         * déjà présents gardent leur position, le zoom et le pan ne bougent pas. Un nouveau nœud est placé
+         * au barycentre de ses voisins déjà placés (sinon au centre du graphe), sans relancer le layout.
+         */
+        void updateWeightedGraph(Map<String, ? extends Map<String, ? extends Number>> wadj,
+                                 boolean undirectedCombine) {
+            if (nodes.isEmpty()) {
+                setWeightedGraph(wadj, undirectedCombine);
+                return;
+            }
+            Map<String, Point2D.Double> previous = new HashMap<>();
+            for (Node n : nodes) previous.put(n.name, new Point2D.Double(n.pos.x, n.pos.y));
+            Rectangle oldBounds = getGraphBounds();
+
+            rebuildWeightedModel(wadj, undirectedCombine);
+
+            Map<Node, List<Node>> neighbours = new HashMap<>();
+            for (Edge e : edges) {
+                neighbours.computeIfAbsent(e.from, k -> new ArrayList<>()).add(e.to);
+                neighbours.computeIfAbsent(e.to, k -> new ArrayList<>()).add(e.from);
+            }
+            int fresh = 0;
+            for (Node n : nodes) {
+                Point2D.Double p = previous.get(n.name);
+                if (p != null) {
+                    n.pos.setLocation(p);
+                    continue;
+                }
+                double sx = 0, sy = 0; int k = 0;
+                for (Node m : neighbours.getOrDefault(n, List.of())) {
+                    Point2D.Double q = previous.get(m.name);
+                    if (q != null) { sx += q.x; sy += q.y; k++; }
+                }
+                // petit décalage pour ne pas empiler plusieurs nouveaux nœuds au même point
+                double jitter = 30 + 12 * fresh++;
+                if (k > 0) n.pos.setLocation(sx / k + jitter, sy / k + jitter);
+                else n.pos.setLocation(oldBounds.getCenterX() + jitter, oldBounds.getCenterY() + jitter);
+            }
+            invalidateRendering();
+            repaint();
+        }
+
+        private void rebuildWeightedModel(Map<String, ? extends Map<String, ? extends Number>> wadj,
+                                          boolean undirectedCombine) {
             this.undirected = undirectedCombine;
 
             // 1) Normaliser : Map<String, Map<String, Double>> wmap
@@ -642,22 +796,33 @@ public class MainWindow extends JFrame {
             wMax = 0.0;
 
             if (undirected) {
-                // Une seule arête par paire (a,b) avec a<b ; poids = w(a→b)+w(b→a)
-                for (int i = 0; i < names.size(); i++) {
-                    String a = names.get(i);
-                    for (int j = i + 1; j < names.size(); j++) {
-                        String b = names.get(j);
-                        double wab = wmap.getOrDefault(a, Map.of()).getOrDefault(b, 0.0);
-                        double wba = wmap.getOrDefault(b, Map.of()).getOrDefault(a, 0.0);
-                        double w = wab + wba;
-                        if (w > 0.0) {
-                            Edge e = new Edge(byName.get(a), byName.get(b));
-                            e.directed = false; // non orienté => pas de flèche
-                            e.weight = w;
-                            edges.add(e);
-                            wMin = Math.min(wMin, w);
-                            wMax = Math.max(wMax, w);
-                        }
+                // Une seule arête par paire (a,b) avec a<b ; poids = w(a→b)+w(b→a).
+                // Seules les entrées présentes sont parcourues (pas toutes les paires), puis remises dans l’ordre (i, j).
+                Map<String, Integer> rank = new HashMap<>();
+                for (int i = 0; i < names.size(); i++) rank.put(names.get(i), i);
+                Map<Long, Double> pairs = new HashMap<>();
+                for (var row : wmap.entrySet()) {
+                    int ra = rank.get(row.getKey());
+                    for (var en : row.getValue().entrySet()) {
+                        int rb = rank.get(en.getKey());
+                        if (ra == rb) continue;
+                        long key = (long) Math.min(ra, rb) * names.size() + Math.max(ra, rb);
+                        pairs.merge(key, en.getValue(), Double::sum);
+                    }
+                }
+                List<Long> keys = new ArrayList<>(pairs.keySet());
+                Collections.sort(keys);
+                for (long key : keys) {
+                    String a = names.get((int) (key / names.size()));
+                    String b = names.get((int) (key % names.size()));
+                    double w = pairs.get(key);
+                    if (w > 0.0) {
+                        Edge e = new Edge(byName.get(a), byName.get(b));
+                        e.directed = false; // non orienté => pas de flèche
+                        e.weight = w;
+                        edges.add(e);
+                        wMin = Math.min(wMin, w);
+                        wMax = Math.max(wMax, w);
                     }
                 }
                 // adj pour le layout : on peut ne rien relier (force-directed n'en dépend pas),
@@ -687,10 +852,6 @@ public class MainWindow extends JFrame {
 
             if (!Double.isFinite(wMin)) wMin = 0.0;
             if (wMax <= wMin) wMax = wMin + 1.0;
-
-            // 4) Layout + Fit
-            doLayoutAuto();
-            fitToView();
         }
 
         private static String fmtWeight(double w) {
@@ -720,14 +881,114 @@ public class MainWindow extends JFrame {
 
             buildModel();
             doLayoutAuto();
+            invalidateRendering();
             fitToView(); // fit initial
         }
 
         void setHighlight(String name) {
+            String previous = this.highlight;
             this.highlight = name;
+            // seules les boîtes de l’ancien et du nouveau nœud surligné changent
+            FontMetrics fm = getFontMetrics(getFont());
+            for (Node n : nodes) {
+                if (n.name.equals(previous) || n.name.equals(name)) repaint(screenBounds(nodeBox(n, fm)));
+            }
+        }
+
+        /** Positions ou géométrie modifiées : arêtes à recalculer, tuiles à redessiner, index des nœuds à refaire. */
+        private void invalidateRendering() {
+            edgeShapes = null;
+            nodeIndex = null;
+            liveEdges = List.of();
+            dragNode = null;
+            for (Node n : nodes) n.size = null;
+            edgeTiles.invalidate();
+        }
+
+        @Override
+        public String getToolTipText(MouseEvent event) {
+            Node n = nodeAt(event.getPoint());
+            if (n == null) return null;
+            List<EdgeShape> incident = edgesByNode(getFontMetrics(getFont())).getOrDefault(n, List.of());
+            double total = 0;
+            for (EdgeShape s : incident) total += s.edge.weight;
+            return "<html><b>" + n.name + "</b><br>" + incident.size() + " lien(s), poids total " + fmtWeight(total) + "</html>";
+        }
+
+        /** Nœud sous le point (coordonnées écran), via l’index spatial ; null si aucun. */
+        private Node nodeAt(Point p) {
+            if (nodes.isEmpty()) return null;
+            double x = (p.x - Math.round(offsetX)) / zoom;
+            double y = (p.y - Math.round(offsetY)) / zoom;
+            int id = nodeIndex(getFontMetrics(getFont())).at(x, y);
+            return id < 0 ? null : nodes.get(id);
+        }
+
+        private NodeIndex nodeIndex(FontMetrics fm) {
+            if (nodeIndex == null) {
+                double meanWidth = 0;
+                for (Node n : nodes) meanWidth += boxOf(n, fm).width / (double) nodes.size();
+                nodeIndex = new NodeIndex(2 * meanWidth);
+                for (int i = 0; i < nodes.size(); i++) nodeIndex.put(i, nodeBox(nodes.get(i), fm));
+            }
+            return nodeIndex;
+        }
+
+        private Rectangle2D nodeBox(Node n, FontMetrics fm) {
+            Dimension d = boxOf(n, fm);
+            return new Rectangle2D.Double(n.pos.x - d.width / 2.0, n.pos.y - d.height / 2.0, d.width, d.height);
+        }
+
+        /** Début du glisser : les arêtes du nœud quittent les tuiles, elles seront dessinées à chaque repaint. */
+        private void startNodeDrag(Node n) {
+            FontMetrics fm = getFontMetrics(getFont());
+            dragId = nodes.indexOf(n);
+            liveEdges = edgesByNode(fm).getOrDefault(n, List.of());
+            for (EdgeShape s : liveEdges) {
+                s.live = true;
+                edgeTiles.invalidate(s.bounds);
+            }
+            repaint(screenBounds(dirtyRegion(n, fm)));
+        }
+
+        private void moveNode(Node n, double dx, double dy) {
+            FontMetrics fm = getFontMetrics(getFont());
+            Rectangle before = screenBounds(dirtyRegion(n, fm));
+            n.pos.x += dx;
+            n.pos.y += dy;
+            nodeIndex(fm).put(dragId, nodeBox(n, fm));
+            for (EdgeShape s : liveEdges) computeShape(s, fm);
+            // seules la zone quittée et la zone atteinte (nœud + ses arêtes) sont repeintes
+            repaint(before.union(screenBounds(dirtyRegion(n, fm))));
+        }
+
+        /** Fin du glisser : les arêtes retournent dans les tuiles, redessinées à leur nouvelle place. */
+        private void endNodeDrag() {
+            for (EdgeShape s : liveEdges) {
+                s.live = false;
+                edgeTiles.invalidate(s.bounds);
+            }
+            liveEdges = List.of();
             repaint();
         }
 
+        /** Zone du graphe occupée par un nœud et ses arêtes en cours de déplacement. */
+        private Rectangle2D dirtyRegion(Node n, FontMetrics fm) {
+            Rectangle2D r = nodeBox(n, fm);
+            for (EdgeShape s : liveEdges) r.add(s.bounds);
+            return r;
+        }
+
+        /** Rectangle du graphe converti en pixels écran (zoom et pan courants), marge d’antialiasing comprise. */
+        private Rectangle screenBounds(Rectangle2D world) {
+            Rectangle r = new Rectangle2D.Double(world.getX() * zoom + Math.round(offsetX), world.getY() * zoom + Math.round(offsetY),
+                    world.getWidth() * zoom, world.getHeight() * zoom).getBounds();
+            r.grow(2, 2);
+            return r;
+        }
+
+
+
         void fitToView() {
             if (nodes.isEmpty()) return;
             Rectangle bounds = getGraphBounds();
@@ -742,7 +1003,7 @@ public class MainWindow extends JFrame {
             int margin = 40;
             double sx = (vw - margin) / (double) bounds.width;
             double sy = (vh - margin) / (double) bounds.height;
-            zoom = Math.max(0.1, Math.min(sx, sy));
+            zoom = Math.max(MIN_ZOOM, Math.min(sx, sy));
 
             // centre
             double cx = bounds.getCenterX();
@@ -763,7 +1024,7 @@ public class MainWindow extends JFrame {
         }
 
         private void zoomAround(Point pivot, double factor) {
-            factor = Math.max(0.1, Math.min(5.0, zoom * factor)) / zoom;
+            factor = Math.max(MIN_ZOOM, Math.min(MAX_ZOOM, zoom * factor)) / zoom;
             // on ajuste offset pour zoomer autour du pivot (écran)
             offsetX = pivot.x - (pivot.x - offsetX) * factor;
             offsetY = pivot.y - (pivot.y - offsetY) * factor;
@@ -810,9 +1071,24 @@ public class MainWindow extends JFrame {
             int n = nodes.size();
             if (n == 0) return;
 
-            // Aire de travail (taille composant ou fallback)
+            // taille des boîtes, pour la poussée anti-chevauchement
+            FontMetrics fm = getFontMetrics(getFont());
+            double[] extent = new double[n];
+            double meanExtent = 0;
+            for (int i = 0; i < n; i++) {
+                Dimension d = measureNode(nodes.get(i).name, fm);
+                extent[i] = Math.max(d.width, d.height);
+                meanExtent += extent[i] / n;
+            }
+
+            // Aire de travail (taille composant ou fallback), agrandie si les boîtes n’y tiennent pas :
+            // sinon la poussée anti-chevauchement touche presque toutes les paires (fitToView remet à l’échelle)
             double W = Math.max(getWidth(), 800);
             double H = Math.max(getHeight(), 600);
+            double fit = meanExtent + FD_NODE_MARGIN;
+            double scale = Math.max(1.0, Math.sqrt(n * fit * fit / (W * H)));
+            W *= scale;
+            H *= scale;
             double area = W * H;
 
             // Distance idéale entre nœuds
@@ -822,99 +1098,43 @@ public class MainWindow extends JFrame {
             double R = Math.min(W, H) * 0.33;
             double cx = W / 2.0, cy = H / 2.0;
             Random rnd = new Random(42);
+            double[] x = new double[n], y = new double[n];
             for (int i = 0; i < n; i++) {
                 double a = 2 * Math.PI * i / n;
-                nodes.get(i).pos.setLocation(cx + R * Math.cos(a) + rnd.nextGaussian()*5,
-                        cy + R * Math.sin(a) + rnd.nextGaussian()*5);
-                nodes.get(i).vx = nodes.get(i).vy = 0;
+                x[i] = cx + R * Math.cos(a) + rnd.nextGaussian()*5;
+                y[i] = cy + R * Math.sin(a) + rnd.nextGaussian()*5;
             }
 
-            // Adjacence pour attractions (pondérées)
-            Map<Node, Map<Node, Double>> neigh = new LinkedHashMap<>();
-            for (Node u : nodes) neigh.put(u, new LinkedHashMap<>());
+            // Adjacence pour attractions (pondérées) ; en dirigé, on reste symétrique pour la géométrie
+            // (sinon les nœuds “fuient”)
+            Map<Node, Integer> index = new HashMap<>();
+            for (int i = 0; i < n; i++) index.put(nodes.get(i), i);
+            List<Map<Integer, Double>> neigh = new ArrayList<>();
+            for (int i = 0; i < n; i++) neigh.add(new LinkedHashMap<>());
             for (Edge e : edges) {
                 double w = Math.max(0.0, e.weight);
-                if (undirected || !e.directed) {
-                    neigh.get(e.from).merge(e.to, w, Double::sum);
-                    neigh.get(e.to).merge(e.from, w, Double::sum);
-                } else {
-                    // en dirigé, on reste symétrique pour la géométrie (sinon les nœuds “fuient”)
-                    neigh.get(e.from).merge(e.to, w, Double::sum);
-                    neigh.get(e.to).merge(e.from, w, Double::sum);
+                int f = index.get(e.from), t = index.get(e.to);
+                neigh.get(f).merge(t, w, Double::sum);
+                neigh.get(t).merge(f, w, Double::sum);
+            }
+            int[][] adj = new int[n][];
+            double[][] adjWeights = new double[n][];
+            for (int i = 0; i < n; i++) {
+                Map<Integer, Double> m = neigh.get(i);
+                adj[i] = new int[m.size()];
+                adjWeights[i] = new double[m.size()];
+                int j = 0;
+                for (var en : m.entrySet()) {
+                    adj[i][j] = en.getKey();
+                    adjWeights[i][j++] = en.getValue();
                 }
             }
 
-            // Itérations
+            // Itérations (répulsion Barnes-Hut, voir ForceLayout)
             int iters = FD_MAX_ITERS_BASE + (int) Math.min(300, 6L * n);
             double temp = Math.max(W, H) / 5.0;
-
-            for (int it = 0; it < iters; it++) {
-                // forces de répulsion (toutes paires)
-                for (int i = 0; i < n; i++) {
-                    Node v = nodes.get(i);
-                    double fx = 0, fy = 0;
-                    for (int j = 0; j < n; j++) if (j != i) {
-                        Node u = nodes.get(j);
-                        double dx = v.pos.x - u.pos.x;
-                        double dy = v.pos.y - u.pos.y;
-                        double dist = Math.hypot(dx, dy) + 1e-6;
-                        double force = (k * k) / dist; // répulsion
-                        fx += (dx / dist) * force;
-                        fy += (dy / dist) * force;
-                    }
-                    // stocke dans vx/vy temporairement
-                    v.vx = fx; v.vy = fy;
-                }
-
-                // forces d’attraction (voisins)
-                for (Node v : nodes) {
-                    for (var en : neigh.get(v).entrySet()) {
-                        Node u = en.getKey();
-                        double w = 1.0 + Math.sqrt(en.getValue()); // plus le poids est grand, plus ça attire
-                        double dx = v.pos.x - u.pos.x;
-                        double dy = v.pos.y - u.pos.y;
-                        double dist = Math.hypot(dx, dy) + 1e-6;
-                        double force = (dist * dist) / k; // attraction
-                        double fx = (dx / dist) * force * w * 0.5;
-                        double fy = (dy / dist) * force * w * 0.5;
-                        // appliquer en sens opposé pour u
-                        v.vx -= fx; v.vy -= fy;
-                        u.vx += fx; u.vy += fy;
-                    }
-                }
-
-                // évite chevauchement des boîtes (petit push si trop proches)
-                FontMetrics fm = getFontMetrics(getFont());
-                for (int i = 0; i < n; i++) {
-                    Node a = nodes.get(i);
-                    Dimension da = measureNode(a.name, fm);
-                    for (int j = i+1; j < n; j++) {
-                        Node b = nodes.get(j);
-                        Dimension db = measureNode(b.name, fm);
-                        double dx = b.pos.x - a.pos.x;
-                        double dy = b.pos.y - a.pos.y;
-                        double dist = Math.hypot(dx, dy) + 1e-6;
-                        double minDist = 0.5 * (Math.max(da.width, da.height) + Math.max(db.width, db.height)) + FD_NODE_MARGIN;
-                        if (dist < minDist) {
-                            double push = (minDist - dist) * 0.8;
-                            double ux = dx / dist, uy = dy / dist;
-                            a.vx -= ux * push; a.vy -= uy * push;
-                            b.vx += ux * push; b.vy += uy * push;
-                        }
-                    }
-                }
-
-                // intégration + refroidissement
-                for (Node v : nodes) {
-                    double disp = Math.hypot(v.vx, v.vy);
-                    if (disp > 0) {
-                        double step = Math.min(disp, temp);
-                        v.pos.x += (v.vx / disp) * step;
-                        v.pos.y += (v.vy / disp) * step;
-                    }
-                }
-                temp *= FD_COOLING;
-            }
+            ForceLayout.run(x, y, extent, FD_NODE_MARGIN, adj, adjWeights, k, iters, temp, FD_COOLING);
+            for (int i = 0; i < n; i++) nodes.get(i).pos.setLocation(x[i], y[i]);
 
             // recentrage
             double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
@@ -932,7 +1152,6 @@ public class MainWindow extends JFrame {
                 v.pos.y += (H / 2.0 - gy);
             }
 
-            FontMetrics fm = getFontMetrics(getFont());
             resolveOverlaps(fm);
         }
 
@@ -1052,6 +1271,12 @@ public class MainWindow extends JFrame {
             return bounds.getBounds();
         }
 
+        /** Taille du nœud, mesurée une fois (remise à null par invalidateRendering). */
+        private Dimension boxOf(Node n, FontMetrics fm) {
+            if (n.size == null) n.size = measureNode(n.name, fm);
+            return n.size;
+        }
+
         private Dimension measureNode(String text, FontMetrics fm) {
             int tw = fm.stringWidth(text);
             int th = fm.getHeight();
@@ -1064,43 +1289,105 @@ public class MainWindow extends JFrame {
             Graphics2D g2 = (Graphics2D) g.create();
             try {
                 g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+                Rectangle clip = g2.getClipBounds();
+                if (clip == null) clip = new Rectangle(0, 0, getWidth(), getHeight());
                 g2.setColor(getBackground());
-                g2.fillRect(0, 0, getWidth(), getHeight());
+                g2.fill(clip);
+
+                // origine arrondie au pixel : les tuiles d’arêtes et les nœuds restent alignés
+                int ox = (int) Math.round(offsetX), oy = (int) Math.round(offsetY);
+                FontMetrics fm = g2.getFontMetrics();
+                boolean text = fm.getHeight() * zoom >= LOD_MIN_TEXT_PX;
+
+                // dessine edges d’abord (couche statique, en tuiles)
+                List<EdgeShape> shapes = edgeShapes(fm);
+                edgeTiles.paint(g2, clip, zoom, ox, oy, (t, world) -> paintEdges(t, shapes, world, fm, text, false));
 
                 AffineTransform oldTx = g2.getTransform();
-                g2.translate(offsetX, offsetY);
+                g2.translate(ox, oy);
                 g2.scale(zoom, zoom);
+                Rectangle2D world = new Rectangle2D.Double((clip.x - ox) / zoom, (clip.y - oy) / zoom,
+                        clip.width / zoom, clip.height / zoom);
 
-                FontMetrics fm = g2.getFontMetrics();
+                // arêtes du nœud en cours de déplacement (hors tuiles)
+                paintEdges(g2, liveEdges, world, fm, text, true);
 
-                // dessine edges d’abord
-                g2.setStroke(new BasicStroke(1.2f));
-                g2.setColor(new Color(90, 90, 90));
-                for (Edge e : edges) {
-                    drawEdge(g2, e, fm);
-                }
-
-                // dessine nodes au-dessus
+                // dessine nodes au-dessus, seulement ceux de la zone à repeindre
                 for (Node n : nodes) {
+                    Dimension d = boxOf(n, fm);
+                    if (!world.intersects(n.pos.x - d.width / 2.0, n.pos.y - d.height / 2.0, d.width, d.height)) continue;
                     boolean hl = (highlight != null && highlight.equals(n.name));
-                    drawNode(g2, n, fm, hl);
+                    drawNode(g2, n, fm, hl, text);
                 }
 
                 g2.setTransform(oldTx);
 
                 // overlay info
                 g2.setColor(new Color(0,0,0,120));
-                g2.drawString("Pan: drag | Zoom: wheel | Fit: bouton", 10, getHeight() - 10);
+                g2.drawString("Pan: drag | Nœud: clic / drag | Zoom: wheel | Fit: bouton", 10, getHeight() - 10);
             } finally {
                 g2.dispose();
             }
         }
 
-        private void drawNode(Graphics2D g2, Node n, FontMetrics fm, boolean highlight) {
-            Dimension d = measureNode(n.name, fm);
+        private List<EdgeShape> edgeShapes(FontMetrics fm) {
+            if (edgeShapes == null) {
+                edgeShapes = new ArrayList<>(edges.size());
+                edgesByNode = new HashMap<>();
+                for (Edge e : edges) {
+                    EdgeShape shape = new EdgeShape(e);
+                    if (!computeShape(shape, fm)) continue;
+                    edgeShapes.add(shape);
+                    edgesByNode.computeIfAbsent(e.from, k -> new ArrayList<>()).add(shape);
+                    edgesByNode.computeIfAbsent(e.to, k -> new ArrayList<>()).add(shape);
+                }
+            }
+            return edgeShapes;
+        }
+
+        private Map<Node, List<EdgeShape>> edgesByNode(FontMetrics fm) {
+            edgeShapes(fm);
+            return edgesByNode;
+        }
+
+        /**
+         * Une tuile : les arêtes qui la recoupent et assez épaisses au zoom courant.
+         * {@code live} : arêtes en cours de déplacement (dessinées hors tuiles) ou toutes les autres.
+         */
+        private void paintEdges(Graphics2D g2, List<EdgeShape> shapes, Rectangle2D world, FontMetrics fm,
+                                boolean text, boolean live) {
+            g2.setColor(new Color(90, 90, 90));
+            Stroke labelStroke = new BasicStroke(1.2f);
+            double minStroke = LOD_MIN_EDGE_PX / zoom;
+            boolean arrows = 8 * zoom >= LOD_MIN_ARROW_PX;
+            for (EdgeShape s : shapes) {
+                if (s.live != live || s.strokeWidth < minStroke || !s.bounds.intersects(world)) continue;
+                g2.setStroke(s.stroke);
+                g2.draw(s.path);
+                if (s.arrow != null && arrows) g2.fill(s.arrow);
+                if (showEdgeLabels && text && s.label != null) {
+                    g2.setStroke(labelStroke);
+                    drawEdgeLabel(g2, s.label, s.labelX, s.labelY, fm);
+                }
+            }
+        }
+
+        private void drawNode(Graphics2D g2, Node n, FontMetrics fm, boolean highlight, boolean text) {
+            Dimension d = boxOf(n, fm);
             double x = n.pos.x - d.width / 2.0;
             double y = n.pos.y - d.height / 2.0;
-            Shape shape = new RoundRectangle(new Rectangle2D.Double(x, y, d.width, d.height), 12);
+            boolean tiny = d.height * zoom < LOD_MIN_NODE_PX;
+            Shape shape = tiny ? new Rectangle2D.Double(x, y, d.width, d.height)
+                               : new RoundRectangle(new Rectangle2D.Double(x, y, d.width, d.height), 12);
+            if (tiny) {
+                // vue d’ensemble : boîte pleine (teinte du cluster foncée pour rester visible sur le fond)
+                Integer cid = clusterIndex.get(n.name);
+                if (highlight) g2.setColor(new Color(230, 150, 30));
+                else if (showClusters && cid != null) g2.setColor(clusterColor(cid).darker());
+                else g2.setColor(new Color(60, 60, 80));
+                g2.fill(shape);
+                return;
+            }
 
             // remplissage
             if (highlight) {
@@ -1122,16 +1409,36 @@ public class MainWindow extends JFrame {
             g2.setStroke(new BasicStroke(1.4f));
             g2.draw(shape);
 
-            // texte
+            // texte (illisible en dessous de LOD_MIN_TEXT_PX : on ne le dessine pas)
+            if (!text) return;
             g2.setColor(new Color(30, 30, 30));
             int tx = (int) (x + (d.width - fm.stringWidth(n.name)) / 2.0);
             int ty = (int) (y + (d.height - fm.getHeight()) / 2.0 + fm.getAscent());
             g2.drawString(n.name, tx, ty);
         }
 
-        private void drawEdge(Graphics2D g2, Edge e, FontMetrics fm) {
-            Dimension dFrom = measureNode(e.from.name, fm);
-            Dimension dTo   = measureNode(e.to.name, fm);
+        /** Géométrie d’une arête en coordonnées du graphe : ne dépend ni du zoom ni du pan. */
+        private static final class EdgeShape {
+            final Edge edge;
+            boolean live;        // extrémité en cours de déplacement : dessinée hors tuiles
+            Path2D path;
+            Path2D arrow;        // null si non dirigée
+            String label;        // null si poids nul
+            int labelX, labelY;
+            float strokeWidth;
+            Stroke stroke;
+            Rectangle2D bounds;  // trait, flèche et étiquette compris
+
+            EdgeShape(Edge edge) {
+                this.edge = edge;
+            }
+        }
+
+        /** (Re)calcule la géométrie de l’arête ; false si ses extrémités sont confondues (géométrie inchangée). */
+        private boolean computeShape(EdgeShape shape, FontMetrics fm) {
+            Edge e = shape.edge;
+            Dimension dFrom = boxOf(e.from, fm);
+            Dimension dTo   = boxOf(e.to, fm);
 
             Point2D.Double p1 = new Point2D.Double(e.from.pos.x, e.from.pos.y);
             Point2D.Double p2 = new Point2D.Double(e.to.pos.x,   e.to.pos.y);
@@ -1139,7 +1446,7 @@ public class MainWindow extends JFrame {
             // direction
             double dx = p2.x - p1.x, dy = p2.y - p1.y;
             double len = Math.hypot(dx, dy);
-            if (len < 1e-6) return;
+            if (len < 1e-6) return false;
             double ux = dx / len, uy = dy / len;
             double ox = -uy, oy = ux; // vecteur perpendiculaire
 
@@ -1166,44 +1473,53 @@ public class MainWindow extends JFrame {
             double cy = (a.y + b.y)/2.0 + oy * amp * s;
 
             // épaisseur selon le poids
-            double strokeW = 0.8 + 3.2 * norm;
-            Stroke old = g2.getStroke();
-            g2.setStroke(new BasicStroke((float) strokeW, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
-            g2.setColor(new Color(90, 90, 90));
+            shape.strokeWidth = (float) (0.8 + 3.2 * norm);
+            shape.stroke = new BasicStroke(shape.strokeWidth, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND);
 
             // courbe quadratique
-            Path2D path = new Path2D.Double();
-            path.moveTo(a.x, a.y);
-            path.quadTo(cx, cy, b.x, b.y);
-            g2.draw(path);
+            shape.path = new Path2D.Double();
+            shape.path.moveTo(a.x, a.y);
+            shape.path.quadTo(cx, cy, b.x, b.y);
+            Rectangle2D bounds = shape.path.getBounds2D();
 
             // flèche seulement si dirigé : pointe orientée vers la tangente finale
+            shape.arrow = null;
             if (e.directed) {
                 // tangente au point d'arrivée : vecteur (b - ctrl)
                 double tx = b.x - cx, ty = b.y - cy;
                 double tlen = Math.hypot(tx, ty) + 1e-6;
                 tx /= tlen; ty /= tlen;
-                drawArrowHead(g2, b, new Point2D.Double(tx, ty), 8 + 4*norm, 8 + 4*norm);
+                shape.arrow = arrowHead(b, new Point2D.Double(tx, ty), 8 + 4*norm, 8 + 4*norm);
+                bounds.add(shape.arrow.getBounds2D());
             }
-            g2.setStroke(old);
 
             // étiquette
-            if (showEdgeLabels && e.weight > 0) {
-                String label = fmtWeight(e.weight);
-                drawEdgeLabel(g2, label, (int) cx, (int) cy, fm);
+            shape.label = null;
+            if (e.weight > 0) {
+                shape.label = fmtWeight(e.weight);
+                shape.labelX = (int) cx;
+                shape.labelY = (int) cy;
+                bounds.add(labelBox(shape.label, shape.labelX, shape.labelY, fm));
             }
+            double grow = shape.strokeWidth / 2.0 + 1;
+            shape.bounds = new Rectangle2D.Double(bounds.getX() - grow, bounds.getY() - grow,
+                    bounds.getWidth() + 2 * grow, bounds.getHeight() + 2 * grow);
+            return true;
+        }
 
+        private static Rectangle labelBox(String text, int x, int y, FontMetrics fm) {
+            int tw = fm.stringWidth(text);
+            int th = fm.getAscent();
+            int pad = 3;
+            return new Rectangle(x - tw/2 - pad, y - th/2 - pad, tw + 2*pad, th + 2*pad);
         }
 
 
         private void drawEdgeLabel(Graphics2D g2, String text, int x, int y, FontMetrics fm) {
+            Rectangle box = labelBox(text, x, y, fm);
             int tw = fm.stringWidth(text);
             int th = fm.getAscent();
-            int pad = 3;
-            int bx = x - tw/2 - pad;
-            int by = y - th/2 - pad;
-            int bw = tw + 2*pad;
-            int bh = th + 2*pad;
+            int bx = box.x, by = box.y, bw = box.width, bh = box.height;
 
             Color old = g2.getColor();
             g2.setColor(new Color(255,255,255,220));
@@ -1217,7 +1533,7 @@ public class MainWindow extends JFrame {
 
 
 
-        private void drawArrowHead(Graphics2D g2, Point2D.Double tip, Point2D.Double dir, double w, double h) {
+        private static Path2D arrowHead(Point2D.Double tip, Point2D.Double dir, double w, double h) {
             // dir est normalisée
             double ox = -dir.y;
             double oy =  dir.x;
@@ -1226,71 +1542,28 @@ public class MainWindow extends JFrame {
             path.lineTo(tip.x - dir.x * h + ox * w / 2.0, tip.y - dir.y * h + oy * w / 2.0);
             path.lineTo(tip.x - dir.x * h - ox * w / 2.0, tip.y - dir.y * h - oy * w / 2.0);
             path.closePath();
-            g2.fill(path);
+            return path;
         }
 
         // Résout les intersections de boîtes (labels compris) par petits déplacements.
         private void resolveOverlaps(FontMetrics fm) {
             final int MAX_ITERS = 250;          // augmente si graphe très dense
-            final double EPS = 1e-6;
             final double STEP_CAP = 12.0;       // déplacement max par itération (évite les sauts)
             final double PAD = 6.0;             // espace cible entre boîtes (en plus de FD_NODE_MARGIN)
 
-            for (int it = 0; it < MAX_ITERS; it++) {
-                int overlaps = 0;
-
-                for (int i = 0; i < nodes.size(); i++) {
-                    Node a = nodes.get(i);
-                    Rectangle2D ra = getNodeRect(a, fm, PAD);
-
-                    for (int j = i + 1; j < nodes.size(); j++) {
-                        Node b = nodes.get(j);
-                        Rectangle2D rb = getNodeRect(b, fm, PAD);
-
-                        if (!ra.intersects(rb)) continue;
-                        overlaps++;
-
-                        // vecteur de séparation (axe le plus pénétré)
-                        double axc = ra.getCenterX(), ayc = ra.getCenterY();
-                        double bxc = rb.getCenterX(), byc = rb.getCenterY();
-
-                        double dx = bxc - axc;
-                        double dy = byc - ayc;
-
-                        if (Math.abs(dx) < EPS && Math.abs(dy) < EPS) {
-                            // centres identiques : pousse aléa faible pour briser la symétrie
-                            dx = 0.01; dy = -0.013;
-                        }
-
-                        // profondeur d'intersection sur X et Y
-                        double ix = Math.min(ra.getMaxX(), rb.getMaxX()) - Math.max(ra.getMinX(), rb.getMinX());
-                        double iy = Math.min(ra.getMaxY(), rb.getMaxY()) - Math.max(ra.getMinY(), rb.getMinY());
-
-                        // on pousse selon l’axe de plus petite correction
-                        double mx, my;
-                        if (ix < iy) {
-                            mx = (dx >= 0 ? +ix/2.0 : -ix/2.0);
-                            my = 0.0;
-                        } else {
-                            mx = 0.0;
-                            my = (dy >= 0 ? +iy/2.0 : -iy/2.0);
-                        }
-
-                        // cap le déplacement
-                        mx = Math.max(-STEP_CAP, Math.min(STEP_CAP, mx));
-                        my = Math.max(-STEP_CAP, Math.min(STEP_CAP, my));
-
-                        // déplace à l’opposé chacun de moitié
-                        a.pos.x -= mx; a.pos.y -= my;
-                        b.pos.x += mx; b.pos.y += my;
-
-                        // MAJ rectangles pour éviter re-comparer avec anciens bounds
-                        ra = getNodeRect(a, fm, PAD);
-                        rb = getNodeRect(b, fm, PAD);
-                    }
-                }
-                if (overlaps == 0) break;
+            int n = nodes.size();
+            double[] x = new double[n], y = new double[n], halfW = new double[n], halfH = new double[n];
+            for (int i = 0; i < n; i++) {
+                Node v = nodes.get(i);
+                Dimension d = measureNode(v.name, fm);
+                x[i] = v.pos.x;
+                y[i] = v.pos.y;
+                halfW[i] = d.width / 2.0;
+                halfH[i] = d.height / 2.0;
             }
+            // seules les boîtes de cellules voisines peuvent se toucher (grille spatiale, voir ForceLayout)
+            ForceLayout.resolveOverlaps(x, y, halfW, halfH, PAD, MAX_ITERS, STEP_CAP);
+            for (int i = 0; i < n; i++) nodes.get(i).pos.setLocation(x[i], y[i]);
 
             // recentre tout le nuage après les déplacements
             double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
@@ -1316,17 +1589,10 @@ public class MainWindow extends JFrame {
         private static class Node {
             final String name;
             final Point2D.Double pos = new Point2D.Double();
-            double vx = 0, vy = 0; // ← pour le layout force-directed
+            Dimension size; // taille de la boîte, voir boxOf
             Node(String name) { this.name = name; }
         }
 
-        private Rectangle2D getNodeRect(Node n, FontMetrics fm, double pad) {
-            Dimension d = measureNode(n.name, fm);
-            double x = n.pos.x - d.width  / 2.0 - pad;
-            double y = n.pos.y - d.height / 2.0 - pad;
-            return new Rectangle2D.Double(x, y, d.width + 2*pad, d.height + 2*pad);
-        }
-
 
 
         private static class Edge {
@@ -0,0 +1,463 @@
+package org.example.report;
+
+import org.example.clustering.AverageLinkageClustering;
+import org.example.coupling.CouplingMatrix;
+import org.example.visitor.model.AttributeInfo;
+import org.example.visitor.model.ClassInfo;
+import org.example.visitor.model.MethodCallInfo;
+import org.example.visitor.model.MethodInfo;
+import org.example.visitor.model.SymbolTable;
+
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Instantané binaire d’une analyse (modèle, matrice de couplage, dendrogramme), rechargé sans relancer JDT ni Spoon.
+ * Même format dans les deux projets : un instantané écrit par l’un s’ouvre dans l’autre.
+ *
+ * <pre>
+ * en-tête (32 octets) : int magic "TP2S", int version, int projet, int front-end (index de chaînes),
+ *                       int position des sections classes, couplage, clustering, chaînes
+ * classes    : varint n ; par classe : nom, nom qualifié, paquetage, super-types, attributs (nom, visibilité),
+ *              méthodes (nom, lignes, paramètres, appels : méthode, (type receveur &lt;&lt; 1) | externe,
+ *              type receveur qualifié)
+ * couplage   : varint n, n noms qualifiés, n paquetages ; varint nb de paires ; par paire : a, b - a, appels a→b, appels b→a
+ * clustering : varint nb de fusions ; par fusion : cluster gauche, cluster droit, double score
+ *              (id &lt; n : la classe de même index dans la matrice ; sinon le cluster créé par la fusion id - n) ;
+ *              varint nb de clusters finaux ; par cluster : varint taille, index des classes
+ * chaînes    : varint n ; int[n + 1] positions ; UTF-8 concaténé (chaque chaîne une seule fois, index 0 = null)
+ * </pre>
+ * Entiers en varint LEB128 sauf l’en-tête et les positions de chaînes, de taille fixe pour l’accès direct.
+ *
+ * {@link #open} projette le fichier en mémoire et ne lit que l’en-tête : chaque section est décodée
+ * au premier appel de son accesseur, et chaque chaîne à sa première utilisation (une seule instance par chaîne).
+ * Les noms du modèle reçoivent leur id dans {@link SymbolTable#global()}, comme à l’extraction.
+ * Taille limitée à 2 Go (une seule projection).
+ */
+public final class AnalysisSnapshot {
+
+    static final int MAGIC = 0x54503253;   // "TP2S"
+    static final int VERSION = 3;
+    private static final int HEADER_SIZE = 32;
+
+    private final ByteBuffer buffer;
+    private final int classesAt, couplingAt, clusteringAt;
+    private final int stringCount, stringOffsetsAt, stringDataAt;
+    private final String[] strings;
+    private final int[] symbolIds;   // chaîne de l’instantané -> id dans SymbolTable.global() (0 : pas encore résolu)
+    private final String project, frontEnd;
+
+    private List<ClassInfo> classes;
+    private CouplingMatrix matrix;
+    private AverageLinkageClustering.Result clustering;
+
+    private AnalysisSnapshot(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) throw new IOException("Pas un instantané d’analyse");
+        int version = buffer.getInt(4);
+        if (version != VERSION) throw new IOException("Version d’instantané non prise en charge : " + version);
+        classesAt = section(buffer.getInt(16));
+        couplingAt = section(buffer.getInt(20));
+        clusteringAt = section(buffer.getInt(24));
+
+        ByteBuffer in = at(section(buffer.getInt(28)));
+        stringCount = (int) readVarLong(in);
+        stringOffsetsAt = in.position();
+        stringDataAt = stringOffsetsAt + 4 * (stringCount + 1);
+        if (stringDataAt < 0 || stringDataAt > buffer.limit()) throw new IOException("Instantané tronqué (chaînes)");
+        strings = new String[stringCount];
+        symbolIds = new int[stringCount];
+        project = string(buffer.getInt(8));
+        frontEnd = string(buffer.getInt(12));
+    }
+
+    /** Projection en lecture seule ; seul l’en-tête est lu ici. */
+    public static AnalysisSnapshot open(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (ch.size() > Integer.MAX_VALUE) throw new IOException("Instantané trop volumineux : " + file);
+            // la projection reste valide après la fermeture du canal
+            return new AnalysisSnapshot(ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size()));
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IOException("Instantané tronqué : " + file, e);
+        }
+    }
+
+    public String project() {
+        return project;
+    }
+
+    /** « jdt » ou « spoon » : front-end ayant produit le modèle. */
+    public String frontEnd() {
+        return frontEnd;
+    }
+
+    public synchronized List<ClassInfo> classes() {
+        if (classes == null) classes = decode(this::readClasses);
+        return classes;
+    }
+
+    public synchronized CouplingMatrix matrix() {
+        if (matrix == null) matrix = decode(this::readCoupling);
+        return matrix;
+    }
+
+    /** Fusions et clusters finaux, identiques (membres et ordre) au résultat enregistré. */
+    public synchronized AverageLinkageClustering.Result clustering() {
+        if (clustering == null) clustering = decode(this::readClustering);
+        return clustering;
+    }
+
+    // ---------------------- Écriture ----------------------
+
+    /** Écriture atomique (fichier temporaire puis renommage), comme le cache de parsing. */
+    public static void write(Path file, String project, String frontEnd, List<ClassInfo> classes,
+                             CouplingMatrix matrix, AverageLinkageClustering.Result clustering) throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        if (dir != null) Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, "snapshot", ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(ch), 1 << 16));
+            StringTable table = new StringTable();
+            out.write(new byte[HEADER_SIZE]);
+
+            int classesAt = out.size();
+            writeClasses(out, classes, table);
+            int couplingAt = out.size();
+            writeCoupling(out, matrix, table);
+            int clusteringAt = out.size();
+            writeClustering(out, matrix, clustering);
+            int projectId = table.id(project), frontEndId = table.id(frontEnd);
+            int stringsAt = out.size();
+            table.write(out);
+            out.flush();
+            // DataOutputStream.size() sature à Integer.MAX_VALUE
+            if (out.size() == Integer.MAX_VALUE) throw new IOException("Instantané trop volumineux (2 Go maximum)");
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                    .putInt(MAGIC).putInt(VERSION).putInt(projectId).putInt(frontEndId)
+                    .putInt(classesAt).putInt(couplingAt).putInt(clusteringAt).putInt(stringsAt);
+            header.flip();
+            while (header.hasRemaining()) ch.write(header, header.position());
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void writeClasses(DataOutput out, List<ClassInfo> classes, StringTable table) throws IOException {
+        writeVarLong(out, classes.size());
+        for (ClassInfo ci : classes) {
+            writeVarLong(out, table.id(ci.className));
+            writeVarLong(out, table.id(ci.qualifiedName));
+            writeVarLong(out, table.id(ci.packageName));
+            writeVarLong(out, ci.superClassNames.size());
+            for (String sup : ci.superClassNames) writeVarLong(out, table.id(sup));
+            writeVarLong(out, ci.attributes.size());
+            for (AttributeInfo a : ci.attributes) {
+                writeVarLong(out, table.id(a.name));
+                writeVarLong(out, table.id(a.visibility));
+            }
+            writeVarLong(out, ci.methods.size());
+            for (MethodInfo m : ci.methods) {
+                writeVarLong(out, table.id(m.name));
+                writeVarLong(out, Integer.toUnsignedLong(m.lineCount));
+                writeVarLong(out, Integer.toUnsignedLong(m.paramsCount));
+                writeVarLong(out, m.methodCalls.size());
+                for (MethodCallInfo call : m.methodCalls) {
+                    writeVarLong(out, table.id(call.methodName));
+                    writeVarLong(out, ((long) table.id(call.receiverType) << 1) | (call.externalType ? 1 : 0));
+                    writeVarLong(out, table.id(call.receiverQualifiedType));
+                }
+            }
+        }
+    }
+
+    private static void writeCoupling(DataOutput out, CouplingMatrix matrix, StringTable table) throws IOException {
+        writeVarLong(out, matrix.size());
+        for (String name : matrix.qualifiedNames()) writeVarLong(out, table.id(name));
+        for (String pkg : matrix.packageNames()) writeVarLong(out, table.id(pkg));
+        writeVarLong(out, matrix.pairCount());
+        IOException[] failure = {null};
+        matrix.forEachPair((a, b, calls, w) -> {
+            if (failure[0] != null) return;
+            try {
+                writeVarLong(out, a);
+                writeVarLong(out, b - a);
+                writeVarLong(out, matrix.calls(a, b));
+                writeVarLong(out, matrix.calls(b, a));
+            } catch (IOException e) {
+                failure[0] = e;
+            }
+        });
+        if (failure[0] != null) throw failure[0];
+    }
+
+    /**
+     * Chaque fusion réunit deux clusters existants : on les désigne par leur numéro (union-find sur les classes)
+     * au lieu de répéter leurs membres, soit O(fusions) au lieu de O(somme des tailles).
+     */
+    private static void writeClustering(DataOutput out, CouplingMatrix matrix, AverageLinkageClustering.Result clustering)
+            throws IOException {
+        int n = matrix.size();
+        int[] parent = new int[n], size = new int[n], clusterId = new int[n];
+        for (int i = 0; i < n; i++) {
+            parent[i] = i;
+            size[i] = 1;
+            clusterId[i] = i;
+        }
+
+        List<AverageLinkageClustering.Merge> merges = clustering.merges();
+        writeVarLong(out, merges.size());
+        for (int step = 0; step < merges.size(); step++) {
+            AverageLinkageClustering.Merge m = merges.get(step);
+            int l = root(parent, indexOf(matrix, m.left().iterator().next()));
+            int r = root(parent, indexOf(matrix, m.right().iterator().next()));
+            if (l == r || size[l] != m.left().size() || size[r] != m.right().size()) {
+                throw new IllegalArgumentException("Fusion " + (step + 1) + " incohérente avec les précédentes");
+            }
+            writeVarLong(out, clusterId[l]);
+            writeVarLong(out, clusterId[r]);
+            out.writeDouble(m.score());
+            parent[r] = l;
+            size[l] += size[r];
+            clusterId[l] = n + step;
+        }
+
+        writeVarLong(out, clustering.clusters().size());
+        for (Set<String> cluster : clustering.clusters()) {
+            writeVarLong(out, cluster.size());
+            for (String name : cluster) writeVarLong(out, indexOf(matrix, name));
+        }
+    }
+
+    private static int indexOf(CouplingMatrix matrix, String name) {
+        int i = matrix.indexOf(name);
+        if (i < 0) throw new IllegalArgumentException("Classe absente de la matrice : " + name);
+        return i;
+    }
+
+    private static int root(int[] parent, int i) {
+        while (parent[i] != i) i = parent[i] = parent[parent[i]];
+        return i;
+    }
+
+    /** Chaque chaîne une seule fois ; index 0 réservé à null. */
+    private static final class StringTable {
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<String> values = new ArrayList<>(List.of(""));
+
+        int id(String s) {
+            if (s == null) return 0;
+            return ids.computeIfAbsent(s, k -> {
+                values.add(k);
+                return values.size() - 1;
+            });
+        }
+
+        void write(DataOutput out) throws IOException {
+            List<byte[]> bytes = new ArrayList<>(values.size());
+            for (String s : values) bytes.add(s.getBytes(StandardCharsets.UTF_8));
+            writeVarLong(out, values.size());
+            int offset = 0;
+            for (byte[] b : bytes) {
+                out.writeInt(offset);
+                offset += b.length;
+            }
+            out.writeInt(offset);
+            for (byte[] b : bytes) out.write(b);
+        }
+    }
+
+    // ---------------------- Lecture ----------------------
+
+    private interface Decoder<T> {
+        T decode() throws IOException;
+    }
+
+    /** Les sections sont décodées après {@link #open} : un fichier corrompu se signale alors en exception non vérifiée. */
+    private static <T> T decode(Decoder<T> decoder) {
+        try {
+            return decoder.decode();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new UncheckedIOException(new IOException("Instantané tronqué ou corrompu", e));
+        }
+    }
+
+    private List<ClassInfo> readClasses() throws IOException {
+        ByteBuffer in = at(classesAt);
+        SymbolTable symbols = SymbolTable.global();
+        int count = count(in);
+        List<ClassInfo> out = new ArrayList<>(count);
+        for (int c = 0; c < count; c++) {
+            ClassInfo ci = new ClassInfo();
+            ci.classNameId = symbol((int) readVarLong(in));
+            ci.className = symbols.name(ci.classNameId);
+            ci.qualifiedNameId = symbol((int) readVarLong(in));
+            ci.qualifiedName = symbols.name(ci.qualifiedNameId);
+            ci.packageNameId = symbol((int) readVarLong(in));
+            ci.packageName = symbols.name(ci.packageNameId);
+            for (int i = count(in); i > 0; i--) ci.superClassNames.add(string(in));
+            for (int i = count(in); i > 0; i--) {
+                AttributeInfo a = new AttributeInfo();
+                a.name = string(in);
+                a.visibility = string(in);
+                ci.attributes.add(a);
+            }
+            for (int i = count(in); i > 0; i--) {
+                MethodInfo m = new MethodInfo();
+                m.name = string(in);
+                m.lineCount = (int) readVarLong(in);
+                m.paramsCount = (int) readVarLong(in);
+                int calls = count(in);
+                m.methodCalls = new ArrayList<>(calls);
+                for (int k = 0; k < calls; k++) {
+                    MethodCallInfo call = new MethodCallInfo();
+                    call.methodNameId = symbol((int) readVarLong(in));
+                    call.methodName = symbols.name(call.methodNameId);
+                    long receiver = readVarLong(in);
+                    call.receiverTypeId = symbol((int) (receiver >>> 1));
+                    call.receiverType = symbols.name(call.receiverTypeId);
+                    call.externalType = (receiver & 1) != 0;
+                    call.receiverQualifiedTypeId = symbol((int) readVarLong(in));
+                    call.receiverQualifiedType = symbols.name(call.receiverQualifiedTypeId);
+                    m.methodCalls.add(call);
+                }
+                ci.methods.add(m);
+            }
+            out.add(ci);
+        }
+        return out;
+    }
+
+    private CouplingMatrix readCoupling() throws IOException {
+        ByteBuffer in = at(couplingAt);
+        int n = count(in);
+        List<String> names = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) names.add(string(in));
+        List<String> packages = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) packages.add(string(in));
+        long pairs = readVarLong(in);
+        int pairsAt = in.position();
+
+        // première passe : taille de chaque ligne, pour créer les tables à la bonne capacité (pas de rehash)
+        int[] degree = new int[n];
+        for (long p = pairs; p > 0; p--) {
+            int a = (int) readVarLong(in);
+            int b = a + (int) readVarLong(in);
+            if (readVarLong(in) > 0) degree[a]++;
+            if (readVarLong(in) > 0) degree[b]++;
+        }
+        List<Map<Integer, Long>> rows = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) rows.add(new HashMap<>(degree[i] * 4 / 3 + 1));
+
+        in.position(pairsAt);
+        for (long p = pairs; p > 0; p--) {
+            int a = (int) readVarLong(in);
+            int b = a + (int) readVarLong(in);
+            long ab = readVarLong(in), ba = readVarLong(in);
+            if (ab > 0) rows.get(a).put(b, ab);
+            if (ba > 0) rows.get(b).put(a, ba);
+        }
+        return CouplingMatrix.of(names, packages, rows);
+    }
+
+    /** Le cluster créé par une fusion est gauche puis droite (ordre des moteurs) ; il est partagé par les fusions suivantes. */
+    private AverageLinkageClustering.Result readClustering() throws IOException {
+        CouplingMatrix m = matrix();
+        int n = m.size();
+        ByteBuffer in = at(clusteringAt);
+        int count = count(in);
+        List<Set<String>> sets = new ArrayList<>(n + count);
+        for (int i = 0; i < n; i++) sets.add(Collections.singleton(m.name(i)));
+
+        List<AverageLinkageClustering.Merge> merges = new ArrayList<>(count);
+        for (int step = 0; step < count; step++) {
+            Set<String> left = sets.get((int) readVarLong(in));
+            Set<String> right = sets.get((int) readVarLong(in));
+            merges.add(new AverageLinkageClustering.Merge(left, right, in.getDouble()));
+            Set<String> merged = new LinkedHashSet<>(left);
+            merged.addAll(right);
+            sets.add(Collections.unmodifiableSet(merged));
+        }
+
+        int clusterCount = count(in);
+        List<Set<String>> clusters = new ArrayList<>(clusterCount);
+        for (int c = 0; c < clusterCount; c++) {
+            Set<String> cluster = new LinkedHashSet<>();
+            for (int i = count(in); i > 0; i--) cluster.add(m.name((int) readVarLong(in)));
+            clusters.add(cluster);
+        }
+        return new AverageLinkageClustering.Result(clusters, merges);
+    }
+
+    private ByteBuffer at(int position) {
+        return buffer.duplicate().position(position);
+    }
+
+    private int section(int position) throws IOException {
+        if (position < HEADER_SIZE || position > buffer.limit()) throw new IOException("Instantané tronqué (en-tête)");
+        return position;
+    }
+
+    private String string(ByteBuffer in) throws IOException {
+        return string((int) readVarLong(in));
+    }
+
+    private String string(int id) throws IOException {
+        if (id < 0 || id >= stringCount) throw new IOException("Index de chaîne invalide : " + id);
+        if (id == 0) return null;
+        String s = strings[id];
+        if (s == null) {
+            int start = buffer.getInt(stringOffsetsAt + 4 * id);
+            int end = buffer.getInt(stringOffsetsAt + 4 * (id + 1));
+            byte[] bytes = new byte[end - start];
+            buffer.get(stringDataAt + start, bytes);
+            s = strings[id] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return s;
+    }
+
+    /** Id dans la table des symboles de la chaîne {@code id} de l’instantané (un seul décodage par chaîne). */
+    private int symbol(int id) throws IOException {
+        String s = string(id);
+        if (s == null) return 0;
+        if (symbolIds[id] == 0) symbolIds[id] = SymbolTable.global().id(s);
+        return symbolIds[id];
+    }
+
+    /** Taille de liste, bornée par ce qui reste à lire (au moins un octet par élément). */
+    private static int count(ByteBuffer in) throws IOException {
+        long v = readVarLong(in);
+        if (v > in.remaining()) throw new IOException("Taille de liste invalide : " + v);
+        return (int) v;
+    }
+
+    // ---------------------- Entiers variables ----------------------
+
+    private static void writeVarLong(DataOutput out, long v) throws IOException {
+        while ((v & ~0x7FL) != 0) {
+            out.writeByte((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.writeByte((int) v);
+    }
+
+    private static long readVarLong(ByteBuffer in) throws IOException {
+        long v = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.get() & 0xFF;
+            v |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return v;
+        }
+        throw new IOException("Varint trop long");
+    }
+}
@@ -0,0 +1,147 @@
+package org.example.report;
+
+import org.example.clustering.AverageLinkageClustering;
+import org.example.clustering.ModuleIdentifier;
+import org.example.coupling.CouplingExporter;
+import org.example.coupling.CouplingMatrix;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Résultats d’une analyse dans un format lisible par les outils (intégration continue, scripts) :
+ * couplage pair-à-pair, fusions du dendrogramme et modules détectés au seuil CP.
+ *
+ * JSON : un seul document ; CSV : une table par fichier (coupling.csv, dendrogram.csv, modules.csv).
+ * Les membres d’un cluster sont triés par nom, pour une sortie stable d’un lancement à l’autre.
+ * Aucune dépendance à AWT/Swing.
+ */
+public final class ReportWriter {
+
+    public enum Format { JSON, CSV }
+
+    private final String project;
+    private final String frontEnd;
+    private final CouplingMatrix matrix;
+    private final List<AverageLinkageClustering.Merge> merges;
+    private final List<ModuleIdentifier.Module> modules;
+    private final double cp;
+
+    public ReportWriter(String project, String frontEnd, CouplingMatrix matrix,
+                        List<AverageLinkageClustering.Merge> merges, List<ModuleIdentifier.Module> modules, double cp) {
+        this.project = project;
+        this.frontEnd = frontEnd;
+        this.matrix = matrix;
+        this.merges = merges;
+        this.modules = modules;
+        this.cp = cp;
+    }
+
+    /** Document JSON : en-tête (projet, nombre de classes, total des appels), puis coupling, merges et modules. */
+    public void writeJson(Writer out) throws IOException {
+        out.write("{\n");
+        out.write("  \"project\": " + CouplingExporter.json(project) + ",\n");
+        out.write("  \"frontEnd\": " + CouplingExporter.json(frontEnd) + ",\n");
+        out.write("  \"classes\": " + matrix.size() + ",\n");
+        out.write("  \"totalCalls\": " + matrix.totalCalls() + ",\n");
+        out.write("  \"cp\": " + cp + ",\n");
+
+        out.write("  \"coupling\": [");
+        Separator pairs = new Separator();
+        IOException[] failure = {null};
+        matrix.forEachPair((a, b, calls, w) -> {
+            if (failure[0] != null) return;
+            try {
+                out.write(pairs.next() + "\n    "
+                        + CouplingExporter.jsonObject(matrix.name(a), matrix.name(b), matrix.calls(a, b), matrix.calls(b, a), w));
+            } catch (IOException e) {
+                failure[0] = e;
+            }
+        });
+        if (failure[0] != null) throw failure[0];
+        out.write(pairs.close() + "],\n");
+
+        out.write("  \"merges\": [");
+        Separator sep = new Separator();
+        for (int i = 0; i < merges.size(); i++) {
+            AverageLinkageClustering.Merge m = merges.get(i);
+            out.write(sep.next() + "\n    {\"step\": " + (i + 1) + ", \"score\": " + m.score()
+                    + ", \"left\": " + jsonArray(m.left()) + ", \"right\": " + jsonArray(m.right()) + "}");
+        }
+        out.write(sep.close() + "],\n");
+
+        out.write("  \"modules\": [");
+        sep = new Separator();
+        for (int i = 0; i < modules.size(); i++) {
+            ModuleIdentifier.Module m = modules.get(i);
+            out.write(sep.next() + "\n    {\"module\": " + (i + 1) + ", \"avgCoupling\": " + m.avgCoupling()
+                    + ", \"classes\": " + jsonArray(m.classes()) + "}");
+        }
+        out.write(sep.close() + "]\n");
+        out.write("}\n");
+        out.flush();
+    }
+
+    /** Trois fichiers CSV (en-tête en première ligne) dans {@code dir}, créé si besoin ; membres séparés par « ; ». */
+    public void writeCsv(Path dir) throws IOException {
+        Files.createDirectories(dir);
+
+        try (Writer out = Files.newBufferedWriter(dir.resolve("coupling.csv"), StandardCharsets.UTF_8)) {
+            CouplingExporter.writeCsv(matrix, out);
+        }
+
+        try (Writer out = Files.newBufferedWriter(dir.resolve("dendrogram.csv"), StandardCharsets.UTF_8)) {
+            out.write("step,score,left,right\n");
+            for (int i = 0; i < merges.size(); i++) {
+                AverageLinkageClustering.Merge m = merges.get(i);
+                out.write((i + 1) + "," + m.score() + "," + CouplingExporter.csv(members(m.left())) + ","
+                        + CouplingExporter.csv(members(m.right())) + "\n");
+            }
+        }
+
+        try (Writer out = Files.newBufferedWriter(dir.resolve("modules.csv"), StandardCharsets.UTF_8)) {
+            out.write("module,avg_coupling,size,classes\n");
+            for (int i = 0; i < modules.size(); i++) {
+                ModuleIdentifier.Module m = modules.get(i);
+                out.write((i + 1) + "," + m.avgCoupling() + "," + m.classes().size() + ","
+                        + CouplingExporter.csv(members(m.classes())) + "\n");
+            }
+        }
+    }
+
+    // ---------------------- Mise en forme ----------------------
+
+    /** Virgule avant chaque élément sauf le premier ; saut de ligne avant le crochet fermant d’un tableau non vide. */
+    private static final class Separator {
+        private boolean first = true;
+
+        String next() {
+            if (first) {
+                first = false;
+                return "";
+            }
+            return ",";
+        }
+
+        String close() {
+            return first ? "" : "\n  ";
+        }
+    }
+
+    private static String jsonArray(Set<String> names) {
+        StringBuilder sb = new StringBuilder("[");
+        for (String n : new TreeSet<>(names)) {
+            if (sb.length() > 1) sb.append(", ");
+            sb.append(CouplingExporter.json(n));
+        }
+        return sb.append(']').toString();
+    }
+
+    private static String members(Set<String> names) {
+        return String.join(";", new TreeSet<>(names));
+    }
+}
@@ -4,6 +4,7 @@ import org.eclipse.jdt.core.dom.*;
 import org.example.visitor.model.AttributeInfo;
 import org.example.visitor.model.ClassInfo;
 import org.example.visitor.model.MethodInfo;
+import org.example.visitor.model.SymbolTable;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -11,16 +12,36 @@ import java.util.List;
 public class ClassVisitor extends ASTVisitor {
 
     private static final List<ClassInfo> classes = new ArrayList<>();
-    private static ClassInfo currentClass;
+    // noms de classes et de paquetages émis avec leur id (instances partagées entre fichiers)
+    private static final SymbolTable symbols = SymbolTable.global();
 
     private final CompilationUnit cu;
+    private final List<ClassInfo> target;
+    private ClassInfo currentClass;
 
-    public ClassVisitor(CompilationUnit cu) { this.cu = cu; }
+    /** Les classes visitées sont ajoutées à la liste globale {@link #getClasses()}. */
+    public ClassVisitor(CompilationUnit cu) { this(cu, classes); }
+
+    private ClassVisitor(CompilationUnit cu, List<ClassInfo> target) {
+        this.cu = cu;
+        this.target = target;
+    }
+
+    /**
+     * Extrait les classes d’une seule unité, sans toucher à la liste globale.
+     * Utilisable depuis plusieurs threads (une unité par appel).
+     */
+    public static List<ClassInfo> extract(CompilationUnit cu) {
+        List<ClassInfo> out = new ArrayList<>();
+        cu.accept(new ClassVisitor(cu, out));
+        return out;
+    }
 
     @Override
     public boolean visit(TypeDeclaration node) {
         currentClass = new ClassInfo();
-        currentClass.className = node.getName().toString();
+        currentClass.classNameId = symbols.id(node.getName().toString());
+        currentClass.className = symbols.name(currentClass.classNameId);
         if (node.getSuperclassType() != null) {
             currentClass.superClassNames.add(node.getSuperclassType().toString());
         }
@@ -31,13 +52,13 @@ public class ClassVisitor extends ASTVisitor {
         }
 
         PackageDeclaration pkg = cu.getPackage();
-        if (pkg != null) {
-            currentClass.packageName = pkg.getName().getFullyQualifiedName();
-        } else {
-            currentClass.packageName = "(default package)";
-        }
+        String packageName = (pkg != null) ? pkg.getName().getFullyQualifiedName() : "(default package)";
+        currentClass.packageNameId = symbols.id(packageName);
+        currentClass.packageName = symbols.name(currentClass.packageNameId);
+        currentClass.qualifiedNameId = symbols.id(qualifiedName(node, pkg));
+        currentClass.qualifiedName = symbols.name(currentClass.qualifiedNameId);
 
-        classes.add(currentClass);
+        target.add(currentClass);
         return true;
     }
 
@@ -84,6 +105,19 @@ public class ClassVisitor extends ASTVisitor {
         return false;
     }
 
+    /**
+     * paquetage.Externe.Interne, tiré de l’AST (même forme que ITypeBinding.getQualifiedName, sans dépendre
+     * de la résolution des bindings) ; nom simple seul dans le paquetage par défaut.
+     */
+    private static String qualifiedName(TypeDeclaration node, PackageDeclaration pkg) {
+        StringBuilder name = new StringBuilder(node.getName().getIdentifier());
+        for (ASTNode n = node.getParent(); n != null; n = n.getParent()) {
+            if (n instanceof AbstractTypeDeclaration outer) name.insert(0, outer.getName().getIdentifier() + ".");
+        }
+        if (pkg != null) name.insert(0, pkg.getName().getFullyQualifiedName() + ".");
+        return name.toString();
+    }
+
     public static List<ClassInfo> getClasses() {
         return classes;
     }
@@ -3,12 +3,17 @@ package org.example.visitor;
 import org.eclipse.jdt.core.dom.*;
 import org.example.visitor.model.MethodCallInfo;
 import org.example.visitor.model.MethodInfo;
+import org.example.visitor.model.SymbolTable;
 
 public class MethodVisitor extends ASTVisitor {
 
+    // noms de méthodes et types receveurs émis avec leur id : une instance par nom, pas une par site d’appel
+    private static final SymbolTable symbols = SymbolTable.global();
+
     private final MethodInfo methodInfo;
     private final CompilationUnit cu;
     private final StaticImportIndex staticIndex;
+    private final TypeImportIndex typeImports;
 
     public MethodVisitor(MethodInfo methodInfo) {
         this(methodInfo, null, null);
@@ -18,13 +23,15 @@ public class MethodVisitor extends ASTVisitor {
         this.methodInfo = methodInfo;
         this.cu = cu;
         this.staticIndex = index;
+        this.typeImports = new TypeImportIndex(cu);
     }
 
 
     @Override
     public boolean visit(MethodInvocation node) {
         MethodCallInfo call = new MethodCallInfo();
-        call.methodName = node.getName().toString();
+        call.methodNameId = symbols.id(node.getName().toString());
+        call.methodName = symbols.name(call.methodNameId);
 
         IMethodBinding mb = node.resolveMethodBinding();
         Expression expr = node.getExpression();
@@ -32,46 +39,59 @@ public class MethodVisitor extends ASTVisitor {
         // Classe englobante (pour comparer interne/externe)
         ITypeBinding enclosing = getEnclosingTypeBinding(node);
         String enclosingSimple = simpleTypeName(enclosing);
+        String enclosingQualified = qualifiedTypeName(enclosing);
 
+        // nom simple (affichage) et nom qualifié (identité, comparé à ClassInfo.qualifiedName)
         String receiver;
+        String receiverQualified;
 
         if (expr != null) {
             // --- cas qualifié: obj.m()
             ITypeBinding tb = expr.resolveTypeBinding();
             if (tb != null) {
                 receiver = simpleTypeName(tb);
+                receiverQualified = qualifiedTypeName(tb);
             } else if (mb != null && mb.getDeclaringClass() != null) {
                 receiver = simpleTypeName(mb.getDeclaringClass());
+                receiverQualified = qualifiedTypeName(mb.getDeclaringClass());
             } else {
                 receiver = expr.toString();
+                receiverQualified = typeImports.qualify(receiver);
             }
         } else {
             // --- cas non qualifié: m()
             // 1) binding dispo ? (résout aussi super.m(), ou m() dans autre type si classpath OK)
             if (mb != null && mb.getDeclaringClass() != null) {
                 receiver = simpleTypeName(mb.getDeclaringClass());
+                receiverQualified = qualifiedTypeName(mb.getDeclaringClass());
             } else {
                 // 2) import static explicite: import static a.b.C.m;
                 String ownerFqn = (staticIndex != null) ? staticIndex.ownerFqnForMethod(call.methodName) : null;
                 if (ownerFqn != null) {
                     receiver = StaticImportIndex.simpleNameFromFqn(ownerFqn);
+                    receiverQualified = ownerFqn;
                 } else {
                     // 3) import static a.b.C.* (unique) → on attribue à C
                     String starFqn = (staticIndex != null) ? staticIndex.uniqueStarOwnerFqnOrNull() : null;
                     if (starFqn != null) {
                         receiver = StaticImportIndex.simpleNameFromFqn(starFqn);
+                        receiverQualified = starFqn;
                     } else {
                         // 4) fallback: classe englobante (comportement historique)
                         receiver = (enclosingSimple != null) ? enclosingSimple : "<?>";
+                        receiverQualified = (enclosingQualified != null) ? enclosingQualified : "<?>";
                     }
                 }
             }
         }
 
-        call.receiverType = receiver;
+        call.receiverTypeId = symbols.id(receiver);
+        call.receiverType = symbols.name(call.receiverTypeId);
+        call.receiverQualifiedTypeId = symbols.id(receiverQualified);
+        call.receiverQualifiedType = symbols.name(call.receiverQualifiedTypeId);
 
-        // externalType = vrai si la classe destinataire != classe englobante
-        call.externalType = receiver != null && enclosingSimple != null && !receiver.equals(enclosingSimple);
+        // externalType = vrai si la classe destinataire != classe englobante (comparées par nom qualifié)
+        call.externalType = !receiverQualified.equals(enclosingQualified);
 
         methodInfo.methodCalls.add(call);
         return super.visit(node);
@@ -123,4 +143,42 @@ public class MethodVisitor extends ASTVisitor {
         String name = tb.getName();
         return (name == null || name.isEmpty()) ? "<?>": name;
     }
+
+    /**
+     * Pendant qualifié de {@link #simpleTypeName} (mêmes règles pour tableaux, anonymes et génériques) ;
+     * une classe locale, sans nom qualifié, garde son nom simple. Binding récupéré (type d’un autre fichier,
+     * parsé sans sourcepath) : un nom simple est placé par JDT dans le paquetage courant, sans tenir compte
+     * des imports ; on s’en tient alors aux imports de l’unité. Un nom écrit qualifié (b.Node, Outer.Inner) est gardé
+     * tel qu’écrit, premier segment qualifié par les imports.
+     */
+    private String qualifiedTypeName(ITypeBinding tb) {
+        if (tb == null) return "<?>";
+
+        if (tb.isArray()) {
+            return qualifiedTypeName(tb.getElementType()) + "[]";
+        }
+        if (tb.isRecovered() || (tb.getErasure() != null && tb.getErasure().isRecovered())) {
+            String guess = (tb.getErasure() != null) ? tb.getErasure().getQualifiedName() : tb.getQualifiedName();
+            String pkg = (cu != null && cu.getPackage() != null) ? cu.getPackage().getName().getFullyQualifiedName() + "." : "";
+            String rest = guess.startsWith(pkg) ? guess.substring(pkg.length()) : guess;
+            return typeImports.qualify(rest.indexOf('.') < 0 ? rest : guess);
+        }
+        if (tb.isPrimitive() || tb.isNullType() || tb.isTypeVariable()) {
+            return tb.getName();
+        }
+        if (tb.isAnonymous()) {
+            ITypeBinding sup = tb.getSuperclass();
+            if (sup != null && !"java.lang.Object".equals(sup.getQualifiedName())) {
+                return qualifiedTypeName(sup);
+            }
+            ITypeBinding[] ifaces = tb.getInterfaces();
+            if (ifaces != null && ifaces.length > 0) {
+                return qualifiedTypeName(ifaces[0]);
+            }
+            return "Anonymous";
+        }
+        ITypeBinding erasure = tb.getErasure();
+        String name = (erasure != null) ? erasure.getQualifiedName() : tb.getQualifiedName();
+        return (name == null || name.isEmpty()) ? simpleTypeName(tb) : name;
+    }
 }
@@ -0,0 +1,43 @@
+package org.example.visitor;
+
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.ImportDeclaration;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Imports de types simples d’une unité ({@code import a.b.C;}) : nom qualifié d’un type dont le binding n’est
+ * pas résolu (fichier parsé seul, sans sourcepath). Ne lit que le fichier : l’extraction reste indépendante
+ * des autres fichiers, comme l’exige le cache.
+ */
+final class TypeImportIndex {
+    // "C" -> "a.b.C" pour import a.b.C;
+    private final Map<String, String> fqnBySimpleName = new HashMap<>();
+
+    TypeImportIndex(CompilationUnit cu) {
+        if (cu == null) return;
+        @SuppressWarnings("unchecked")
+        List<ImportDeclaration> imports = cu.imports();
+        if (imports == null) return;
+
+        for (ImportDeclaration id : imports) {
+            if (id.isStatic() || id.isOnDemand()) continue;
+            String qn = id.getName().getFullyQualifiedName();
+            fqnBySimpleName.put(StaticImportIndex.simpleNameFromFqn(qn), qn);
+        }
+    }
+
+    /**
+     * {@code name} (C ou Externe.Interne) dont le premier segment est qualifié s’il est importé explicitement ;
+     * sinon le nom tel quel (paquetage courant ou import à la demande : résolu plus tard, à la construction
+     * de la matrice de couplage).
+     */
+    String qualify(String name) {
+        int dot = name.indexOf('.');
+        String first = (dot < 0) ? name : name.substring(0, dot);
+        String fqn = fqnBySimpleName.get(first);
+        return (fqn == null) ? name : fqn + name.substring(first.length());
+    }
+}
@@ -0,0 +1,154 @@
+package org.example.visitor.model;
+
+import java.util.List;
+
+/**
+ * Sites d’appel du modèle en colonnes : un tableau d’int par attribut au lieu d’un MethodCallInfo par appel
+ * (pas d’en-tête ni de pointeur par site, parcours séquentiel en mémoire). Le site k est
+ * (classe appelante, méthode appelante, type receveur, méthode appelée) ; les noms sont des ids de
+ * {@link SymbolTable#global()}, le type receveur et l’identité des classes par leur nom qualifié ({@link SymbolTable#classId}). Les sites sont rangés par classe appelante, dans l’ordre des ClassInfo
+ * puis des méthodes et des appels : {@link #firstCall}/{@link #endCall} bornent ceux d’une classe.
+ *
+ * Classe c : c-ième ClassInfo de la liste d’origine (doublons compris). Méthode : numérotation globale,
+ * dans le même ordre. Immuable une fois construite ; les parcours par index n’allouent rien.
+ */
+public final class CallSiteTable {
+
+    private final int[] classIds;       // classe -> id du nom qualifié (identité)
+    private final int[] classNameIds;   // classe -> id du nom simple (affichage)
+    private final int[] packageIds;     // classe -> id du paquetage
+    private final int[] classStart;     // classe -> premier site (classCount + 1 entrées)
+    private final int[] methodClass;    // méthode -> classe
+    private final int[] methodNameIds;  // méthode -> id du nom
+
+    private final int[] callerClass;
+    private final int[] callerMethod;
+    private final int[] receiver;
+    private final int[] methodName;
+
+    private CallSiteTable(int[] classIds, int[] classNameIds, int[] packageIds, int[] classStart, int[] methodClass, int[] methodNameIds,
+                          int[] callerClass, int[] callerMethod, int[] receiver, int[] methodName) {
+        this.classIds = classIds;
+        this.classNameIds = classNameIds;
+        this.packageIds = packageIds;
+        this.classStart = classStart;
+        this.methodClass = methodClass;
+        this.methodNameIds = methodNameIds;
+        this.callerClass = callerClass;
+        this.callerMethod = callerMethod;
+        this.receiver = receiver;
+        this.methodName = methodName;
+    }
+
+    /** Deux passes sur le modèle : dénombrement (tableaux à la bonne taille), puis remplissage. */
+    public static CallSiteTable of(List<ClassInfo> classes) {
+        SymbolTable symbols = SymbolTable.global();
+        int methods = 0, calls = 0;
+        for (ClassInfo ci : classes) {
+            methods += ci.methods.size();
+            for (MethodInfo m : ci.methods) calls += m.methodCalls.size();
+        }
+
+        int[] classIds = new int[classes.size()];
+        int[] classNameIds = new int[classes.size()];
+        int[] packageIds = new int[classes.size()];
+        int[] classStart = new int[classes.size() + 1];
+        int[] methodClass = new int[methods];
+        int[] methodNameIds = new int[methods];
+        int[] callerClass = new int[calls];
+        int[] callerMethod = new int[calls];
+        int[] receiver = new int[calls];
+        int[] methodName = new int[calls];
+
+        int mi = 0, k = 0;
+        for (int c = 0; c < classes.size(); c++) {
+            ClassInfo ci = classes.get(c);
+            classIds[c] = symbols.classId(ci);
+            classNameIds[c] = symbols.idOf(ci.classNameId, ci.className);
+            packageIds[c] = symbols.idOf(ci.packageNameId, ci.packageName);
+            classStart[c] = k;
+            for (MethodInfo m : ci.methods) {
+                methodClass[mi] = c;
+                methodNameIds[mi] = symbols.id(m.name);
+                for (MethodCallInfo mc : m.methodCalls) {
+                    callerClass[k] = c;
+                    callerMethod[k] = mi;
+                    receiver[k] = symbols.receiverId(mc);
+                    methodName[k] = symbols.idOf(mc.methodNameId, mc.methodName);
+                    k++;
+                }
+                mi++;
+            }
+        }
+        classStart[classes.size()] = k;
+        return new CallSiteTable(classIds, classNameIds, packageIds, classStart, methodClass, methodNameIds,
+                callerClass, callerMethod, receiver, methodName);
+    }
+
+    /** Nombre de sites d’appel. */
+    public int size() {
+        return receiver.length;
+    }
+
+    public int classCount() {
+        return classNameIds.length;
+    }
+
+    public int methodCount() {
+        return methodClass.length;
+    }
+
+    /** Id du nom qualifié de la classe c : deux classes de même id sont la même classe. */
+    public int classId(int c) {
+        return classIds[c];
+    }
+
+    /** Id du nom simple de la classe c. */
+    public int classNameId(int c) {
+        return classNameIds[c];
+    }
+
+    /** Id du paquetage de la classe c. */
+    public int packageId(int c) {
+        return packageIds[c];
+    }
+
+    /** Premier site d’appel de la classe c (inclus). */
+    public int firstCall(int c) {
+        return classStart[c];
+    }
+
+    /** Fin des sites d’appel de la classe c (exclue). */
+    public int endCall(int c) {
+        return classStart[c + 1];
+    }
+
+    public int methodClass(int method) {
+        return methodClass[method];
+    }
+
+    public int methodNameId(int method) {
+        return methodNameIds[method];
+    }
+
+    public int callerClass(int k) {
+        return callerClass[k];
+    }
+
+    public int callerMethod(int k) {
+        return callerMethod[k];
+    }
+
+    /**
+     * Id du nom qualifié du type receveur du site k (comparable à {@link #classId}) ; nom simple seul si
+     * l’extracteur n’a pas pu le qualifier (voir CouplingMatrix.build).
+     */
+    public int receiver(int k) {
+        return receiver[k];
+    }
+
+    /** Id du nom de la méthode appelée au site k. */
+    public int methodName(int k) {
+        return methodName[k];
+    }
+}
@@ -1,11 +1,23 @@
 package org.example.visitor.model;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 
-public class ClassInfo {
+public class ClassInfo implements Serializable {
+    private static final long serialVersionUID = 1L;
+
     public String className;
     public String packageName;
+    /** Ids de className et packageName dans {@link SymbolTable#global()} ; non sérialisés (réattribués au chargement). */
+    public transient int classNameId;
+    public transient int packageNameId;
+    /**
+     * Nom qualifié (paquetage.Classe) : identité de la classe pour le couplage, deux classes de même nom simple
+     * dans deux paquetages restent distinctes ; {@link #className} n’est que le nom affiché. Id non sérialisé.
+     */
+    public String qualifiedName;
+    public transient int qualifiedNameId;
     public List<String> superClassNames = new ArrayList<>();
     public List<AttributeInfo> attributes = new ArrayList<>();
     public List<MethodInfo> methods = new ArrayList<>();
@@ -1,9 +1,12 @@
 package org.example.visitor.model;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 
-public class MethodInfo {
+public class MethodInfo implements Serializable {
+    private static final long serialVersionUID = 1L;
+
     public String name;
     public int lineCount;
     public int paramsCount;
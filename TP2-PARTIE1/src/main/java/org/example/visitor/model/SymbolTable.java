@@ -0,0 +1,101 @@
+package org.example.visitor.model;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Table des noms du modèle (classes, paquetages, méthodes appelées, types receveurs) : chaque nom distinct reçoit
+ * un identifiant dense (1, 2, 3…) et une seule instance String est conservée, partagée par tous les sites d’appel.
+ * Une seule table par processus ({@link #global()}), commune aux extracteurs, au cache et aux instantanés :
+ * deux objets du modèle portant le même id désignent le même nom, quelle que soit leur origine.
+ * Id 0 : nom absent (null), ou id pas encore attribué (objet construit à la main, relu d’un cache).
+ * Thread-safe : les fichiers sont extraits en parallèle ; les ids ne sont jamais réutilisés.
+ */
+public final class SymbolTable {
+
+    private static final SymbolTable GLOBAL = new SymbolTable();
+
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile String[] names = new String[1024];
+    private int size = 1; // id 0 réservé
+
+    private SymbolTable() {
+    }
+
+    public static SymbolTable global() {
+        return GLOBAL;
+    }
+
+    /** Id du nom, attribué au premier appel ; 0 pour null. */
+    public int id(String name) {
+        if (name == null) return 0;
+        Integer id = ids.get(name);
+        return (id != null) ? id : assign(name);
+    }
+
+    /** Id du nom s’il est déjà attribué, sans l’attribuer (recherche seule) ; 0 pour null ou un nom inconnu. */
+    public int lookup(String name) {
+        if (name == null) return 0;
+        Integer id = ids.get(name);
+        return (id != null) ? id : 0;
+    }
+
+    private synchronized int assign(String name) {
+        Integer id = ids.get(name);
+        if (id != null) return id;
+        if (size == names.length) names = Arrays.copyOf(names, size * 2);
+        names[size] = name; // écrit avant la publication de l’id
+        ids.put(name, size);
+        return size++;
+    }
+
+    /** Instance partagée du nom d’id {@code id} ; null pour 0. */
+    public String name(int id) {
+        return (id == 0) ? null : names[id];
+    }
+
+    /** Borne (exclue) des ids attribués : un tableau de cette taille est indexable par tout id déjà connu. */
+    public synchronized int size() {
+        return size;
+    }
+
+    /** Attribue les ids d’une classe et de ses appels, et remplace leurs noms par les instances partagées. */
+    public ClassInfo intern(ClassInfo ci) {
+        ci.classNameId = id(ci.className);
+        ci.className = name(ci.classNameId);
+        ci.packageNameId = id(ci.packageName);
+        ci.packageName = name(ci.packageNameId);
+        ci.qualifiedNameId = id(ci.qualifiedName);
+        ci.qualifiedName = name(ci.qualifiedNameId);
+        for (MethodInfo m : ci.methods) {
+            for (MethodCallInfo call : m.methodCalls) {
+                call.methodNameId = id(call.methodName);
+                call.methodName = name(call.methodNameId);
+                call.receiverTypeId = id(call.receiverType);
+                call.receiverType = name(call.receiverTypeId);
+                call.receiverQualifiedTypeId = id(call.receiverQualifiedType);
+                call.receiverQualifiedType = name(call.receiverQualifiedTypeId);
+            }
+        }
+        return ci;
+    }
+
+    /** Id connu de l’objet, ou calculé depuis son nom s’il n’a pas été attribué (sans modifier l’objet). */
+    public int idOf(int id, String name) {
+        return (id != 0 || name == null) ? id : id(name);
+    }
+
+    /** Id de l’identité de la classe : son nom qualifié, ou à défaut (objet construit à la main) son nom simple. */
+    public int classId(ClassInfo ci) {
+        return (ci.qualifiedNameId != 0 || ci.qualifiedName != null)
+                ? idOf(ci.qualifiedNameId, ci.qualifiedName)
+                : idOf(ci.classNameId, ci.className);
+    }
+
+    /** Id du type receveur de l’appel, même règle que {@link #classId}. */
+    public int receiverId(MethodCallInfo call) {
+        return (call.receiverQualifiedTypeId != 0 || call.receiverQualifiedType != null)
+                ? idOf(call.receiverQualifiedTypeId, call.receiverQualifiedType)
+                : idOf(call.receiverTypeId, call.receiverType);
+    }
+}